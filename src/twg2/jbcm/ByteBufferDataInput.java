@@ -0,0 +1,210 @@
+package twg2.jbcm;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** A {@link DataInput} backed by a {@link ByteBuffer} (such as a memory-mapped file or a wrapped {@code byte[]}).
+ * Values are decoded with absolute index reads, the buffer's own position is never modified.
+ * This allows the existing {@code readData(DataInput)} implementations to parse directly from the buffer
+ * without an intermediate stream copy or per-byte virtual calls.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ByteBufferDataInput implements DataInput {
+	private final ByteBuffer buf;
+	private final int start;
+	private final int limit;
+	private int pos;
+
+
+	/** Create a data input which reads from {@code buf}'s current position to its limit
+	 * @param buf the buffer to read, the byte order is ignored, values are always read big-endian as required by {@link DataInput}
+	 */
+	public ByteBufferDataInput(ByteBuffer buf) {
+		this(buf, buf.position(), buf.limit());
+	}
+
+
+	/** Create a data input which reads a range of a buffer
+	 * @param buf the buffer to read, the byte order is ignored, values are always read big-endian as required by {@link DataInput}
+	 * @param start the absolute buffer index at which to start reading
+	 * @param limit the absolute buffer index at which to stop reading (exclusive)
+	 */
+	public ByteBufferDataInput(ByteBuffer buf, int start, int limit) {
+		if(start < 0 || start > limit || limit > buf.capacity()) {
+			throw new IndexOutOfBoundsException("buffer range [" + start + ", " + limit + ") is not within buffer capacity " + buf.capacity());
+		}
+		this.buf = buf.order() == ByteOrder.BIG_ENDIAN ? buf : buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.start = start;
+		this.limit = limit;
+		this.pos = start;
+	}
+
+
+	public ByteBufferDataInput(byte[] b, int off, int len) {
+		this(ByteBuffer.wrap(b, off, len));
+	}
+
+
+	/**
+	 * @return the number of bytes read so far, same as {@link DataCountingInputStream#bytesRead()}
+	 */
+	public int bytesRead() {
+		return pos - start;
+	}
+
+
+	/**
+	 * @return the absolute index in the underlying buffer of the next byte to read
+	 */
+	public int position() {
+		return pos;
+	}
+
+
+	/**
+	 * @return the number of bytes remaining before the end of the buffer
+	 */
+	public int remaining() {
+		return limit - pos;
+	}
+
+
+	/**
+	 * @return the underlying buffer, the returned buffer's position is not tied to this input's position
+	 */
+	public ByteBuffer getBuffer() {
+		return buf;
+	}
+
+
+	@Override
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+
+	@Override
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		int idx = require(len);
+		buf.get(idx, b, off, len);
+	}
+
+
+	@Override
+	public int skipBytes(int n) throws IOException {
+		int skip = Math.max(0, Math.min(n, limit - pos));
+		pos += skip;
+		return skip;
+	}
+
+
+	@Override
+	public boolean readBoolean() throws IOException {
+		return buf.get(require(1)) != 0;
+	}
+
+
+	@Override
+	public byte readByte() throws IOException {
+		return buf.get(require(1));
+	}
+
+
+	@Override
+	public int readUnsignedByte() throws IOException {
+		return buf.get(require(1)) & 0xFF;
+	}
+
+
+	@Override
+	public short readShort() throws IOException {
+		return buf.getShort(require(2));
+	}
+
+
+	@Override
+	public int readUnsignedShort() throws IOException {
+		return buf.getShort(require(2)) & 0xFFFF;
+	}
+
+
+	@Override
+	public char readChar() throws IOException {
+		return buf.getChar(require(2));
+	}
+
+
+	@Override
+	public int readInt() throws IOException {
+		return buf.getInt(require(4));
+	}
+
+
+	@Override
+	public long readLong() throws IOException {
+		return buf.getLong(require(8));
+	}
+
+
+	@Override
+	public float readFloat() throws IOException {
+		return buf.getFloat(require(4));
+	}
+
+
+	@Override
+	public double readDouble() throws IOException {
+		return buf.getDouble(require(8));
+	}
+
+
+	/** Not used by the class file format, reads bytes up to a '\n', '\r', or '\r\n' line terminator
+	 */
+	@Override
+	public String readLine() throws IOException {
+		if(pos >= limit) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		while(pos < limit) {
+			int ch = buf.get(pos++) & 0xFF;
+			if(ch == '\n') {
+				break;
+			}
+			if(ch == '\r') {
+				if(pos < limit && buf.get(pos) == '\n') {
+					pos++;
+				}
+				break;
+			}
+			sb.append((char)ch);
+		}
+		return sb.toString();
+	}
+
+
+	@Override
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+
+
+	/** Advance the read position by {@code len} bytes
+	 * @return the absolute buffer index at which the {@code len} bytes start
+	 * @throws EOFException if fewer than {@code len} bytes remain
+	 */
+	private int require(int len) throws EOFException {
+		int idx = pos;
+		if(len > limit - idx) {
+			throw new EOFException("attempt to read " + len + " bytes at buffer index " + idx + ", only " + (limit - idx) + " bytes remaining");
+		}
+		pos = idx + len;
+		return idx;
+	}
+
+}
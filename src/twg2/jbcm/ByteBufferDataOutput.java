@@ -0,0 +1,159 @@
+package twg2.jbcm;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** A {@link DataOutput} which writes to a {@link ByteBuffer} using absolute index puts, the counterpart to {@link ByteBufferDataInput}.
+ * The buffer's own position is never modified. The output does not grow, writes past the buffer's limit
+ * throw {@link BufferOverflowException}, so the buffer should be sized beforehand (see {@link DataCountingOutput}).
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ByteBufferDataOutput implements DataOutput {
+	private final ByteBuffer buf;
+	private final int start;
+	private final int limit;
+	private int pos;
+
+
+	/** Create a data output which writes from {@code buf}'s current position to its limit
+	 * @param buf the buffer to write to, the byte order is ignored, values are always written big-endian as required by {@link DataOutput}
+	 */
+	public ByteBufferDataOutput(ByteBuffer buf) {
+		this.buf = buf.order() == ByteOrder.BIG_ENDIAN ? buf : buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.start = buf.position();
+		this.limit = buf.limit();
+		this.pos = start;
+	}
+
+
+	public ByteBufferDataOutput(byte[] b) {
+		this(ByteBuffer.wrap(b));
+	}
+
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public int bytesWritten() {
+		return pos - start;
+	}
+
+
+	/**
+	 * @return the absolute buffer index of the next byte to be written
+	 */
+	public int position() {
+		return pos;
+	}
+
+
+	private int advance(int len) {
+		int p = pos;
+		if(len > limit - p) {
+			throw new BufferOverflowException();
+		}
+		pos = p + len;
+		return p;
+	}
+
+
+	@Override
+	public void write(int b) throws IOException {
+		buf.put(advance(1), (byte)b);
+	}
+
+
+	@Override
+	public void write(byte[] b) throws IOException {
+		write(b, 0, b.length);
+	}
+
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		buf.put(advance(len), b, off, len);
+	}
+
+
+	@Override
+	public void writeBoolean(boolean v) throws IOException {
+		buf.put(advance(1), (byte)(v ? 1 : 0));
+	}
+
+
+	@Override
+	public void writeByte(int v) throws IOException {
+		buf.put(advance(1), (byte)v);
+	}
+
+
+	@Override
+	public void writeShort(int v) throws IOException {
+		buf.putShort(advance(2), (short)v);
+	}
+
+
+	@Override
+	public void writeChar(int v) throws IOException {
+		buf.putChar(advance(2), (char)v);
+	}
+
+
+	@Override
+	public void writeInt(int v) throws IOException {
+		buf.putInt(advance(4), v);
+	}
+
+
+	@Override
+	public void writeLong(long v) throws IOException {
+		buf.putLong(advance(8), v);
+	}
+
+
+	@Override
+	public void writeFloat(float v) throws IOException {
+		buf.putFloat(advance(4), v);
+	}
+
+
+	@Override
+	public void writeDouble(double v) throws IOException {
+		buf.putDouble(advance(8), v);
+	}
+
+
+	@Override
+	public void writeBytes(String s) throws IOException {
+		int p = advance(s.length());
+		for(int i = 0, size = s.length(); i < size; i++) {
+			buf.put(p + i, (byte)s.charAt(i));
+		}
+	}
+
+
+	@Override
+	public void writeChars(String s) throws IOException {
+		int p = advance(s.length() * 2);
+		for(int i = 0, size = s.length(); i < size; i++) {
+			buf.putChar(p + i * 2, s.charAt(i));
+		}
+	}
+
+
+	@Override
+	public void writeUTF(String s) throws IOException {
+		byte[] bytes = ModifiedUtf8.encode(s);
+		if(bytes.length > 0xFFFF) {
+			throw new UTFDataFormatException("encoded string too long: " + bytes.length + " bytes");
+		}
+		writeShort(bytes.length);
+		write(bytes, 0, bytes.length);
+	}
+
+}
@@ -21,7 +21,8 @@ public class CodeFlow {
 	public static final int GOTO_SIZE = 3;
 
 
-	/** Starting at a given point in a bytecode array, follow code jumps and branches to all termination (return/throw) points potentially reachable from the starting point
+	/** Starting at a given point in a bytecode array, follow code jumps and branches to all termination (return/throw) points potentially reachable from the starting point.<br/>
+	 * Switches and exception handlers are not followed and each jump recurses, see {@link twg2.jbcm.ir.ControlFlowGraph} for large methods.
 	 * @param idx the starting point
 	 * @param instr the bytecode array
 	 * @param dstPath the list to add jumps, branches/conditions, returns, and throw instruction locations to
@@ -39,11 +40,11 @@ public class CodeFlow {
 
 	public static int getFlowPaths(byte[] code, int idx, int max, IntArrayList dstPath, int pathJumps) {
 		for(int i = idx; i < max; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
+			int opcode = code[i];
 
 			// Type.JUMP instruction set includes all Type.CONDITION instructions
-			if(opc.hasBehavior(Type.JUMP)) {
+			if(OpcodeTables.hasBehavior(opcode, Type.JUMP)) {
+				Opcodes opc = Opcodes.get(opcode);
 				// skip the jump path if it has already been followed and this is the beginning (to avoid loops)
 				if(dstPath.contains(~i) && pathJumps == 0) {
 					break;
@@ -63,13 +64,14 @@ public class CodeFlow {
 				}
 			}
 			// end this code flow path once a terminal instruction is reached
-			else if(opc.hasBehavior(Type.RETURN) || opc == Opcodes.ATHROW) {
+			else if(OpcodeTables.hasBehavior(opcode, Type.RETURN) || Opcodes.ATHROW.is(opcode)) {
 				dstPath.add(i);
 				pathJumps = 0;
 				break;
 			}
 
-			i += (numOperands < 0 ? 0 : numOperands);
+			int len = OpcodeTables.length(opcode);
+			i += (len > 0 ? len : CodeUtility.instructionLength(code, i)) - 1;
 		}
 
 		return pathJumps;
@@ -80,38 +82,40 @@ public class CodeFlow {
 	 * @param code the code array
 	 * @param offset the offset into the code array at which to start finding instructions
 	 * @param length the number of bytes of the code array to check through
-	 * @return
+	 * @return the jump conditions and loops found, sorted by {@link JumpConditionInfo#getLowerIndex()}
+	 * @see #findFlowConditions(InstructionIndex, int, int)
 	 */
 	public static List<JumpConditionInfo> findFlowConditions(byte[] code, int offset, int length) {
+		return findFlowConditions(InstructionIndex.decode(code), offset, length);
+	}
+
+
+	/** Find jump conditions and guess which backward jumps are loops, see {@link twg2.jbcm.ir.LoopForest} for exact natural loop detection
+	 * @param index the decoded code array, see {@link twg2.jbcm.classFormat.attributes.Code#getInstructionIndex()}
+	 * @param offset the offset into the code array at which to start finding instructions
+	 * @param length the number of bytes of the code array to check through
+	 * @return the jump conditions and loops found, sorted by {@link JumpConditionInfo#getLowerIndex()}
+	 */
+	public static List<JumpConditionInfo> findFlowConditions(InstructionIndex index, int offset, int length) {
 		var conditions = new ArrayList<JumpConditionInfo>(); // track GOTO/IF_* loops detected in the code
+		byte[] code = index.getCode();
 
 		// BYTECODE LOOP:
-		for(int i = offset, size = offset + length; i < size; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
-			// Special handling for instructions with unpredictable byte code lengths
-			if(numOperands == Opcodes.Const.UNPREDICTABLE) {
-				if(Opcodes.WIDE.is(code[i])) {
-					i++; // WIDE opcodes are nested around other operations 
-					opc = Opcodes.get(code[i]);
-					numOperands = opc.getOperandCount() * 2; // WIDE opcodes double the operands of the widened opcode
-				}
-				else if(Opcodes.TABLESWITCH.is(code[i])) {
-					throw new IllegalStateException("tableswitch code handling not implemented");
-				}
-				else if(Opcodes.LOOKUPSWITCH.is(code[i])) {
-					throw new IllegalStateException("lookupswitch code handling not implemented");
-				}
+		for(int n = firstInstructionFrom(index, offset), size = offset + length, count = index.size(); n < count && index.getStart(n) < size; n++) {
+			int i = index.getStart(n);
+			Opcodes opc = index.getOpcode(n);
+			// switch targets are not tracked as conditions
+			if(!opc.hasBehavior(Opcodes.Type.JUMP)) {
+				continue;
 			}
-			int jumpRelative = CodeUtility.loadOperands(numOperands, code, i);
+			int jumpRelative = index.getOperand(n) - i;
 
 			// form 1: [..., GOTO <setup_if[0]>, instructions[], setup_if[], IF_* <instructions[0]>, ...]  - for()/while() forward GOTO, condition after loop with backward jump
 			// form 2: [..., setup_if[], IF_* <after[0]>, instructions[], GOTO <setup_if[0]>, after[], ...]  - for()/while() condition before loop with forward jump, backward GOTO
 			// form 3: [..., instructions[], setup_if[], IF_* <instructions[0]>, after[], ...]  - do{}while() condition after loop with backward jump
-			var isJump = opc.hasBehavior(Opcodes.Type.JUMP);
 			// backward jump, required for a loop (thought experiment: create a loop, using Java bytecodes, that does not jump backward)
 			// although a code obfuscator could re-arrange code and include backward jumps so not all backward jumps are loops
-			if(isJump && jumpRelative < 0) {
+			if(jumpRelative < 0) {
 				conditions.add(JumpConditionInfo.loadConditionFlow(opc, i, jumpRelative, code, UsageHint.FOR_OR_WHILE_LOOP));
 				// 'for' or 'while' loop has to evaluate the condition first so it needs an IF or GOTO at the beginning
 				// 'do-while' loop evaluates condition after loop runs once, only compiled form seen so far is: no GOTO and one backward jump at the end
@@ -119,7 +123,6 @@ public class CodeFlow {
 			else if(opc.hasBehavior(Opcodes.Type.CONDITION)) {
 				conditions.add(JumpConditionInfo.loadConditionFlow(opc, i, jumpRelative, code, UsageHint.IF));
 			}
-			i += (numOperands < 0) ? 0 : numOperands;
 		}
 
 		Collections.sort(conditions, JumpConditionInfo.LOWER_INDEX_SORTER);
@@ -203,32 +206,22 @@ public class CodeFlow {
 
 
 	public static boolean containsJumpTo(byte[] code, int offset, int length, int targetIndex) {
-		// BYTECODE LOOP:
-		for(int i = offset, size = offset + length; i < size; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
-			// Special handling for instructions with unpredictable byte code lengths
-			if(numOperands == Opcodes.Const.UNPREDICTABLE) {
-				if(Opcodes.WIDE.is(code[i])) {
-					i++; // WIDE opcodes are nested around other operations
-					opc = Opcodes.get(code[i]);
-					numOperands = opc.getOperandCount() * 2; // WIDE opcodes double the operands of the widened opcode
-				}
-				else if(Opcodes.TABLESWITCH.is(code[i])) {
-					throw new IllegalStateException("tableswitch code handling not implemented");
-				}
-				else if(Opcodes.LOOKUPSWITCH.is(code[i])) {
-					throw new IllegalStateException("lookupswitch code handling not implemented");
-				}
-			}
-			if(opc.hasBehavior(Opcodes.Type.JUMP)) {
-				int jumpRelative = CodeUtility.loadOperands(numOperands, code, i);
-				if(i + jumpRelative == targetIndex) {
-					return true;
-				}
-			}
+		return containsJumpTo(InstructionIndex.decode(code), offset, length, targetIndex);
+	}
+
 
-			i += (numOperands < 0) ? 0 : numOperands;
+	/** Check if any jump instruction in a range of code jumps to a specific code index
+	 * @param index the decoded code array
+	 * @param offset the offset into the code array at which to start finding instructions
+	 * @param length the number of bytes of the code array to check through
+	 * @param targetIndex the jump destination code index to look for
+	 * @return true if a jump instruction starting in the code range jumps to {@code targetIndex}
+	 */
+	public static boolean containsJumpTo(InstructionIndex index, int offset, int length, int targetIndex) {
+		for(int n = firstInstructionFrom(index, offset), size = offset + length, count = index.size(); n < count && index.getStart(n) < size; n++) {
+			if(index.getOperand(n) == targetIndex && index.getOpcode(n).hasBehavior(Opcodes.Type.JUMP)) {
+				return true;
+			}
 		}
 		return false;
 	}
@@ -243,6 +236,18 @@ public class CodeFlow {
 	}
 
 
+	private static int firstInstructionFrom(InstructionIndex index, int offset) {
+		if(offset <= 0) {
+			return 0;
+		}
+		if(offset >= index.getCode().length) {
+			return index.size();
+		}
+		int n = index.getInstructionContaining(offset);
+		return index.getStart(n) < offset ? n + 1 : n;
+	}
+
+
 	public static int findContainsIfIndex(List<JumpConditionInfo> loops, int index) {
 		for(int i = 0, size = loops.size(); i < size; i++) {
 			if(loops.get(i).potentialIfIndex == index) {
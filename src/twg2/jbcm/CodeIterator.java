@@ -15,32 +15,7 @@ public class CodeIterator {
 	 * @return a bit set matching the size of {@code instr} where instruction indices are set to true
 	 */
 	public static BitSet markInstructions(byte[] code) {
-		var isInstr = new BitSet(code.length);
-
-		for(int i = 0, size = code.length; i < size; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
-			// Special handling for instructions with unpredictable byte code lengths
-			if(numOperands == Opcodes.Const.UNPREDICTABLE) {
-				if(Opcodes.WIDE.is(code[i])) {
-					i++; // because wide instructions are wrapped around other instructions
-					opc = Opcodes.get(code[i]);
-					numOperands = opc.getOperandCount();
-				}
-				else if(Opcodes.TABLESWITCH.is(code[i])) {
-					throw new IllegalStateException("tableswitch code handling not implemented");
-				}
-				else if(Opcodes.LOOKUPSWITCH.is(code[i])) {
-					throw new IllegalStateException("lookupswitch code handling not implemented");
-				}
-			}
-
-			isInstr.set(i);
-
-			i += (numOperands < 0 ? 0 : numOperands);
-		}
-
-		return isInstr;
+		return InstructionIndex.decode(code).markInstructions();
 	}
 
 
@@ -51,14 +26,13 @@ public class CodeIterator {
 	 */
 	public static int nextJumpOrEndIndex(int idx, byte[] code) {
 		for(int i = idx, size = code.length; i < size; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
-
-			if(opc.hasBehavior(Type.JUMP) || opc.hasBehavior(Type.RETURN) || opc == Opcodes.ATHROW) {
+			int opcode = code[i];
+			if(OpcodeTables.hasBehavior(opcode, Type.JUMP) || OpcodeTables.hasBehavior(opcode, Type.RETURN) || Opcodes.ATHROW.is(opcode)) {
 				return i;
 			}
 
-			i += (numOperands < 0 ? 0 : numOperands);
+			int len = OpcodeTables.length(opcode);
+			i += (len > 0 ? len : CodeUtility.instructionLength(code, i)) - 1;
 		}
 		return -1;
 	}
@@ -74,7 +48,6 @@ public class CodeIterator {
 		if(nextJumpIdx == -1) {
 			return false;
 		}
-		Opcodes opc = Opcodes.get(code[nextJumpIdx]);
-		return opc.hasBehavior(Type.RETURN);
+		return OpcodeTables.hasBehavior(code[nextJumpIdx], Type.RETURN);
 	}
 }
@@ -28,29 +28,29 @@ public class CodeUtility {
 	 * @param offset the offset into the code array at which to start finding instructions
 	 * @param length the number of bytes of the code array to check through
 	 * @param cbFunc the function to call for each instruction found in specified code array range
+	 * @throws IllegalArgumentException if the code contains an undefined or reserved opcode
 	 */
 	public static void forEach(byte[] code, int offset, int length, BytecodeConsumer cbFunc) {
 		// BYTECODE LOOP:
-		for(int i = offset, size = offset + length; i < size; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			int numOperands = opc.getOperandCount();
+		for(int i = offset, size = offset + length; i < size; ) {
+			int opcode = code[i] & 0xFF;
+			int len = OpcodeTables.length(opcode);
+			if(len > 0) {
+				cbFunc.accept(Opcodes.get(opcode), code, i);
+				i += len;
+			}
 			// Special handling for instructions with unpredictable byte code lengths
-			if(numOperands == Opcodes.Const.UNPREDICTABLE) {
-				if(Opcodes.WIDE.is(code[i])) {
-					cbFunc.accept(opc, code, i);
-					i++; // WIDE opcodes are nested around other operations
-					opc = Opcodes.get(code[i]);
-					numOperands = opc.getOperandCount() * 2; // WIDE opcodes double the operands of the widened opcode
-				}
-				else if(Opcodes.TABLESWITCH.is(code[i])) {
-					throw new IllegalStateException("tableswitch code handling not implemented");
-				}
-				else if(Opcodes.LOOKUPSWITCH.is(code[i])) {
-					throw new IllegalStateException("lookupswitch code handling not implemented");
+			else if(len == OpcodeTables.VARIABLE_LENGTH) {
+				cbFunc.accept(Opcodes.get(opcode), code, i);
+				// WIDE opcodes are nested around other operations
+				if(Opcodes.WIDE.is(opcode)) {
+					cbFunc.accept(Opcodes.get(code[i + 1]), code, i + 1);
 				}
+				i += OpcodeTables.instructionLength(code, i);
+			}
+			else {
+				throw new IllegalArgumentException("unknown or reserved opcode " + opcode + " at code index " + i);
 			}
-			cbFunc.accept(opc, code, i);
-			i += (numOperands < 0) ? 0 : numOperands;
 		}
 	}
 
@@ -65,7 +65,7 @@ public class CodeUtility {
 	 * @return The binary OR'ed value of the operand bytes with the first operand in the most significant position or -1 if {@code numOperations = 0}
 	 */
 	public static int loadOperands(int numOperands, byte[] code, int index) {
-		boolean isCpIndex = Opcodes.get(code[index]).hasBehavior(Opcodes.Type.CP_INDEX);
+		boolean isCpIndex = OpcodeTables.hasBehavior(code[index], Opcodes.Type.CP_INDEX);
 		int res = (numOperands > 3 ? (((code[index+1] & 0xFF) << 24) | ((code[index+2] & 0xFF) << 16) | ((code[index+3] & 0xFF) << 8) | (code[index+4] & 0xFF)) :
 			(numOperands > 2 ? (((code[index+1] & 0xFF) << 16) | ((code[index+2] & 0xFF) << 8) | (code[index+3] & 0xFF)) :
 				(numOperands > 1 ? (((code[index+1] & 0xFF) << 8) | (code[index+2] & 0xFF)) :
@@ -150,4 +150,20 @@ public class CodeUtility {
 		return codeOffset + 4;
 	}
 
+
+	/** Calculate the length of the instruction at a specific code array index, including {@code wide},
+	 * {@code tableswitch}, and {@code lookupswitch} instructions
+	 * @param code the code array, index 0 must be the start of the method's code since switch instruction padding is relative to it
+	 * @param index the index of the instruction's opcode
+	 * @return the number of bytes used by the instruction and its operands
+	 * @throws IllegalStateException if the opcode at {@code index} is undefined or reserved
+	 */
+	public static int instructionLength(byte[] code, int index) {
+		int len = OpcodeTables.instructionLength(code, index);
+		if(len == OpcodeTables.INVALID_LENGTH) {
+			throw new IllegalStateException("unknown or reserved opcode " + (code[index] & 0xFF) + " at code index " + index);
+		}
+		return len;
+	}
+
 }
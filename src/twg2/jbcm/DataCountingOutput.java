@@ -0,0 +1,105 @@
+package twg2.jbcm;
+
+import java.io.DataOutput;
+
+/** A {@link DataOutput} which discards data and only counts the number of bytes written.
+ * Used to calculate the exact size of a {@code writeData(DataOutput)} call's output before allocating a buffer for it.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class DataCountingOutput implements DataOutput {
+	private long count;
+
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public long bytesWritten() {
+		return count;
+	}
+
+
+	@Override
+	public void write(int b) {
+		count++;
+	}
+
+
+	@Override
+	public void write(byte[] b) {
+		count += b.length;
+	}
+
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		count += len;
+	}
+
+
+	@Override
+	public void writeBoolean(boolean v) {
+		count++;
+	}
+
+
+	@Override
+	public void writeByte(int v) {
+		count++;
+	}
+
+
+	@Override
+	public void writeShort(int v) {
+		count += 2;
+	}
+
+
+	@Override
+	public void writeChar(int v) {
+		count += 2;
+	}
+
+
+	@Override
+	public void writeInt(int v) {
+		count += 4;
+	}
+
+
+	@Override
+	public void writeLong(long v) {
+		count += 8;
+	}
+
+
+	@Override
+	public void writeFloat(float v) {
+		count += 4;
+	}
+
+
+	@Override
+	public void writeDouble(double v) {
+		count += 8;
+	}
+
+
+	@Override
+	public void writeBytes(String s) {
+		count += s.length();
+	}
+
+
+	@Override
+	public void writeChars(String s) {
+		count += s.length() * 2L;
+	}
+
+
+	@Override
+	public void writeUTF(String s) {
+		count += 2 + ModifiedUtf8.encodedLength(s);
+	}
+
+}
@@ -0,0 +1,317 @@
+package twg2.jbcm;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/** An index of the instructions in a code array, decoded once in a single linear pass into primitive arrays.
+ * Stores each instruction's start offset, opcode, and operand values along with a pc to instruction number map,
+ * handling all variable length instructions ({@code wide}, {@code tableswitch}, and {@code lookupswitch}).<br/>
+ * The index is a snapshot of the code array, it must be rebuilt if the code array is modified, see {@link twg2.jbcm.classFormat.attributes.Code#getInstructionIndex()}.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class InstructionIndex {
+	private static final int WIDE = Opcodes.WIDE.opcode();
+	private static final int TABLESWITCH = Opcodes.TABLESWITCH.opcode();
+	private static final int LOOKUPSWITCH = Opcodes.LOOKUPSWITCH.opcode();
+	private static final int LDC = Opcodes.LDC.opcode();
+	private static final int MULTIANEWARRAY = Opcodes.MULTIANEWARRAY.opcode();
+	private static final int INVOKEINTERFACE = Opcodes.INVOKEINTERFACE.opcode();
+	private static final int BIPUSH = Opcodes.BIPUSH.opcode();
+	private static final int SIPUSH = Opcodes.SIPUSH.opcode();
+	private static final int IINC = Opcodes.IINC.opcode();
+
+	private final byte[] code;
+	private final int count;
+	/** The code offset of each instruction, size [count + 1], the last element is the code length */
+	private final int[] starts;
+	/** The opcode of each instruction, for {@code wide} instructions this is the widened opcode */
+	private final byte[] opcodes;
+	/** The first operand of each instruction, see {@link #getOperand(int)} */
+	private final int[] operands;
+	/** The second operand of each instruction, see {@link #getOperand2(int)} */
+	private final int[] operands2;
+	/** The instruction number of each code offset, -1 for operand bytes, size [code.length] */
+	private final int[] pcToIndex;
+
+
+	private InstructionIndex(byte[] code, int count, int[] starts, byte[] opcodes, int[] operands, int[] operands2, int[] pcToIndex) {
+		this.code = code;
+		this.count = count;
+		this.starts = starts;
+		this.opcodes = opcodes;
+		this.operands = operands;
+		this.operands2 = operands2;
+		this.pcToIndex = pcToIndex;
+	}
+
+
+	/** Decode the instructions in a code array
+	 * @param code the code array, index 0 must be the start of the method's code since switch instruction padding is relative to it
+	 * @return the instruction index of {@code code}
+	 * @throws IllegalStateException if the code contains an undefined opcode or an instruction extends beyond the end of the code
+	 */
+	public static InstructionIndex decode(byte[] code) {
+		int len = code.length;
+		int[] pcToIndex = new int[len];
+		int[] starts = new int[len + 1];
+		int count = 0;
+
+		for(int i = 0; i < len; ) {
+			int instrLen;
+			try {
+				instrLen = CodeUtility.instructionLength(code, i);
+			} catch(ArrayIndexOutOfBoundsException ex) {
+				throw new IllegalStateException("instruction at code index " + i + " extends beyond the code length " + len);
+			}
+			if(i + instrLen > len) {
+				throw new IllegalStateException("instruction at code index " + i + " extends beyond the code length " + len);
+			}
+			pcToIndex[i] = count;
+			for(int j = 1; j < instrLen; j++) {
+				pcToIndex[i + j] = -1;
+			}
+			starts[count++] = i;
+			i += instrLen;
+		}
+		starts[count] = len;
+
+		byte[] opcodes = new byte[count];
+		int[] operands = new int[count];
+		int[] operands2 = new int[count];
+		for(int n = 0; n < count; n++) {
+			decodeOperands(code, starts[n], n, opcodes, operands, operands2);
+		}
+
+		if(starts.length > count + 1) {
+			starts = Arrays.copyOf(starts, count + 1);
+		}
+		return new InstructionIndex(code, count, starts, opcodes, operands, operands2, pcToIndex);
+	}
+
+
+	private static void decodeOperands(byte[] code, int pc, int n, byte[] opcodes, int[] operands, int[] operands2) {
+		int opcode = code[pc] & 0xFF;
+		if(opcode == WIDE) {
+			opcodes[n] = code[pc + 1];
+			operands[n] = IoUtility.readShort(code, pc + 2) & 0xFFFF;
+			if((code[pc + 1] & 0xFF) == IINC) {
+				operands2[n] = IoUtility.readShort(code, pc + 4);
+			}
+			return;
+		}
+
+		opcodes[n] = code[pc];
+		if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+			int pos = (pc + 4) & ~3;
+			operands[n] = pc + IoUtility.readInt(code, pos);
+			operands2[n] = opcode == TABLESWITCH ? IoUtility.readInt(code, pos + 8) - IoUtility.readInt(code, pos + 4) + 1 : IoUtility.readInt(code, pos + 4);
+		}
+		else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+			operands[n] = pc + (OpcodeTables.length(opcode) == 5 ? IoUtility.readInt(code, pc + 1) : IoUtility.readShort(code, pc + 1));
+		}
+		else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.CP_INDEX)) {
+			operands[n] = opcode == LDC ? code[pc + 1] & 0xFF : IoUtility.readShort(code, pc + 1) & 0xFFFF;
+			// multianewarray dimensions, invokeinterface argument count
+			if(opcode == MULTIANEWARRAY || opcode == INVOKEINTERFACE) {
+				operands2[n] = code[pc + 3] & 0xFF;
+			}
+		}
+		else if(opcode == BIPUSH) {
+			operands[n] = code[pc + 1];
+		}
+		else if(opcode == SIPUSH) {
+			operands[n] = IoUtility.readShort(code, pc + 1);
+		}
+		else if(opcode == IINC) {
+			operands[n] = code[pc + 1] & 0xFF;
+			operands2[n] = code[pc + 2];
+		}
+		else if(OpcodeTables.length(opcode) == 2) {
+			// local variable index or newarray type
+			operands[n] = code[pc + 1] & 0xFF;
+		}
+	}
+
+
+	/**
+	 * @return the code array this index was decoded from
+	 */
+	public byte[] getCode() {
+		return code;
+	}
+
+
+	/**
+	 * @return the number of instructions
+	 */
+	public int size() {
+		return count;
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number in the range [0, {@link #size()}]
+	 * @return the code offset of the instruction, or the code length if {@code instrIdx == size()}
+	 */
+	public int getStart(int instrIdx) {
+		return starts[instrIdx];
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return the number of bytes used by the instruction and its operands
+	 */
+	public int getLength(int instrIdx) {
+		return starts[instrIdx + 1] - starts[instrIdx];
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return the instruction's opcode, for {@code wide} instructions this is the widened opcode
+	 */
+	public Opcodes getOpcode(int instrIdx) {
+		return Opcodes.get(opcodes[instrIdx]);
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return the instruction's opcode value [0, 255], for {@code wide} instructions this is the widened opcode
+	 */
+	public int getOpcodeValue(int instrIdx) {
+		return opcodes[instrIdx] & 0xFF;
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return true if the instruction is a {@code wide} instruction
+	 */
+	public boolean isWide(int instrIdx) {
+		return Opcodes.WIDE.is(code[starts[instrIdx]]);
+	}
+
+
+	/** The instruction's first operand:<br/>
+	 * jumps: the absolute code offset of the jump target<br/>
+	 * {@code tableswitch} and {@code lookupswitch}: the absolute code offset of the default target<br/>
+	 * constant pool instructions: the unsigned constant pool index<br/>
+	 * local variable instructions (including {@code iinc} and {@code ret}): the unsigned local variable index<br/>
+	 * {@code bipush} and {@code sipush}: the signed value<br/>
+	 * {@code newarray}: the array type<br/>
+	 * other instructions: 0
+	 * @param instrIdx an instruction number
+	 * @return the operand value
+	 */
+	public int getOperand(int instrIdx) {
+		return operands[instrIdx];
+	}
+
+
+	/** The instruction's second operand:<br/>
+	 * {@code iinc}: the signed increment<br/>
+	 * {@code multianewarray}: the number of dimensions<br/>
+	 * {@code invokeinterface}: the argument count<br/>
+	 * {@code tableswitch} and {@code lookupswitch}: the number of jump targets, excluding the default target<br/>
+	 * other instructions: 0
+	 * @param instrIdx an instruction number
+	 * @return the operand value
+	 */
+	public int getOperand2(int instrIdx) {
+		return operands2[instrIdx];
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return the local variable index read or written by a load, store, {@code iinc}, or {@code ret} instruction
+	 * (including the {@code wide} and implicit index forms), or -1 for other instructions
+	 * @see OpcodeTables#localVariableSize(int)
+	 */
+	public int getLocalVariable(int instrIdx) {
+		int opcode = opcodes[instrIdx];
+		if(OpcodeTables.localVariableSize(opcode) == 0) {
+			return -1;
+		}
+		int implicitIdx = OpcodeTables.implicitLocalVariable(opcode);
+		return implicitIdx >= 0 ? implicitIdx : operands[instrIdx];
+	}
+
+
+	/**
+	 * @param instrIdx the instruction number of a {@code tableswitch} or {@code lookupswitch} instruction
+	 * @return the absolute code offsets of the switch's jump targets, excluding the default target
+	 */
+	public int[] getSwitchTargets(int instrIdx) {
+		int pc = starts[instrIdx];
+		int pos = (pc + 4) & ~3;
+		int n = operands2[instrIdx];
+		int[] targets = new int[n];
+		boolean table = Opcodes.TABLESWITCH.is(code[pc]);
+		for(int i = 0; i < n; i++) {
+			targets[i] = pc + IoUtility.readInt(code, table ? pos + 12 + i * 4 : pos + 12 + i * 8);
+		}
+		return targets;
+	}
+
+
+	/**
+	 * @param instrIdx the instruction number of a {@code tableswitch} or {@code lookupswitch} instruction
+	 * @return the match value of each of the switch's jump targets, in the same order as {@link #getSwitchTargets(int)}
+	 */
+	public int[] getSwitchKeys(int instrIdx) {
+		int pc = starts[instrIdx];
+		int pos = (pc + 4) & ~3;
+		int n = operands2[instrIdx];
+		int[] keys = new int[n];
+		if(Opcodes.TABLESWITCH.is(code[pc])) {
+			int low = IoUtility.readInt(code, pos + 4);
+			for(int i = 0; i < n; i++) {
+				keys[i] = low + i;
+			}
+		}
+		else {
+			for(int i = 0; i < n; i++) {
+				keys[i] = IoUtility.readInt(code, pos + 8 + i * 8);
+			}
+		}
+		return keys;
+	}
+
+
+	/**
+	 * @param pc a code offset
+	 * @return the instruction number of the instruction starting at {@code pc}, or -1 if {@code pc} is not the start of an instruction
+	 */
+	public int getInstructionAt(int pc) {
+		return pc >= 0 && pc < pcToIndex.length ? pcToIndex[pc] : -1;
+	}
+
+
+	/**
+	 * @param pc a code offset
+	 * @return the instruction number of the instruction containing {@code pc}
+	 */
+	public int getInstructionContaining(int pc) {
+		while(pcToIndex[pc] < 0) {
+			pc--;
+		}
+		return pcToIndex[pc];
+	}
+
+
+	/**
+	 * @return a bit set matching the size of the code array with the bits at instruction start offsets set
+	 */
+	public BitSet markInstructions() {
+		var isInstr = new BitSet(code.length);
+		for(int i = 0; i < count; i++) {
+			isInstr.set(starts[i]);
+		}
+		return isInstr;
+	}
+
+}
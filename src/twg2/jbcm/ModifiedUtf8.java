@@ -0,0 +1,199 @@
+package twg2.jbcm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Encoding, decoding, and comparison of the modified UTF-8 strings used by class files (JVMS §4.4.7).<br>
+ * 1 byte characters: 0xxxxxxx (0x0001 to 0x007F)<br>
+ * 2 byte characters: 110xxxxx 10xxxxxx (0x0000 and 0x0080 to 0x07FF)<br>
+ * 3 byte characters: 1110xxxx 10xxxxxx 10xxxxxx (0x0800 to 0xFFFF)<br>
+ * Most class file strings are ASCII, so all methods check for, and take, an ASCII-only fast path first.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ModifiedUtf8 {
+
+	private ModifiedUtf8() { throw new AssertionError("cannot instantiate static class ModifiedUtf8"); }
+
+
+	/** Decode modified UTF-8 bytes
+	 * @param bytes the array containing the bytes
+	 * @param off the offset into {@code bytes} of the first byte
+	 * @param len the number of bytes to decode
+	 * @return the decoded string
+	 * @throws IllegalStateException if the bytes are not valid modified UTF-8
+	 */
+	public static String decode(byte[] bytes, int off, int len) {
+		int end = off + len;
+		int i = off;
+		while(i < end && bytes[i] >= 0) {
+			i++;
+		}
+		if(i == end) {
+			// all ASCII, one byte per char
+			return new String(bytes, off, len, StandardCharsets.ISO_8859_1);
+		}
+
+		char[] chars = new char[len];
+		int n = 0;
+		for(int k = off; k < i; k++) {
+			chars[n++] = (char)bytes[k];
+		}
+		while(i < end) {
+			int b = bytes[i];
+			if(b >= 0) {
+				chars[n++] = (char)b;
+				i++;
+			}
+			else if((b & 0xE0) == 0xC0) {
+				if(i + 1 >= end) { throw truncated(i); }
+				chars[n++] = (char)(((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+				i += 2;
+			}
+			else if((b & 0xF0) == 0xE0) {
+				if(i + 2 >= end) { throw truncated(i); }
+				chars[n++] = (char)(((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+				i += 3;
+			}
+			else {
+				throw new IllegalStateException("Unrecognized CONSTANT_Utf8 byte while parsing string: " + b);
+			}
+		}
+		return new String(chars, 0, n);
+	}
+
+
+	/** Decode modified UTF-8 bytes from a buffer, the buffer's position is not changed
+	 * @param buf the buffer containing the bytes
+	 * @param off the absolute buffer index of the first byte
+	 * @param len the number of bytes to decode
+	 * @return the decoded string
+	 */
+	public static String decode(ByteBuffer buf, int off, int len) {
+		if(buf.hasArray()) {
+			return decode(buf.array(), buf.arrayOffset() + off, len);
+		}
+		byte[] tmp = new byte[len];
+		buf.get(off, tmp, 0, len);
+		return decode(tmp, 0, len);
+	}
+
+
+	/**
+	 * @param str the string
+	 * @return the number of bytes required to encode {@code str} as modified UTF-8
+	 */
+	public static int encodedLength(String str) {
+		int size = str.length();
+		int byteCount = size;
+		for(int i = 0; i < size; i++) {
+			char ch = str.charAt(i);
+			if(ch > 0x07FF) {
+				byteCount += 2;
+			}
+			else if(ch > 0x007F || ch == 0) {
+				byteCount++;
+			}
+		}
+		return byteCount;
+	}
+
+
+	/** Encode a string as modified UTF-8
+	 * @param str the string to encode
+	 * @return a new array containing the encoded bytes
+	 */
+	public static byte[] encode(String str) {
+		int byteCount = encodedLength(str);
+		if(byteCount == str.length() && str.indexOf(0) < 0) {
+			// all ASCII
+			return str.getBytes(StandardCharsets.ISO_8859_1);
+		}
+		byte[] bytes = new byte[byteCount];
+		encode(str, bytes, 0);
+		return bytes;
+	}
+
+
+	/** Encode a string as modified UTF-8 into an existing array
+	 * @param str the string to encode
+	 * @param dst the destination array, must have at least {@link #encodedLength(String)} bytes available starting at {@code off}
+	 * @param off the offset into {@code dst} at which to start writing
+	 * @return the number of bytes written
+	 */
+	public static int encode(String str, byte[] dst, int off) {
+		int i = off;
+		for(int k = 0, size = str.length(); k < size; k++) {
+			char ch = str.charAt(k);
+			if(ch > 0 && ch < 0x0080) {
+				dst[i++] = (byte)ch;
+			}
+			else if(ch < 0x0800) {
+				dst[i++] = (byte)(0xC0 | (ch >>> 6) & 0x1F);
+				dst[i++] = (byte)(0x80 | ch & 0x3F);
+			}
+			else {
+				dst[i++] = (byte)(0xE0 | (ch >>> 12) & 0x0F);
+				dst[i++] = (byte)(0x80 | (ch >>> 6) & 0x3F);
+				dst[i++] = (byte)(0x80 | ch & 0x3F);
+			}
+		}
+		return i - off;
+	}
+
+
+	/** Compare modified UTF-8 bytes to a string without decoding the bytes
+	 * @param bytes the array containing the bytes
+	 * @param off the offset into {@code bytes} of the first byte
+	 * @param len the number of bytes
+	 * @param str the string to compare to
+	 * @return true if the bytes are the modified UTF-8 encoding of {@code str}
+	 */
+	public static boolean equals(byte[] bytes, int off, int len, String str) {
+		int size = str.length();
+		// each char encodes to between 1 and 3 bytes
+		if(len < size || len > size * 3) {
+			return false;
+		}
+		int i = off;
+		int end = off + len;
+		for(int k = 0; k < size; k++) {
+			char ch = str.charAt(k);
+			if(ch > 0 && ch < 0x0080) {
+				if(i >= end || bytes[i] != ch) { return false; }
+				i++;
+			}
+			else if(ch < 0x0800) {
+				if(i + 1 >= end || bytes[i] != (byte)(0xC0 | (ch >>> 6) & 0x1F) || bytes[i + 1] != (byte)(0x80 | ch & 0x3F)) { return false; }
+				i += 2;
+			}
+			else {
+				if(i + 2 >= end || bytes[i] != (byte)(0xE0 | (ch >>> 12) & 0x0F) || bytes[i + 1] != (byte)(0x80 | (ch >>> 6) & 0x3F) || bytes[i + 2] != (byte)(0x80 | ch & 0x3F)) { return false; }
+				i += 3;
+			}
+		}
+		return i == end;
+	}
+
+
+	/** Compare modified UTF-8 bytes in a buffer to a string without decoding the bytes, the buffer's position is not changed
+	 * @see #equals(byte[], int, int, String)
+	 */
+	public static boolean equals(ByteBuffer buf, int off, int len, String str) {
+		if(buf.hasArray()) {
+			return equals(buf.array(), buf.arrayOffset() + off, len, str);
+		}
+		if(len < str.length() || len > str.length() * 3) {
+			return false;
+		}
+		byte[] tmp = new byte[len];
+		buf.get(off, tmp, 0, len);
+		return equals(tmp, 0, len, str);
+	}
+
+
+	private static IllegalStateException truncated(int index) {
+		return new IllegalStateException("Truncated CONSTANT_Utf8 character at byte " + index);
+	}
+
+}
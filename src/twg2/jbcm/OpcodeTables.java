@@ -0,0 +1,197 @@
+package twg2.jbcm;
+
+/** Primitive lookup tables, indexed by opcode value [0, 255], generated from the {@link Opcodes} enum.
+ * Used by bytecode decoding loops to look up instruction lengths and behaviors without enum lookups.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class OpcodeTables {
+	/** {@link #LENGTHS} value for {@code wide}, {@code tableswitch}, and {@code lookupswitch}, see {@link #instructionLength(byte[], int)} */
+	public static final byte VARIABLE_LENGTH = 0;
+	/** {@link #LENGTHS} value for undefined and reserved opcodes */
+	public static final byte INVALID_LENGTH = -1;
+	/** {@link #stackDelta(int)} value for field, invoke, and {@code multianewarray} instructions whose operand stack change depends on their operands */
+	public static final int VARIABLE_STACK_DELTA = Byte.MIN_VALUE;
+
+	/** The length in bytes of each instruction including its opcode, or {@link #VARIABLE_LENGTH} or {@link #INVALID_LENGTH} */
+	private static final byte[] LENGTHS = new byte[256];
+	/** The {@link Opcodes.Type} bit flags of each opcode */
+	private static final int[] FLAGS = new int[256];
+	/** The number of operand stack values each opcode pops, -1 if unpredictable */
+	private static final byte[] POPS = new byte[256];
+	/** The number of operand stack values each opcode pushes */
+	private static final byte[] PUSHES = new byte[256];
+	/** The change in operand stack slots of each opcode, or {@link #VARIABLE_STACK_DELTA} */
+	private static final byte[] STACK_DELTAS = new byte[256];
+	/** The number of local variable slots each opcode reads or writes, 0 for opcodes which do not access local variables */
+	private static final byte[] LOCAL_SIZES = new byte[256];
+	/** The local variable index encoded in the opcode (i.e. {@code iload_2}), -1 for other opcodes */
+	private static final byte[] IMPLICIT_LOCALS = new byte[256];
+
+	private static final int WIDE = Opcodes.WIDE.opcode();
+	private static final int TABLESWITCH = Opcodes.TABLESWITCH.opcode();
+	private static final int LOOKUPSWITCH = Opcodes.LOOKUPSWITCH.opcode();
+	private static final int IINC = Opcodes.IINC.opcode();
+
+	static {
+		for(int i = 0; i < 256; i++) {
+			Opcodes opc = Opcodes.get(i);
+			int operandCount = opc.getOperandCount();
+			LENGTHS[i] = opc == Opcodes.UNDEFINED || operandCount == Opcodes.Const.RESERVED ? INVALID_LENGTH :
+				(operandCount == Opcodes.Const.UNPREDICTABLE ? VARIABLE_LENGTH : (byte)(1 + operandCount));
+			int flags = 0;
+			for(Opcodes.Type type : Opcodes.Type.values()) {
+				if(opc.hasBehavior(type)) {
+					flags |= type.flag;
+				}
+			}
+			FLAGS[i] = flags;
+			POPS[i] = (byte)opc.popCount();
+			PUSHES[i] = (byte)opc.pushCount();
+			STACK_DELTAS[i] = (byte)calcStackDelta(opc);
+			boolean local = opc.hasBehavior(Opcodes.Type.VAR_LOAD) || opc.hasBehavior(Opcodes.Type.VAR_STORE) || opc == Opcodes.IINC || opc == Opcodes.RET;
+			String name = opc.name();
+			LOCAL_SIZES[i] = (byte)(!local ? 0 : (name.charAt(0) == 'L' || name.charAt(0) == 'D' ? 2 : 1));
+			IMPLICIT_LOCALS[i] = (byte)(local && operandCount == 0 ? name.charAt(name.length() - 1) - '0' : -1);
+		}
+	}
+
+
+	private OpcodeTables() { throw new AssertionError("cannot instantiate static class OpcodeTables"); }
+
+
+	/** {@link Opcodes#popCount()} and {@link Opcodes#pushCount()} count values, this corrects them for {@code long} and {@code double}
+	 * values which use two operand stack slots, and for the {@code dup} instructions
+	 */
+	private static int calcStackDelta(Opcodes opc) {
+		switch(opc) {
+		case LCONST_0: case LCONST_1: case DCONST_0: case DCONST_1: case LDC2_W:
+		case LLOAD: case LLOAD_0: case LLOAD_1: case LLOAD_2: case LLOAD_3:
+		case DLOAD: case DLOAD_0: case DLOAD_1: case DLOAD_2: case DLOAD_3:
+		case DUP2: case DUP2_X1: case DUP2_X2:
+			return 2;
+		case DUP: case DUP_X1: case DUP_X2:
+		case I2L: case I2D: case F2L: case F2D:
+			return 1;
+		case LALOAD: case DALOAD:
+			return 0;
+		case L2I: case L2F: case D2I: case D2F:
+			return -1;
+		case LSTORE: case LSTORE_0: case LSTORE_1: case LSTORE_2: case LSTORE_3:
+		case DSTORE: case DSTORE_0: case DSTORE_1: case DSTORE_2: case DSTORE_3:
+		case LADD: case LSUB: case LMUL: case LDIV: case LREM: case LAND: case LOR: case LXOR:
+		case DADD: case DSUB: case DMUL: case DDIV: case DREM:
+		case LRETURN: case DRETURN:
+			return -2;
+		case LCMP: case DCMPL: case DCMPG:
+			return -3;
+		case LASTORE: case DASTORE:
+			return -4;
+		case GETSTATIC: case PUTSTATIC: case GETFIELD: case PUTFIELD:
+		case INVOKEVIRTUAL: case INVOKESPECIAL: case INVOKESTATIC: case INVOKEINTERFACE: case INVOKEDYNAMIC:
+		case MULTIANEWARRAY:
+			return VARIABLE_STACK_DELTA;
+		default:
+			// single slot values, shifts (a long/int pair becomes a long), and negations
+			return opc.pushCount() - opc.popCount();
+		}
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the fixed length of the opcode's instructions in bytes, {@link #VARIABLE_LENGTH} for {@code wide},
+	 * {@code tableswitch}, and {@code lookupswitch}, or {@link #INVALID_LENGTH} for undefined and reserved opcodes
+	 */
+	public static int length(int opcode) {
+		return LENGTHS[opcode & 0xFF];
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @param type the behavior to check for
+	 * @return true if the opcode has the behavior, same as {@link Opcodes#hasBehavior(Opcodes.Type)}
+	 */
+	public static boolean hasBehavior(int opcode, Opcodes.Type type) {
+		return (FLAGS[opcode & 0xFF] & type.flag) != 0;
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the number of operand stack values the opcode pops, or -1 if it is unpredictable, same as {@link Opcodes#popCount()}
+	 */
+	public static int popCount(int opcode) {
+		return POPS[opcode & 0xFF];
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the number of operand stack values the opcode pushes, same as {@link Opcodes#pushCount()}
+	 */
+	public static int pushCount(int opcode) {
+		return PUSHES[opcode & 0xFF];
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the change in the number of operand stack slots after executing the opcode, {@code long} and {@code double} values use two slots,
+	 * or {@link #VARIABLE_STACK_DELTA} for field, invoke, and {@code multianewarray} instructions
+	 */
+	public static int stackDelta(int opcode) {
+		return STACK_DELTAS[opcode & 0xFF];
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the number of local variable slots the opcode reads or writes, 2 for {@code long} and {@code double} loads and stores,
+	 * 1 for other loads and stores, {@code iinc}, and {@code ret}, 0 for opcodes which do not access local variables
+	 */
+	public static int localVariableSize(int opcode) {
+		return LOCAL_SIZES[opcode & 0xFF];
+	}
+
+
+	/**
+	 * @param opcode an opcode value, can be a signed byte value between [-128, 127] or an int value [0, 255]
+	 * @return the local variable index encoded in the opcode, for example 2 for {@code iload_2}, or -1 if the opcode
+	 * does not encode a local variable index
+	 */
+	public static int implicitLocalVariable(int opcode) {
+		return IMPLICIT_LOCALS[opcode & 0xFF];
+	}
+
+
+	/** Calculate the length of the instruction at a specific code array index, including {@code wide},
+	 * {@code tableswitch}, and {@code lookupswitch} instructions, without allocating
+	 * @param code the code array, index 0 must be the start of the method's code since switch instruction padding is relative to it
+	 * @param index the index of the instruction's opcode
+	 * @return the number of bytes used by the instruction and its operands, or {@link #INVALID_LENGTH} if the opcode at {@code index} is undefined or reserved
+	 */
+	public static int instructionLength(byte[] code, int index) {
+		int opcode = code[index] & 0xFF;
+		int len = LENGTHS[opcode];
+		if(len != VARIABLE_LENGTH) {
+			return len;
+		}
+		if(opcode == WIDE) {
+			// wide iinc has a 2 byte index and 2 byte constant, all other widened opcodes have a 2 byte index
+			return (code[index + 1] & 0xFF) == IINC ? 6 : 4;
+		}
+		int pos = (index + 4) & ~3; // skip 0-3 bytes of padding
+		if(opcode == TABLESWITCH) {
+			int low = IoUtility.readInt(code, pos + 4);
+			int high = IoUtility.readInt(code, pos + 8);
+			return (pos - index) + 12 + (high - low + 1) * 4;
+		}
+		else {
+			int npairs = IoUtility.readInt(code, pos + 4);
+			return (pos - index) + 8 + npairs * 8;
+		}
+	}
+
+}
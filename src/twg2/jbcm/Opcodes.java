@@ -36,9 +36,9 @@ public enum Opcodes {
 	/*  0xF */DCONST_1        (15, 0, enums(Type.PUSH1, Type.CONST_LOAD), null), // Push double, stack: [ "...", "..., <d>" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.dconst_d
 	/* 0x10 */BIPUSH          (16, 1, enums(Type.PUSH1), null), // Push byte, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.bipush
 	/* 0x11 */SIPUSH          (17, 2, enums(Type.PUSH1), null), // Push short, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.sipush
-	/* 0x12 */LDC             (18, 1, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 2))), // Push item from run-time constant pool, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc
-	/* 0x13 */LDC_W           (19, 2, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 4))), // Push item from run-time constant pool (wide index), stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc_w
-	/* 0x14 */LDC2_W          (20, 2, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 4))), // Push long or double from run-time constant pool (wide index), stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc2_w
+	/* 0x12 */LDC             (18, 1, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 1))), // Push item from run-time constant pool, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc
+	/* 0x13 */LDC_W           (19, 2, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 2))), // Push item from run-time constant pool (wide index), stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc_w
+	/* 0x14 */LDC2_W          (20, 2, enums(Type.PUSH1, Type.CP_INDEX), Op.of(CodeUtility.cpIndex(1, 2))), // Push long or double from run-time constant pool (wide index), stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.ldc2_w
 	/* 0x15 */ILOAD           (21, 1, enums(Type.PUSH1, Type.VAR_LOAD), null), // Load int from local variable, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.iload
 	/* 0x16 */LLOAD           (22, 1, enums(Type.PUSH1, Type.VAR_LOAD), null), // Load long from local variable, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.lload
 	/* 0x17 */FLOAD           (23, 1, enums(Type.PUSH1, Type.VAR_LOAD), null), // Load float from local variable, stack: [ "...", "..., value" ], link: https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-6.html#jvms-6.5.fload
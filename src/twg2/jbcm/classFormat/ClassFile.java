@@ -12,26 +12,43 @@ import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import twg2.jbcm.ByteBufferDataInput;
+import twg2.jbcm.ByteBufferDataOutput;
+import twg2.jbcm.DataCountingOutput;
 import twg2.jbcm.DataCountingInputStream;
 import twg2.jbcm.classFormat.attributes.Attribute_Type;
 import twg2.jbcm.classFormat.attributes.BootstrapMethods;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Float;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Integer;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_String;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
 import twg2.jbcm.modify.CpIndexChangeable;
 import twg2.jbcm.modify.CpIndexChanger;
-import twg2.jbcm.modify.TypeUtility;
+import twg2.jbcm.modify.ClassRelocator;
+import twg2.jbcm.modify.CpRemapper;
+import twg2.jbcm.modify.FindCpIndexUsage;
 
 /** Java class file format parent class
  * @author TeamworkGuy2
@@ -39,6 +56,8 @@ import twg2.jbcm.modify.TypeUtility;
  */
 public class ClassFile extends ConstantPoolExtensions implements Externalizable, ReadWritable, CpIndexChangeable {
 	public static final int HEADER_BYTES = 0xCAFEBABE;
+	/** Files at least this size are memory-mapped by {@link #load(Path)}, smaller files are read into a {@code byte[]} since mapping has a fixed setup cost */
+	public static final int MAP_FILE_THRESHOLD = 64 * 1024;
 	/** Declared public; may be accessed from outside its package. */
 	public static final short ACC_PUBLIC = 0x0001;
 	/** Declared final; no subclasses allowed. */
@@ -71,6 +90,12 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	// constant_pool table is indexed from 1 to constant_pool_count-1, size [constant_pool_count-1], indexed from 1.
 	protected List<CpIndex<CONSTANT_CP_Info>> constant_pool;
 	protected List<List<Class<? extends CONSTANT_CP_Info>>> constantPoolExpectations;
+	/** When loaded with {@link ParseOptions#lazyConstantPool}, the tags and buffer offsets of constant pool entries
+	 * which have not been parsed yet, unparsed entries are {@code null} in {@link #constant_pool}
+	 */
+	protected ConstantPoolTable constantPoolTable;
+	/** Hash indexes used by the {@code findConstantPool*()} methods, built the first time one of them is called */
+	private ConstantPoolLookup cpLookup;
 	// The value of the access_flags item is a mask of flags used to denote access permissions to and properties of
 	// this class or interface. The interpretation of each flag, when set, is as shown in Table 4.1.
 	/* Flag Name 	Value 	Interpretation
@@ -150,12 +175,27 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	// non class fields
 	private boolean requireJavaHeaderBytes = true;
 	private String source;
+	private final ParseOptions options;
 
 
+	/** Create an empty class file which uses the current {@link Settings} (see {@link ParseOptions#fromSettings()})
+	 */
 	public ClassFile(boolean requireJavaMagicBytes, String source) {
+		this(requireJavaMagicBytes, source, ParseOptions.fromSettings());
+	}
+
+
+	public ClassFile(boolean requireJavaMagicBytes, String source, ParseOptions options) {
 		super();
 		this.requireJavaHeaderBytes = requireJavaMagicBytes;
 		this.source = source;
+		this.options = options;
+	}
+
+
+	@Override
+	public ParseOptions getParseOptions() {
+		return options;
 	}
 
 
@@ -167,7 +207,231 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 
 	@Override
 	public CpIndex<CONSTANT_CP_Info> getConstantPoolIndex(int index) {
-		return constant_pool.get(index);
+		CpIndex<CONSTANT_CP_Info> cpIdx = constant_pool.get(index);
+		if(cpIdx == null) {
+			cpIdx = loadConstantPoolIndex(index);
+		}
+		return cpIdx;
+	}
+
+
+	@Override
+	public int getCpTag(int index) {
+		if(constantPoolTable != null && constant_pool.get(index) == null) {
+			return constantPoolTable.getTag(index);
+		}
+		return super.getCpTag(index);
+	}
+
+
+	@Override
+	protected boolean cpUtf8Equals(int index, String str) {
+		if(constantPoolTable != null && constant_pool.get(index) == null) {
+			return constantPoolTable.utf8Equals(index, str);
+		}
+		return super.cpUtf8Equals(index, str);
+	}
+
+
+	/**
+	 * @return the compact constant pool this class file's constant pool entries are lazily loaded from,
+	 * or null if the constant pool was not lazily loaded or {@link #loadConstantPool()} has been called
+	 */
+	public ConstantPoolTable getConstantPoolTable() {
+		return constantPoolTable;
+	}
+
+
+	/** Parse any constant pool entries which have not been loaded yet (see {@link ParseOptions#lazyConstantPool})
+	 * and release the class file buffer the entries were being loaded from
+	 */
+	public void loadConstantPool() {
+		if(constantPoolTable != null) {
+			for(int i = 1; i < constant_pool_count; i++) {
+				getConstantPoolIndex(i);
+			}
+			constantPoolTable = null;
+		}
+	}
+
+
+	/**
+	 * @return true if all constant pool entries have been parsed, false if some entries are still waiting to be lazily loaded
+	 */
+	public boolean isConstantPoolLoaded() {
+		return constantPoolTable == null;
+	}
+
+
+	/**
+	 * @return true if the constant pool entry at {@code index} has been parsed
+	 */
+	boolean isConstantPoolIndexLoaded(int index) {
+		return constantPoolTable == null || constant_pool.get(index) != null;
+	}
+
+
+	/** Discard the hash indexes used by the {@code findConstantPool*()} methods, they are rebuilt the next time one of those methods is called.
+	 * {@link #addToConstantPool(CONSTANT_CP_Info)}, {@link #setConstantPool(int, CONSTANT_CP_Info)}, and the other {@code ClassFile} methods which modify
+	 * the constant pool keep the indexes in sync and entries changed by their setters are tracked by {@link #constantPoolEntryChanged(CONSTANT_CP_Info)},
+	 * calling this after changing many entries (for example using {@link CONSTANT_Utf8#setString(String)}) avoids tracking each change
+	 */
+	public void clearConstantPoolLookup() {
+		cpLookup = null;
+	}
+
+
+	/** Called by the {@code CONSTANT_*} setters after a constant pool entry's value changes. The entry's key in the hash indexes
+	 * used by the {@code findConstantPool*()} methods may be stale, so the next lookup which does not find a match rebuilds the indexes
+	 * @param cpObj the changed entry
+	 */
+	public void constantPoolEntryChanged(CONSTANT_CP_Info cpObj) {
+		if(cpLookup != null) {
+			cpLookup.changed(cpObj);
+		}
+	}
+
+
+	private ConstantPoolLookup getCpLookup() {
+		var lookup = cpLookup;
+		if(lookup == null) {
+			lookup = new ConstantPoolLookup(this);
+			cpLookup = lookup;
+		}
+		return lookup;
+	}
+
+
+	/** Find an entry in the hash indexes, rebuilding them if an entry was modified after being indexed
+	 * @return the lowest index of the matching entry, or null if there is no matching entry
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T extends CONSTANT_CP_Info> CpIndex<T> findConstantPoolEntry(int tag, String key) {
+		int index = getCpLookup().find(tag, key);
+		if(index < 0) {
+			// an entry was modified after being indexed
+			clearConstantPoolLookup();
+			index = getCpLookup().find(tag, key);
+		}
+		return index > 0 ? (CpIndex<T>)(CpIndex)getConstantPoolIndex(index) : null;
+	}
+
+
+	@Override
+	public CpIndex<CONSTANT_Utf8> findConstantPoolString(String str) {
+		return findConstantPoolEntry(CONSTANT_Utf8.TAG, str);
+	}
+
+
+	@Override
+	public CpIndex<CONSTANT_Class> findConstantPoolClass(String className) {
+		return findConstantPoolEntry(CONSTANT_Class.TAG, className);
+	}
+
+
+	@Override
+	public CpIndex<CONSTANT_NameAndType> findConstantPoolNameAndType(String methodName, String methodDescriptor) {
+		return findConstantPoolEntry(CONSTANT_NameAndType.TAG, ConstantPoolLookup.nameAndTypeKey(methodName, methodDescriptor));
+	}
+
+
+	@Override
+	public CpIndex<CONSTANT_Methodref> findConstantPoolMethod(String className, String methodName, String methodDescriptor) {
+		return findConstantPoolEntry(CONSTANT_Methodref.TAG, ConstantPoolLookup.memberKey(className, methodName, methodDescriptor));
+	}
+
+
+	/** Find the constant pool index of a {@link CONSTANT_String} (an {@code ldc} string literal) with the specified value
+	 * @return the index of the matching entry, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_String> findConstantPoolStringConstant(String str) {
+		return findConstantPoolEntry(CONSTANT_String.TAG, str);
+	}
+
+
+	/**
+	 * @return the index of the {@link CONSTANT_Integer} with the specified value, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Integer> findConstantPoolInteger(int value) {
+		return findConstantPoolEntry(CONSTANT_Integer.TAG, Integer.toString(value));
+	}
+
+
+	/**
+	 * @return the index of the {@link CONSTANT_Float} with the same raw bits as {@code value}, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Float> findConstantPoolFloat(float value) {
+		return findConstantPoolEntry(CONSTANT_Float.TAG, Integer.toString(Float.floatToRawIntBits(value)));
+	}
+
+
+	/**
+	 * @return the index of the {@link CONSTANT_Long} with the specified value, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Long> findConstantPoolLong(long value) {
+		return findConstantPoolEntry(CONSTANT_Long.TAG, Long.toString(value));
+	}
+
+
+	/**
+	 * @return the index of the {@link CONSTANT_Double} with the same raw bits as {@code value}, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Double> findConstantPoolDouble(double value) {
+		return findConstantPoolEntry(CONSTANT_Double.TAG, Long.toString(Double.doubleToRawLongBits(value)));
+	}
+
+
+	/** Find the constant pool index of a {@link CONSTANT_Fieldref} matching the class, name, and descriptor given
+	 * @return the index of the matching field in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Fieldref> findConstantPoolField(String className, String fieldName, String fieldDescriptor) {
+		return findConstantPoolEntry(CONSTANT_Fieldref.TAG, ConstantPoolLookup.memberKey(className, fieldName, fieldDescriptor));
+	}
+
+
+	/** Find the constant pool index of a {@link CONSTANT_InterfaceMethodref} matching the interface, name, and descriptor given
+	 * @return the index of the matching method in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_InterfaceMethodref> findConstantPoolInterfaceMethod(String className, String methodName, String methodDescriptor) {
+		return findConstantPoolEntry(CONSTANT_InterfaceMethodref.TAG, ConstantPoolLookup.memberKey(className, methodName, methodDescriptor));
+	}
+
+
+	/** Find the constant pool index of a {@link CONSTANT_MethodHandle}
+	 * @param referenceKind the method handle kind
+	 * @param referenceTag the tag of the referenced entry, {@link CONSTANT_Fieldref#TAG}, {@link CONSTANT_Methodref#TAG}, or {@link CONSTANT_InterfaceMethodref#TAG}
+	 * @param className the internal name of the class containing the referenced field or method
+	 * @return the index of the matching method handle in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_MethodHandle> findConstantPoolMethodHandle(int referenceKind, int referenceTag, String className, String name, String descriptor) {
+		return findConstantPoolEntry(CONSTANT_MethodHandle.TAG, ConstantPoolLookup.methodHandleKey(referenceKind, referenceTag, ConstantPoolLookup.memberKey(className, name, descriptor)));
+	}
+
+
+	/**
+	 * @return the index of the {@link CONSTANT_MethodType} with the specified method descriptor, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_MethodType> findConstantPoolMethodType(String methodDescriptor) {
+		return findConstantPoolEntry(CONSTANT_MethodType.TAG, methodDescriptor);
+	}
+
+
+	/**
+	 * @param bootstrapMethodAttrIndex the index of the bootstrap method in the class file's {@code BootstrapMethods} attribute
+	 * @return the index of the matching {@link CONSTANT_InvokeDynamic} in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_InvokeDynamic> findConstantPoolInvokeDynamic(int bootstrapMethodAttrIndex, String name, String descriptor) {
+		return findConstantPoolEntry(CONSTANT_InvokeDynamic.TAG, ConstantPoolLookup.invokeDynamicKey(bootstrapMethodAttrIndex, name, descriptor));
+	}
+
+
+	public int getMajorVersion() {
+		return major_version & 0xFFFF;
+	}
+
+
+	public int getMinorVersion() {
+		return minor_version & 0xFFFF;
 	}
 
 
@@ -212,7 +476,7 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 
 
 	public Attribute_Type getAttribute(int index) {
-		return attributes[index];
+		return ClassFileAttributes.getAttribute(attributes, index);
 	}
 
 
@@ -242,7 +506,10 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 
 	@Override
 	public void addConstantPoolExpectation(int index, Class<? extends CONSTANT_CP_Info> clazz) {
-		constantPoolExpectations.get(index).add(clazz);
+		// expectations are only tracked while the constant pool is being read
+		if(constantPoolExpectations != null) {
+			constantPoolExpectations.get(index).add(clazz);
+		}
 	}
 
 
@@ -255,18 +522,34 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	}
 
 
-	/** Add the specified object to this class file's constant pool
+	/** Add the specified object to this class file's constant pool, {@link CONSTANT_Long} and {@link CONSTANT_Double} entries
+	 * take up two constant pool indexes. The entry is always appended, see {@link twg2.jbcm.modify.ConstantPoolBuilder}
+	 * to reuse existing entries.
 	 * @param cpObj the constant pool object to add
 	 * @return the index of the added constant pool object
+	 * @throws IllegalStateException if the constant pool is full (65535 entries)
 	 */
 	public <T extends CONSTANT_CP_Info> CpIndex<T> addToConstantPool(T cpObj) {
+		boolean doubleSlot = cpObj instanceof CONSTANT_Long || cpObj instanceof CONSTANT_Double;
+		int count = constant_pool_count & 0xFFFF;
+		if(count + (doubleSlot ? 2 : 1) > 0xFFFF) {
+			throw new IllegalStateException("constant pool is full, cannot add " + cpObj + " at index " + count);
+		}
 		@SuppressWarnings("unchecked")
 		Class<T> cpClass = (Class<T>)cpObj.getClass();
-		CpIndex<T> cpItem = new CpIndex<T>(cpObj, cpClass, constant_pool_count);
+		CpIndex<T> cpItem = new CpIndex<T>(cpObj, cpClass, count);
 		@SuppressWarnings("unchecked")
 		CpIndex<CONSTANT_CP_Info> cpItemT = (CpIndex<CONSTANT_CP_Info>)cpItem;
 		constant_pool.add(cpItemT);
 		constant_pool_count++;
+		if(doubleSlot) {
+			// the unusable index following a long or double entry
+			constant_pool.add(new CpIndex<CONSTANT_CP_Info>(count + 1));
+			constant_pool_count++;
+		}
+		if(cpLookup != null) {
+			cpLookup.add(cpItem.getIndex());
+		}
 		return cpItem;
 	}
 
@@ -275,18 +558,34 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 		if(index < 1 || index >= constant_pool_count) {
 			throw new IndexOutOfBoundsException("Illegal class file constant pool index: " + index);
 		}
-		constant_pool.get(index).setCpObject(cpObj);
+		if(cpLookup != null) {
+			cpLookup = cpLookup.remove(index) ? cpLookup : null;
+		}
+		getConstantPoolIndex(index).setCpObject(cpObj);
+		if(cpLookup != null) {
+			cpLookup.add(index);
+		}
 	}
 
 
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
+		for(int i = constant_pool_count - 1; i > 0; i--) {
+			indexChanger.indexChange(getConstantPoolIndex(i));
+		}
+		changeCpIndexReferences(indexChanger);
+	}
+
+
+	/** Call {@code indexChanger} on the constant pool indexes referenced from outside the constant pool,
+	 * i.e. the class, super class, interfaces, fields, methods, and attributes, but not the constant pool entries themselves
+	 * @param indexChanger the constant pool index visitor
+	 */
+	public void changeCpIndexReferences(CpIndexChanger indexChanger) {
+		cpLookup = null;
 		indexChanger.indexChange(this_class);
 		indexChanger.indexChange(super_class);
 		indexChanger.indexChange(interfaces);
-		for(int i = constant_pool_count - 1; i > 0; i--) {
-			indexChanger.indexChange(constant_pool.get(i));
-		}
 		indexChanger.indexChange(fields);
 		indexChanger.indexChange(methods);
 		indexChanger.indexChange(attributes);
@@ -294,36 +593,164 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	}
 
 
+	/** Swap two constant pool entries and update every reference to them, including instruction operands, see {@link #remapConstantPool(int[])}
+	 * @param index1 the first index to swap
+	 * @param index2 the second index to swap
+	 * @throws IllegalArgumentException if only one of the entries is a {@code CONSTANT_Long} or {@code CONSTANT_Double} (which use two indexes)
+	 */
 	public void swapConstantPoolIndices(int index1, int index2) {
-		// Swap the constant_pool items
-		CONSTANT_CP_Info item1 = constant_pool.get(index1).getCpObject();
-		CONSTANT_CP_Info item2 = constant_pool.get(index2).getCpObject();
-		setConstantPool(index1, item2);
-		setConstantPool(index2, item1);
-		// Swap the indices of all objects that refer to these two constant pool objects
-		short tempIndex = (short)(constant_pool_count + 1);
-		CpIndexChanger index1ToTemp = new CpIndexChanger((short)index1, tempIndex);
-		CpIndexChanger tempToIndex2 = new CpIndexChanger(tempIndex, (short)index2);
-		changeCpIndex(index1ToTemp);
-		changeCpIndex(tempToIndex2);
+		int[] oldToNew = identityIndexes(constant_pool_count & 0xFFFF);
+		oldToNew[index1] = index2;
+		oldToNew[index2] = index1;
+		remapConstantPool(oldToNew);
 	}
 
 
-	/** Swap two constant pool indices and update the associated offsets and index pointers
+	/** Swap two constant pool indices in every method's instructions, the constant pool and other references are not changed.
+	 * {@code ldc} instructions whose constant would be swapped to an index greater than 255 are replaced with {@code ldc_w} instructions
 	 * @param offset the offset into each method's instructions at which to start searching and replace {@code index1} with {@code index2}
 	 * @param index1 the first index to swap
 	 * @param index2 the second index to swap
 	 */
 	public void swapCodeCpIndices(int offset, int index1, int index2) {
-		int tempIndex = (constant_pool_count + 1);
+		int[] oldToNew = identityIndexes(Math.max(constant_pool_count & 0xFFFF, Math.max(index1, index2) + 1));
+		oldToNew[index1] = index2;
+		oldToNew[index2] = index1;
+		CpRemapper remapper = new CpRemapper(oldToNew);
 		for(Method_Info method : methods) {
 			if(method.getCode() != null) {
-				byte[] instructions = method.getCode().getCode();
-				TypeUtility.changeCpIndices(instructions, offset, index1, tempIndex);
-				TypeUtility.changeCpIndices(instructions, offset, index2, index1);
-				TypeUtility.changeCpIndices(instructions, offset, tempIndex, index2);
+				remapper.widenLdc(method.getCode(), offset);
+			}
+		}
+		for(Method_Info method : methods) {
+			if(method.getCode() != null) {
+				remapper.remapCode(method.getCode().getCode(), offset);
+				method.getCode().clearInstructionIndex();
+			}
+		}
+	}
+
+
+	/** Renumber this class file's constant pool. Every constant pool index in this class file, including instruction operands
+	 * and constant pool entries which reference other entries, is rewritten in a single traversal of the class file.
+	 * Entries are moved to their new indexes and removed entries are dropped from the constant pool.<br/>
+	 * Lazily loaded constant pool entries and attributes are loaded first since their raw bytes contain constant pool indexes.
+	 * The contents of unrecognized attributes ({@link twg2.jbcm.classFormat.attributes.UnknownAttributeType}) are not changed.
+	 * @param oldToNew a table of new constant pool indexes indexed by current constant pool index, with at least {@link #getConstantPoolCount()} elements.
+	 * Entries which are removed map to 0, the values for the unusable indexes following {@code CONSTANT_Long} and {@code CONSTANT_Double} entries are ignored.
+	 * The new indexes must leave no gaps in the new constant pool and removed entries must not be referenced.
+	 * {@code ldc} instructions whose constants are remapped to indexes greater than 255 are replaced with {@code ldc_w} instructions.<br/>
+	 * The table and references are validated before anything is changed.
+	 * @throws IllegalArgumentException if the table maps two entries to the same index, leaves gaps, has an index greater than 65534,
+	 * or removes an entry which is still referenced
+	 * @throws IllegalStateException if widening an {@code ldc} instruction moves a branch target out of the branch instruction's range
+	 * @see #compactConstantPool()
+	 */
+	public void remapConstantPool(int[] oldToNew) {
+		int count = constant_pool_count & 0xFFFF;
+		if(oldToNew.length < count) {
+			throw new IllegalArgumentException("constant pool remap table length " + oldToNew.length + " is less than the constant pool count " + count);
+		}
+		loadConstantPool();
+
+		// build and validate the new constant pool before modifying anything
+		int newCount = 1;
+		for(int i = 1; i < count; i++) {
+			CONSTANT_CP_Info cpObj = constant_pool.get(i).getCpObject();
+			int newIndex = oldToNew[i];
+			if(cpObj != null && newIndex != 0) {
+				if(newIndex < 0 || newIndex >= 0xFFFF) {
+					throw new IllegalArgumentException("illegal new constant pool index " + newIndex + " for index " + i);
+				}
+				newCount = Math.max(newCount, newIndex + (isDoubleSlot(cpObj) ? 2 : 1));
+			}
+		}
+		if(newCount > 0xFFFF) {
+			throw new IllegalArgumentException("remapped constant pool count " + newCount + " exceeds 65535");
+		}
+		var newPool = new ArrayList<CpIndex<CONSTANT_CP_Info>>(Collections.nCopies(newCount, (CpIndex<CONSTANT_CP_Info>)null));
+		newPool.set(0, constant_pool.get(0));
+		for(int i = 1; i < count; i++) {
+			CpIndex<CONSTANT_CP_Info> cpIdx = constant_pool.get(i);
+			CONSTANT_CP_Info cpObj = cpIdx.getCpObject();
+			int newIndex = oldToNew[i];
+			if(cpObj != null && newIndex != 0) {
+				boolean doubleSlot = isDoubleSlot(cpObj);
+				if(newPool.get(newIndex) != null || (doubleSlot && newPool.get(newIndex + 1) != null)) {
+					throw new IllegalArgumentException("constant pool index " + i + " remapped to index " + newIndex + " which is already used");
+				}
+				newPool.set(newIndex, cpIdx);
+				if(doubleSlot) {
+					newPool.set(newIndex + 1, new CpIndex<CONSTANT_CP_Info>(newIndex + 1));
+				}
+			}
+		}
+		for(int i = 1; i < newCount; i++) {
+			if(newPool.get(i) == null) {
+				throw new IllegalArgumentException("no constant pool entry remapped to index " + i);
+			}
+		}
+
+		// check references and widen ldc instructions before modifying any constant pool indexes so a failure leaves the class file unchanged
+		var remapper = new CpRemapper(oldToNew);
+		remapper.checkRemovedReferences(this);
+		for(Method_Info method : methods) {
+			if(method.getCode() != null) {
+				remapper.widenLdc(method.getCode(), 0);
+			}
+		}
+
+		// one traversal rewrites instruction operands and loads deferred attributes, then each shared CpIndex is renumbered once
+		changeCpIndex(remapper);
+		for(int i = 1; i < count; i++) {
+			CpIndex<CONSTANT_CP_Info> cpIdx = constant_pool.get(i);
+			if(cpIdx.getCpObject() != null) {
+				cpIdx.setIndex(oldToNew[i]);
+			}
+		}
+		constant_pool = newPool;
+		constant_pool_count = (short)newCount;
+		cpLookup = null;
+	}
+
+
+	/** Remove unused constant pool entries and renumber the remaining entries, keeping their order.
+	 * Nothing is removed if this class file contains unrecognized attributes, since their contents may reference constant pool entries.
+	 * Entries are used if they are referenced by this class file's structures (including instruction operands) or by other used entries.
+	 * @return the number of constant pool indexes removed
+	 * @see FindCpIndexUsage#findUsedIndexes(ClassFile)
+	 */
+	public int compactConstantPool() {
+		loadConstantPool();
+		int count = constant_pool_count & 0xFFFF;
+		boolean[] used = FindCpIndexUsage.findUsedIndexes(this);
+		int[] oldToNew = new int[count];
+		int next = 1;
+		for(int i = 1; i < count; i++) {
+			CONSTANT_CP_Info cpObj = constant_pool.get(i).getCpObject();
+			if(cpObj != null && used[i]) {
+				oldToNew[i] = next;
+				next += isDoubleSlot(cpObj) ? 2 : 1;
 			}
 		}
+		if(next < count) {
+			remapConstantPool(oldToNew);
+		}
+		return count - next;
+	}
+
+
+	private static boolean isDoubleSlot(CONSTANT_CP_Info cpObj) {
+		return cpObj instanceof CONSTANT_Long || cpObj instanceof CONSTANT_Double;
+	}
+
+
+	private static int[] identityIndexes(int size) {
+		int[] indexes = new int[size];
+		for(int i = 0; i < size; i++) {
+			indexes[i] = i;
+		}
+		return indexes;
 	}
 
 
@@ -341,21 +768,63 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	}
 
 
+	/** Rename this class, including its nested classes, and update every class name, descriptor, and signature which references it.
+	 * Other strings, such as string constants containing the class name, are not changed.
+	 * @param className the new internal class name, for example {@code "org/example/Renamed"}
+	 * @see ClassRelocator
+	 */
 	public void rename(String className) {
-		CONSTANT_Class thisClass = this_class.getCpObject();
-		String oldName = thisClass.getName().getString();
-		String str = null;
-		thisClass.getName().setString(className);
-		CONSTANT_Utf8 cpStr = null;
-		for(int i = 1; i < constant_pool_count; i++) {
-			if(constant_pool.get(i).getCpObject() instanceof CONSTANT_Utf8) {
-				cpStr = (CONSTANT_Utf8)constant_pool.get(i).getCpObject();
-				str = cpStr.getString();
-				if(str.contains(oldName)) {
-					cpStr.setString(str.replace(oldName, className));
-				}
-			}
+		String oldName = this_class.getCpObject().getName().getString();
+		new ClassRelocator(Map.of(oldName, className)).relocate(this);
+	}
+
+
+	/** Calculate the exact number of bytes {@link #writeData(DataOutput)} will write
+	 * @return the serialized size of this class file in bytes
+	 */
+	public int computeSize() {
+		var counter = new DataCountingOutput();
+		try {
+			writeData(counter);
+		} catch(IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		if(counter.bytesWritten() > Integer.MAX_VALUE) {
+			throw new IllegalStateException("class file size " + counter.bytesWritten() + " exceeds the maximum array size");
+		}
+		return (int)counter.bytesWritten();
+	}
+
+
+	/** Serialize this class file into a new array of exactly {@link #computeSize()} bytes, the class is
+	 * encoded directly into the array without any intermediate stream buffers
+	 * @return the class file bytes
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[computeSize()];
+		int written = writeTo(ByteBuffer.wrap(bytes));
+		if(written != bytes.length) {
+			throw new IllegalStateException("class file wrote " + written + " bytes, expected " + bytes.length);
+		}
+		return bytes;
+	}
+
+
+	/** Serialize this class file into a buffer at the buffer's position using absolute puts, the buffer's position is advanced past the written bytes
+	 * @param buf the buffer to write to, must have at least {@link #computeSize()} bytes remaining
+	 * @return the number of bytes written
+	 * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining, the buffer's position is not changed
+	 */
+	public int writeTo(ByteBuffer buf) {
+		var out = new ByteBufferDataOutput(buf);
+		try {
+			writeData(out);
+		} catch(IOException ioe) {
+			throw new UncheckedIOException(ioe);
 		}
+		int written = out.bytesWritten();
+		buf.position(buf.position() + written);
+		return written;
 	}
 
 
@@ -367,11 +836,21 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 		out.writeShort(constant_pool_count);
 		// Constant pool starts at 1
 		for(int i = 1; i < constant_pool_count; i++) {
-			constant_pool.get(i).getCpObject().writeData(out);
+			CpIndex<CONSTANT_CP_Info> cpIdx = constant_pool.get(i);
+			if(cpIdx == null) {
+				// not loaded yet, the original bytes are still valid
+				constantPoolTable.writeEntry(i, out);
+				continue;
+			}
+			CONSTANT_CP_Info cpObj = cpIdx.getCpObject();
+			// the index following a long or double entry is unusable and has no data
+			if(cpObj != null) {
+				cpObj.writeData(out);
+			}
 		}
 		out.writeShort(access_flags);
 		this_class.writeData(out);
-		super_class.writeData(out);
+		CpIndex.writeOptional(super_class, out);
 		out.writeShort(interfaces_count);
 		for(int i = 0; i < interfaces_count; i++) {
 			interfaces[i].writeData(out);
@@ -394,7 +873,6 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	@SuppressWarnings("unchecked")
 	@Override
 	public void readData(DataInput in) throws IOException {
-		var incs = (DataCountingInputStream)in;
 		magic = in.readInt();
 		if(magic != HEADER_BYTES && requireJavaHeaderBytes) {
 			throw new IllegalStateException("Header bytes do not match " + HEADER_BYTES + ": " + magic);
@@ -403,33 +881,49 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 		major_version = in.readShort();
 		constant_pool_count = in.readShort();
 		constant_pool = new ArrayList<CpIndex<CONSTANT_CP_Info>>();
-		if(Settings.debug) { System.out.println("Class file version: " + major_version + "." + minor_version); }
-		if(Settings.debug) { System.out.println("Constant pool size: " + constant_pool_count); }
+		constantPoolTable = null;
+		cpLookup = null;
+		if(options.debug) { System.out.println("Class file version: " + major_version + "." + minor_version); }
+		if(options.debug) { System.out.println("Constant pool size: " + constant_pool_count); }
 		// The special index 0 of the constant pool
 		constant_pool.add(new CpIndex<CONSTANT_CP_Info>(CONSTANT_CP_Info.class, 0));
-		if(Settings.checkCPExpectedType) {
+		if(options.lazyConstantPool) {
+			// record entry offsets, entries are parsed the first time they are requested from getConstantPoolIndex()
+			constantPoolTable = ConstantPoolTable.read(in, constant_pool_count & 0xFFFF, options.checkCPTag);
+			for(int i = 1; i < constant_pool_count; i++) {
+				constant_pool.add(null);
+			}
+			if(options.debug) { System.out.println("Constant pool scanned, stream index @ " + streamIndex(in)); }
+			readDataAfterConstantPool(in);
+			return;
+		}
+		if(options.checkCPExpectedType) {
 			constantPoolExpectations = new ArrayList<List<Class<? extends CONSTANT_CP_Info>>>();
 			constantPoolExpectations.add(Collections.emptyList());
 		}
 		// initialize the values in the constant pool
 		for(int i = 1; i < constant_pool_count; i++) {
 			constant_pool.add(new CpIndex<CONSTANT_CP_Info>(i));
-			if(Settings.checkCPExpectedType) constantPoolExpectations.add(new ArrayList<Class<? extends CONSTANT_CP_Info>>());
+			if(options.checkCPExpectedType) constantPoolExpectations.add(new ArrayList<Class<? extends CONSTANT_CP_Info>>());
 		}
 		// Constant pool starts at 1
 		for(int i = 1; i < constant_pool_count; i++) {
-			if(Settings.debug) { System.out.println("Constant pool item #" + i + " at stream index " + incs.bytesRead()); }
+			if(options.debug) { System.out.println("Constant pool item #" + i + " at stream index " + streamIndex(in)); }
 			CONSTANT_CP_Info cpItem = ConstantPoolTag.loadConstantPoolObject(in, i, this);
 			if(cpItem != null) {
 				constant_pool.get(i).setCpObject(cpItem);
+				// long and double entries take up two constant pool indexes, the second index is unusable
+				if(cpItem instanceof CONSTANT_Long || cpItem instanceof CONSTANT_Double) {
+					i++;
+				}
 			}
-			else if(Settings.debug) {
-				System.out.println("Failed to parse constant pool item #" + i + ", now at stream index " + incs.bytesRead());
+			else if(options.debug) {
+				System.out.println("Failed to parse constant pool item #" + i + ", now at stream index " + streamIndex(in));
 			}
 		}
 		// if debug mode: print constant pool entries
-		if(Settings.debug) {
-			System.out.println("Constant pool finished reading, stream index @ " + incs.bytesRead());
+		if(options.debug) {
+			System.out.println("Constant pool finished reading, stream index @ " + streamIndex(in));
 			for(int i = 1; i < constant_pool_count; i++) {
 				try {
 					System.out.println("CP item " + i + ": " + constant_pool.get(i));
@@ -439,16 +933,22 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 			}
 		}
 		// validate constant pool expected types
-		if(Settings.checkCPExpectedType) {
+		if(options.checkCPExpectedType) {
 			for(int i = 1; i < constant_pool_count; i++) {
 				CpIndex<CONSTANT_CP_Info> cpIdx = constant_pool.get(i);
 				Class<CONSTANT_CP_Info> expected = (Class<CONSTANT_CP_Info>)checkExpectedType(cpIdx, constantPoolExpectations.get(i));
-				if(!cpIdx.isInitialized()) {
+				if(!cpIdx.isInitialized() && expected != null) {
 					cpIdx.initialize(expected);
 				}
 			}
 			constantPoolExpectations = null;
 		}
+		readDataAfterConstantPool(in);
+	}
+
+
+	@SuppressWarnings("unchecked")
+	private void readDataAfterConstantPool(DataInput in) throws IOException {
 		access_flags = in.readShort();
 		this_class = this.getCheckCpIndex(in.readShort(), CONSTANT_Class.class);
 		super_class = this.getCheckCpIndex(in.readShort(), CONSTANT_Class.class, true);
@@ -475,7 +975,7 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 			attributes[i] = ClassFileAttributes.loadAttributeObject(in, this, null);
 			// Loop bootstrap methods attribute
 			if(attributes[i].getClass() == BootstrapMethods.class) {
-				if(Settings.debug && this.bootstrapMethods != null) {
+				if(options.debug && this.bootstrapMethods != null) {
 					System.out.println("duplicate bootstramp methods attributes found, overwriting prevous '" + this.bootstrapMethods + "' with '" + attributes[i] + "'");
 				}
 				this.bootstrapMethods = (BootstrapMethods)attributes[i];
@@ -500,7 +1000,7 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 		stream.println("Java ClassFile " + major_version + "." + minor_version);
 		stream.println("Constants: " + constant_pool_count);
 		for(int i = 1; i < constant_pool_count; i++) {
-			stream.println("Constant " + i + ": " + constant_pool.get(i).getCpObject().toString());
+			stream.println("Constant " + i + ": " + getConstantPoolIndex(i).getCpObject());
 		}
 		stream.println();
 		stream.println("This class: " + this_class.getCpObject() + ", access=" + Integer.toHexString(access_flags));
@@ -556,6 +1056,39 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	}
 
 
+	/** Parse a lazily loaded constant pool entry.
+	 * The entry's {@link CpIndex} is added to the constant pool before parsing so that entries which
+	 * reference each other (directly or indirectly) resolve to the same instance.
+	 */
+	private CpIndex<CONSTANT_CP_Info> loadConstantPoolIndex(int index) {
+		CpIndex<CONSTANT_CP_Info> cpIdx = new CpIndex<CONSTANT_CP_Info>(index);
+		constant_pool.set(index, cpIdx);
+		try {
+			CONSTANT_CP_Info cpItem = constantPoolTable.loadEntry(index, this);
+			if(cpItem != null) {
+				cpIdx.setCpObject(cpItem);
+			}
+		} catch(IOException ioe) {
+			throw new UncheckedIOException("reading constant pool entry " + index + " from " + source, ioe);
+		}
+		return cpIdx;
+	}
+
+
+	/**
+	 * @return the number of bytes read from {@code in} if it tracks that information, else -1
+	 */
+	private static int streamIndex(DataInput in) {
+		if(in instanceof DataCountingInputStream) {
+			return ((DataCountingInputStream)in).bytesRead();
+		}
+		if(in instanceof ByteBufferDataInput) {
+			return ((ByteBufferDataInput)in).bytesRead();
+		}
+		return -1;
+	}
+
+
 	public static final CONSTANT_CP_Info checkCpConstant(CONSTANT_CP_Info obj) {
 		if(obj instanceof CONSTANT_Long || obj instanceof CONSTANT_Float || obj instanceof CONSTANT_Double
 				|| obj instanceof CONSTANT_Integer || obj instanceof CONSTANT_String) {
@@ -594,13 +1127,102 @@ public class ClassFile extends ConstantPoolExtensions implements Externalizable,
 	}
 
 
+	/** Create a {@link ClassFile} from the specified file path. Large files are memory-mapped,
+	 * small files are read into memory, in both cases the class is parsed directly from the buffer via {@link #load(ByteBuffer, String)}.
+	 * @param path the file to load
+	 * @return the class file loaded from the specified file
+	 * @throws IOException if the file cannot be opened or if it is not a recognized class file format
+	 */
+	public static ClassFile load(Path path) throws IOException {
+		return load(readBuffer(path), path.toString());
+	}
+
+
+	/** Create a {@link ClassFile} from the specified file path, see {@link #load(Path)}
+	 * @param path the file to load
+	 * @param options the parsing and validation options
+	 * @return the class file loaded from the specified file
+	 * @throws IOException if the file cannot be opened or if it is not a recognized class file format
+	 */
+	public static ClassFile load(Path path, ParseOptions options) throws IOException {
+		return load(readBuffer(path), path.toString(), options);
+	}
+
+
+	/** Read a file into a buffer, files larger than {@link #MAP_FILE_THRESHOLD} are memory-mapped
+	 * @param path the file to read
+	 * @return a buffer containing the file's contents
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public static ByteBuffer readBuffer(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size >= MAP_FILE_THRESHOLD) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			else {
+				return ByteBuffer.wrap(Files.readAllBytes(path));
+			}
+		}
+	}
+
+
+	/** Create a {@link ClassFile} from a byte array containing a class file
+	 * @param bytes the class file bytes, the array is not copied and should not be modified while loading
+	 * @param source the name of the source the bytes were loaded from, for informational purposes
+	 * @return the class file loaded from the specified bytes
+	 * @throws IOException if the bytes are not a recognized class file format
+	 */
+	public static ClassFile load(byte[] bytes, String source) throws IOException {
+		return load(ByteBuffer.wrap(bytes), source);
+	}
+
+
+	/** Create a {@link ClassFile} from a byte array containing a class file, see {@link #load(byte[], String)}
+	 * @param options the parsing and validation options
+	 */
+	public static ClassFile load(byte[] bytes, String source, ParseOptions options) throws IOException {
+		return load(ByteBuffer.wrap(bytes), source, options);
+	}
+
+
+	/** Create a {@link ClassFile} from a buffer containing a class file, the class is parsed from the buffer's
+	 * position to its limit using absolute index reads, the buffer's position is not modified.
+	 * @param buf the class file buffer, can be a heap, direct, or memory-mapped buffer
+	 * @param source the name of the source the bytes were loaded from, for informational purposes
+	 * @return the class file loaded from the specified buffer
+	 * @throws IOException if the buffer is not a recognized class file format
+	 */
+	public static ClassFile load(ByteBuffer buf, String source) throws IOException {
+		return load(buf, source, ParseOptions.fromSettings());
+	}
+
+
+	/** Create a {@link ClassFile} from a buffer containing a class file, see {@link #load(ByteBuffer, String)}
+	 * @param options the parsing and validation options
+	 */
+	public static ClassFile load(ByteBuffer buf, String source, ParseOptions options) throws IOException {
+		ClassFile classFile = new ClassFile(true, source, options);
+		classFile.readData(new ByteBufferDataInput(buf));
+		return classFile;
+	}
+
+
 	/** Create a {@link ClassFile} from the specified input stream
 	 * @param input the input stream to load
 	 * @return the class file loaded from the specified input stream
 	 * @throws IOException if the file cannot be opened or if it is not a recognized class file format
 	 */
 	public static ClassFile load(InputStream input, String source) throws IOException {
-		ClassFile classFile = new ClassFile(true, source);
+		return load(input, source, ParseOptions.fromSettings());
+	}
+
+
+	/** Create a {@link ClassFile} from the specified input stream, see {@link #load(InputStream, String)}
+	 * @param options the parsing and validation options
+	 */
+	public static ClassFile load(InputStream input, String source, ParseOptions options) throws IOException {
+		ClassFile classFile = new ClassFile(true, source, options);
 		DataInputStream in = null;
 		try {
 			in = new DataCountingInputStream(input);
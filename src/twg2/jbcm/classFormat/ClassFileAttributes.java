@@ -10,6 +10,7 @@ import twg2.jbcm.classFormat.attributes.Attribute_Type;
 import twg2.jbcm.classFormat.attributes.BootstrapMethods;
 import twg2.jbcm.classFormat.attributes.Code;
 import twg2.jbcm.classFormat.attributes.ConstantValue;
+import twg2.jbcm.classFormat.attributes.DeferredAttribute;
 import twg2.jbcm.classFormat.attributes.Deprecated;
 import twg2.jbcm.classFormat.attributes.EnclosingMethod;
 import twg2.jbcm.classFormat.attributes.Exceptions;
@@ -20,6 +21,9 @@ import twg2.jbcm.classFormat.attributes.LocalVariableTypeTable;
 import twg2.jbcm.classFormat.attributes.MethodParameters;
 import twg2.jbcm.classFormat.attributes.ModuleMainClass;
 import twg2.jbcm.classFormat.attributes.ModulePackages;
+import twg2.jbcm.classFormat.attributes.NestHost;
+import twg2.jbcm.classFormat.attributes.NestMembers;
+import twg2.jbcm.classFormat.attributes.PermittedSubclasses;
 import twg2.jbcm.classFormat.attributes.RuntimeInvisibleAnnotations;
 import twg2.jbcm.classFormat.attributes.RuntimeInvisibleParameterAnnotations;
 import twg2.jbcm.classFormat.attributes.RuntimeInvisibleTypeAnnotations;
@@ -123,6 +127,21 @@ public enum ClassFileAttributes {
 	},
 	MODULE_MAIN_CLASS("ModuleMainClass") {
 		@Override public ModuleMainClass create(ClassFile clazz, int cpNameIndex, Code code) { return new ModuleMainClass(clazz, (short)cpNameIndex); }
+	},
+	// Java SE 11
+	NEST_HOST("NestHost") {
+		@Override public NestHost create(ClassFile clazz, int cpNameIndex, Code code) { return new NestHost(clazz, (short)cpNameIndex); }
+	},
+	NEST_MEMBERS("NestMembers") {
+		@Override public NestMembers create(ClassFile clazz, int cpNameIndex, Code code) { return new NestMembers(clazz, (short)cpNameIndex); }
+	},
+	// Java SE 16
+	RECORD("Record") {
+		@Override public twg2.jbcm.classFormat.attributes.Record create(ClassFile clazz, int cpNameIndex, Code code) { return new twg2.jbcm.classFormat.attributes.Record(clazz, (short)cpNameIndex); }
+	},
+	// Java SE 17
+	PERMITTED_SUBCLASSES("PermittedSubclasses") {
+		@Override public PermittedSubclasses create(ClassFile clazz, int cpNameIndex, Code code) { return new PermittedSubclasses(clazz, (short)cpNameIndex); }
 	};	
 
 
@@ -168,18 +187,54 @@ public enum ClassFileAttributes {
 		short attributeNameIndex = in.readShort();
 		String name = resolver.getCpString(attributeNameIndex);
 
-		Attribute_Type attrib = attribMap.get(name).create(resolver, attributeNameIndex, codeCaller);
+		ClassFileAttributes type = attribMap.get(name);
+		Attribute_Type attrib = null;
 
-		if(attrib == null) {
+		if(type == null) {
 			attrib = new UnknownAttributeType(resolver, attributeNameIndex);
 			System.err.println("[Settings] Unknown Attribute_Info type, name: " + name);
 		}
+		// the class file's bootstrap methods are needed while reading, attribute names are read by each attribute's readData() when readAttributeName is enabled
+		else if(resolver.getParseOptions().lazyAttributes && type != BOOTSTRAP_METHODS && !resolver.getParseOptions().readAttributeName) {
+			return DeferredAttribute.read(in, resolver, type, attributeNameIndex, codeCaller);
+		}
+		else {
+			attrib = type.create(resolver, attributeNameIndex, codeCaller);
+		}
 
 		attrib.readData(in);
 		return attrib;
 	}
 
 
+	/** Get an attribute from an attribute array, if the attribute has not been parsed yet (see {@link DeferredAttribute}),
+	 * it is parsed and replaces the placeholder in the array
+	 * @param attributes the attribute array
+	 * @param index the index of the attribute to get
+	 * @return the parsed attribute
+	 */
+	public static final Attribute_Type getAttribute(Attribute_Type[] attributes, int index) {
+		Attribute_Type attrib = attributes[index];
+		if(attrib instanceof DeferredAttribute) {
+			attrib = ((DeferredAttribute)attrib).load();
+			attributes[index] = attrib;
+		}
+		return attrib;
+	}
+
+
+	/** Parse any unparsed attributes in an attribute array, see {@link #getAttribute(Attribute_Type[], int)}
+	 * @param attributes the attribute array
+	 * @return the attribute array
+	 */
+	public static final Attribute_Type[] getAttributes(Attribute_Type[] attributes) {
+		for(int i = 0, size = attributes.length; i < size; i++) {
+			getAttribute(attributes, i);
+		}
+		return attributes;
+	}
+
+
 	/** Read an attribute name index from an input stream and compare the constant pool string
 	 * at that index to the expected name.
 	 * This method checks if attribute names should be read first and does not modify the input stream
@@ -197,7 +252,7 @@ public enum ClassFileAttributes {
 	public static final CpIndex<CONSTANT_Utf8> readAttributeNameIndex(DataInput in, ClassFile resolver, String attributeName) throws IOException {
 		short nameIndex = in.readShort();
 		String cpName = resolver.getCpString(nameIndex);
-		if(Settings.checkAttributeName) {
+		if(resolver.getParseOptions().checkAttributeName) {
 			if(!attributeName.equals(cpName)) {
 				throw new IllegalStateException(attributeName + " attribute name does not match: " + cpName);
 			}
@@ -0,0 +1,204 @@
+package twg2.jbcm.classFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** Loads every class file in a directory tree, jar, zip, or jmod file in parallel.
+ * Each class file is read and parsed as a separate task on an {@link ExecutorService} (by default the
+ * {@link ForkJoinPool#commonPool()}, a virtual thread executor can also be used).
+ * Failures are isolated per class file and reported in each file's {@link Result}, one malformed class file does not stop the batch.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ClassFileBatchLoader {
+
+	/** The outcome of loading one class file, either a {@link ClassFile} or the error that prevented it from being loaded
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static final class Result {
+		private final String name;
+		private final ClassFile classFile;
+		private final Exception error;
+
+
+		Result(String name, ClassFile classFile, Exception error) {
+			this.name = name;
+			this.classFile = classFile;
+			this.error = error;
+		}
+
+
+		/** Create a result for a class file which could not be processed
+		 * @param name the class file's path relative to the directory or archive root
+		 * @param error the error which prevented the class file from being loaded or processed
+		 */
+		public static Result failed(String name, Exception error) {
+			return new Result(name, null, error);
+		}
+
+
+		/**
+		 * @return the class file's path relative to the directory or archive root, using '/' separators
+		 */
+		public String getName() {
+			return name;
+		}
+
+
+		/**
+		 * @return the loaded class file, or null if loading failed
+		 */
+		public ClassFile getClassFile() {
+			return classFile;
+		}
+
+
+		/**
+		 * @return the error thrown while reading or parsing the class file, or null if the class file was loaded
+		 */
+		public Exception getError() {
+			return error;
+		}
+
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+
+		@Override
+		public String toString() {
+			return name + (error != null ? " (error: " + error + ")" : "");
+		}
+
+	}
+
+
+	private final ExecutorService executor;
+	private final ParseOptions options;
+
+
+	/** Create a batch loader which parses class files on the {@link ForkJoinPool#commonPool()}
+	 * @param options the parse options to load each class file with
+	 */
+	public ClassFileBatchLoader(ParseOptions options) {
+		this(ForkJoinPool.commonPool(), options);
+	}
+
+
+	/**
+	 * @param executor the executor to read and parse class files on, for example a {@link ForkJoinPool} with a specific parallelism.
+	 * The executor is not shut down by this loader
+	 * @param options the parse options to load each class file with
+	 */
+	public ClassFileBatchLoader(ExecutorService executor, ParseOptions options) {
+		this.executor = executor;
+		this.options = options;
+	}
+
+
+	/** Load all the class files in a directory tree or archive, see {@link #load(Path, Consumer)}
+	 * @param source a directory, or a jar, zip, or jmod file
+	 * @return the results of every class file in {@code source} sorted by name
+	 * @throws IOException if {@code source} cannot be opened or listed
+	 */
+	public List<Result> loadAll(Path source) throws IOException {
+		List<Result> results = Collections.synchronizedList(new ArrayList<>());
+		load(source, results::add);
+		results.sort(Comparator.comparing(Result::getName));
+		return results;
+	}
+
+
+	/** Load all the class files in a directory tree or archive. Files are read and parsed in parallel and
+	 * {@code callback} is called from the executor's threads as each file finishes, so it must be thread-safe.
+	 * This method returns once every class file has been loaded and passed to {@code callback}.
+	 * @param source a directory, or a jar, zip, or jmod file
+	 * @param callback called with the result of each class file, in no particular order
+	 * @return the number of class files found
+	 * @throws IOException if {@code source} cannot be opened or listed
+	 */
+	public int load(Path source, Consumer<Result> callback) throws IOException {
+		if(Files.isDirectory(source)) {
+			return loadTree(source, source, callback);
+		}
+		else {
+			// jar, zip, and jmod files (which are zip files with a 4 byte header) are all supported by the zip file system
+			try(FileSystem zipFs = FileSystems.newFileSystem(source)) {
+				return loadTree(zipFs.getPath("/"), source, callback);
+			}
+		}
+	}
+
+
+	private int loadTree(Path root, Path source, Consumer<Result> callback) throws IOException {
+		boolean isArchive = root.getFileSystem() != FileSystems.getDefault();
+		List<Path> paths;
+		try(Stream<Path> files = Files.walk(root)) {
+			paths = files.filter((p) -> p.toString().endsWith(".class") && Files.isRegularFile(p)).collect(Collectors.toList());
+		}
+
+		List<Future<?>> tasks = new ArrayList<>(paths.size());
+		for(Path path : paths) {
+			String name = root.relativize(path).toString().replace('\\', '/');
+			String sourceName = isArchive ? source + "!/" + name : path.toString();
+			tasks.add(executor.submit(() -> {
+				callback.accept(loadOne(path, name, sourceName, isArchive));
+			}));
+		}
+
+		await(tasks);
+		return paths.size();
+	}
+
+
+	private Result loadOne(Path path, String name, String sourceName, boolean isArchive) {
+		try {
+			ByteBuffer buf = isArchive ? ByteBuffer.wrap(Files.readAllBytes(path)) : ClassFile.readBuffer(path);
+			return new Result(name, ClassFile.load(buf, sourceName, options), null);
+		} catch(Exception e) {
+			return new Result(name, null, e);
+		}
+	}
+
+
+	private static void await(List<Future<?>> tasks) throws IOException {
+		RuntimeException callbackError = null;
+		for(Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch(InterruptedException ie) {
+				for(Future<?> t : tasks) {
+					t.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while loading class files", ie);
+			} catch(ExecutionException ee) {
+				// loading errors are captured in each Result, so this is an exception thrown by the callback
+				if(callbackError == null) {
+					callbackError = new RuntimeException("class file batch callback failed", ee.getCause());
+				}
+			}
+		}
+		if(callbackError != null) {
+			throw callbackError;
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package twg2.jbcm.classFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import twg2.jbcm.ByteBufferDataInput;
+import twg2.jbcm.CodeUtility;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFileVisitor.AttributeTarget;
+
+/** An event based class file reader which calls {@link ClassFileVisitor} methods as a class file is decoded,
+ * without building a {@link ClassFile} object graph. The constant pool is scanned in place (see {@link ConstantPoolTable})
+ * and only the strings passed to the visitor are decoded. Nothing is retained after {@link #read(ByteBuffer, ClassFileVisitor)} returns,
+ * so single pass analyses, such as dependency extraction or string searches, can run over any number of classes with constant memory.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ClassFileReader {
+	private final ByteBuffer buf;
+	private final ByteBufferDataInput in;
+	private final ClassFileVisitor visitor;
+	private ConstantPoolTable cp;
+	/** Decoded {@code CONSTANT_Utf8} strings, names and descriptors are often shared between members */
+	private String[] strings;
+
+
+	private ClassFileReader(ByteBuffer buf, ClassFileVisitor visitor) {
+		this.buf = buf;
+		this.in = new ByteBufferDataInput(buf);
+		this.visitor = visitor;
+	}
+
+
+	/** Read a class file, see {@link #read(ByteBuffer, ClassFileVisitor)}
+	 * @param path the class file to read
+	 * @param visitor the visitor to call
+	 * @throws IOException if the file cannot be read or if it is not a recognized class file format
+	 */
+	public static void read(Path path, ClassFileVisitor visitor) throws IOException {
+		read(ClassFile.readBuffer(path), visitor);
+	}
+
+
+	/** Read a class file, see {@link #read(ByteBuffer, ClassFileVisitor)}
+	 * @param bytes the class file bytes
+	 * @param visitor the visitor to call
+	 * @throws IOException if the data is not a recognized class file format
+	 */
+	public static void read(byte[] bytes, ClassFileVisitor visitor) throws IOException {
+		read(ByteBuffer.wrap(bytes), visitor);
+	}
+
+
+	/** Read a class file from a buffer's position to its limit, calling {@code visitor} for each element
+	 * @param buf the buffer containing the class file, the buffer's position is not modified
+	 * @param visitor the visitor to call
+	 * @throws IOException if the data is not a recognized class file format
+	 */
+	public static void read(ByteBuffer buf, ClassFileVisitor visitor) throws IOException {
+		new ClassFileReader(buf, visitor).read();
+	}
+
+
+	private void read() throws IOException {
+		int magic = in.readInt();
+		if(magic != ClassFile.HEADER_BYTES) {
+			throw new IllegalStateException("Header bytes do not match " + ClassFile.HEADER_BYTES + ": " + magic);
+		}
+		int minorVersion = in.readUnsignedShort();
+		int majorVersion = in.readUnsignedShort();
+		int cpCount = in.readUnsignedShort();
+		cp = ConstantPoolTable.scan(in, cpCount, true);
+		strings = new String[cpCount];
+
+		int accessFlags = in.readUnsignedShort();
+		String className = getClassName(in.readUnsignedShort());
+		String superClassName = getClassName(in.readUnsignedShort());
+		int interfaceCount = in.readUnsignedShort();
+		String[] interfaceNames = new String[interfaceCount];
+		for(int i = 0; i < interfaceCount; i++) {
+			interfaceNames[i] = getClassName(in.readUnsignedShort());
+		}
+		visitor.visitHeader(minorVersion, majorVersion, accessFlags, className, superClassName, interfaceNames);
+
+		for(int i = 1; i < cpCount; i++) {
+			int tag = cp.getTag(i);
+			if(tag != 0) {
+				visitor.visitConstant(i, tag, cp);
+			}
+		}
+
+		int fieldCount = in.readUnsignedShort();
+		for(int i = 0; i < fieldCount; i++) {
+			int access = in.readUnsignedShort();
+			String name = getUtf8(in.readUnsignedShort());
+			String descriptor = getUtf8(in.readUnsignedShort());
+			if(visitor.visitField(access, name, descriptor)) {
+				readAttributes(AttributeTarget.FIELD);
+			}
+			else {
+				skipAttributes();
+			}
+		}
+
+		int methodCount = in.readUnsignedShort();
+		for(int i = 0; i < methodCount; i++) {
+			int access = in.readUnsignedShort();
+			String name = getUtf8(in.readUnsignedShort());
+			String descriptor = getUtf8(in.readUnsignedShort());
+			if(visitor.visitMethod(access, name, descriptor)) {
+				readAttributes(AttributeTarget.METHOD);
+			}
+			else {
+				skipAttributes();
+			}
+		}
+
+		readAttributes(AttributeTarget.CLASS);
+		visitor.visitEnd();
+	}
+
+
+	private void readAttributes(AttributeTarget target) throws IOException {
+		int count = in.readUnsignedShort();
+		for(int i = 0; i < count; i++) {
+			int nameIndex = in.readUnsignedShort();
+			int len = in.readInt();
+			int offset = in.position();
+			if(len < 0 || len > in.remaining()) {
+				throw new EOFException("attribute length " + len + " extends past the end of the buffer");
+			}
+			if(target == AttributeTarget.METHOD && cp.utf8Equals(checkTag(nameIndex, ConstantPoolTag.UTF8), ClassFileAttributes.CODE.getBinaryName())) {
+				readCode();
+			}
+			else {
+				visitor.visitAttribute(target, getUtf8(nameIndex), buf, offset, len);
+			}
+			in.skipBytes(offset + len - in.position());
+		}
+	}
+
+
+	private void readCode() throws IOException {
+		int maxStack = in.readUnsignedShort();
+		int maxLocals = in.readUnsignedShort();
+		int codeLength = in.readInt();
+		if(codeLength < 0 || codeLength > in.remaining()) {
+			throw new EOFException("code length " + codeLength + " extends past the end of the buffer");
+		}
+		byte[] code = new byte[codeLength];
+		in.readFully(code);
+
+		if(visitor.visitCode(maxStack, maxLocals, code)) {
+			for(int i = 0; i < codeLength; ) {
+				visitor.visitInstruction(Opcodes.get(code[i]), code, i);
+				i += CodeUtility.instructionLength(code, i);
+			}
+		}
+
+		int exceptionTableLength = in.readUnsignedShort();
+		in.skipBytes(exceptionTableLength * 8);
+		readAttributes(AttributeTarget.CODE);
+	}
+
+
+	private void skipAttributes() throws IOException {
+		int count = in.readUnsignedShort();
+		for(int i = 0; i < count; i++) {
+			in.skipBytes(2); // attribute_name_index
+			int len = in.readInt();
+			if(len < 0 || in.skipBytes(len) != len) {
+				throw new EOFException("attribute length " + len + " extends past the end of the buffer");
+			}
+		}
+	}
+
+
+	/**
+	 * @return the name of the {@code CONSTANT_Class} at {@code index} or null if the index is 0
+	 */
+	private String getClassName(int index) {
+		if(index == 0) {
+			return null;
+		}
+		return getUtf8(cp.getRef1(checkTag(index, ConstantPoolTag.CLASS)));
+	}
+
+
+	private String getUtf8(int index) {
+		String str = strings[index];
+		if(str == null) {
+			str = cp.getUtf8(checkTag(index, ConstantPoolTag.UTF8));
+			strings[index] = str;
+		}
+		return str;
+	}
+
+
+	private int checkTag(int index, ConstantPoolTag expect) {
+		if(index < 1 || index >= cp.size()) {
+			throw new IllegalStateException("constant pool index " + index + " out of constant pool size bounds");
+		}
+		if(cp.getTag(index) != expect.getTag()) {
+			throw new IllegalStateException("constant pool entry " + index + " tag " + cp.getTag(index) + " does not match expected " + expect);
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,117 @@
+package twg2.jbcm.classFormat;
+
+import java.nio.ByteBuffer;
+
+import twg2.jbcm.Opcodes;
+
+/** Callbacks for {@link ClassFileReader}, called in class file order as a class file is decoded.
+ * All methods have empty default implementations so visitors only need to implement the events they use.
+ * Arguments are only valid for the duration of a callback, the reader does not retain or reuse them
+ * after the class has been read, but visitors should copy any buffer data they want to keep.<br/>
+ * Call order:
+ * <pre>
+ * visitHeader
+ * visitConstant*
+ * (visitField visitAttribute(FIELD)*)*
+ * (visitMethod (visitCode visitInstruction* visitAttribute(CODE)*)? visitAttribute(METHOD)*)*
+ * visitAttribute(CLASS)*
+ * visitEnd
+ * </pre>
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public interface ClassFileVisitor {
+
+	/** The structure an attribute belongs to
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static enum AttributeTarget {
+		CLASS,
+		FIELD,
+		METHOD,
+		CODE;
+	}
+
+
+	/** Called once the constant pool has been scanned, before any constant is visited
+	 * @param minorVersion the class file minor version
+	 * @param majorVersion the class file major version
+	 * @param accessFlags the class access flags
+	 * @param className the internal form of the class' name, for example {@code java/lang/String}
+	 * @param superClassName the internal form of the super class' name, or null for {@code java/lang/Object} and module-info classes
+	 * @param interfaceNames the internal form of each interface's name
+	 */
+	public default void visitHeader(int minorVersion, int majorVersion, int accessFlags, String className, String superClassName, String[] interfaceNames) {
+	}
+
+
+	/** Called for each constant pool entry, the unusable index following a long or double entry is not visited
+	 * @param index the entry's constant pool index
+	 * @param tag the entry's tag
+	 * @param constantPool the class' constant pool, use {@link ConstantPoolTable#getRef1(int)}, {@link ConstantPoolTable#getUtf8(int)}, etc. to read entries
+	 */
+	public default void visitConstant(int index, int tag, ConstantPoolTable constantPool) {
+	}
+
+
+	/**
+	 * @param accessFlags the field's access flags
+	 * @param name the field's name
+	 * @param descriptor the field's descriptor
+	 * @return true to visit the field's attributes, false to skip them
+	 */
+	public default boolean visitField(int accessFlags, String name, String descriptor) {
+		return true;
+	}
+
+
+	/**
+	 * @param accessFlags the method's access flags
+	 * @param name the method's name
+	 * @param descriptor the method's descriptor
+	 * @return true to visit the method's code and attributes, false to skip them
+	 */
+	public default boolean visitMethod(int accessFlags, String name, String descriptor) {
+		return true;
+	}
+
+
+	/** Called for the {@code Code} attribute of the last visited method
+	 * @param maxStack the method's maximum operand stack depth
+	 * @param maxLocals the method's number of local variables
+	 * @param code the method's code array
+	 * @return true to visit the method's instructions, false to skip them
+	 */
+	public default boolean visitCode(int maxStack, int maxLocals, byte[] code) {
+		return true;
+	}
+
+
+	/** Called for each instruction in the last visited code array. A {@code wide} instruction is visited
+	 * once, as {@link Opcodes#WIDE}, the widened opcode is at {@code location + 1}
+	 * @param opcode the instruction's opcode
+	 * @param code the method's code array
+	 * @param location the index of the instruction's opcode in {@code code}
+	 */
+	public default void visitInstruction(Opcodes opcode, byte[] code, int location) {
+	}
+
+
+	/** Called for each attribute except {@code Code} attributes which are visited using {@link #visitCode(int, int, byte[])}
+	 * @param target the structure the attribute belongs to
+	 * @param name the attribute's name
+	 * @param buf the buffer containing the class file
+	 * @param offset the absolute buffer index of the attribute's data, after its {@code attribute_length}
+	 * @param length the attribute's {@code attribute_length}
+	 */
+	public default void visitAttribute(AttributeTarget target, String name, ByteBuffer buf, int offset, int length) {
+	}
+
+
+	/** Called after the class file has been completely read
+	 */
+	public default void visitEnd() {
+	}
+
+}
@@ -0,0 +1,233 @@
+package twg2.jbcm.classFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A compact, read-only summary of a class file's declaration: class name, super class, interfaces,
+ * access flags, and field and method names and descriptors.<br/>
+ * Created by {@link #load(ByteBuffer, String)} using a {@link ClassFileReader} which scans the constant pool without
+ * parsing it (see {@link ConstantPoolTable}), only decodes the strings the summary needs, and skips every attribute
+ * by its length. This is much faster than {@link ClassFile#load(Path)} when only class declarations are
+ * needed, such as when indexing a classpath.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ClassSkeleton {
+
+	/** A field or method name, descriptor and access flags
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static final class Member {
+		private final int accessFlags;
+		private final String name;
+		private final String descriptor;
+
+
+		public Member(int accessFlags, String name, String descriptor) {
+			this.accessFlags = accessFlags;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+
+		public int getAccessFlags() {
+			return accessFlags;
+		}
+
+
+		public String getName() {
+			return name;
+		}
+
+
+		public String getDescriptor() {
+			return descriptor;
+		}
+
+
+		@Override
+		public String toString() {
+			return "Member(access=" + Integer.toHexString(accessFlags) + ", name=" + name + ", descriptor=" + descriptor + ")";
+		}
+
+	}
+
+
+	private final String source;
+	private final int majorVersion;
+	private final int minorVersion;
+	private final int accessFlags;
+	private final String className;
+	private final String superClassName;
+	private final String[] interfaceNames;
+	private final Member[] fields;
+	private final Member[] methods;
+
+
+	private ClassSkeleton(String source, int majorVersion, int minorVersion, int accessFlags, String className, String superClassName,
+			String[] interfaceNames, Member[] fields, Member[] methods) {
+		this.source = source;
+		this.majorVersion = majorVersion;
+		this.minorVersion = minorVersion;
+		this.accessFlags = accessFlags;
+		this.className = className;
+		this.superClassName = superClassName;
+		this.interfaceNames = interfaceNames;
+		this.fields = fields;
+		this.methods = methods;
+	}
+
+
+	public String getSource() {
+		return source;
+	}
+
+
+	public int getMajorVersion() {
+		return majorVersion;
+	}
+
+
+	public int getMinorVersion() {
+		return minorVersion;
+	}
+
+
+	public int getAccessFlags() {
+		return accessFlags;
+	}
+
+
+	/**
+	 * @return the internal form of this class' name, for example {@code java/lang/String}
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+
+	/**
+	 * @return the internal form of the super class' name, or null if this class is {@code java/lang/Object} (or a module-info class)
+	 */
+	public String getSuperClassName() {
+		return superClassName;
+	}
+
+
+	public int getInterfaceCount() {
+		return interfaceNames.length;
+	}
+
+
+	public String getInterfaceName(int index) {
+		return interfaceNames[index];
+	}
+
+
+	public int getFieldCount() {
+		return fields.length;
+	}
+
+
+	public Member getField(int index) {
+		return fields[index];
+	}
+
+
+	public int getMethodCount() {
+		return methods.length;
+	}
+
+
+	public Member getMethod(int index) {
+		return methods[index];
+	}
+
+
+	@Override
+	public String toString() {
+		return "ClassSkeleton(" + className + " extends " + superClassName + " implements " + Arrays.toString(interfaceNames) +
+				", access=" + Integer.toHexString(accessFlags) + ", fields=" + fields.length + ", methods=" + methods.length + ")";
+	}
+
+
+	/** Create a {@link ClassSkeleton} from the specified file
+	 * @param path the file to load
+	 * @return the class skeleton loaded from the specified file
+	 * @throws IOException if the file cannot be opened or if it is not a recognized class file format
+	 */
+	public static ClassSkeleton load(Path path) throws IOException {
+		return load(ClassFile.readBuffer(path), path.toString());
+	}
+
+
+	/** Create a {@link ClassSkeleton} from a byte array containing a class file
+	 * @param bytes the class file bytes
+	 * @param source the class file source name
+	 * @return the class skeleton read from the byte array
+	 * @throws IOException if the data is not a recognized class file format
+	 */
+	public static ClassSkeleton load(byte[] bytes, String source) throws IOException {
+		return load(ByteBuffer.wrap(bytes), source);
+	}
+
+
+	/** Create a {@link ClassSkeleton} from a buffer's position to its limit
+	 * @param buf the buffer containing the class file, the buffer's position is not modified
+	 * @param source the class file source name
+	 * @return the class skeleton read from the buffer
+	 * @throws IOException if the data is not a recognized class file format
+	 */
+	public static ClassSkeleton load(ByteBuffer buf, String source) throws IOException {
+		var visitor = new SkeletonVisitor();
+		ClassFileReader.read(buf, visitor);
+		return new ClassSkeleton(source, visitor.majorVersion, visitor.minorVersion, visitor.accessFlags, visitor.className, visitor.superClassName,
+				visitor.interfaceNames, visitor.fields.toArray(new Member[0]), visitor.methods.toArray(new Member[0]));
+	}
+
+
+	/** Collects the class declaration and member names, member and class attributes are skipped
+	 */
+	private static final class SkeletonVisitor implements ClassFileVisitor {
+		int majorVersion;
+		int minorVersion;
+		int accessFlags;
+		String className;
+		String superClassName;
+		String[] interfaceNames;
+		List<Member> fields = new ArrayList<>();
+		List<Member> methods = new ArrayList<>();
+
+
+		@Override
+		public void visitHeader(int minorVersion, int majorVersion, int accessFlags, String className, String superClassName, String[] interfaceNames) {
+			this.minorVersion = minorVersion;
+			this.majorVersion = majorVersion;
+			this.accessFlags = accessFlags;
+			this.className = className;
+			this.superClassName = superClassName;
+			this.interfaceNames = interfaceNames;
+		}
+
+
+		@Override
+		public boolean visitField(int accessFlags, String name, String descriptor) {
+			fields.add(new Member(accessFlags, name, descriptor));
+			return false;
+		}
+
+
+		@Override
+		public boolean visitMethod(int accessFlags, String name, String descriptor) {
+			methods.add(new Member(accessFlags, name, descriptor));
+			return false;
+		}
+
+	}
+
+}
@@ -36,6 +36,34 @@ public abstract class ConstantPoolExtensions {
 	public abstract void addConstantPoolExpectation(int index, Class<? extends CONSTANT_CP_Info> clazz);
 
 
+	/**
+	 * @return the options used to parse and validate this class file
+	 */
+	public abstract ParseOptions getParseOptions();
+
+
+	/** Get the tag of a constant pool entry. Implementations with a compact constant pool representation
+	 * can override this to avoid creating the entry's {@link CONSTANT_CP_Info} object
+	 * @param index the constant pool index
+	 * @return the tag of the entry at the specified index, or 0 if the index does not have an entry
+	 */
+	public int getCpTag(int index) {
+		CONSTANT_CP_Info cpObj = getConstantPoolIndex(index).getCpObject();
+		return cpObj != null ? cpObj.getTag() : 0;
+	}
+
+
+	/** Check whether the {@link CONSTANT_Utf8} at a constant pool index equals a string. Implementations with
+	 * a compact constant pool representation can override this to avoid creating the entry's {@link CONSTANT_CP_Info} object
+	 * @param index the constant pool index of a {@link CONSTANT_Utf8} entry
+	 * @param str the string to compare to
+	 * @return true if the entry's string equals {@code str}
+	 */
+	protected boolean cpUtf8Equals(int index, String str) {
+		return ((CONSTANT_Utf8)getConstantPoolIndex(index).getCpObject()).equalsString(str);
+	}
+
+
 	public String getCpString(int attributeNameIndex) {
 		CpIndex<CONSTANT_CP_Info> cpItem = getConstantPoolIndex(attributeNameIndex);
 		CONSTANT_CP_Info cpInfoObj = cpItem.getCpObject();
@@ -61,7 +89,7 @@ public abstract class ConstantPoolExtensions {
 			CpIndex<CONSTANT_CP_Info> result = getConstantPoolIndex(index);
 			return result;
 		}
-		if(Settings.checkCPIndex) {
+		if(getParseOptions().checkCPIndex) {
 			throw new IllegalStateException("constant pool index " + index + " out of constant pool size bounds");
 		}
 		return null;
@@ -72,12 +100,12 @@ public abstract class ConstantPoolExtensions {
 		if(index > 0 && index < getConstantPoolCount()) {
 			@SuppressWarnings("unchecked")
 			CpIndex<T> result = (CpIndex<T>)getConstantPoolIndex(index);
-			if(Settings.checkCPExpectedType) {
+			if(getParseOptions().checkCPExpectedType) {
 				addConstantPoolExpectation(index, clazz);
 			}
 			return result;
 		}
-		if(Settings.checkCPIndex) {
+		if(getParseOptions().checkCPIndex) {
 			throw new IllegalStateException("constant pool index " + index + " out of constant pool size bounds");
 		}
 		return null;
@@ -96,12 +124,12 @@ public abstract class ConstantPoolExtensions {
 			if(!result.isInitialized()) {
 				result.initialize(clazz);
 			}
-			else {
+			else if(getParseOptions().checkCPExpectedType) {
 				checkCpIndex(result, clazz);
 			}
 			return result;
 		}
-		if(!allowZero && Settings.checkCPIndex) {
+		if(!allowZero && getParseOptions().checkCPIndex) {
 			throw new IllegalStateException("constant pool index " + index + " out of constant pool size bounds");
 		}
 		return null;
@@ -126,15 +154,11 @@ public abstract class ConstantPoolExtensions {
 	 * @return the index of the matching string in the constant pool, or null if no match was found
 	 */
 	public CpIndex<CONSTANT_Utf8> findConstantPoolString(String str) {
-		for(int i = 1; i < getConstantPoolCount(); i++) {
-			CpIndex<CONSTANT_CP_Info> cpItem = getConstantPoolIndex(i);
-			CONSTANT_CP_Info cpe = cpItem.getCpObject();
-			if(cpe instanceof CONSTANT_Utf8) {
-				if(((CONSTANT_Utf8)cpe).getString().equals(str)) {
-					@SuppressWarnings({ "unchecked", "rawtypes" })
-					CpIndex<CONSTANT_Utf8> result = (CpIndex<CONSTANT_Utf8>)(CpIndex)cpItem;
-					return result;
-				}
+		for(int i = 1, size = getConstantPoolCount(); i < size; i++) {
+			if(getCpTag(i) == CONSTANT_Utf8.TAG && cpUtf8Equals(i, str)) {
+				@SuppressWarnings({ "unchecked", "rawtypes" })
+				CpIndex<CONSTANT_Utf8> result = (CpIndex<CONSTANT_Utf8>)(CpIndex)getConstantPoolIndex(i);
+				return result;
 			}
 		}
 		return null;
@@ -150,15 +174,29 @@ public abstract class ConstantPoolExtensions {
 		String className = TypeUtility.classNameInternal(method.getDeclaringClass());
 		String methodName = method.getName();
 		String methodDes = TypeUtility.methodDescriptor(method);
+		return findConstantPoolMethod(className, methodName, methodDes);
+	}
 
+
+	/** Find the constant pool index of a {@link CONSTANT_Methodref} matching the class, name, and descriptor given
+	 * @param className the internal name of the class containing the method, for example {@code java/lang/String}
+	 * @param methodName the name of the method
+	 * @param methodDescriptor the method's descriptor
+	 * @return the index of the matching method in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Methodref> findConstantPoolMethod(String className, String methodName, String methodDescriptor) {
 		for(int i = 1, size = getConstantPoolCount(); i < size; i++) {
+			// check the tag first so that compact constant pools only create objects for candidate entries
+			if(getCpTag(i) != CONSTANT_Methodref.TAG) {
+				continue;
+			}
 			CpIndex<CONSTANT_CP_Info> cpItem = getConstantPoolIndex(i);
 			CONSTANT_CP_Info cpe = cpItem.getCpObject();
 			if(cpe instanceof CONSTANT_Methodref) {
 				CONSTANT_Methodref cpm = ((CONSTANT_Methodref)cpe);
 				if(cpm.getClassType().getName().getString().equals(className)
 						&& cpm.getNameAndType().getName().getString().equals(methodName)
-						&& cpm.getNameAndType().getDescriptor().getString().equals(methodDes)) {
+						&& cpm.getNameAndType().getDescriptor().getString().equals(methodDescriptor)) {
 					@SuppressWarnings({ "unchecked", "rawtypes" })
 					CpIndex<CONSTANT_Methodref> result = (CpIndex<CONSTANT_Methodref>)(CpIndex)cpItem;
 					return result;
@@ -191,6 +229,9 @@ public abstract class ConstantPoolExtensions {
 	 */
 	public CpIndex<CONSTANT_NameAndType> findConstantPoolNameAndType(String methodName, String methodDescriptor) {
 		for(int i = 1, size = getConstantPoolCount(); i < size; i++) {
+			if(getCpTag(i) != CONSTANT_NameAndType.TAG) {
+				continue;
+			}
 			CpIndex<CONSTANT_CP_Info> cpItem = getConstantPoolIndex(i);
 			CONSTANT_CP_Info cpe = cpItem.getCpObject();
 			if(cpe instanceof CONSTANT_NameAndType) {
@@ -208,8 +249,19 @@ public abstract class ConstantPoolExtensions {
 
 
 	public CpIndex<CONSTANT_Class> findConstantPoolClass(Class<?> clas) {
-		String className = TypeUtility.classNameInternal(clas);
+		return findConstantPoolClass(TypeUtility.classNameInternal(clas));
+	}
+
+
+	/** Find the constant pool index of a {@link CONSTANT_Class} with a specific name
+	 * @param className the internal name of the class, for example {@code java/lang/String}
+	 * @return the index of the matching class in the constant pool, or null if no match was found
+	 */
+	public CpIndex<CONSTANT_Class> findConstantPoolClass(String className) {
 		for(int i = 1, size = getConstantPoolCount(); i < size; i++) {
+			if(getCpTag(i) != CONSTANT_Class.TAG) {
+				continue;
+			}
 			CpIndex<CONSTANT_CP_Info> cpItem = getConstantPoolIndex(i);
 			CONSTANT_CP_Info cpe = cpItem.getCpObject();
 			if(cpe instanceof CONSTANT_Class) {
@@ -0,0 +1,324 @@
+package twg2.jbcm.classFormat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Float;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Integer;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_String;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** Hash indexes of a {@link ClassFile}'s constant pool, used by the {@code ClassFile.findConstantPool*()} methods.
+ * Maps a string key built from each entry's resolved value (i.e. a {@code CONSTANT_Methodref}'s owner, name, and descriptor)
+ * to the lowest constant pool index with that value, matching the results of a linear search. Float and double constants
+ * are keyed by their raw bits, so {@code 0.0} and {@code -0.0} are different entries.<br/>
+ * Entries which have not been lazily loaded yet are indexed from the {@link ConstantPoolTable} without parsing them.<br/>
+ * Entries changed by their setters after being indexed are reported to {@link #changed(CONSTANT_CP_Info)}. A lookup of an entry's old key
+ * is caught by {@link #isValid(int, String, int)}, a lookup of its new key (or the new key of an entry built from it) finds no match in the
+ * index, so misses return -1 and the index is rebuilt while changed entries are pending.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+final class ConstantPoolLookup {
+	private final ClassFile classFile;
+	/** The index of each entry type, indexed by tag, null for tags which are not indexed */
+	private final HashMap<String, Integer>[] maps;
+	/** Indexes of entries added before their values were set (i.e. a {@code CONSTANT_Class} whose name index is set after
+	 * it is added to the constant pool), they are indexed once complete */
+	private final ArrayList<Integer> incomplete = new ArrayList<>();
+	/** Entries changed by their setters since they were indexed, their keys may be stale */
+	private final ArrayList<CONSTANT_CP_Info> changed = new ArrayList<>();
+
+
+	/** Build an index of all of a class file's current constant pool entries
+	 */
+	@SuppressWarnings("unchecked")
+	ConstantPoolLookup(ClassFile classFile) {
+		int count = classFile.getConstantPoolCount();
+		this.classFile = classFile;
+		this.maps = (HashMap<String, Integer>[])new HashMap<?, ?>[CONSTANT_InvokeDynamic.TAG + 1];
+		for(int tag = 0; tag < maps.length; tag++) {
+			if(isIndexed(tag)) {
+				maps[tag] = new HashMap<>(tag == CONSTANT_Utf8.TAG ? count : 16);
+			}
+		}
+		for(int i = 1; i < count; i++) {
+			add(i);
+		}
+	}
+
+
+	/** Index a new constant pool entry, the index must be greater than all previously indexed entries
+	 * @param index the entry's constant pool index
+	 */
+	void add(int index) {
+		if(changed.size() > 0 && classFile.isConstantPoolIndexLoaded(index)) {
+			// a new entry's setters are usually called just before it is added, it is indexed with its current key
+			var cpObj = classFile.getConstantPoolIndex(index).getCpObject();
+			changed.removeIf((c) -> c == cpObj);
+		}
+		int tag = classFile.getCpTag(index);
+		if(isIndexed(tag)) {
+			String key = key(index, tag);
+			if(key != null) {
+				maps[tag].putIfAbsent(key, index);
+			}
+			else {
+				incomplete.add(index);
+			}
+		}
+	}
+
+
+	/** Prepare to replace the entry at a constant pool index, call before the entry is replaced and then call {@link #add(int)} with the same index
+	 * @param index the constant pool index of the entry being replaced
+	 * @return true if this index is still valid, false if the index must be rebuilt because the entry is the indexed entry for its key
+	 * (there may be a higher duplicate which now needs to be indexed) or because other entries' keys may be built from the entry
+	 */
+	boolean remove(int index) {
+		int tag = classFile.getCpTag(index);
+		switch(tag) {
+		// referenced by other indexed entries
+		case CONSTANT_Utf8.TAG:
+		case CONSTANT_Class.TAG:
+		case CONSTANT_NameAndType.TAG:
+		case CONSTANT_Fieldref.TAG:
+		case CONSTANT_Methodref.TAG:
+		case CONSTANT_InterfaceMethodref.TAG:
+			return false;
+		default:
+			if(!isIndexed(tag)) {
+				return true;
+			}
+			String key = key(index, tag);
+			Integer indexed = key != null ? maps[tag].get(key) : null;
+			return indexed == null || indexed != index;
+		}
+	}
+
+
+	/** Record an entry changed by one of its setters, its key (and the keys of entries built from it) may no longer match the index
+	 * @param cpObj the changed entry
+	 */
+	void changed(CONSTANT_CP_Info cpObj) {
+		int size = changed.size();
+		if(size == 0 || changed.get(size - 1) != cpObj) {
+			changed.add(cpObj);
+		}
+	}
+
+
+	/**
+	 * @param tag the constant pool entry type
+	 * @param key the entry's key, see {@link #nameAndTypeKey(String, String)}, {@link #memberKey(String, String, String)},
+	 * {@link #methodHandleKey(int, int, String)}, and {@link #invokeDynamicKey(int, String, String)}, strings for
+	 * {@code Utf8}, {@code String}, and {@code MethodType} entries, class names for {@code Class} entries, and decimal values
+	 * (raw bits for float and double) for numeric entries
+	 * @return the lowest constant pool index of an entry with the specified tag and key, 0 if there is no matching entry,
+	 * or -1 if an entry was modified after being indexed and the index must be rebuilt (an entry changed by its setters may now match the key)
+	 */
+	int find(int tag, String key) {
+		if(incomplete.size() > 0) {
+			// incomplete entries may have a lower index than existing entries with the same key, so rebuild
+			for(int i = 0, size = incomplete.size(); i < size; i++) {
+				int index = incomplete.get(i);
+				if(key(index, classFile.getCpTag(index)) != null) {
+					return -1;
+				}
+			}
+		}
+		Integer index = maps[tag].get(key);
+		if(index == null) {
+			return changed.size() > 0 ? -1 : 0;
+		}
+		return isValid(index, key, tag) ? index : -1;
+	}
+
+
+	/** Check that an indexed entry still matches its key, this catches entries modified after being indexed
+	 * (i.e. {@link CONSTANT_Utf8#setString(String)}) in which case the caller should rebuild the index
+	 */
+	boolean isValid(int index, String key, int tag) {
+		return index > 0 && index < classFile.getConstantPoolCount() && classFile.getCpTag(index) == tag && key.equals(key(index, tag));
+	}
+
+
+	/** Member names cannot contain '.' so it is used to separate names from descriptors
+	 * @return the key of a {@code CONSTANT_NameAndType}
+	 */
+	static String nameAndTypeKey(String name, String descriptor) {
+		return name + '.' + descriptor;
+	}
+
+
+	/**
+	 * @return the key of a {@code CONSTANT_Fieldref}, {@code CONSTANT_Methodref}, or {@code CONSTANT_InterfaceMethodref}
+	 */
+	static String memberKey(String className, String name, String descriptor) {
+		return className + '.' + nameAndTypeKey(name, descriptor);
+	}
+
+
+	/**
+	 * @param referenceTag the tag of the entry referenced by the method handle
+	 * @param referenceKey the key of the entry referenced by the method handle, see {@link #memberKey(String, String, String)}
+	 * @return the key of a {@code CONSTANT_MethodHandle}
+	 */
+	static String methodHandleKey(int referenceKind, int referenceTag, String referenceKey) {
+		return referenceKind + ":" + referenceTag + ":" + referenceKey;
+	}
+
+
+	/**
+	 * @return the key of a {@code CONSTANT_InvokeDynamic}
+	 */
+	static String invokeDynamicKey(int bootstrapMethodAttrIndex, String name, String descriptor) {
+		return bootstrapMethodAttrIndex + ":" + nameAndTypeKey(name, descriptor);
+	}
+
+
+	private static boolean isIndexed(int tag) {
+		switch(tag) {
+		case CONSTANT_Utf8.TAG:
+		case CONSTANT_Integer.TAG:
+		case CONSTANT_Float.TAG:
+		case CONSTANT_Long.TAG:
+		case CONSTANT_Double.TAG:
+		case CONSTANT_Class.TAG:
+		case CONSTANT_String.TAG:
+		case CONSTANT_Fieldref.TAG:
+		case CONSTANT_Methodref.TAG:
+		case CONSTANT_InterfaceMethodref.TAG:
+		case CONSTANT_NameAndType.TAG:
+		case CONSTANT_MethodHandle.TAG:
+		case CONSTANT_MethodType.TAG:
+		case CONSTANT_InvokeDynamic.TAG:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+
+	private String key(int index, int tag) {
+		var table = classFile.getConstantPoolTable();
+		if(table != null && !classFile.isConstantPoolIndexLoaded(index)) {
+			switch(tag) {
+			case CONSTANT_Utf8.TAG: return table.getUtf8(index);
+			case CONSTANT_Integer.TAG:
+			case CONSTANT_Float.TAG: return Integer.toString(table.getBuffer().getInt(table.getOffset(index) + 1));
+			case CONSTANT_Long.TAG:
+			case CONSTANT_Double.TAG: return Long.toString(table.getBuffer().getLong(table.getOffset(index) + 1));
+			case CONSTANT_Class.TAG:
+			case CONSTANT_String.TAG:
+			case CONSTANT_MethodType.TAG: return utf8(table.getRef1(index));
+			case CONSTANT_NameAndType.TAG: return nameAndTypeKey(utf8(table.getRef1(index)), utf8(table.getRef2(index)));
+			case CONSTANT_Fieldref.TAG:
+			case CONSTANT_Methodref.TAG:
+			case CONSTANT_InterfaceMethodref.TAG: return className(table.getRef1(index)) + '.' + nameAndType(table.getRef2(index));
+			case CONSTANT_MethodHandle.TAG: {
+				int refIndex = table.getRef2(index);
+				int refTag = classFile.getCpTag(refIndex);
+				return methodHandleKey(table.getRef1(index), refTag, key(refIndex, refTag));
+			}
+			case CONSTANT_InvokeDynamic.TAG: return table.getRef1(index) + ":" + nameAndType(table.getRef2(index));
+			default: throw new IllegalArgumentException("unsupported constant pool lookup tag " + tag);
+			}
+		}
+		// entries created by the caller may not have all of their values set yet, their keys are null
+		var cpObj = classFile.getConstantPoolIndex(index).getCpObject();
+		switch(tag) {
+		case CONSTANT_Utf8.TAG: return ((CONSTANT_Utf8)cpObj).getString();
+		case CONSTANT_Integer.TAG: return Integer.toString(((CONSTANT_Integer)cpObj).getValue());
+		case CONSTANT_Float.TAG: return Integer.toString(((CONSTANT_Float)cpObj).getRawBits());
+		case CONSTANT_Long.TAG: return Long.toString(((CONSTANT_Long)cpObj).getValue());
+		case CONSTANT_Double.TAG: return Long.toString(((CONSTANT_Double)cpObj).getRawBits());
+		case CONSTANT_Class.TAG: return utf8(((CONSTANT_Class)cpObj).getNameIndex());
+		case CONSTANT_String.TAG: return utf8(((CONSTANT_String)cpObj).getStringIndex());
+		case CONSTANT_MethodType.TAG: return utf8(((CONSTANT_MethodType)cpObj).getDescriptorIndex());
+		case CONSTANT_NameAndType.TAG: {
+			var nameAndType = (CONSTANT_NameAndType)cpObj;
+			String name = utf8(nameAndType.getNameIndex());
+			String descriptor = utf8(nameAndType.getDescriptorIndex());
+			return name != null && descriptor != null ? nameAndTypeKey(name, descriptor) : null;
+		}
+		case CONSTANT_Fieldref.TAG: {
+			var ref = (CONSTANT_Fieldref)cpObj;
+			return memberKey(ref.getClassIndex(), ref.getNameAndTypeIndex());
+		}
+		case CONSTANT_Methodref.TAG: {
+			var ref = (CONSTANT_Methodref)cpObj;
+			return memberKey(ref.getClassIndex(), ref.getNameAndTypeIndex());
+		}
+		case CONSTANT_InterfaceMethodref.TAG: {
+			var ref = (CONSTANT_InterfaceMethodref)cpObj;
+			return memberKey(ref.getClassIndex(), ref.getNameAndTypeIndex());
+		}
+		case CONSTANT_MethodHandle.TAG: {
+			var handle = (CONSTANT_MethodHandle)cpObj;
+			var ref = handle.getReferenceIndex();
+			if(ref == null) {
+				return null;
+			}
+			int refTag = classFile.getCpTag(ref.getIndex());
+			String refKey = isIndexed(refTag) ? key(ref.getIndex(), refTag) : null;
+			return refKey != null ? methodHandleKey(handle.getReferenceKind(), refTag, refKey) : null;
+		}
+		case CONSTANT_InvokeDynamic.TAG: {
+			var indy = (CONSTANT_InvokeDynamic)cpObj;
+			String nameAndType = nameAndType(indy.getNameAndTypeIndex());
+			return nameAndType != null ? indy.getBootstrapMethodAttrIndex() + ":" + nameAndType : null;
+		}
+		default: throw new IllegalArgumentException("unsupported constant pool lookup tag " + tag);
+		}
+	}
+
+
+	private String memberKey(CpIndex<CONSTANT_Class> classIndex, CpIndex<CONSTANT_NameAndType> nameAndTypeIndex) {
+		String className = className(classIndex);
+		String nameAndType = nameAndType(nameAndTypeIndex);
+		return className != null && nameAndType != null ? className + '.' + nameAndType : null;
+	}
+
+
+	private String utf8(int index) {
+		return key(index, CONSTANT_Utf8.TAG);
+	}
+
+
+	private String className(int index) {
+		return key(index, CONSTANT_Class.TAG);
+	}
+
+
+	private String nameAndType(int index) {
+		return key(index, CONSTANT_NameAndType.TAG);
+	}
+
+
+	private String utf8(CpIndex<CONSTANT_Utf8> cpIndex) {
+		return cpIndex != null ? utf8(cpIndex.getIndex()) : null;
+	}
+
+
+	private String className(CpIndex<CONSTANT_Class> cpIndex) {
+		return cpIndex != null ? className(cpIndex.getIndex()) : null;
+	}
+
+
+	private String nameAndType(CpIndex<CONSTANT_NameAndType> cpIndex) {
+		return cpIndex != null ? nameAndType(cpIndex.getIndex()) : null;
+	}
+
+}
@@ -0,0 +1,363 @@
+package twg2.jbcm.classFormat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import twg2.jbcm.ByteBufferDataInput;
+import twg2.jbcm.ModifiedUtf8;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Module;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Package;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_String;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** A compact, struct-of-arrays constant pool: entry tags, byte offsets into a class file buffer, and the
+ * constant pool indexes each entry references packed into one int.
+ * Built in a single pass over the constant pool without creating any {@link CONSTANT_CP_Info} objects,
+ * references between entries can be followed using {@link #getRef1(int)}, {@link #getRef2(int)}, and {@link #getUtf8(int)}
+ * and individual entries can be parsed on demand using {@link #loadEntry(int, ClassFile)}.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ConstantPoolTable {
+	/** Data sizes, indexed by tag, of class file constant pool entry types which do not have a {@link ConstantPoolTag},
+	 * CONSTANT_Dynamic (17), CONSTANT_Module (19), and CONSTANT_Package (20)
+	 */
+	private static final int[] NO_TYPE_DATA_SIZES = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 4, 0, 2, 2 };
+	private static final byte TAG_DYNAMIC = 17;
+	private static final int UNKNOWN_SIZE = -2;
+
+	private final ByteBuffer buf;
+	/** The tag of each constant pool entry, 0 for index 0 and for the unusable index following a long or double entry */
+	private final byte[] tags;
+	/** The absolute buffer index of each entry's tag byte, {@code offsets[count]} is the index immediately after the constant pool */
+	private final int[] offsets;
+	/** The constant pool indexes referenced by each entry, packed into one int, see {@link #getRef1(int)} and {@link #getRef2(int)} */
+	private final int[] refs;
+
+
+	private ConstantPoolTable(ByteBuffer buf, byte[] tags, int[] offsets) {
+		this.buf = buf.order() == ByteOrder.BIG_ENDIAN ? buf : buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.tags = tags;
+		this.offsets = offsets;
+		this.refs = readRefs(this.buf, tags, offsets);
+	}
+
+
+	/**
+	 * @return the number of constant pool indexes, including the unused index 0
+	 */
+	public int size() {
+		return tags.length;
+	}
+
+
+	/**
+	 * @param index the constant pool index
+	 * @return the tag of the entry at the specified index, or 0 if the index does not have an entry
+	 */
+	public int getTag(int index) {
+		return tags[index];
+	}
+
+
+	/**
+	 * @param index the constant pool index
+	 * @return the absolute buffer index of the entry's tag byte
+	 */
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+
+	/**
+	 * @param index the constant pool index
+	 * @return the number of bytes, including the tag byte, used by the entry at the specified index
+	 */
+	public int getEntryLength(int index) {
+		return offsets[index + 1] - offsets[index];
+	}
+
+
+	/** The first constant pool index referenced by an entry, without parsing the entry.<br/>
+	 * {@code Class}: name_index, {@code String}: string_index, {@code MethodType}: descriptor_index,
+	 * {@code Fieldref}/{@code Methodref}/{@code InterfaceMethodref}: class_index, {@code NameAndType}: name_index,
+	 * {@code InvokeDynamic}: bootstrap_method_attr_index, {@code MethodHandle}: reference_kind
+	 * @param index the constant pool index
+	 * @return the first index or value referenced by the entry, 0 for entries without references
+	 */
+	public int getRef1(int index) {
+		return refs[index] >>> 16;
+	}
+
+
+	/** The second constant pool index referenced by an entry, without parsing the entry.<br/>
+	 * {@code Fieldref}/{@code Methodref}/{@code InterfaceMethodref}/{@code InvokeDynamic}: name_and_type_index,
+	 * {@code NameAndType}: descriptor_index, {@code MethodHandle}: reference_index
+	 * @param index the constant pool index
+	 * @return the second index referenced by the entry, 0 for entries with fewer than two references
+	 */
+	public int getRef2(int index) {
+		return refs[index] & 0xFFFF;
+	}
+
+
+	/** Decode a {@code CONSTANT_Utf8} entry without creating a {@link CONSTANT_CP_Info} object
+	 * @param index the constant pool index of a {@code CONSTANT_Utf8} entry
+	 * @return the decoded string
+	 */
+	public String getUtf8(int index) {
+		if(tags[index] != CONSTANT_Utf8.TAG) {
+			throw new IllegalStateException("constant pool entry " + index + " tag " + tags[index] + " is not a CONSTANT_Utf8");
+		}
+		int off = offsets[index] + 1;
+		return ModifiedUtf8.decode(buf, off + 2, buf.getShort(off) & 0xFFFF);
+	}
+
+
+	/** Compare a {@code CONSTANT_Utf8} entry to a string without decoding the entry
+	 * @param index the constant pool index of a {@code CONSTANT_Utf8} entry
+	 * @param str the string to compare to
+	 * @return true if the entry's string equals {@code str}
+	 */
+	public boolean utf8Equals(int index, String str) {
+		if(tags[index] != CONSTANT_Utf8.TAG) {
+			throw new IllegalStateException("constant pool entry " + index + " tag " + tags[index] + " is not a CONSTANT_Utf8");
+		}
+		int off = offsets[index] + 1;
+		return ModifiedUtf8.equals(buf, off + 2, buf.getShort(off) & 0xFFFF, str);
+	}
+
+
+	/**
+	 * @return the buffer containing the raw constant pool
+	 */
+	public ByteBuffer getBuffer() {
+		return buf;
+	}
+
+
+	/** Parse the entry at a specific constant pool index
+	 * @param index the constant pool index
+	 * @param resolver the class file that the entry belongs to
+	 * @return the parsed entry or null if the index does not have an entry
+	 * @throws IOException if the entry data is malformed
+	 */
+	public CONSTANT_CP_Info loadEntry(int index, ClassFile resolver) throws IOException {
+		if(tags[index] == 0) {
+			return null;
+		}
+		var in = new ByteBufferDataInput(buf, offsets[index], offsets[index + 1]);
+		return ConstantPoolTag.loadConstantPoolObject(in, index, resolver);
+	}
+
+
+	/** Copy the unparsed bytes of an entry (including the tag byte) to an output stream
+	 * @param index the constant pool index
+	 * @param out the output to write the raw entry bytes to
+	 */
+	public void writeEntry(int index, DataOutput out) throws IOException {
+		int off = offsets[index];
+		int len = offsets[index + 1] - off;
+		if(len == 0) {
+			return;
+		}
+		if(buf.hasArray()) {
+			out.write(buf.array(), buf.arrayOffset() + off, len);
+		}
+		else {
+			byte[] tmp = new byte[len];
+			buf.get(off, tmp, 0, len);
+			out.write(tmp, 0, len);
+		}
+	}
+
+
+	/** Read the constant pool entries from an input without parsing them.
+	 * Buffer inputs are scanned in place (see {@link #scan(ByteBufferDataInput, int, boolean)}),
+	 * the bytes of other inputs are copied into a single array.
+	 * The input is left positioned immediately after the last constant pool entry.
+	 * @param in the input, positioned at the first constant pool entry (immediately after {@code constant_pool_count})
+	 * @param constantPoolCount the {@code constant_pool_count} read from the class file
+	 * @param checkTags whether to throw an exception for unknown tags (see {@link ParseOptions#checkCPTag}), if false, unknown entries are assumed to contain 2 bytes
+	 * @return the table of entry tags, offsets, and references
+	 * @throws IOException if an unknown tag is found or the input ends before the end of the constant pool
+	 */
+	public static ConstantPoolTable read(DataInput in, int constantPoolCount, boolean checkTags) throws IOException {
+		if(in instanceof ByteBufferDataInput) {
+			return scan((ByteBufferDataInput)in, constantPoolCount, checkTags);
+		}
+
+		byte[] tags = new byte[constantPoolCount];
+		int[] offsets = new int[constantPoolCount + 1];
+		// most constant pool entries are short, start with an estimate and grow as needed
+		byte[] data = new byte[Math.max(64, constantPoolCount * 16)];
+		int pos = 0;
+
+		for(int i = 1; i < constantPoolCount; i++) {
+			offsets[i] = pos;
+			int tag = in.readUnsignedByte();
+			int dataSize = dataSize(tag);
+
+			if(dataSize == UNKNOWN_SIZE) {
+				if(checkTags) {
+					throw new IllegalArgumentException("Unknown constant pool tag: " + tag + " at index " + i);
+				}
+				// same as ConstantPoolTag.loadConstantPoolObject(), assume at least 2 bytes of data and leave the entry empty
+				in.skipBytes(2);
+				continue;
+			}
+
+			tags[i] = (byte)tag;
+			int headerSize = 1;
+			if(dataSize == ConstantPoolTag.VARIABLE_SIZE) {
+				dataSize = in.readUnsignedShort();
+				headerSize = 3;
+			}
+			if(pos + headerSize + dataSize > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, pos + headerSize + dataSize));
+			}
+			data[pos] = (byte)tag;
+			if(headerSize == 3) {
+				data[pos + 1] = (byte)(dataSize >>> 8);
+				data[pos + 2] = (byte)dataSize;
+			}
+			in.readFully(data, pos + headerSize, dataSize);
+			pos += headerSize + dataSize;
+
+			// long and double entries take up two constant pool indexes, the second index is unusable
+			if(isDoubleSlot(tag) && i + 1 < constantPoolCount) {
+				i++;
+				offsets[i] = pos;
+			}
+		}
+		offsets[constantPoolCount] = pos;
+
+		return new ConstantPoolTable(ByteBuffer.wrap(data, 0, pos), tags, offsets);
+	}
+
+
+	/** Scan the constant pool entries from the current position of a buffer input without parsing or copying them.
+	 * The input is left positioned immediately after the last constant pool entry.
+	 * @param in the input, positioned at the first constant pool entry (immediately after {@code constant_pool_count})
+	 * @param constantPoolCount the {@code constant_pool_count} read from the class file
+	 * @param checkTags whether to throw an exception for unknown tags (see {@link ParseOptions#checkCPTag}), if false, unknown entries are assumed to contain 2 bytes
+	 * @return the table of entry tags, offsets, and references
+	 * @throws IOException if an unknown tag is found or the input ends before the end of the constant pool
+	 */
+	public static ConstantPoolTable scan(ByteBufferDataInput in, int constantPoolCount, boolean checkTags) throws IOException {
+		byte[] tags = new byte[constantPoolCount];
+		int[] offsets = new int[constantPoolCount + 1];
+
+		for(int i = 1; i < constantPoolCount; i++) {
+			int offset = in.position();
+			int tag = in.readUnsignedByte();
+			int dataSize = dataSize(tag);
+			offsets[i] = offset;
+
+			if(dataSize == UNKNOWN_SIZE) {
+				if(checkTags) {
+					throw new IllegalArgumentException("Unknown constant pool tag: " + tag + " at index " + i);
+				}
+				// same as ConstantPoolTag.loadConstantPoolObject(), assume at least 2 bytes of data and leave the entry empty
+				in.skipBytes(2);
+				continue;
+			}
+
+			tags[i] = (byte)tag;
+			if(dataSize == ConstantPoolTag.VARIABLE_SIZE) {
+				dataSize = in.readUnsignedShort();
+			}
+			if(in.skipBytes(dataSize) != dataSize) {
+				throw new EOFException("constant pool entry " + i + " extends past the end of the buffer");
+			}
+
+			// long and double entries take up two constant pool indexes, the second index is unusable
+			if(isDoubleSlot(tag) && i + 1 < constantPoolCount) {
+				i++;
+				offsets[i] = in.position();
+			}
+		}
+		offsets[constantPoolCount] = in.position();
+
+		// entries skipped because of unknown tags have an empty range
+		for(int i = 1; i < constantPoolCount; i++) {
+			if(tags[i] == 0) {
+				offsets[i] = offsets[i + 1];
+			}
+		}
+
+		return new ConstantPoolTable(in.getBuffer(), tags, offsets);
+	}
+
+
+	/**
+	 * @return the number of data bytes following the tag byte of an entry, {@link ConstantPoolTag#VARIABLE_SIZE}, or {@link #UNKNOWN_SIZE}
+	 */
+	private static int dataSize(int tag) {
+		ConstantPoolTag type = ConstantPoolTag.fromTag(tag);
+		if(type != null) {
+			return type.getDataSize();
+		}
+		// a valid entry which this library does not have a CONSTANT_* type for, skip it so the rest of the table can be used
+		if(tag < NO_TYPE_DATA_SIZES.length && NO_TYPE_DATA_SIZES[tag] > 0) {
+			return NO_TYPE_DATA_SIZES[tag];
+		}
+		return UNKNOWN_SIZE;
+	}
+
+
+	private static boolean isDoubleSlot(int tag) {
+		return tag == CONSTANT_Long.TAG || tag == CONSTANT_Double.TAG;
+	}
+
+
+	/** Pack the constant pool indexes referenced by each entry into one int per entry
+	 */
+	private static int[] readRefs(ByteBuffer buf, byte[] tags, int[] offsets) {
+		int[] refs = new int[tags.length];
+		for(int i = 1, size = tags.length; i < size; i++) {
+			int off = offsets[i] + 1;
+			switch(tags[i]) {
+				case CONSTANT_Class.TAG:
+				case CONSTANT_String.TAG:
+				case CONSTANT_MethodType.TAG:
+				case CONSTANT_Module.TAG:
+				case CONSTANT_Package.TAG:
+					refs[i] = (buf.getShort(off) & 0xFFFF) << 16;
+					break;
+				case CONSTANT_Fieldref.TAG:
+				case CONSTANT_Methodref.TAG:
+				case CONSTANT_InterfaceMethodref.TAG:
+				case CONSTANT_NameAndType.TAG:
+				case CONSTANT_InvokeDynamic.TAG:
+				case TAG_DYNAMIC:
+					// two big-endian u2 indexes are the same as one big-endian int
+					refs[i] = buf.getInt(off);
+					break;
+				case CONSTANT_MethodHandle.TAG:
+					refs[i] = ((buf.get(off) & 0xFF) << 16) | (buf.getShort(off + 1) & 0xFFFF);
+					break;
+				default:
+					break;
+			}
+		}
+		return refs;
+	}
+
+}
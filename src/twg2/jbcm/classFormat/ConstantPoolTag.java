@@ -24,24 +24,28 @@ import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
  * @since 2014-1-31
  */
 public enum ConstantPoolTag {
-	CLASS				((byte)7)  { @Override public CONSTANT_Class create(ClassFile clazz) { return new CONSTANT_Class(clazz); } },
-	FIELD_REF			((byte)9)  { @Override public CONSTANT_Fieldref create(ClassFile clazz) { return new CONSTANT_Fieldref(clazz); } },
-	METHOD_REF			((byte)10) { @Override public CONSTANT_Methodref create(ClassFile clazz) { return new CONSTANT_Methodref(clazz); } },
-	INTERFACE_METHOD_REF((byte)11) { @Override public CONSTANT_InterfaceMethodref create(ClassFile clazz) { return new CONSTANT_InterfaceMethodref(clazz); } },
-	STRING				((byte)8)  { @Override public CONSTANT_String create(ClassFile clazz) { return new CONSTANT_String(clazz); } },
-	INTEGER				((byte)3)  { @Override public CONSTANT_Integer create(ClassFile clazz) { return new CONSTANT_Integer(clazz); } },
-	FLOAT				((byte)4)  { @Override public CONSTANT_Float create(ClassFile clazz) { return new CONSTANT_Float(clazz); } },
-	LONG				((byte)5)  { @Override public CONSTANT_Long create(ClassFile clazz) { return new CONSTANT_Long(clazz); } },
-	DOUBLE				((byte)6)  { @Override public CONSTANT_Double create(ClassFile clazz) { return new CONSTANT_Double(clazz); } },
-	NAME_AND_TYPE		((byte)12) { @Override public CONSTANT_NameAndType create(ClassFile clazz) { return new CONSTANT_NameAndType(clazz); } },
-	UTF8				((byte)1)  { @Override public CONSTANT_Utf8 create(ClassFile clazz) { return new CONSTANT_Utf8(clazz); } },
-	METHOD_HANDLE		((byte)15) { @Override public CONSTANT_MethodHandle create(ClassFile clazz) { return new CONSTANT_MethodHandle(clazz); } },
-	METHOD_TYPE			((byte)16) { @Override public CONSTANT_MethodType create(ClassFile clazz) { return new CONSTANT_MethodType(clazz); } },
-	INVOKE_DYNAMIC		((byte)18) { @Override public CONSTANT_InvokeDynamic create(ClassFile clazz) { return new CONSTANT_InvokeDynamic(clazz); } };
+	CLASS				((byte)7, 2)  { @Override public CONSTANT_Class create(ClassFile clazz) { return new CONSTANT_Class(clazz); } },
+	FIELD_REF			((byte)9, 4)  { @Override public CONSTANT_Fieldref create(ClassFile clazz) { return new CONSTANT_Fieldref(clazz); } },
+	METHOD_REF			((byte)10, 4) { @Override public CONSTANT_Methodref create(ClassFile clazz) { return new CONSTANT_Methodref(clazz); } },
+	INTERFACE_METHOD_REF((byte)11, 4) { @Override public CONSTANT_InterfaceMethodref create(ClassFile clazz) { return new CONSTANT_InterfaceMethodref(clazz); } },
+	STRING				((byte)8, 2)  { @Override public CONSTANT_String create(ClassFile clazz) { return new CONSTANT_String(clazz); } },
+	INTEGER				((byte)3, 4)  { @Override public CONSTANT_Integer create(ClassFile clazz) { return new CONSTANT_Integer(clazz); } },
+	FLOAT				((byte)4, 4)  { @Override public CONSTANT_Float create(ClassFile clazz) { return new CONSTANT_Float(clazz); } },
+	LONG				((byte)5, 8)  { @Override public CONSTANT_Long create(ClassFile clazz) { return new CONSTANT_Long(clazz); } },
+	DOUBLE				((byte)6, 8)  { @Override public CONSTANT_Double create(ClassFile clazz) { return new CONSTANT_Double(clazz); } },
+	NAME_AND_TYPE		((byte)12, 4) { @Override public CONSTANT_NameAndType create(ClassFile clazz) { return new CONSTANT_NameAndType(clazz); } },
+	UTF8				((byte)1, -1) { @Override public CONSTANT_Utf8 create(ClassFile clazz) { return new CONSTANT_Utf8(clazz); } },
+	METHOD_HANDLE		((byte)15, 3) { @Override public CONSTANT_MethodHandle create(ClassFile clazz) { return new CONSTANT_MethodHandle(clazz); } },
+	METHOD_TYPE			((byte)16, 2) { @Override public CONSTANT_MethodType create(ClassFile clazz) { return new CONSTANT_MethodType(clazz); } },
+	INVOKE_DYNAMIC		((byte)18, 4) { @Override public CONSTANT_InvokeDynamic create(ClassFile clazz) { return new CONSTANT_InvokeDynamic(clazz); } };
+
+	/** The {@link #getDataSize()} of entries with a variable length, such as UTF-8 strings */
+	public static final int VARIABLE_SIZE = -1;
 
 	private static final ConstantPoolTag[] tagArray;
 
 	private byte tag;
+	private int dataSize;
 
 
 	static {
@@ -62,8 +66,9 @@ public enum ConstantPoolTag {
 	}
 
 
-	ConstantPoolTag(byte tag) {
+	ConstantPoolTag(byte tag, int dataSize) {
 		this.tag = tag;
+		this.dataSize = dataSize;
 	}
 
 
@@ -91,6 +96,32 @@ public enum ConstantPoolTag {
 	}
 
 
+	/**
+	 * @return the number of bytes following the tag byte in this type of constant pool entry,
+	 * or {@link #VARIABLE_SIZE} if the entry stores its own length
+	 */
+	public int getDataSize() {
+		return dataSize;
+	}
+
+
+	/**
+	 * @return true if this type of entry takes up two constant pool indexes (i.e. {@code long} and {@code double} constants)
+	 */
+	public boolean isDoubleSlot() {
+		return this == LONG || this == DOUBLE;
+	}
+
+
+	/** Lookup a Constant Pool type by tag
+	 * @param tagByte the tag byte read from a class file
+	 * @return the matching Constant Pool type or null if the tag is not recognized
+	 */
+	public static ConstantPoolTag fromTag(int tagByte) {
+		return tagByte >= 0 && tagByte < tagArray.length ? tagArray[tagByte] : null;
+	}
+
+
 	/** Java class file format <code>ConstantPool</code> item parser/loader.
 	 * Uses this enum's tag values and {@link #create(ClassFile)} methods to parse constant pool
 	 * entries from a {@link DataInput} stream.
@@ -102,7 +133,7 @@ public enum ConstantPoolTag {
 		try {
 			cpObj = tagArray[tag].create(resolver);
 		} catch(RuntimeException e) {
-			if(Settings.checkCPTag) {
+			if(resolver.getParseOptions().checkCPTag) {
 				throw new IllegalArgumentException("Unknown constant pool tag: " + tag);
 			}
 			else {
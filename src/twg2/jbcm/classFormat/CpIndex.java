@@ -106,6 +106,13 @@ public final class CpIndex<T extends CONSTANT_CP_Info> implements ReadWritable,
 	}
 
 
+	/** Renumber this index, used when the constant pool is reorganized
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		this.index = indexChanger.indexChange((short)this.index);
@@ -118,6 +125,21 @@ public final class CpIndex<T extends CONSTANT_CP_Info> implements ReadWritable,
 	}
 
 
+	/** Write an optional constant pool index, a null index is written as 0
+	 * @param cpIndex the constant pool index to write, can be null
+	 * @param out the output to write to
+	 * @throws IOException if there is an error writing to the output
+	 */
+	public static void writeOptional(CpIndex<?> cpIndex, DataOutput out) throws IOException {
+		if(cpIndex != null) {
+			cpIndex.writeData(out);
+		}
+		else {
+			out.writeShort(0);
+		}
+	}
+
+
 	@Override
 	public void readData(DataInput in) throws IOException {
 		this.index = in.readShort();
@@ -103,8 +103,18 @@ public class Field_Info implements Externalizable, ReadWritable, CpIndexChangeab
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getDescriptorIndex() {
+		return descriptor_index;
+	}
+
+
+	public void setDescriptorIndex(CpIndex<CONSTANT_Utf8> index) {
+		this.descriptor_index = index;
+	}
+
+
 	public Attribute_Type getAttribute(int index) {
-		return attributes[index];
+		return ClassFileAttributes.getAttribute(attributes, index);
 	}
 
 
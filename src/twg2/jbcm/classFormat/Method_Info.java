@@ -111,8 +111,18 @@ public class Method_Info implements Externalizable, ReadWritable, CpIndexChangea
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getDescriptorIndex() {
+		return descriptor_index;
+	}
+
+
+	public void setDescriptorIndex(CpIndex<CONSTANT_Utf8> index) {
+		this.descriptor_index = index;
+	}
+
+
 	public Attribute_Type getAttribute(int index) {
-		return attributes[index];
+		return ClassFileAttributes.getAttribute(attributes, index);
 	}
 
 
@@ -134,7 +144,7 @@ public class Method_Info implements Externalizable, ReadWritable, CpIndexChangea
 		for(int i = 0; i < attributes_count; i++) {
 			if(Code.ATTRIBUTE_NAME.equals(attributes[i].getAttributeName())) {
 				if(code == null) {
-					code = (Code)attributes[i];
+					code = (Code)ClassFileAttributes.getAttribute(attributes, i);
 				}
 				else { throw new IllegalStateException("a method should not have more than 1 code attribute"); }
 			}
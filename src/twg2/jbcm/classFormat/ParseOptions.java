@@ -0,0 +1,115 @@
+package twg2.jbcm.classFormat;
+
+/** Immutable class file parsing and validation options, passed to {@link ClassFile#load(java.nio.file.Path, ParseOptions)}
+ * and available to all {@code readData()} implementations via {@link ConstantPoolExtensions#getParseOptions()}.
+ * Unlike {@link Settings}, different threads can parse class files with different options at the same time.<br/>
+ * See {@link #STRICT}, {@link #TRUSTED}, and {@link #fromSettings()} for the standard option sets,
+ * use the {@code with*()} methods to create modified copies.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ParseOptions {
+	/** Full validation, the same as the default {@link Settings} values */
+	public static final ParseOptions STRICT = new ParseOptions(false, true, true, true, true, true, false, false, false, null);
+
+	/** For class files from trusted sources (i.e. compiled by javac or from the JDK), constant pool index bounds checks,
+	 * expected type tracking, and attribute name checks are disabled
+	 */
+	public static final ParseOptions TRUSTED = new ParseOptions(false, true, false, true, false, false, false, false, false, null);
+
+	/** Print debugging information while parsing */
+	public final boolean debug;
+	/** Whether constant pool entry tags have already been read when an entry's {@code readData()} is called */
+	public final boolean cpTagRead;
+	/** Whether to throw an exception when a constant pool index is out of bounds, instead of using null */
+	public final boolean checkCPIndex;
+	/** Whether to validate the tag type of each constant pool entry read, without a valid tag constant pool entries
+	 * cannot be loaded and two bytes of data assumed to contain the constant pool entry info are skipped
+	 */
+	public final boolean checkCPTag;
+	/** Whether to track the types that each constant pool entry is expected to have and validate them once the constant pool is read */
+	public final boolean checkCPExpectedType;
+	/** Whether to validate attribute names read by {@code readData()} */
+	public final boolean checkAttributeName;
+	/** Whether attribute {@code readData()} implementations read the attribute name index */
+	public final boolean readAttributeName;
+	/** Whether to load the constant pool into a compact {@link ConstantPoolTable} and only parse entries the first time they are accessed */
+	public final boolean lazyConstantPool;
+	/** Whether attributes are kept as raw bytes and only parsed when they are accessed */
+	public final boolean lazyAttributes;
+	/** Optional pool used to share {@code CONSTANT_Utf8} data between class files, null to not pool strings */
+	public final Utf8Pool utf8Pool;
+
+
+	public ParseOptions(boolean debug, boolean cpTagRead, boolean checkCPIndex, boolean checkCPTag, boolean checkCPExpectedType,
+			boolean checkAttributeName, boolean readAttributeName, boolean lazyConstantPool, boolean lazyAttributes, Utf8Pool utf8Pool) {
+		this.debug = debug;
+		this.cpTagRead = cpTagRead;
+		this.checkCPIndex = checkCPIndex;
+		this.checkCPTag = checkCPTag;
+		this.checkCPExpectedType = checkCPExpectedType;
+		this.checkAttributeName = checkAttributeName;
+		this.readAttributeName = readAttributeName;
+		this.lazyConstantPool = lazyConstantPool;
+		this.lazyAttributes = lazyAttributes;
+		this.utf8Pool = utf8Pool;
+	}
+
+
+	public ParseOptions withDebug(boolean debug) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withCheckCPIndex(boolean checkCPIndex) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withCheckCPTag(boolean checkCPTag) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withCheckCPExpectedType(boolean checkCPExpectedType) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withCheckAttributeName(boolean checkAttributeName) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withLazyConstantPool(boolean lazyConstantPool) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withLazyAttributes(boolean lazyAttributes) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	public ParseOptions withUtf8Pool(Utf8Pool utf8Pool) {
+		return new ParseOptions(debug, cpTagRead, checkCPIndex, checkCPTag, checkCPExpectedType, checkAttributeName, readAttributeName, lazyConstantPool, lazyAttributes, utf8Pool);
+	}
+
+
+	@Override
+	public String toString() {
+		return "ParseOptions(debug=" + debug + ", cpTagRead=" + cpTagRead + ", checkCPIndex=" + checkCPIndex + ", checkCPTag=" + checkCPTag +
+				", checkCPExpectedType=" + checkCPExpectedType + ", checkAttributeName=" + checkAttributeName + ", readAttributeName=" + readAttributeName +
+				", lazyConstantPool=" + lazyConstantPool + ", lazyAttributes=" + lazyAttributes + ", utf8Pool=" + utf8Pool + ")";
+	}
+
+
+	/**
+	 * @return options containing the current {@link Settings} values, used by class files created without explicit options
+	 */
+	public static ParseOptions fromSettings() {
+		return new ParseOptions(Settings.debug, Settings.cpTagRead, Settings.checkCPIndex, Settings.checkCPTag, Settings.checkCPExpectedType,
+				Settings.checkAttributeName, Settings.readAttributeName, Settings.lazyConstantPool, Settings.lazyAttributes, null);
+	}
+
+}
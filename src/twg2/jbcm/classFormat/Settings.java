@@ -1,6 +1,8 @@
 package twg2.jbcm.classFormat;
 
-/** Settings for the Java class file format classes
+/** Settings for the Java class file format classes.<br/>
+ * These are the defaults used by class files created without explicit {@link ParseOptions}, see {@link ParseOptions#fromSettings()}.
+ * Changes do not affect class files which have already been created.
  * @author TeamworkGuy2
  * @since 2013-7-7
  */
@@ -15,6 +17,16 @@ public class Settings {
 	public static boolean checkCPExpectedType = true;
 	public static boolean checkAttributeName = true;
 	public static boolean readAttributeName = false;
+	/** Whether class files should load their constant pool into a compact {@link ConstantPoolTable} and only parse entries
+	 * the first time they are accessed. Class files loaded from a buffer (see {@link ClassFile#load(java.nio.ByteBuffer, String)})
+	 * reference the buffer instead of copying it, the buffer must not be modified while the class file is in use,
+	 * call {@link ClassFile#loadConstantPool()} to release it
+	 */
+	public static boolean lazyConstantPool = false;
+	/** Whether attributes should be read as raw bytes and only parsed when they are accessed (see {@link twg2.jbcm.classFormat.attributes.DeferredAttribute}).
+	 * Unparsed attributes are written back out unchanged
+	 */
+	public static boolean lazyAttributes = false;
 
 
 	private Settings() {
@@ -0,0 +1,207 @@
+package twg2.jbcm.classFormat;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import twg2.jbcm.ModifiedUtf8;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** A thread-safe pool of {@link CONSTANT_Utf8} byte arrays and decoded strings which can be shared by many
+ * class files (see {@link ParseOptions#withUtf8Pool(Utf8Pool)}).
+ * Identical modified UTF-8 byte sequences, such as {@code "java/lang/Object"}, {@code "()V"}, or {@code "Code"},
+ * are stored and decoded once and shared by every {@link CONSTANT_Utf8} which contains them.<br/>
+ * Pooled byte arrays are shared and must not be modified.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class Utf8Pool {
+
+	/** A pooled modified UTF-8 byte sequence and its decoded string
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static final class Entry {
+		private final byte[] bytes;
+		private final String str;
+		/** The byte array length plus the decoded string's character data size (1 byte per char for ASCII strings, 2 otherwise) */
+		private final int dataSize;
+
+
+		Entry(byte[] bytes, String str) {
+			this.bytes = bytes;
+			this.str = str;
+			this.dataSize = bytes.length + (isAscii(bytes) ? str.length() : str.length() * 2);
+		}
+
+
+		/**
+		 * @return the modified UTF-8 bytes, shared, must not be modified
+		 */
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+
+		public String getString() {
+			return str;
+		}
+
+	}
+
+
+	/** A lookup key for a byte array range, only pooled keys own their byte array */
+	private static final class Key {
+		private final byte[] bytes;
+		private final int off;
+		private final int len;
+		private final int hash;
+
+
+		Key(byte[] bytes, int off, int len) {
+			this.bytes = bytes;
+			this.off = off;
+			this.len = len;
+			int h = 1;
+			for(int i = off, end = off + len; i < end; i++) {
+				h = 31 * h + bytes[i];
+			}
+			this.hash = h;
+		}
+
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key)obj;
+			return hash == key.hash && Arrays.equals(bytes, off, off + len, key.bytes, key.off, key.off + key.len);
+		}
+
+	}
+
+
+	private final ConcurrentHashMap<Key, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder bytesSaved = new LongAdder();
+	/** Per thread buffer which entries are read into before being looked up, avoids allocating a byte array for pool hits */
+	private final ThreadLocal<byte[]> readBuffer = ThreadLocal.withInitial(() -> new byte[256]);
+
+
+	public Utf8Pool() {
+		this(1024);
+	}
+
+
+	/**
+	 * @param initialCapacity the initial number of unique strings the pool can hold before resizing
+	 */
+	public Utf8Pool(int initialCapacity) {
+		this.entries = new ConcurrentHashMap<>(initialCapacity);
+	}
+
+
+	/** Lookup or add a modified UTF-8 byte sequence
+	 * @param bytes the array containing the bytes, the array is copied if the bytes are added to the pool
+	 * @param off the offset into {@code bytes} of the first byte
+	 * @param len the number of bytes
+	 * @return the pooled entry
+	 */
+	public Entry intern(byte[] bytes, int off, int len) {
+		Key key = new Key(bytes, off, len);
+		Entry entry = entries.get(key);
+		if(entry != null) {
+			hits.increment();
+			bytesSaved.add(entry.dataSize);
+			return entry;
+		}
+
+		byte[] copy = Arrays.copyOfRange(bytes, off, off + len);
+		Entry newEntry = new Entry(copy, ModifiedUtf8.decode(copy, 0, len));
+		entry = entries.putIfAbsent(new Key(copy, 0, len), newEntry);
+		if(entry != null) {
+			// another thread added the same bytes first
+			hits.increment();
+			bytesSaved.add(entry.dataSize);
+			return entry;
+		}
+		misses.increment();
+		return newEntry;
+	}
+
+
+	/** Read a modified UTF-8 byte sequence and lookup or add it to the pool
+	 * @param in the input to read from
+	 * @param len the number of bytes to read
+	 * @return the pooled entry
+	 * @throws IOException if there is an error reading from the input
+	 */
+	public Entry read(DataInput in, int len) throws IOException {
+		byte[] buf = readBuffer.get();
+		if(buf.length < len) {
+			buf = new byte[Math.max(len, buf.length * 2)];
+			readBuffer.set(buf);
+		}
+		in.readFully(buf, 0, len);
+		return intern(buf, 0, len);
+	}
+
+
+	/**
+	 * @return the number of unique byte sequences in the pool
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+
+	/**
+	 * @return the number of lookups which found an existing entry
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+
+	/**
+	 * @return the number of lookups which added a new entry
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+
+	/**
+	 * @return the approximate number of bytes of byte array and string character data that were not allocated because of pool hits
+	 */
+	public long getBytesSaved() {
+		return bytesSaved.sum();
+	}
+
+
+	@Override
+	public String toString() {
+		return "Utf8Pool(size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + ", bytesSaved=" + getBytesSaved() + ")";
+	}
+
+
+	private static boolean isAscii(byte[] bytes) {
+		for(int i = 0, size = bytes.length; i < size; i++) {
+			if(bytes[i] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -42,6 +42,16 @@ public class Annotation implements ReadWritable, CpIndexChangeable {
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getTypeIndex() {
+		return type_index;
+	}
+
+
+	public void setTypeIndex(CpIndex<CONSTANT_Utf8> index) {
+		this.type_index = index;
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(type_index);
@@ -52,7 +62,7 @@ public class Annotation implements ReadWritable, CpIndexChangeable {
 	@Override
 	public void writeData(DataOutput out) throws IOException {
 		type_index.writeData(out);
-		out.writeInt(num_element_value_pairs);
+		out.writeShort(num_element_value_pairs);
 		for(int i = 0; i < num_element_value_pairs; i++) {
 			element_value_pairs[i].writeData(out);
 		}
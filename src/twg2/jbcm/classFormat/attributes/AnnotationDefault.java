@@ -7,7 +7,6 @@ import java.io.IOException;
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
 import twg2.jbcm.modify.CpIndexChanger;
 
@@ -65,7 +64,7 @@ public class AnnotationDefault implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
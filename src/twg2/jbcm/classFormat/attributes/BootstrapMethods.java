@@ -8,7 +8,6 @@ import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
@@ -95,7 +94,7 @@ public class BootstrapMethods implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -3,24 +3,29 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
-import twg2.jbcm.CodeUtility;
+import twg2.jbcm.InstructionIndex;
 import twg2.jbcm.Opcodes;
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.Method_Info;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
-import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.ir.CodeMaxs;
+import twg2.jbcm.ir.ControlFlowGraph;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
+import twg2.jbcm.modify.TypeUtility;
 
 /** A Java class file format Attribute of type <code>Code</code>
  * @author TeamworkGuy2
  * @since 2013-7-7
  */
-public class Code implements Attribute_Type {
+public class Code implements Attribute_Type, OffsetAttribute {
 	public static final String ATTRIBUTE_NAME = "Code";
 	ClassFile resolver;
 	/** The value of the attribute_name_index item must be a valid index into the constant_pool table. The constant_pool
@@ -70,6 +75,12 @@ public class Code implements Attribute_Type {
 	 * size [attributes_count], 0 indexed.
 	 */
 	Attribute_Type[] attributes;
+	/** The decoded instructions of {@link #code}, built on first use and cleared when the code is modified */
+	private InstructionIndex instructionIndex;
+	/** True if {@link #max_stack} and {@link #max_locals} must be recomputed because the code or exception table was modified */
+	private boolean maxsStale;
+	/** The local variable slots used by this code's method's parameters, found on first use, -1 if not yet found */
+	private int parameterSlots = -1;
 
 
 	public Code(ClassFile resolver, short attributeNameIndex) {
@@ -109,7 +120,7 @@ public class Code implements Attribute_Type {
 
 
 	public Attribute_Type[] getAttributes() {
-		return attributes;
+		return ClassFileAttributes.getAttributes(attributes);
 	}
 
 
@@ -118,66 +129,307 @@ public class Code implements Attribute_Type {
 	}
 
 
+	/** Replace this method's exception table
+	 * @param exceptionTable the new exception handlers, in exception table order
+	 */
+	public void setExceptionTable(ExceptionPoint[] exceptionTable) {
+		this.exception_table = exceptionTable;
+		this.exception_table_length = (short)exceptionTable.length;
+		this.maxsStale = true;
+	}
+
+
+	/**
+	 * @param attributeName the attribute name, i.e. {@link StackMapTable#ATTRIBUTE_NAME}
+	 * @return the first attribute of this code with the name, or null if there is no such attribute
+	 */
+	public Attribute_Type getAttribute(String attributeName) {
+		for(int i = 0; i < attributes_count; i++) {
+			if(attributeName.equals(attributes[i].getAttributeName())) {
+				return ClassFileAttributes.getAttribute(attributes, i);
+			}
+		}
+		return null;
+	}
+
+
+	/** Add an attribute to this code, replacing the existing attribute with the same name if there is one
+	 * @param attribute the attribute
+	 */
+	public void setAttribute(Attribute_Type attribute) {
+		String name = attribute.getAttributeName();
+		for(int i = 0; i < attributes_count; i++) {
+			if(name.equals(attributes[i].getAttributeName())) {
+				attributes[i] = attribute;
+				return;
+			}
+		}
+		attributes = Arrays.copyOf(attributes, attributes_count + 1);
+		attributes[attributes_count] = attribute;
+		attributes_count++;
+	}
+
+
+	/** Remove the attributes with a name from this code
+	 * @param attributeName the attribute name
+	 * @return true if an attribute was removed
+	 */
+	public boolean removeAttribute(String attributeName) {
+		int count = 0;
+		for(int i = 0; i < attributes_count; i++) {
+			if(!attributeName.equals(attributes[i].getAttributeName())) {
+				attributes[count++] = attributes[i];
+			}
+		}
+		boolean removed = count < attributes_count;
+		if(removed) {
+			attributes = Arrays.copyOf(attributes, count);
+			attributes_count = (short)count;
+		}
+		return removed;
+	}
+
+
 	public int getMaxStack() {
+		if(maxsStale) {
+			recomputeMaxs();
+		}
 		return max_stack;
 	}
 
 
 	public int getMaxLocals() {
+		if(maxsStale) {
+			recomputeMaxs();
+		}
 		return max_locals;
 	}
 
 
+	/** Recompute {@code max_stack} and {@code max_locals} from this attribute's code and exception table.
+	 * This is called automatically before the values are read or written after the code or exception table is changed
+	 * by {@link #setCode(byte[])}, {@link #prependCode(byte[])}, {@link #appendCode(byte[])}, {@link #insertCode(int, byte[])},
+	 * {@link #replaceInstructions(byte[][])}, {@link #setExceptionTable(ExceptionPoint[])}, or {@link #markMaxsStale()}. If this attribute does not belong to one of its class file's methods, the existing
+	 * {@code max_locals} is used as the number of parameter slots.
+	 * @throws IllegalStateException if the operand stack underflows or two paths reach an instruction with different stack depths
+	 * @see CodeMaxs
+	 */
+	public void recomputeMaxs() {
+		var cfg = ControlFlowGraph.build(this);
+		this.max_stack = (short)CodeMaxs.computeMaxStack(cfg, resolver);
+		this.max_locals = (short)CodeMaxs.computeMaxLocals(cfg.getInstructionIndex(), getParameterSlots());
+		this.maxsStale = false;
+	}
+
+
+	private int getParameterSlots() {
+		if(parameterSlots < 0) {
+			for(int i = 0, size = resolver.getMethodCount(); i < size; i++) {
+				Method_Info method = resolver.getMethod(i);
+				if(method.getCode() == this) {
+					int thisSlot = (method.getAccessFlags() & Method_Info.ACC_STATIC) != 0 ? 0 : 1;
+					parameterSlots = thisSlot + TypeUtility.methodParameterSlots(method.getDescriptor().getString());
+					return parameterSlots;
+				}
+			}
+			return max_locals;
+		}
+		return parameterSlots;
+	}
+
+
+	/** Get the instructions of this method's code decoded into an {@link InstructionIndex}.
+	 * The index is built on first use and shared by later calls until the code is changed by {@link #setCode(byte[])},
+	 * {@link #prependCode(byte[])}, {@link #appendCode(byte[])}, {@link #insertCode(int, byte[])}, or {@link #replaceInstructions(byte[][])}.
+	 * If the {@link #getCode()} array is modified directly, {@link #clearInstructionIndex()} must be called.
+	 * @return the instruction index of this method's code
+	 */
+	public InstructionIndex getInstructionIndex() {
+		var index = this.instructionIndex;
+		if(index == null) {
+			index = InstructionIndex.decode(code);
+			this.instructionIndex = index;
+		}
+		return index;
+	}
+
+
+	/** Discard the cached {@link #getInstructionIndex()}, called after instruction operands in the {@link #getCode()} array are modified in place
+	 * (i.e. constant pool indexes or branch offsets). The existing {@code max_stack} and {@code max_locals} are kept,
+	 * call {@link #markMaxsStale()} if the modified instructions use the operand stack or local variables differently
+	 */
+	public void clearInstructionIndex() {
+		this.instructionIndex = null;
+	}
+
+
+	/** Recompute {@code max_stack} and {@code max_locals} (see {@link #recomputeMaxs()}) the next time they are read or written,
+	 * called after the {@link #getCode()} array is modified in a way that changes the instructions' operand stack or local variable use
+	 */
+	public void markMaxsStale() {
+		this.maxsStale = true;
+	}
+
+
 	// TODO these modify operations should clone this Code attribute
+	// max_stack and max_locals are recomputed on next use after these modify operations
 
+	/** Replace this method's code, the exception table and nested attributes are not changed and a StackMapTable attribute
+	 * is left stale, see {@link twg2.jbcm.modify.StackMapFrameComputer#update(Method_Info, twg2.jbcm.modify.ClassHierarchy, twg2.jbcm.modify.ConstantPoolBuilder)}
+	 * @param instructions the new code
+	 */
 	public void setCode(byte[] instructions) {
 		byte[] oldCode = this.code;
 		this.code = instructions;
 		this.code_length = instructions.length;
-		// TODO figure out how to calculate shift for entire code
+		this.instructionIndex = null;
+		this.maxsStale = true;
 		this.attribute_length += (instructions.length - oldCode.length);
-		updateOffsets(1, oldCode.length, 0);
 	}
 
 
+	/** Insert instructions at the start of this method's code, see {@link #insertCode(int, byte[])}
+	 * @param instructions the instructions to insert
+	 */
 	public void prependCode(byte[] instructions) {
-		byte[] oldCode = this.code;
-		final int newLength = oldCode.length + instructions.length;
-		this.code_length = newLength;
-		this.code = new byte[newLength];
-		System.arraycopy(instructions, 0, code, 0, instructions.length);
-		System.arraycopy(oldCode, 0, code, instructions.length, oldCode.length);
-		// Shift all offsets up except those that the code starts with at pc 0
-		this.attribute_length += instructions.length;
-		updateOffsets(1, oldCode.length, instructions.length);
+		insertCode(0, instructions);
 	}
 
 
+	/** Insert instructions at the end of this method's code, see {@link #insertCode(int, byte[])}
+	 * @param instructions the instructions to insert
+	 */
 	public void appendCode(byte[] instructions) {
-		byte[] oldCode = this.code;
-		final int newLength = oldCode.length + instructions.length;
-		this.code_length = newLength;
-		this.code = new byte[newLength];
-		System.arraycopy(oldCode, 0, code, 0, oldCode.length);
-		System.arraycopy(instructions, 0, code, oldCode.length, instructions.length);
-		// Shift only offsets that extend to the end of the block
-		this.attribute_length += instructions.length;
-		updateOffsets(oldCode.length, instructions.length, instructions.length);
-	}
-
-
-	private void updateOffsets(int offset, int length, int shift) {
-		for(int i = 0, size = attributes_count; i < size; i++) {
-			Attribute_Type attrib = attributes[i];
-			if(LocalVariableTable.ATTRIBUTE_NAME.equals(attrib.getAttributeName())) {
-				((LocalVariableTable)attrib).getAttributeOffsetModifier().changeOffset(offset, length, shift);
+		insertCode(code_length, instructions);
+	}
+
+
+	/** Insert instructions before the instruction at a code offset and relocate every code offset of this attribute in one pass,
+	 * the branch and switch offsets of the existing instructions, the exception table, and each nested {@link OffsetAttribute}
+	 * (i.e. {@link LineNumberTable}, {@link LocalVariableTable}, {@link LocalVariableTypeTable}, {@link StackMapTable}, and type annotations).<br/>
+	 * Branches to {@code pc} still target the old instruction and code ranges ending at {@code pc} do not include the inserted instructions,
+	 * see {@link CodeOffsetRemapper#forInsertion(InstructionIndex, int, int)}. The inserted instructions are copied unchanged, so their branch
+	 * and switch operands must be encoded for their new offset. The relocated StackMapTable stays valid if the inserted instructions
+	 * do not branch, leave the local variable and operand stack types unchanged, and follow an instruction which falls through,
+	 * otherwise the frames must be recomputed.
+	 * @param pc the offset of the instruction to insert before, or the code length to append
+	 * @param instructions the instructions to insert
+	 * @return the old to new code offset tables used to relocate the code
+	 * @throws IllegalArgumentException if {@code pc} is not the start of an instruction or the end of the code
+	 * @throws IllegalStateException if a relocated branch offset no longer fits in its instruction
+	 */
+	public CodeOffsetRemapper insertCode(int pc, byte[] instructions) {
+		var oldIndex = getInstructionIndex();
+		var remapper = CodeOffsetRemapper.forInsertion(oldIndex, pc, instructions.length);
+		byte[] newCode = new byte[remapper.getNewCodeLength()];
+		System.arraycopy(instructions, 0, newCode, remapper.getNewEndOffset(pc), instructions.length);
+		remapper.remapCode(oldIndex, newCode);
+
+		this.attribute_length += (newCode.length - code_length);
+		this.code = newCode;
+		this.code_length = newCode.length;
+		this.instructionIndex = null;
+		this.maxsStale = true;
+		remapOffsets(remapper);
+		return remapper;
+	}
+
+
+	/** Replace or remove instructions and relocate every code offset of this attribute in one pass, see {@link #insertCode(int, byte[])}.
+	 * Branches to a removed instruction target the next remaining instruction, see {@link CodeOffsetRemapper#forReplacement(InstructionIndex, byte[][])},
+	 * and exception table entries whose range becomes empty are removed. Frames of removed instructions are dropped from the StackMapTable,
+	 * so if instructions are removed or the replacements change the local variable or operand stack types, the frames must be recomputed,
+	 * see {@link twg2.jbcm.modify.StackMapFrameComputer#update(Method_Info, twg2.jbcm.modify.ClassHierarchy, twg2.jbcm.modify.ConstantPoolBuilder)}
+	 * @param replacements the replacement bytes of each instruction of {@link #getInstructionIndex()}, indexed by instruction number,
+	 * null to keep an instruction, empty to remove it. Replacements must not contain branch or switch instructions
+	 * @return the old to new code offset tables used to relocate the code
+	 * @throws IllegalStateException if a relocated branch offset no longer fits in its instruction
+	 */
+	public CodeOffsetRemapper replaceInstructions(byte[][] replacements) {
+		var oldIndex = getInstructionIndex();
+		if(replacements.length != oldIndex.size()) {
+			throw new IllegalArgumentException("replacement count " + replacements.length + " does not match instruction count " + oldIndex.size());
+		}
+		var remapper = CodeOffsetRemapper.forReplacement(oldIndex, replacements);
+		byte[] newCode = new byte[remapper.getNewCodeLength()];
+		remapper.remapCode(oldIndex, newCode);
+
+		this.attribute_length += (newCode.length - code_length);
+		this.code = newCode;
+		this.code_length = newCode.length;
+		this.instructionIndex = null;
+		this.maxsStale = true;
+		remapOffsets(remapper);
+		removeEmptyExceptionHandlers();
+		return remapper;
+	}
+
+
+	/** Remove exception table entries whose code range is empty, {@code catch_target} type annotations are renumbered
+	 */
+	private void removeEmptyExceptionHandlers() {
+		int[] oldToNewIndex = new int[exception_table_length];
+		int count = 0;
+		for(int i = 0; i < exception_table_length; i++) {
+			ExceptionPoint handler = exception_table[i];
+			if((handler.start_pc & 0xFFFF) < (handler.end_pc & 0xFFFF)) {
+				oldToNewIndex[i] = count;
+				exception_table[count++] = handler;
+			}
+			else {
+				oldToNewIndex[i] = -1;
+			}
+		}
+		if(count < exception_table_length) {
+			this.attribute_length -= (exception_table_length - count) * 8;
+			this.exception_table = Arrays.copyOf(exception_table, count);
+			this.exception_table_length = (short)count;
+			for(int i = 0; i < attributes_count; i++) {
+				Attribute_Type attribute = ClassFileAttributes.getAttribute(attributes, i);
+				if(attribute instanceof RuntimeVisibleTypeAnnotations) {
+					((RuntimeVisibleTypeAnnotations)attribute).remapExceptionIndexes(oldToNewIndex);
+				}
+				else if(attribute instanceof RuntimeInvisibleTypeAnnotations) {
+					((RuntimeInvisibleTypeAnnotations)attribute).remapExceptionIndexes(oldToNewIndex);
+				}
 			}
 		}
 	}
 
 
+	/** Remap the code offsets of this attribute's exception table and each of its nested {@link OffsetAttribute} attributes,
+	 * this does not change the code array, see {@link CodeOffsetRemapper#remapCode(InstructionIndex, byte[])}
+	 */
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		remapper.remapOffsets(exception_table);
+		for(int i = 0; i < attributes_count; i++) {
+			Attribute_Type attribute = ClassFileAttributes.getAttribute(attributes, i);
+			if(attribute instanceof OffsetAttribute) {
+				((OffsetAttribute)attribute).remapOffsets(remapper);
+			}
+		}
+	}
+
+
+	/** Recalculate {@code attribute_length} from this attribute's code, exception table, and nested attributes,
+	 * called before writing so that the written length is correct even if the code or nested attributes were modified
+	 */
+	private void updateAttributeLength() {
+		int len = 2 + 2 + 4 + code_length + 2 + exception_table_length * 8 + 2;
+		for(int i = 0; i < attributes_count; i++) {
+			len += 6 + attributes[i].getAttributeLength();
+		}
+		attribute_length = len;
+	}
+
+
 	@Override
 	public void writeData(DataOutput out) throws IOException {
+		if(maxsStale) {
+			recomputeMaxs();
+		}
+		updateAttributeLength();
 		attribute_name_index.writeData(out);
 		out.writeInt(attribute_length);
 		out.writeShort(max_stack);
@@ -197,7 +449,7 @@ public class Code implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -206,6 +458,7 @@ public class Code implements Attribute_Type {
 		code_length = in.readInt();
 		code = new byte[code_length];
 		in.readFully(code, 0, code_length);
+		instructionIndex = null;
 		exception_table_length = in.readShort();
 		exception_table = new ExceptionPoint[exception_table_length];
 		for(int i = 0; i < exception_table_length; i++) {
@@ -234,48 +487,36 @@ public class Code implements Attribute_Type {
 			.append(", locals: ").append(max_locals).append(",\n").append(tab)
 			.append("code: ").append(code_length).append(" [\n");
 
-		for(int i = 0; i < code_length; i++) {
-			Opcodes opc = Opcodes.get(code[i]);
-			boolean isWide = false;
-			int numOperands = opc.getOperandCount();
-			// Read following bytes of code and convert them to an operand depending on the current instruction
-			int operand = CodeUtility.loadOperands(numOperands, code, i);
-			// Special handling for instructions with unpredictable byte code lengths
-			if(numOperands == Opcodes.Const.UNPREDICTABLE) {
-				if(Opcodes.WIDE.is(code[i])) {
-					// TODO doesn't properly read extra wide operand bytes
-					isWide = true;
-					i++; // because wide instructions are wrapped around other instructions
-					opc = Opcodes.get(code[i]);
-					numOperands = opc.getOperandCount();
-				}
-				else if(Opcodes.TABLESWITCH.is(code[i])) {
-					throw new IllegalStateException("tableswitch code handling not implemented");
-				}
-				else if(Opcodes.LOOKUPSWITCH.is(code[i])) {
-					throw new IllegalStateException("lookupswitch code handling not implemented");
-				}
-			}
+		var index = getInstructionIndex();
+		for(int n = 0, size = index.size(); n < size; n++) {
+			int i = index.getStart(n);
+			Opcodes opc = index.getOpcode(n);
+			int operand = index.getOperand(n);
 
-			str.append(tab).append(instructionIndex(i)).append(isWide ? "WIDE " : "").append(opc.displayName());
+			str.append(tab).append(instructionIndex(i)).append(index.isWide(n) ? "WIDE " : "").append(opc.displayName());
 
-			if(operand > 0) {
-				if(opc.hasBehavior(Opcodes.Type.CP_INDEX) && operand < resolver.getConstantPoolCount()) {
-					str.append(' ').append(resolver.getCpIndex((short)operand).getCpObject().toShortString()).append(" [").append(operand).append(']');
+			if(opc == Opcodes.TABLESWITCH || opc == Opcodes.LOOKUPSWITCH) {
+				int[] keys = index.getSwitchKeys(n);
+				int[] targets = index.getSwitchTargets(n);
+				str.append(" {");
+				for(int k = 0; k < keys.length; k++) {
+					str.append(' ').append(keys[k]).append(": ").append(targets[k]).append(',');
 				}
-				else if(opc.hasBehavior(Opcodes.Type.JUMP)) {
-					str.append(' ').append(i + operand);
-				}
-				else {
-					str.append(' ').append(operand).append(" 0x").append(Integer.toHexString(operand));
-				}
-				str.append("\n");
+				str.append(" default: ").append(operand).append(" }");
 			}
-			else {
-				str.append("\n");
+			else if(opc.hasBehavior(Opcodes.Type.JUMP)) {
+				str.append(' ').append(operand);
 			}
-
-			i += (numOperands < 0 ? 0 : numOperands);
+			else if(opc.hasBehavior(Opcodes.Type.CP_INDEX) && operand > 0 && operand < resolver.getConstantPoolCount()) {
+				str.append(' ').append(resolver.getCpIndex((short)operand).getCpObject().toShortString()).append(" [").append(operand).append(']');
+			}
+			else if(index.getLength(n) > 1) {
+				str.append(' ').append(operand).append(" 0x").append(Integer.toHexString(operand));
+				if(opc == Opcodes.IINC) {
+					str.append(' ').append(index.getOperand2(n));
+				}
+			}
+			str.append("\n");
 		}
 		str.append(tab).append("],\n").append(tab);
 
@@ -315,7 +556,7 @@ public class Code implements Attribute_Type {
 	 * @author TeamworkGuy2
 	 * @since 2013-7-7
 	 */
-	public static class ExceptionPoint implements ReadWritable, CpIndexChangeable {
+	public static class ExceptionPoint implements ReadWritable, OffsetAttribute {
 		Code parent;
 		/** Each entry in the exception_table array describes one exception handler in the code array. The order of the
 		 * handlers in the exception_table array is significant. See Section 3.10 for more details.
@@ -350,6 +591,22 @@ public class Code implements Attribute_Type {
 		}
 
 
+		/** Create an exception handler
+		 * @param codeParent the code containing the handler
+		 * @param startPc the start of the covered code range, inclusive
+		 * @param endPc the end of the covered code range, exclusive
+		 * @param handlerPc the code offset of the handler
+		 * @param catchType the class of exceptions caught by the handler, null to catch all exceptions
+		 */
+		public ExceptionPoint(Code codeParent, int startPc, int endPc, int handlerPc, CpIndex<CONSTANT_Class> catchType) {
+			this.parent = codeParent;
+			this.start_pc = (short)startPc;
+			this.end_pc = (short)endPc;
+			this.handler_pc = (short)handlerPc;
+			this.catch_type = catchType;
+		}
+
+
 		/**
 		 * @see #parent
 		 */
@@ -390,6 +647,14 @@ public class Code implements Attribute_Type {
 		}
 
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			start_pc = (short)remapper.getNewOffset(start_pc & 0xFFFF);
+			end_pc = (short)remapper.getNewEndOffset(end_pc & 0xFFFF);
+			handler_pc = (short)remapper.getNewOffset(handler_pc & 0xFFFF);
+		}
+
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 			indexChanger.indexChange(catch_type);
@@ -401,7 +666,7 @@ public class Code implements Attribute_Type {
 			out.writeShort(start_pc);
 			out.writeShort(end_pc);
 			out.writeShort(handler_pc);
-			catch_type.writeData(out);
+			CpIndex.writeOptional(catch_type, out);
 		}
 
 
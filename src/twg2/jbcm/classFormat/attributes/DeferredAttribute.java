@@ -0,0 +1,172 @@
+package twg2.jbcm.classFormat.attributes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import twg2.jbcm.ByteBufferDataInput;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileAttributes;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.ParseOptions;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CpIndexChanger;
+
+/** A placeholder for an attribute which has not been parsed yet (see {@link ParseOptions#lazyAttributes}).
+ * Keeps the attribute's raw bytes and parses them the first time the attribute's contents are needed.
+ * Until then, {@link #writeData(DataOutput)} copies the original bytes verbatim.<br/>
+ * Attribute owners replace this placeholder with the parsed attribute when it is accessed,
+ * see {@link ClassFileAttributes#getAttribute(Attribute_Type[], int)}.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class DeferredAttribute implements Attribute_Type {
+	private final ClassFile resolver;
+	private final Code codeCaller;
+	private final ClassFileAttributes type;
+	CpIndex<CONSTANT_Utf8> attribute_name_index;
+	int attribute_length;
+	/** The buffer containing the {@code attribute_length} field followed by the attribute's data */
+	private ByteBuffer raw;
+	/** Absolute index of the {@code attribute_length} field in {@link #raw} */
+	private int rawOffset;
+	private Attribute_Type loaded;
+
+
+	private DeferredAttribute(ClassFile resolver, Code codeCaller, ClassFileAttributes type, short attributeNameIndex) {
+		this.attribute_name_index = resolver.getAttributeNameIndex(attributeNameIndex);
+		this.resolver = resolver;
+		this.codeCaller = codeCaller;
+		this.type = type;
+	}
+
+
+	@Override
+	public String getAttributeName() {
+		return loaded != null ? loaded.getAttributeName() : attribute_name_index.getCpObject().getString();
+	}
+
+
+	@Override
+	public int getAttributeLength() {
+		return loaded != null ? loaded.getAttributeLength() : attribute_length;
+	}
+
+
+	/**
+	 * @return the type of attribute this placeholder contains
+	 */
+	public ClassFileAttributes getType() {
+		return type;
+	}
+
+
+	/**
+	 * @return true if the attribute has been parsed
+	 */
+	public boolean isLoaded() {
+		return loaded != null;
+	}
+
+
+	/** Parse this attribute's raw data, the result is cached so subsequent calls return the same instance
+	 * @return the parsed attribute
+	 */
+	public Attribute_Type load() {
+		if(loaded == null) {
+			Attribute_Type attrib = type.create(resolver, attribute_name_index.getIndex(), codeCaller);
+			try {
+				attrib.readData(new ByteBufferDataInput(raw, rawOffset, rawOffset + 4 + attribute_length));
+			} catch(IOException ioe) {
+				throw new UncheckedIOException("reading deferred " + type.getBinaryName() + " attribute", ioe);
+			}
+			loaded = attrib;
+			raw = null;
+		}
+		return loaded;
+	}
+
+
+	@Override
+	public void changeCpIndex(CpIndexChanger indexChanger) {
+		// the raw data may contain constant pool indexes, so it has to be parsed before it can be changed
+		load().changeCpIndex(indexChanger);
+	}
+
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		if(loaded != null) {
+			loaded.writeData(out);
+			return;
+		}
+		attribute_name_index.writeData(out);
+		int len = 4 + attribute_length;
+		if(raw.hasArray()) {
+			out.write(raw.array(), raw.arrayOffset() + rawOffset, len);
+		}
+		else {
+			byte[] tmp = new byte[len];
+			raw.get(rawOffset, tmp, 0, len);
+			out.write(tmp, 0, len);
+		}
+	}
+
+
+	/** Read this attribute's length and data without parsing it, any previously loaded attribute is discarded.
+	 * If {@code in} is a {@link ByteBufferDataInput}, the attribute data is not copied, this
+	 * placeholder keeps a reference to the input's buffer until the attribute is loaded.
+	 * @param in the input, positioned at the attribute's {@code attribute_length} field
+	 */
+	@Override
+	public void readData(DataInput in) throws IOException {
+		loaded = null;
+		if(in instanceof ByteBufferDataInput) {
+			var bufIn = (ByteBufferDataInput)in;
+			rawOffset = bufIn.position();
+			attribute_length = in.readInt();
+			if(attribute_length < 0 || in.skipBytes(attribute_length) != attribute_length) {
+				throw new EOFException(type.getBinaryName() + " attribute length " + attribute_length + " extends past the end of the buffer");
+			}
+			raw = bufIn.getBuffer();
+		}
+		else {
+			int len = in.readInt();
+			byte[] data = new byte[4 + len];
+			data[0] = (byte)(len >>> 24);
+			data[1] = (byte)(len >>> 16);
+			data[2] = (byte)(len >>> 8);
+			data[3] = (byte)len;
+			in.readFully(data, 4, len);
+			attribute_length = len;
+			raw = ByteBuffer.wrap(data);
+			rawOffset = 0;
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return load().toString();
+	}
+
+
+	/** Read an attribute's length and data without parsing it, see {@link #readData(DataInput)}
+	 * @param in the input, positioned at the attribute's {@code attribute_length} field
+	 * @param resolver the class file to use for constant pool index resolution
+	 * @param type the type of attribute
+	 * @param attributeNameIndex the attribute's name constant pool index
+	 * @param codeCaller the code attribute containing the attribute, or null
+	 * @return the unparsed attribute
+	 * @throws IOException if there is an error reading from the input stream
+	 */
+	public static DeferredAttribute read(DataInput in, ClassFile resolver, ClassFileAttributes type, short attributeNameIndex, Code codeCaller) throws IOException {
+		var attrib = new DeferredAttribute(resolver, codeCaller, type, attributeNameIndex);
+		attrib.readData(in);
+		return attrib;
+	}
+
+}
@@ -7,7 +7,6 @@ import java.io.IOException;
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
@@ -74,13 +73,13 @@ public class EnclosingMethod implements Attribute_Type {
 		attribute_name_index.writeData(out);
 		out.writeInt(attribute_length);
 		class_index.writeData(out);
-		method_index.writeData(out);
+		CpIndex.writeOptional(method_index, out);
 	}
 
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -8,7 +8,6 @@ import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
 import twg2.jbcm.modify.CpIndexChangeable;
@@ -77,7 +76,7 @@ public class InnerClasses implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -174,8 +173,8 @@ public class InnerClasses implements Attribute_Type {
 		@Override
 		public void writeData(DataOutput out) throws IOException {
 			inner_class_info_index.writeData(out);
-			outer_class_info_index.writeData(out);
-			inner_name_index.writeData(out);
+			CpIndex.writeOptional(outer_class_info_index, out);
+			CpIndex.writeOptional(inner_name_index, out);
 			out.writeShort(inner_class_access_flags);
 		}
 
@@ -3,21 +3,22 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
-import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A Java class file format Attribute of type <code>LineNumberTable</code>
  * @author TeamworkGuy2
  * @since 2013-7-7
  */
-public class LineNumberTable implements Attribute_Type {
+public class LineNumberTable implements Attribute_Type, OffsetAttribute {
 	public static final String ATTRIBUTE_NAME = "LineNumberTable";
 	ClassFile resolver;
 	Code parent;
@@ -54,6 +55,25 @@ public class LineNumberTable implements Attribute_Type {
 	}
 
 
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		remapper.remapOffsets(line_number_table);
+		// entries of removed instructions at the end of the code no longer start at an instruction
+		int newCodeLength = remapper.getNewCodeLength();
+		int count = 0;
+		for(int i = 0; i < line_number_table_length; i++) {
+			if((line_number_table[i].start_pc & 0xFFFF) < newCodeLength) {
+				line_number_table[count++] = line_number_table[i];
+			}
+		}
+		if(count < line_number_table_length) {
+			line_number_table = Arrays.copyOf(line_number_table, count);
+			line_number_table_length = (short)count;
+			attribute_length = 2 + count * 4;
+		}
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(attribute_name_index);
@@ -74,7 +94,7 @@ public class LineNumberTable implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -105,7 +125,7 @@ public class LineNumberTable implements Attribute_Type {
 	 * @author TeamworkGuy2
 	 * @since 2013-7-7
 	 */
-	public static class LineNumberPoint implements ReadWritable, CpIndexChangeable {
+	public static class LineNumberPoint implements ReadWritable, OffsetAttribute {
 		Code parent;
 		/** Each entry in the line_number_table array indicates that the line number in the original source file changes at
 		 * a given point in the code array. Each line_number_table entry must contain the following two items:
@@ -126,6 +146,12 @@ public class LineNumberTable implements Attribute_Type {
 		}
 
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			start_pc = (short)remapper.getNewOffset(start_pc & 0xFFFF);
+		}
+
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 		}
@@ -3,14 +3,14 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
-import twg2.jbcm.modify.AttributeOffsetFunction;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
 import twg2.jbcm.modify.OffsetAttribute;
 
@@ -36,12 +36,6 @@ public class LocalVariableTable implements Attribute_Type, OffsetAttribute {
 	 */
 	LocalVariablePoint[] local_variable_table;
 
-	private AttributeOffsetFunction offsetAction = (int offset, int length, int shift) -> {
-		for(int i = 0, size = local_variable_table_length; i < size; i++) {
-			local_variable_table[i].getAttributeOffsetModifier().changeOffset(offset, length, shift);
-		}
-	};
-
 
 	public LocalVariableTable(ClassFile resolver, Code codeParent, short attributeNameIndex) {
 		this.attribute_name_index = resolver.getAttributeNameIndex(attributeNameIndex);
@@ -73,8 +67,21 @@ public class LocalVariableTable implements Attribute_Type, OffsetAttribute {
 
 
 	@Override
-	public AttributeOffsetFunction getAttributeOffsetModifier() {
-		return offsetAction;
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		remapper.remapOffsets(local_variable_table);
+		// entries of removed instructions at the end of the code no longer start at an instruction
+		int newCodeLength = remapper.getNewCodeLength();
+		int count = 0;
+		for(int i = 0; i < local_variable_table_length; i++) {
+			if((local_variable_table[i].start_pc & 0xFFFF) < newCodeLength) {
+				local_variable_table[count++] = local_variable_table[i];
+			}
+		}
+		if(count < local_variable_table_length) {
+			local_variable_table = Arrays.copyOf(local_variable_table, count);
+			local_variable_table_length = (short)count;
+			attribute_length = 2 + count * 10;
+		}
 	}
 
 
@@ -98,7 +105,7 @@ public class LocalVariableTable implements Attribute_Type, OffsetAttribute {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -159,18 +166,6 @@ public class LocalVariableTable implements Attribute_Type, OffsetAttribute {
 		 */
 		short index;
 
-		private AttributeOffsetFunction offsetAction = (int off, int len, int shift) -> {
-			if(start_pc >= off && start_pc < off + len) {
-				start_pc += shift;
-			}
-			if(length >= off && length < off + len) {
-				length += shift;
-			}
-			// TODO bounds checking and start_pc+length falls on the index of another opcode or the first index
-			// beyond the end of the code array
-		};
-
-
 		public LocalVariablePoint(Code codeParent) {
 			this.parent = codeParent;
 		}
@@ -186,9 +181,22 @@ public class LocalVariableTable implements Attribute_Type, OffsetAttribute {
 		}
 
 
+		public CpIndex<CONSTANT_Utf8> getDescriptorIndex() {
+			return this.descriptor_index;
+		}
+
+
+		public void setDescriptorIndex(CpIndex<CONSTANT_Utf8> index) {
+			this.descriptor_index = index;
+		}
+
+
 		@Override
-		public AttributeOffsetFunction getAttributeOffsetModifier() {
-			return offsetAction;
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			int start = start_pc & 0xFFFF;
+			int newStart = remapper.getNewOffset(start);
+			length = (short)(remapper.getNewEndOffset(start + (length & 0xFFFF)) - newStart);
+			start_pc = (short)newStart;
 		}
 
 
@@ -3,21 +3,22 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
-import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A Java class file format Attribute of type {@code LocalVariableTable}
  * @author TeamworkGuy2
  * @since 2013-12-3
  */
-public class LocalVariableTypeTable implements Attribute_Type {
+public class LocalVariableTypeTable implements Attribute_Type, OffsetAttribute {
 	public static final String ATTRIBUTE_NAME = "LocalVariableTypeTable";
 	ClassFile resolver;
 	Code parent;
@@ -56,6 +57,25 @@ public class LocalVariableTypeTable implements Attribute_Type {
 	}
 
 
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		remapper.remapOffsets(local_variable_type_table);
+		// entries of removed instructions at the end of the code no longer start at an instruction
+		int newCodeLength = remapper.getNewCodeLength();
+		int count = 0;
+		for(int i = 0; i < local_variable_type_table_length; i++) {
+			if((local_variable_type_table[i].start_pc & 0xFFFF) < newCodeLength) {
+				local_variable_type_table[count++] = local_variable_type_table[i];
+			}
+		}
+		if(count < local_variable_type_table_length) {
+			local_variable_type_table = Arrays.copyOf(local_variable_type_table, count);
+			local_variable_type_table_length = (short)count;
+			attribute_length = 2 + count * 10;
+		}
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(attribute_name_index);
@@ -76,7 +96,7 @@ public class LocalVariableTypeTable implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -107,7 +127,7 @@ public class LocalVariableTypeTable implements Attribute_Type {
 	 * @author TeamworkGuy2
 	 * @since 2013-12-3
 	 */
-	public static class LocalVariableTypePoint implements ReadWritable, CpIndexChangeable {
+	public static class LocalVariableTypePoint implements ReadWritable, OffsetAttribute {
 		Code parent;
 		/** Each entry in the local_variable_type_table array indicates a range of code array offsets within which a local
 		 * variable has a value. It also indicates the index into the local variable array of the current frame at which
@@ -143,6 +163,25 @@ public class LocalVariableTypeTable implements Attribute_Type {
 		}
 
 
+		public CpIndex<CONSTANT_Utf8> getSignatureIndex() {
+			return signature_index;
+		}
+
+
+		public void setSignatureIndex(CpIndex<CONSTANT_Utf8> index) {
+			this.signature_index = index;
+		}
+
+
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			int start = start_pc & 0xFFFF;
+			int newStart = remapper.getNewOffset(start);
+			length = (short)(remapper.getNewEndOffset(start + (length & 0xFFFF)) - newStart);
+			start_pc = (short)newStart;
+		}
+
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 			indexChanger.indexChange(name_index);
@@ -9,7 +9,6 @@ import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.ConstantPoolAllowZero;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
 import twg2.jbcm.modify.CpIndexChangeable;
 import twg2.jbcm.modify.CpIndexChanger;
@@ -102,7 +101,7 @@ public class MethodParameters implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -182,7 +181,7 @@ public class MethodParameters implements Attribute_Type {
 
 		@Override
 		public void writeData(DataOutput out) throws IOException {
-			name_index.writeData(out);
+			CpIndex.writeOptional(name_index, out);
 			out.writeShort(access_flags);
 		}
 
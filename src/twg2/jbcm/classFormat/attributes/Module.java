@@ -9,7 +9,6 @@ import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.ConstantPoolAllowZero;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Module;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Package;
@@ -166,7 +165,7 @@ public class Module implements Attribute_Type {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
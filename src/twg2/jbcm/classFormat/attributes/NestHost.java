@@ -0,0 +1,87 @@
+package twg2.jbcm.classFormat.attributes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileAttributes;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CpIndexChanger;
+
+/** A Java class file format Attribute of type <code>NestHost</code>
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class NestHost implements Attribute_Type {
+	public static final String ATTRIBUTE_NAME = "NestHost";
+	ClassFile resolver;
+	/** The value of the attribute_name_index item must be a valid index into the constant_pool table.
+	 * The constant_pool entry at that index must be a CONSTANT_Utf8_info structure representing the
+	 * string "NestHost".
+	 */
+	CpIndex<CONSTANT_Utf8> attribute_name_index;
+	/** The value of the attribute_length item must be two. */
+	int attribute_length;
+	/** The value of the host_class_index item must be a valid index into the constant_pool table. The constant_pool entry
+	 * at that index must be a CONSTANT_Class_info structure representing a class or interface which is the nest host for the current class or interface.
+	 */
+	CpIndex<CONSTANT_Class> host_class_index;
+
+
+	public NestHost(ClassFile resolver, short attributeNameIndex) {
+		this.attribute_name_index = resolver.getAttributeNameIndex(attributeNameIndex);
+		this.resolver = resolver;
+	}
+
+
+	@Override
+	public String getAttributeName() {
+		return ATTRIBUTE_NAME;
+	}
+
+
+	@Override
+	public int getAttributeLength() {
+		return attribute_length;
+	}
+
+
+	public CpIndex<CONSTANT_Class> getHostClassIndex() {
+		return host_class_index;
+	}
+
+
+	@Override
+	public void changeCpIndex(CpIndexChanger indexChanger) {
+		indexChanger.indexChange(attribute_name_index);
+		indexChanger.indexChange(host_class_index);
+	}
+
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		attribute_name_index.writeData(out);
+		out.writeInt(attribute_length);
+		host_class_index.writeData(out);
+	}
+
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		if(resolver.getParseOptions().readAttributeName) {
+			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
+		}
+		attribute_length = in.readInt();
+		host_class_index = resolver.getCheckCpIndex(in.readShort(), CONSTANT_Class.class);
+	}
+
+
+	@Override
+	public String toString() {
+		return ATTRIBUTE_NAME + "(host_class=" + host_class_index.getCpObject() + ")";
+	}
+
+}
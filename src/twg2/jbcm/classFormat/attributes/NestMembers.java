@@ -0,0 +1,111 @@
+package twg2.jbcm.classFormat.attributes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileAttributes;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CpIndexChanger;
+
+/** A Java class file format Attribute of type <code>NestMembers</code>
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class NestMembers implements Attribute_Type {
+	public static final String ATTRIBUTE_NAME = "NestMembers";
+	ClassFile resolver;
+	/** The value of the attribute_name_index item must be a valid index into the constant_pool table.
+	 * The constant_pool entry at that index must be a CONSTANT_Utf8_info structure representing the
+	 * string "NestMembers".
+	 */
+	CpIndex<CONSTANT_Utf8> attribute_name_index;
+	/** The value of the attribute_length item indicates the length of the attribute,
+	 * excluding the initial six bytes. */
+	int attribute_length;
+	/** The value of the number_of_classes item indicates the number of entries in the classes array. */
+	short number_of_classes;
+	/** Each value in the classes array must be a valid index into the constant_pool table. The constant_pool entry at that index
+	 * must be a CONSTANT_Class_info structure representing a class or interface which is a member of the nest hosted by the current class or interface.
+	 */
+	CpIndex<CONSTANT_Class>[] classes;
+
+
+	public NestMembers(ClassFile resolver, short attributeNameIndex) {
+		this.attribute_name_index = resolver.getAttributeNameIndex(attributeNameIndex);
+		this.resolver = resolver;
+	}
+
+
+	@Override
+	public String getAttributeName() {
+		return ATTRIBUTE_NAME;
+	}
+
+
+	@Override
+	public int getAttributeLength() {
+		return attribute_length;
+	}
+
+
+	public int getClassCount() {
+		return number_of_classes & 0xFFFF;
+	}
+
+
+	public CpIndex<CONSTANT_Class> getClass(int index) {
+		return classes[index];
+	}
+
+
+	@Override
+	public void changeCpIndex(CpIndexChanger indexChanger) {
+		indexChanger.indexChange(attribute_name_index);
+		indexChanger.indexChange(classes);
+	}
+
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		attribute_name_index.writeData(out);
+		out.writeInt(attribute_length);
+		out.writeShort(number_of_classes);
+		for(int i = 0, size = classes.length; i < size; i++) {
+			classes[i].writeData(out);
+		}
+	}
+
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void readData(DataInput in) throws IOException {
+		if(resolver.getParseOptions().readAttributeName) {
+			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
+		}
+		attribute_length = in.readInt();
+		number_of_classes = in.readShort();
+		classes = (CpIndex<CONSTANT_Class>[])new CpIndex<?>[number_of_classes & 0xFFFF];
+		for(int i = 0, size = classes.length; i < size; i++) {
+			classes[i] = resolver.getCheckCpIndex(in.readShort(), CONSTANT_Class.class);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append(ATTRIBUTE_NAME);
+		str.append("(classes[");
+		for(int i = 0, size = classes.length; i < size; i++) {
+			if(i > 0) { str.append(", "); }
+			str.append(classes[i].getCpObject());
+		}
+		str.append("])");
+		return str.toString();
+	}
+
+}
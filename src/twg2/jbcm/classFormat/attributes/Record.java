@@ -0,0 +1,201 @@
+package twg2.jbcm.classFormat.attributes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileAttributes;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.ReadWritable;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.modify.CpIndexChanger;
+
+/** A Java class file format Attribute of type <code>Record</code>
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class Record implements Attribute_Type {
+	public static final String ATTRIBUTE_NAME = "Record";
+	ClassFile resolver;
+	/** The value of the attribute_name_index item must be a valid index into the constant_pool table.
+	 * The constant_pool entry at that index must be a CONSTANT_Utf8_info structure representing the
+	 * string "Record".
+	 */
+	CpIndex<CONSTANT_Utf8> attribute_name_index;
+	/** The value of the attribute_length item indicates the length of the attribute,
+	 * excluding the initial six bytes. */
+	int attribute_length;
+	/** The value of the components_count item indicates the number of entries in the components table. */
+	short components_count;
+	/** Each entry in the components table specifies a record component of the current class, in the order the record components were declared.
+	 */
+	RecordComponentInfo[] components;
+
+
+	public Record(ClassFile resolver, short attributeNameIndex) {
+		this.attribute_name_index = resolver.getAttributeNameIndex(attributeNameIndex);
+		this.resolver = resolver;
+	}
+
+
+	@Override
+	public String getAttributeName() {
+		return ATTRIBUTE_NAME;
+	}
+
+
+	@Override
+	public int getAttributeLength() {
+		return attribute_length;
+	}
+
+
+	public int getComponentCount() {
+		return components_count & 0xFFFF;
+	}
+
+
+	public RecordComponentInfo getComponent(int index) {
+		return components[index];
+	}
+
+
+	@Override
+	public void changeCpIndex(CpIndexChanger indexChanger) {
+		indexChanger.indexChange(attribute_name_index);
+		indexChanger.indexChange(components);
+	}
+
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		attribute_name_index.writeData(out);
+		out.writeInt(attribute_length);
+		out.writeShort(components_count);
+		for(int i = 0, size = components.length; i < size; i++) {
+			components[i].writeData(out);
+		}
+	}
+
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		if(resolver.getParseOptions().readAttributeName) {
+			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
+		}
+		attribute_length = in.readInt();
+		components_count = in.readShort();
+		components = new RecordComponentInfo[components_count & 0xFFFF];
+		for(int i = 0, size = components.length; i < size; i++) {
+			components[i] = new RecordComponentInfo(resolver);
+			components[i].readData(in);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append(ATTRIBUTE_NAME);
+		str.append("(components[");
+		for(int i = 0, size = components.length; i < size; i++) {
+			if(i > 0) { str.append(", "); }
+			str.append(components[i]);
+		}
+		str.append("])");
+		return str.toString();
+	}
+
+
+
+	/** A member of {@link Record}.
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static class RecordComponentInfo implements ReadWritable, CpIndexChangeable {
+		ClassFile resolver;
+		/** The value of the name_index item must be a valid index into the constant_pool table. The constant_pool entry at that index
+		 * must be a CONSTANT_Utf8_info structure representing a valid unqualified name denoting the record component.
+		 */
+		CpIndex<CONSTANT_Utf8> name_index;
+		/** The value of the descriptor_index item must be a valid index into the constant_pool table. The constant_pool entry at that index
+		 * must be a CONSTANT_Utf8_info structure representing a field descriptor which encodes the type of the record component.
+		 */
+		CpIndex<CONSTANT_Utf8> descriptor_index;
+		/** The value of the attributes_count item indicates the number of additional attributes of this record component. */
+		short attributes_count;
+		/** Each value of the attributes table must be an attribute structure, such as Signature or annotation attributes, size [attributes_count], 0 indexed */
+		Attribute_Type[] attributes;
+
+
+		public RecordComponentInfo(ClassFile resolver) {
+			this.resolver = resolver;
+		}
+
+
+		public CpIndex<CONSTANT_Utf8> getName() {
+			return name_index;
+		}
+
+
+		public CpIndex<CONSTANT_Utf8> getDescriptor() {
+			return descriptor_index;
+		}
+
+
+		public void setDescriptor(CpIndex<CONSTANT_Utf8> index) {
+			this.descriptor_index = index;
+		}
+
+
+		public Attribute_Type getAttribute(int index) {
+			return ClassFileAttributes.getAttribute(attributes, index);
+		}
+
+
+		public int getAttributeCount() {
+			return attributes_count & 0xFFFF;
+		}
+
+
+		@Override
+		public void changeCpIndex(CpIndexChanger indexChanger) {
+			indexChanger.indexChange(name_index);
+			indexChanger.indexChange(descriptor_index);
+			indexChanger.indexChange(attributes);
+		}
+
+
+		@Override
+		public void writeData(DataOutput out) throws IOException {
+			name_index.writeData(out);
+			descriptor_index.writeData(out);
+			out.writeShort(attributes_count);
+			for(int i = 0, size = attributes.length; i < size; i++) {
+				attributes[i].writeData(out);
+			}
+		}
+
+
+		@Override
+		public void readData(DataInput in) throws IOException {
+			name_index = resolver.getCheckCpIndex(in.readShort(), CONSTANT_Utf8.class);
+			descriptor_index = resolver.getCheckCpIndex(in.readShort(), CONSTANT_Utf8.class);
+			attributes_count = in.readShort();
+			attributes = new Attribute_Type[attributes_count & 0xFFFF];
+			for(int i = 0, size = attributes.length; i < size; i++) {
+				attributes[i] = ClassFileAttributes.loadAttributeObject(in, resolver, null);
+			}
+		}
+
+
+		@Override
+		public String toString() {
+			return "component(name=" + name_index.getCpObject() + ", descriptor=" + descriptor_index.getCpObject() + ", attributes=" + attributes_count + ")";
+		}
+
+	}
+
+}
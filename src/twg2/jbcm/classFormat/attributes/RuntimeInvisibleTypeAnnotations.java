@@ -3,19 +3,21 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A Java class file format Attribute of type <code>RuntimeInvisibleTypeAnnotations</code>
  * @author TeamworkGuy2
  * @since 2014-3-19
  */
-public class RuntimeInvisibleTypeAnnotations implements Attribute_Type {
+public class RuntimeInvisibleTypeAnnotations implements Attribute_Type, OffsetAttribute {
 	public static final String ATTRIBUTE_NAME = "RuntimeInvisibleTypeAnnotations";
 	ClassFile resolver;
 	/** The value of the attribute_name_index item must be a valid index into the constant_pool table.
@@ -55,6 +57,26 @@ public class RuntimeInvisibleTypeAnnotations implements Attribute_Type {
 	}
 
 
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		remapper.remapOffsets(annotations);
+	}
+
+
+	/** Renumber {@code catch_target} annotations after exception table entries are removed from the parent {@link Code} attribute,
+	 * annotations on removed entries are removed
+	 * @param oldToNewIndex the new index of each old exception table entry, -1 if the entry was removed
+	 */
+	void remapExceptionIndexes(int[] oldToNewIndex) {
+		int count = TypeAnnotation.remapExceptionIndexes(annotations, num_annotations, oldToNewIndex);
+		if(count < num_annotations) {
+			annotations = Arrays.copyOf(annotations, count);
+			num_annotations = (short)count;
+			attribute_length = 2 + TypeAnnotation.dataLength(annotations, count);
+		}
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(attribute_name_index);
@@ -75,7 +97,7 @@ public class RuntimeInvisibleTypeAnnotations implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -3,21 +3,22 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.ClassFileAttributes;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
-import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A Java class file format Attribute of type <code>StackMapTable</code>
  * @author TeamworkGuy2
  * @since 2013-10-6
  */
-public class StackMapTable implements Attribute_Type {
+public class StackMapTable implements Attribute_Type, OffsetAttribute {
 	public static final String ATTRIBUTE_NAME = "StackMapTable";
 	ClassFile resolver;
 	/** The value of the attribute_name_index item must be a valid index into the constant_pool table. The constant_pool
@@ -50,6 +51,24 @@ public class StackMapTable implements Attribute_Type {
 	}
 
 
+	/** Create a stack map table from frames
+	 * @param resolver the class file containing the table
+	 * @param attributeNameIndex the constant pool index of the {@code "StackMapTable"} string
+	 * @param entries the frames, in code offset order
+	 */
+	public StackMapTable(ClassFile resolver, CpIndex<CONSTANT_Utf8> attributeNameIndex, StackMapFrame[] entries) {
+		this.attribute_name_index = attributeNameIndex;
+		this.resolver = resolver;
+		this.number_of_entries = (short)entries.length;
+		this.entries = entries;
+		int len = 2;
+		for(StackMapFrame frame : entries) {
+			len += frame.getLength();
+		}
+		this.attribute_length = len;
+	}
+
+
 	@Override
 	public String getAttributeName() {
 		return attribute_name_index.getCpObject().getString();
@@ -62,6 +81,63 @@ public class StackMapTable implements Attribute_Type {
 	}
 
 
+	/**
+	 * @return the number of frames in this table
+	 */
+	public int getEntryCount() {
+		return number_of_entries & 0xFFFF;
+	}
+
+
+	/**
+	 * @param index a frame index
+	 * @return the frame
+	 */
+	public StackMapFrame getEntry(int index) {
+		return entries[index];
+	}
+
+
+	/** Remap each frame's code offset, frame offset deltas are recalculated from the new offsets and
+	 * {@code same_frame} and {@code same_locals_1_stack_item_frame} frames whose delta no longer fits in
+	 * their frame type are changed to their extended frame types.<br/>
+	 * If instructions were removed, frames of removed instructions which map to the same offset as a following frame,
+	 * or to the end of the code, are dropped. Since frames are encoded relative to the previous frame, the table
+	 * must then be recomputed, see {@link twg2.jbcm.modify.StackMapFrameComputer}.
+	 */
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		int[] newOffsets = new int[number_of_entries];
+		int oldOffset = -1;
+		for(int i = 0; i < number_of_entries; i++) {
+			oldOffset += entries[i].getOffsetDelta() + 1;
+			newOffsets[i] = remapper.getNewOffset(oldOffset);
+		}
+
+		int newCodeLength = remapper.getNewCodeLength();
+		int count = 0;
+		int prevNewOffset = -1;
+		int len = 2;
+		for(int i = 0; i < number_of_entries; i++) {
+			int newOffset = newOffsets[i];
+			if(newOffset >= newCodeLength || (i + 1 < number_of_entries && newOffsets[i + 1] == newOffset)) {
+				continue;
+			}
+			StackMapFrame frame = entries[i];
+			frame.setOffsetDelta(newOffset - prevNewOffset - 1);
+			frame.remapOffsets(remapper);
+			prevNewOffset = newOffset;
+			len += frame.getLength();
+			entries[count++] = frame;
+		}
+		if(count < number_of_entries) {
+			entries = Arrays.copyOf(entries, count);
+			number_of_entries = (short)count;
+		}
+		attribute_length = len;
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(attribute_name_index);
@@ -82,7 +158,7 @@ public class StackMapTable implements Attribute_Type {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(Settings.readAttributeName) {
+		if(resolver.getParseOptions().readAttributeName) {
 			attribute_name_index = ClassFileAttributes.readAttributeNameIndex(in, resolver, ATTRIBUTE_NAME);
 		}
 		attribute_length = in.readInt();
@@ -112,7 +188,7 @@ public class StackMapTable implements Attribute_Type {
 	 * @author TeamworkGuy2
 	 * @since 2013-10-6
 	 */
-	public static class StackMapFrame implements ReadWritable, CpIndexChangeable {
+	public static class StackMapFrame implements ReadWritable, OffsetAttribute {
 		ClassFile resolver;
 		/**
 		 * 0-63 = same_frame
@@ -154,8 +230,105 @@ public class StackMapTable implements Attribute_Type {
 		}
 
 
+		/** Create a frame
+		 * @param resolver the class file containing the frame
+		 * @param frameType the frame type, see {@link #frame_type}
+		 * @param offsetDelta the offset delta, must match the frame type for {@code same_frame} and {@code same_locals_1_stack_item_frame} frames
+		 * @param locals the new locals of an {@code append_frame} or all the locals of a {@code full_frame}, null for other frame types
+		 * @param stack the stack item of a {@code same_locals_1_stack_item} frame or all the stack items of a {@code full_frame}, null for other frame types
+		 */
+		public StackMapFrame(ClassFile resolver, int frameType, int offsetDelta, VerificationTypeInfo[] locals, VerificationTypeInfo[] stack) {
+			this.resolver = resolver;
+			this.frame_type = frameType;
+			this.offset_delta = (short)offsetDelta;
+			this.locals = locals;
+			this.number_of_locals = (short)(locals != null ? locals.length : 0);
+			this.stack = stack;
+			this.number_of_stack_items = (short)(stack != null ? stack.length : 0);
+		}
+
+
+		/**
+		 * @see #frame_type
+		 */
+		public int getFrameType() {
+			return frame_type;
+		}
+
+
+		/**
+		 * @return the offset delta, the frame's code offset is the previous frame's offset plus this value plus 1,
+		 * or this value for the first frame
+		 */
+		public int getOffsetDelta() {
+			return offset_delta & 0xFFFF;
+		}
+
+
+		/**
+		 * @return the locals added by an {@code append_frame} or all the locals of a {@code full_frame}, null for other frame types
+		 */
+		public VerificationTypeInfo[] getLocals() {
+			return locals;
+		}
+
+
+		/**
+		 * @return the stack items of a {@code same_locals_1_stack_item} frame or {@code full_frame}, null for other frame types
+		 */
+		public VerificationTypeInfo[] getStack() {
+			return stack;
+		}
+
+
+		/**
+		 * @return the number of bytes this frame is written as
+		 */
+		public int getLength() {
+			int len = frame_type < 128 ? 1 : 3;
+			if(frame_type == 255) {
+				len += 4;
+			}
+			if(frame_type >= 252 || (frame_type >= 64 && frame_type < 128) || frame_type == 247) {
+				for(int i = 0, size = locals != null ? locals.length : 0; i < size; i++) {
+					len += locals[i].getLength();
+				}
+				for(int i = 0, size = stack != null ? stack.length : 0; i < size; i++) {
+					len += stack[i].getLength();
+				}
+			}
+			return len;
+		}
+
+
+		/** Change this frame's offset delta, changing the frame type to the extended frame type if the delta
+		 * does not fit in a {@code same_frame} or {@code same_locals_1_stack_item_frame} frame type
+		 * @param offsetDelta the new offset delta
+		 */
+		void setOffsetDelta(int offsetDelta) {
+			if(frame_type < 64) {
+				frame_type = offsetDelta < 64 ? offsetDelta : 251;
+			}
+			else if(frame_type < 128) {
+				frame_type = offsetDelta < 64 ? 64 + offsetDelta : 247;
+			}
+			this.offset_delta = (short)offsetDelta;
+		}
+
+
+		/** Remap the {@code new} instruction offsets of this frame's {@link VerificationTypeInfo#UNINITIALIZED} types,
+		 * this frame's offset delta is updated by {@link StackMapTable#remapOffsets(CodeOffsetRemapper)}
+		 */
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			remapper.remapOffsets(locals);
+			remapper.remapOffsets(stack);
+		}
+
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
+			indexChanger.indexChange(locals);
 			indexChanger.indexChange(stack);
 		}
 
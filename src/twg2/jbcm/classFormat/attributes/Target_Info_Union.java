@@ -5,7 +5,9 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import twg2.jbcm.classFormat.ReadWritable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A container class for all {@link Target_Info} classes
  * which are a member type in {@link TypeAnnotation}.<br/>
@@ -298,10 +300,15 @@ public final class Target_Info_Union {
 	 * @author TeamworkGuy2
 	 * @since 2014-3-19
 	 */
-	public static class Localvar_Target implements ReadWritable, Target_Info {
+	public static class Localvar_Target implements ReadWritable, Target_Info, OffsetAttribute {
 		short table_length;
 		Localvar_Target_Table_Entry[] table;
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			remapper.remapOffsets(table);
+		}
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 			indexChanger.indexChange(table);
@@ -350,7 +357,7 @@ public final class Target_Info_Union {
 	 * @author TeamworkGuy2
 	 * @since 2014-3-19
 	 */
-	public static class Localvar_Target_Table_Entry implements ReadWritable, Code_Attribute {
+	public static class Localvar_Target_Table_Entry implements ReadWritable, OffsetAttribute {
 		/** The given local variable has a value at indices into the code array in the
 		 * interval [start_pc, start_pc + length), that is, between start_pc inclusive
 		 * and start_pc + length exclusive.
@@ -363,6 +370,15 @@ public final class Target_Info_Union {
 		short index;
 
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			int start = start_pc & 0xFFFF;
+			int newStart = remapper.getNewOffset(start);
+			length = (short)(remapper.getNewEndOffset(start + (length & 0xFFFF)) - newStart);
+			start_pc = (short)newStart;
+		}
+
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 		}
@@ -445,9 +461,14 @@ public final class Target_Info_Union {
 	 * @author TeamworkGuy2
 	 * @since 2014-3-19
 	 */
-	public static class Offset_Target implements ReadWritable, Target_Info {
+	public static class Offset_Target implements ReadWritable, Target_Info, OffsetAttribute {
 		short offset;
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			offset = (short)remapper.getNewOffset(offset & 0xFFFF);
+		}
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 		}
@@ -492,10 +513,15 @@ public final class Target_Info_Union {
 	 * @author TeamworkGuy2
 	 * @since 2014-3-19
 	 */
-	public static class Type_Argument_Target implements ReadWritable, Target_Info {
+	public static class Type_Argument_Target implements ReadWritable, Target_Info, OffsetAttribute {
 		short offset;
 		byte type_argument_index;
 
+		@Override
+		public void remapOffsets(CodeOffsetRemapper remapper) {
+			offset = (short)remapper.getNewOffset(offset & 0xFFFF);
+		}
+
 		@Override
 		public void changeCpIndex(CpIndexChanger indexChanger) {
 		}
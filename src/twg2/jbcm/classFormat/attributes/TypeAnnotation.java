@@ -3,19 +3,24 @@ package twg2.jbcm.classFormat.attributes;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import twg2.jbcm.DataCountingOutput;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChangeable;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /**
  * @author TeamworkGuy2
  * @since 2014-3-19
  */
-public class TypeAnnotation implements ReadWritable, CpIndexChangeable {
+public class TypeAnnotation implements ReadWritable, OffsetAttribute {
 	ClassFile resolver;
 	/** The value of the target_type item denotes the kind of target on which the annotation appears.
 	 * The various kinds of target correspond to the type contexts of the Java programming language
@@ -98,6 +103,67 @@ public class TypeAnnotation implements ReadWritable, CpIndexChangeable {
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getTypeIndex() {
+		return type_index;
+	}
+
+
+	public void setTypeIndex(CpIndex<CONSTANT_Utf8> index) {
+		this.type_index = index;
+	}
+
+
+	/** Remap the code offsets of this annotation's {@link #target_info}, only targets in a {@link Code} attribute have code offsets
+	 */
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		if(target_info instanceof OffsetAttribute) {
+			((OffsetAttribute)target_info).remapOffsets(remapper);
+		}
+	}
+
+
+	/** Renumber the {@code exception_table_index} of {@code catch_target} annotations after exception table entries are removed,
+	 * annotations which target removed entries are removed and the remaining annotations are moved to the front of {@code annotations}
+	 * @param annotations the annotations, modified in place
+	 * @param count the number of annotations
+	 * @param oldToNewIndex the new index of each old exception table entry, -1 if the entry was removed
+	 * @return the number of remaining annotations
+	 */
+	static int remapExceptionIndexes(TypeAnnotation[] annotations, int count, int[] oldToNewIndex) {
+		int kept = 0;
+		for(int i = 0; i < count; i++) {
+			TypeAnnotation annotation = annotations[i];
+			if(annotation.target_info instanceof Target_Info_Union.Catch_Target) {
+				var target = (Target_Info_Union.Catch_Target)annotation.target_info;
+				int newIndex = oldToNewIndex[target.exception_table_index & 0xFFFF];
+				if(newIndex < 0) {
+					continue;
+				}
+				target.exception_table_index = (short)newIndex;
+			}
+			annotations[kept++] = annotation;
+		}
+		return kept;
+	}
+
+
+	/**
+	 * @return the number of bytes written by {@link #writeData(DataOutput)} for the annotations
+	 */
+	static int dataLength(TypeAnnotation[] annotations, int count) {
+		var counter = new DataCountingOutput();
+		try {
+			for(int i = 0; i < count; i++) {
+				annotations[i].writeData(counter);
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return (int)counter.bytesWritten();
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		indexChanger.indexChange(target_info);
@@ -8,14 +8,25 @@ import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.ReadWritable;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
-import twg2.jbcm.modify.CpIndexChangeable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
 import twg2.jbcm.modify.CpIndexChanger;
+import twg2.jbcm.modify.OffsetAttribute;
 
 /** A Java class file format Attribute of type <code>VerificationTypeInfo</code> for a {@link StackMapTable.StackMapFrame}
  * @author TeamworkGuy2
  * @since 2013-10-6
  */
-public class VerificationTypeInfo implements ReadWritable, CpIndexChangeable {
+public class VerificationTypeInfo implements ReadWritable, OffsetAttribute {
+	public static final byte TOP = 0;
+	public static final byte INTEGER = 1;
+	public static final byte FLOAT = 2;
+	public static final byte DOUBLE = 3;
+	public static final byte LONG = 4;
+	public static final byte NULL = 5;
+	public static final byte UNINITIALIZED_THIS = 6;
+	public static final byte OBJECT = 7;
+	public static final byte UNINITIALIZED = 8;
+
 	ClassFile resolver;
 	/** The verification type info:
 	 * 0 = TOP
@@ -59,7 +70,7 @@ public class VerificationTypeInfo implements ReadWritable, CpIndexChangeable {
 		this.resolver = resolver;
 		this.tag = tag;
 		if(tag == 7) {
-			cpool_index = resolver.getCheckCpIndex(value, CONSTANT_Class.class);
+			cpool_index = resolver.getCheckCpIndex(value & 0xFFFF, CONSTANT_Class.class);
 		}
 		if(tag == 8) {
 			offset = value;
@@ -67,6 +78,46 @@ public class VerificationTypeInfo implements ReadWritable, CpIndexChangeable {
 	}
 
 
+	/**
+	 * @return the verification type tag, one of {@link #TOP} through {@link #UNINITIALIZED}
+	 */
+	public int getTag() {
+		return tag;
+	}
+
+
+	/**
+	 * @return the class of an {@link #OBJECT} verification type, null for other types
+	 */
+	public CpIndex<CONSTANT_Class> getCpoolIndex() {
+		return tag == OBJECT ? cpool_index : null;
+	}
+
+
+	/**
+	 * @return the code offset of the {@code new} instruction of an {@link #UNINITIALIZED} verification type, 0 for other types
+	 */
+	public int getOffset() {
+		return tag == UNINITIALIZED ? offset & 0xFFFF : 0;
+	}
+
+
+	/**
+	 * @return the number of bytes this verification type is written as
+	 */
+	public int getLength() {
+		return (tag == OBJECT || tag == UNINITIALIZED) ? 3 : 1;
+	}
+
+
+	@Override
+	public void remapOffsets(CodeOffsetRemapper remapper) {
+		if(tag == UNINITIALIZED) {
+			offset = (short)remapper.getNewOffset(offset & 0xFFFF);
+		}
+	}
+
+
 	@Override
 	public void changeCpIndex(CpIndexChanger indexChanger) {
 		if(tag == 7) {
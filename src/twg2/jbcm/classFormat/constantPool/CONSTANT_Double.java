@@ -5,7 +5,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>Double</code> info type.<br>
@@ -52,6 +51,27 @@ public class CONSTANT_Double implements CONSTANT_CP_Info {
 	}
 
 
+	public double getValue() {
+		return Double.longBitsToDouble(getRawBits());
+	}
+
+
+	/**
+	 * @return the raw IEEE 754 bits of this constant, distinguishes different NaN values and {@code 0.0} from {@code -0.0}
+	 */
+	public long getRawBits() {
+		return (long)high_bytes << 32 | (low_bytes & 0xFFFFFFFFL);
+	}
+
+
+	public void setValue(double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		this.high_bytes = (int)(bits >>> 32);
+		this.low_bytes = (int)bits;
+		resolver.constantPoolEntryChanged(this);
+	}
+
+
 	@Override
 	public void writeData(DataOutput out) throws IOException {
 		out.writeByte(TAG);
@@ -62,7 +82,7 @@ public class CONSTANT_Double implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Double tag: " + tagV); }
 		}
@@ -73,7 +93,7 @@ public class CONSTANT_Double implements CONSTANT_CP_Info {
 
 	@Override
 	public String toShortString() {
-		return Double.toString(Double.longBitsToDouble((long)high_bytes << 32 + low_bytes));
+		return Double.toString(getValue());
 	}
 
 
@@ -5,7 +5,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>Float</code> info type.<br>
@@ -50,6 +49,25 @@ public class CONSTANT_Float implements CONSTANT_CP_Info {
 	}
 
 
+	public float getValue() {
+		return Float.intBitsToFloat(bytes);
+	}
+
+
+	/**
+	 * @return the raw IEEE 754 bits of this constant, distinguishes different NaN values and {@code 0.0f} from {@code -0.0f}
+	 */
+	public int getRawBits() {
+		return bytes;
+	}
+
+
+	public void setValue(float value) {
+		this.bytes = Float.floatToRawIntBits(value);
+		resolver.constantPoolEntryChanged(this);
+	}
+
+
 	@Override
 	public void writeData(DataOutput out) throws IOException {
 		out.writeByte(TAG);
@@ -59,7 +77,7 @@ public class CONSTANT_Float implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Float tag: " + tagV); }
 		}
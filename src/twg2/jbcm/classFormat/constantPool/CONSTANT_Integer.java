@@ -5,7 +5,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>Integer</code> info type.<br>
@@ -39,6 +38,17 @@ public class CONSTANT_Integer implements CONSTANT_CP_Info {
 	}
 
 
+	public int getValue() {
+		return bytes;
+	}
+
+
+	public void setValue(int value) {
+		this.bytes = value;
+		resolver.constantPoolEntryChanged(this);
+	}
+
+
 	@Override
 	public void writeData(DataOutput out) throws IOException {
 		out.writeByte(TAG);
@@ -48,7 +58,7 @@ public class CONSTANT_Integer implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Integer tag: " + tagV); }
 		}
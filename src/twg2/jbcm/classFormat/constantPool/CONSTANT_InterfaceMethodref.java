@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 import twg2.jbcm.modify.TypeUtility;
 
@@ -62,13 +61,25 @@ public class CONSTANT_InterfaceMethodref implements CONSTANT_CP_Info {
 	}
 
 
+	public CpIndex<CONSTANT_Class> getClassIndex() {
+		return class_index;
+	}
+
+
+	public CpIndex<CONSTANT_NameAndType> getNameAndTypeIndex() {
+		return name_and_type_index;
+	}
+
+
 	public void setClassIndex(CpIndex<CONSTANT_Class> index) {
 		this.class_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
 	public void setNameAndTypeIndex(CpIndex<CONSTANT_NameAndType> index) {
 		this.name_and_type_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -82,7 +93,7 @@ public class CONSTANT_InterfaceMethodref implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_InterfaceMethodref tag: " + tagV); }
 		}
@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.attributes.BootstrapMethods;
 import twg2.jbcm.classFormat.attributes.BootstrapMethods.BootstrapMethod;
 import twg2.jbcm.modify.CpIndexChanger;
@@ -58,13 +57,25 @@ public class CONSTANT_InvokeDynamic implements CONSTANT_CP_Info {
 	}
 
 
+	public int getBootstrapMethodAttrIndex() {
+		return bootstrap_method_attr_index & 0xFFFF;
+	}
+
+
+	public CpIndex<CONSTANT_NameAndType> getNameAndTypeIndex() {
+		return name_and_type_index;
+	}
+
+
 	public void setBootstrapMethodAttrIndex(int index) {
 		resolver.getBootstrapMethods().getBootstrapMethod(index);
 		this.bootstrap_method_attr_index = (short)index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 	public void setNameAndTypeIndex(CpIndex<CONSTANT_NameAndType> index) {
 		this.name_and_type_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -78,7 +89,7 @@ public class CONSTANT_InvokeDynamic implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Fieldref tag: " + tagV); }
 		}
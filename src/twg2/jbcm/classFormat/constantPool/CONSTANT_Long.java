@@ -5,7 +5,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>Long</code> info type.<br>
@@ -41,6 +40,18 @@ public class CONSTANT_Long implements CONSTANT_CP_Info {
 	}
 
 
+	public long getValue() {
+		return (long)high_bytes << 32 | (low_bytes & 0xFFFFFFFFL);
+	}
+
+
+	public void setValue(long value) {
+		this.high_bytes = (int)(value >>> 32);
+		this.low_bytes = (int)value;
+		resolver.constantPoolEntryChanged(this);
+	}
+
+
 	@Override
 	public void writeData(DataOutput out) throws IOException {
 		out.writeByte(TAG);
@@ -51,7 +62,7 @@ public class CONSTANT_Long implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Long tag: " + tagV); }
 		}
@@ -62,7 +73,7 @@ public class CONSTANT_Long implements CONSTANT_CP_Info {
 
 	@Override
 	public String toShortString() {
-		return Long.toString((long)high_bytes << 32 + low_bytes);
+		return Long.toString(getValue());
 	}
 
 
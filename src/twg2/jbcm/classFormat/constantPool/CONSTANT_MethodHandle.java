@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>MethodHandle</code> info type.<br>
@@ -83,17 +82,30 @@ public class CONSTANT_MethodHandle implements CONSTANT_CP_Info {
 	}
 
 
+	public CpIndex<? extends CONSTANT_CP_Info> getReferenceIndex() {
+		return reference_index;
+	}
+
+
 	public void setReferenceKind(int referenceKind) {
-		if(referenceClass == null) {
+		Class<? extends CONSTANT_CP_Info> refClass = referenceKindType(referenceKind);
+		if(refClass == null) {
 			throw new IllegalArgumentException(referenceKind + " is not a valid MethodHandle reference kind");
 		}
 		this.reference_kind = (byte)referenceKind;
+		this.referenceClass = refClass;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
 	public void setReferenceIndex(CpIndex<? extends CONSTANT_CP_Info> index) {
-		resolver.checkCpIndex(index, referenceClass);
+		// invokestatic and invokespecial handles may also reference interface methods (class version 52.0 and later)
+		boolean interfaceMethod = (reference_kind == 6 || reference_kind == 7) && index.getCpObject() instanceof CONSTANT_InterfaceMethodref;
+		if(!interfaceMethod) {
+			resolver.checkCpIndex(index, referenceClass);
+		}
 		this.reference_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -107,7 +119,7 @@ public class CONSTANT_MethodHandle implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("illegal CONSTANT_MethodHandle tag: " + tagV); }
 		}
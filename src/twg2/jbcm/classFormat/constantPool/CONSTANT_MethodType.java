@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>MethodType reference</code> info type.<br>
@@ -47,8 +46,14 @@ public class CONSTANT_MethodType implements CONSTANT_CP_Info {
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getDescriptorIndex() {
+		return descriptor_index;
+	}
+
+
 	public void setDescriptorIndex(CpIndex<CONSTANT_Utf8> index) {
 		this.descriptor_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -61,7 +66,7 @@ public class CONSTANT_MethodType implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_MethodType tag: " + tagV); }
 		}
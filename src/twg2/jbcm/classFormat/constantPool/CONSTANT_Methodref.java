@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 import twg2.jbcm.modify.TypeUtility;
 
@@ -65,13 +64,25 @@ public class CONSTANT_Methodref implements CONSTANT_CP_Info {
 	}
 
 
+	public CpIndex<CONSTANT_Class> getClassIndex() {
+		return class_index;
+	}
+
+
+	public CpIndex<CONSTANT_NameAndType> getNameAndTypeIndex() {
+		return name_and_type_index;
+	}
+
+
 	public void setClassIndex(CpIndex<CONSTANT_Class> index) {
 		this.class_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
 	public void setNameAndTypeIndex(CpIndex<CONSTANT_NameAndType> index) {
 		this.name_and_type_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -85,7 +96,7 @@ public class CONSTANT_Methodref implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Methodref tag: " + tagV); }
 		}
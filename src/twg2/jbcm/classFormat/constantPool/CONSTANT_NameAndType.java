@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import twg2.jbcm.classFormat.ClassFile;
 import twg2.jbcm.classFormat.CpIndex;
-import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.modify.CpIndexChanger;
 import twg2.jbcm.modify.TypeUtility;
 
@@ -60,13 +59,25 @@ public class CONSTANT_NameAndType implements CONSTANT_CP_Info {
 	}
 
 
+	public CpIndex<CONSTANT_Utf8> getNameIndex() {
+		return name_index;
+	}
+
+
+	public CpIndex<CONSTANT_Utf8> getDescriptorIndex() {
+		return descriptor_index;
+	}
+
+
 	public void setNameIndex(CpIndex<CONSTANT_Utf8> index) {
 		this.name_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
 	public void setDescriptorIndex(CpIndex<CONSTANT_Utf8> index) {
 		this.descriptor_index = index;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -80,7 +91,7 @@ public class CONSTANT_NameAndType implements CONSTANT_CP_Info {
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_NameAndType tag: " + tagV); }
 		}
@@ -4,8 +4,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import twg2.jbcm.ModifiedUtf8;
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.Settings;
+import twg2.jbcm.classFormat.Utf8Pool;
 import twg2.jbcm.modify.CpIndexChanger;
 
 /** Java class file format constant pool <code>UTF-8 string</code> info type.<br>
@@ -55,57 +56,39 @@ public class CONSTANT_Utf8 implements CONSTANT_CP_Info {
 
 
 	/**
-	 * @return this utf-8 string literal
+	 * @return this utf-8 string literal, decoded from this entry's bytes the first time it is requested
 	 */
 	public String getString() {
-		return str;
+		String s = str;
+		if(s == null && bytes != null) {
+			s = ModifiedUtf8.decode(bytes, 0, bytes.length);
+			str = s;
+		}
+		return s;
 	}
 
 
-	public void setString(String str) {
-		char[] chars = str.toCharArray();
-		int size = chars.length;
-		int byteCount = 0;
-		// Count bytes in string
-		for(int i = 0; i < size; i++) {
-			if(chars[i] < 0x0080 && chars[i] > 0x0000) {
-				byteCount++;
-			}
-			else if(chars[i] < 0x0800 && chars[i] > 0x007F || chars[i] == 0x0000) {
-				byteCount+=2;
-			}
-			else if(chars[i] > 0x07FF) {
-				byteCount+=3;
-			}
-			else {
-				throw new IllegalStateException("Unrecognized char while traversing string: " + chars[i]);
-			}
+	/** Compare this entry to a string, without decoding this entry's bytes if {@link #getString()} has not been called
+	 * @param str the string to compare to
+	 * @return true if this entry's string equals {@code str}
+	 */
+	public boolean equalsString(String str) {
+		if(this.str != null) {
+			return this.str.equals(str);
 		}
-		byte[] bytes = new byte[byteCount];
-		// Convert string to bytes
-		for(int i = 0, a = 0; a < size; a++) {
-			if(chars[i] < 0x0080 && chars[i] > 0x0000) {
-				bytes[i] = (byte)(chars[a] & 0x7F);
-				i++;
-			}
-			else if(chars[i] < 0x0800 && chars[i] > 0x007F || chars[i] == 0x0000) {
-				bytes[i+0] = (byte)(0xC0 | (chars[a] >>> 6) & 0x1F);
-				bytes[i+1] = (byte)(0x80 | chars[a] & 0x3F);
-				i+=2;
-			}
-			else if(chars[i] > 0x07FF) {
-				bytes[i+0] = (byte)(0xE0 | (chars[a] >>> 12) & 0x0F);
-				bytes[i+1] = (byte)(0x80 | (chars[a] >>> 6) & 0x3F);
-				bytes[i+2] = (byte)(0x80 | chars[a] & 0x3F);
-				i+=3;
-			}
-			else {
-				throw new IllegalStateException("Unrecognized char while converting string: " + chars[a]);
-			}
+		return bytes != null && ModifiedUtf8.equals(bytes, 0, bytes.length, str);
+	}
+
+
+	public void setString(String str) {
+		byte[] bytes = ModifiedUtf8.encode(str);
+		if(bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("CONSTANT_Utf8 strings are limited to 65535 bytes, string encodes to " + bytes.length + " bytes");
 		}
 		this.bytes = bytes;
 		this.str = str;
 		this.length = (short)bytes.length;
+		resolver.constantPoolEntryChanged(this);
 	}
 
 
@@ -119,39 +102,29 @@ public class CONSTANT_Utf8 implements CONSTANT_CP_Info {
 	public void writeData(DataOutput out) throws IOException {
 		out.writeByte(TAG);
 		out.writeShort(length);
-		out.write(bytes, 0, length);
+		out.write(bytes, 0, bytes.length);
 	}
 
 
 	@Override
 	public void readData(DataInput in) throws IOException {
-		if(!Settings.cpTagRead) {
+		if(!resolver.getParseOptions().cpTagRead) {
 			int tagV = in.readByte();
 			if(tagV != TAG) { throw new IllegalStateException("Illegal CONSTANT_Utf8 tag: " + tagV); }
 		}
-		length = in.readShort();
-		bytes = new byte[length];
-		in.readFully(bytes, 0, length);
-		// Parse the byte array into a string (assume average character length of 2 bytes)
-		StringBuilder strBuilder = new StringBuilder(length >>> 1);
-		for(int i = 0; i < length; ) {
-			if((bytes[i] & 0x80) == 0x00) {
-				strBuilder.append((char)bytes[i]);
-				i++;
-			}
-			else if((bytes[i] & 0xE0) == 0xC0) {
-				strBuilder.append((char)((bytes[i] & 0x1f) << 6) + (bytes[i+1] & 0x3f));
-				i+=2;
-			}
-			else if((bytes[i] & 0xF0) == 0xE0) {
-				strBuilder.append((char)((bytes[i] & 0xf) << 12) + ((bytes[i+1] & 0x3f) << 6) + (bytes[i+2] & 0x3f));
-				i+=3;
-			}
-			else {
-				throw new IllegalStateException("Unrecognized CONSTANT_Utf8 byte while parsing string: " + bytes[i]);
-			}
+		int len = in.readUnsignedShort();
+		length = (short)len;
+		Utf8Pool pool = resolver.getParseOptions().utf8Pool;
+		if(pool != null) {
+			Utf8Pool.Entry entry = pool.read(in, len);
+			bytes = entry.getBytes();
+			str = entry.getString();
+			return;
 		}
-		str = strBuilder.toString();
+		bytes = new byte[len];
+		in.readFully(bytes, 0, len);
+		// decoded on demand by getString()
+		str = null;
 	}
 
 
@@ -160,14 +133,14 @@ public class CONSTANT_Utf8 implements CONSTANT_CP_Info {
 	 */
 	@Override
 	public String toShortString() {
-		return str;
+		return getString();
 	}
 
 
 	@Override
 	public String toString() {
 		//return "CONSTANT_Utf8(1, " + length + ", " + str + ")";
-		return "\"" + str + "\"";
+		return "\"" + getString() + "\"";
 	}
 
 }
@@ -0,0 +1,429 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+/** A worklist dataflow solver over the basic blocks of a {@link ControlFlowGraph} with {@code long[]} bit set values.
+ * Each block has an entry ('in') and exit ('out') set of {@link #getBitCount()} bits, stored in two flat arrays of
+ * {@link #getWordCount()} words per block so that memory use is proportional to {@code blocks * bits / 64}.<br/>
+ * Forward problems compute {@code out = transfer(in)} with {@code in} being the meet of the predecessors' {@code out} values,
+ * backward problems compute {@code in = transfer(out)} with {@code out} being the meet of the successors' {@code in} values.
+ * Exception edges carry {@link Transfer#applyExceptional(int, long[], int, long[])} values instead since an exception can occur
+ * part way through a block, see {@link GenKill}.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class BitSetDataflow {
+
+	/**
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public enum Direction {
+		FORWARD,
+		BACKWARD;
+	}
+
+
+	/**
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public enum Meet {
+		/** 'may' problems, a bit is set if it is set along any path */
+		UNION,
+		/** 'must' problems, a bit is set if it is set along every path */
+		INTERSECTION;
+	}
+
+
+	/** A block transfer function
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public interface Transfer {
+
+		/** Compute a block's output from its input, 'in' to 'out' for forward problems and 'out' to 'in' for backward problems
+		 * @param block the block number
+		 * @param src the array containing the block's input value
+		 * @param srcOffset the index of the input value's first word in {@code src}
+		 * @param dst the output value, {@link BitSetDataflow#getWordCount()} words long, the previous output value on entry
+		 */
+		public void apply(int block, long[] src, int srcOffset, long[] dst);
+
+		/** Compute the value which flows along an exception edge between a block and an exception handler.
+		 * For forward problems {@code src} is the block's 'in' value and {@code dst} is met into the handler's 'in' value.
+		 * For backward problems {@code src} is the handler's 'in' value and {@code dst} is met into the block's 'in' value.
+		 * The default implementation copies {@code src}.
+		 * @param block the block number of the block covered by the exception handler
+		 * @param src the array containing the input value
+		 * @param srcOffset the index of the input value's first word in {@code src}
+		 * @param dst the output value, {@link BitSetDataflow#getWordCount()} words long
+		 */
+		public default void applyExceptional(int block, long[] src, int srcOffset, long[] dst) {
+			System.arraycopy(src, srcOffset, dst, 0, dst.length);
+		}
+
+	}
+
+
+	/** A gen/kill transfer function, {@code output = gen | (input & ~kill)}, with gen and kill sets stored in flat arrays.
+	 * Exception edges carry {@code input | exceptionGen}, for forward problems {@code exceptionGen} should contain
+	 * every bit generated anywhere in the block (including bits killed later in the block), for backward problems
+	 * it is usually empty.
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public static final class GenKill implements Transfer {
+		private final int words;
+		private final long[] gen;
+		private final long[] kill;
+		private final long[] exceptionGen;
+
+
+		/**
+		 * @param blockCount the number of blocks
+		 * @param bitCount the number of bits per set
+		 */
+		public GenKill(int blockCount, int bitCount) {
+			this.words = wordCount(bitCount);
+			this.gen = new long[blockCount * words];
+			this.kill = new long[blockCount * words];
+			this.exceptionGen = new long[blockCount * words];
+		}
+
+
+		public void gen(int block, int bit) {
+			gen[block * words + (bit >>> 6)] |= 1L << bit;
+		}
+
+
+		/** Add a bit to the block's kill set and remove it from the block's gen set, for building gen/kill sets
+		 * in instruction order for forward problems and in reverse instruction order for backward problems
+		 */
+		public void kill(int block, int bit) {
+			int i = block * words + (bit >>> 6);
+			kill[i] |= 1L << bit;
+			gen[i] &= ~(1L << bit);
+		}
+
+
+		public void exceptionGen(int block, int bit) {
+			exceptionGen[block * words + (bit >>> 6)] |= 1L << bit;
+		}
+
+
+		public boolean isGen(int block, int bit) {
+			return (gen[block * words + (bit >>> 6)] & (1L << bit)) != 0;
+		}
+
+
+		public boolean isKill(int block, int bit) {
+			return (kill[block * words + (bit >>> 6)] & (1L << bit)) != 0;
+		}
+
+
+		@Override
+		public void apply(int block, long[] src, int srcOffset, long[] dst) {
+			for(int i = 0, off = block * words; i < words; i++) {
+				dst[i] = gen[off + i] | (src[srcOffset + i] & ~kill[off + i]);
+			}
+		}
+
+
+		@Override
+		public void applyExceptional(int block, long[] src, int srcOffset, long[] dst) {
+			for(int i = 0, off = block * words; i < words; i++) {
+				dst[i] = src[srcOffset + i] | exceptionGen[off + i];
+			}
+		}
+	}
+
+
+	private final ControlFlowGraph cfg;
+	private final int bitCount;
+	private final int words;
+	private final long[] ins;
+	private final long[] outs;
+	private final int iterations;
+
+
+	private BitSetDataflow(ControlFlowGraph cfg, int bitCount, long[] ins, long[] outs, int iterations) {
+		this.cfg = cfg;
+		this.bitCount = bitCount;
+		this.words = wordCount(bitCount);
+		this.ins = ins;
+		this.outs = outs;
+		this.iterations = iterations;
+	}
+
+
+	/** Solve a dataflow problem to a fixed point
+	 * @param cfg the control flow graph
+	 * @param direction the direction values flow
+	 * @param meet how values from multiple predecessors (forward) or successors (backward) are combined
+	 * @param bitCount the number of bits per set
+	 * @param boundary the 'in' value of block 0 for forward problems or the 'out' value of blocks without successors for
+	 * backward problems, null for an empty set
+	 * @param transfer the block transfer function
+	 * @return the solution
+	 */
+	public static BitSetDataflow solve(ControlFlowGraph cfg, Direction direction, Meet meet, int bitCount, long[] boundary, Transfer transfer) {
+		boolean forward = direction == Direction.FORWARD;
+		boolean union = meet == Meet.UNION;
+		int blockCount = cfg.getBlockCount();
+		int words = wordCount(bitCount);
+		long[] ins = new long[blockCount * words];
+		long[] outs = new long[blockCount * words];
+		long[] boundaryWords = boundary != null ? Arrays.copyOf(boundary, words) : new long[words];
+
+		// must problems start from the full set so that the meet can only remove bits
+		if(!union) {
+			long lastMask = (bitCount & 63) == 0 ? -1L : (1L << bitCount) - 1;
+			for(int b = 0; b < blockCount; b++) {
+				for(int i = 0; i < words; i++) {
+					long full = i == words - 1 ? lastMask : -1L;
+					ins[b * words + i] = full;
+					outs[b * words + i] = full;
+				}
+			}
+		}
+
+		// visit blocks in reverse postorder for forward problems and postorder for backward problems, then any unreachable blocks
+		int[] rpoNumbers = new int[blockCount];
+		int[] rpo = Dominators.reversePostOrder(cfg, rpoNumbers);
+		int[] order = new int[blockCount];
+		for(int i = 0; i < rpo.length; i++) {
+			order[i] = forward ? rpo[i] : rpo[rpo.length - 1 - i];
+		}
+		for(int b = 0, n = rpo.length; b < blockCount; b++) {
+			if(rpoNumbers[b] < 0) {
+				order[n++] = b;
+			}
+		}
+
+		var worklist = new Worklist(order);
+
+		long[] meetValue = new long[words];
+		long[] edgeValue = new long[words];
+		long[] result = new long[words];
+		int iterations = 0;
+		while(!worklist.isEmpty()) {
+			int b = worklist.poll();
+			iterations++;
+
+			// meet the values flowing into the block
+			long[] dstSets = forward ? ins : outs;
+			long[] srcSets = forward ? outs : ins;
+			int count = forward ? cfg.getPredecessorCount(b) : cfg.getSuccessorCount(b);
+			boolean first = true;
+			boolean isBoundary = forward ? b == 0 : cfg.getSuccessorCount(b) == 0;
+			if(isBoundary) {
+				System.arraycopy(boundaryWords, 0, meetValue, 0, words);
+				first = false;
+			}
+			for(int i = 0; i < count; i++) {
+				int other;
+				ControlFlowGraph.EdgeKind kind;
+				if(forward) {
+					other = cfg.getPredecessor(b, i);
+					kind = cfg.getPredecessorKind(b, i);
+				}
+				else {
+					other = cfg.getSuccessor(b, i);
+					kind = cfg.getSuccessorKind(b, i);
+				}
+				long[] value;
+				int valueOffset;
+				if(kind == ControlFlowGraph.EdgeKind.EXCEPTION) {
+					if(!forward) {
+						continue; // met into this block's 'in' value after the transfer below
+					}
+					transfer.applyExceptional(other, ins, other * words, edgeValue);
+					value = edgeValue;
+					valueOffset = 0;
+				}
+				else {
+					value = srcSets;
+					valueOffset = other * words;
+				}
+				meet(meetValue, value, valueOffset, words, union, first);
+				first = false;
+			}
+			if(first) {
+				// no incoming values (i.e. a backward problem block whose only successors are exception handlers)
+				Arrays.fill(meetValue, 0L);
+			}
+			// forward exception edges carry the block's 'in' value, so handlers depend on it changing as well as 'out'
+			if(forward && !Arrays.equals(meetValue, 0, words, ins, b * words, b * words + words)) {
+				for(int i = 0, n = cfg.getSuccessorCount(b); i < n; i++) {
+					if(cfg.getSuccessorKind(b, i) == ControlFlowGraph.EdgeKind.EXCEPTION) {
+						worklist.add(cfg.getSuccessor(b, i));
+					}
+				}
+			}
+			System.arraycopy(meetValue, 0, dstSets, b * words, words);
+
+			// transfer
+			long[] resultSets = forward ? outs : ins;
+			System.arraycopy(resultSets, b * words, result, 0, words);
+			transfer.apply(b, dstSets, b * words, result);
+			if(!forward) {
+				for(int i = 0; i < count; i++) {
+					if(cfg.getSuccessorKind(b, i) == ControlFlowGraph.EdgeKind.EXCEPTION) {
+						transfer.applyExceptional(b, ins, cfg.getSuccessor(b, i) * words, edgeValue);
+						meet(result, edgeValue, 0, words, union, false);
+					}
+				}
+			}
+
+			if(!Arrays.equals(result, 0, words, resultSets, b * words, b * words + words)) {
+				System.arraycopy(result, 0, resultSets, b * words, words);
+				int next = forward ? cfg.getSuccessorCount(b) : cfg.getPredecessorCount(b);
+				for(int i = 0; i < next; i++) {
+					worklist.add(forward ? cfg.getSuccessor(b, i) : cfg.getPredecessor(b, i));
+				}
+			}
+		}
+
+		return new BitSetDataflow(cfg, bitCount, ins, outs, iterations);
+	}
+
+
+	/** A circular queue of block numbers, each block is queued at most once at a time
+	 */
+	private static final class Worklist {
+		private final int[] queue;
+		private final boolean[] queued;
+		private int head;
+		private int size;
+
+
+		Worklist(int[] initial) {
+			this.queue = initial.clone();
+			this.queued = new boolean[initial.length];
+			Arrays.fill(queued, true);
+			this.size = initial.length;
+		}
+
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+
+		int poll() {
+			int b = queue[head];
+			head = head + 1 == queue.length ? 0 : head + 1;
+			size--;
+			queued[b] = false;
+			return b;
+		}
+
+
+		void add(int b) {
+			if(!queued[b]) {
+				queued[b] = true;
+				int tail = head + size;
+				queue[tail >= queue.length ? tail - queue.length : tail] = b;
+				size++;
+			}
+		}
+	}
+
+
+	private static void meet(long[] dst, long[] src, int srcOffset, int words, boolean union, boolean first) {
+		if(first) {
+			System.arraycopy(src, srcOffset, dst, 0, words);
+		}
+		else if(union) {
+			for(int i = 0; i < words; i++) {
+				dst[i] |= src[srcOffset + i];
+			}
+		}
+		else {
+			for(int i = 0; i < words; i++) {
+				dst[i] &= src[srcOffset + i];
+			}
+		}
+	}
+
+
+	/**
+	 * @param bitCount a number of bits
+	 * @return the number of {@code long} words needed to store {@code bitCount} bits
+	 */
+	public static int wordCount(int bitCount) {
+		return (bitCount + 63) >>> 6;
+	}
+
+
+	/**
+	 * @return the control flow graph this solution was computed for
+	 */
+	public ControlFlowGraph getControlFlowGraph() {
+		return cfg;
+	}
+
+
+	/**
+	 * @return the number of bits per set
+	 */
+	public int getBitCount() {
+		return bitCount;
+	}
+
+
+	/**
+	 * @return the number of {@code long} words per set
+	 */
+	public int getWordCount() {
+		return words;
+	}
+
+
+	/**
+	 * @return the number of block transfers performed before reaching a fixed point
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param bit a bit number
+	 * @return true if the bit is set in the block's entry value
+	 */
+	public boolean isSetIn(int block, int bit) {
+		return (ins[block * words + (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param bit a bit number
+	 * @return true if the bit is set in the block's exit value
+	 */
+	public boolean isSetOut(int block, int bit) {
+		return (outs[block * words + (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return a copy of the block's entry value
+	 */
+	public long[] getIn(int block) {
+		return Arrays.copyOfRange(ins, block * words, block * words + words);
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return a copy of the block's exit value
+	 */
+	public long[] getOut(int block) {
+		return Arrays.copyOfRange(outs, block * words, block * words + words);
+	}
+
+}
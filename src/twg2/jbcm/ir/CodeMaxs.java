@@ -0,0 +1,175 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.modify.TypeUtility;
+
+/** Computes a method's {@code max_stack} and {@code max_locals} from its code.
+ * The operand stack depth at the start of each block is propagated in one worklist pass over the {@link ControlFlowGraph}
+ * using {@link OpcodeTables#stackDelta(int)} and the field and method descriptors of field and invoke instructions.
+ * Exception handlers start with a depth of 1, the instruction following a {@code jsr} starts with the depth before the {@code jsr}.
+ * Unreachable blocks are counted as if they start with the smallest depth that does not underflow.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class CodeMaxs {
+	private static final int JSR = Opcodes.JSR.opcode();
+	private static final int JSR_W = Opcodes.JSR_W.opcode();
+	private static final int MULTIANEWARRAY = Opcodes.MULTIANEWARRAY.opcode();
+
+	private CodeMaxs() { throw new AssertionError("cannot instantiate static class CodeMaxs"); }
+
+
+	/**
+	 * @param code the method code
+	 * @return the maximum operand stack depth of the code
+	 * @throws IllegalStateException if the operand stack underflows or two paths reach an instruction with different stack depths
+	 */
+	public static int computeMaxStack(Code code) {
+		return computeMaxStack(ControlFlowGraph.build(code), code.getResolver());
+	}
+
+
+	/**
+	 * @param cfg the method's control flow graph
+	 * @param classFile the class file containing the method, used to resolve field and method references
+	 * @return the maximum operand stack depth of the code
+	 * @throws IllegalStateException if the operand stack underflows or two paths reach an instruction with different stack depths
+	 */
+	public static int computeMaxStack(ControlFlowGraph cfg, ClassFile classFile) {
+		InstructionIndex index = cfg.getInstructionIndex();
+		int blockCount = cfg.getBlockCount();
+		int[] entryDepths = new int[blockCount];
+		Arrays.fill(entryDepths, -1);
+		int[] worklist = new int[blockCount];
+		int top = 0;
+		int max = 0;
+
+		if(blockCount > 0) {
+			entryDepths[0] = 0;
+			worklist[top++] = 0;
+		}
+		while(top > 0) {
+			int b = worklist[--top];
+			int depth = entryDepths[b];
+			max = Math.max(max, depth);
+			for(int n = cfg.getFirstInstruction(b), last = cfg.getLastInstruction(b); n <= last; n++) {
+				depth += stackDelta(index, n, classFile);
+				if(depth < 0) {
+					throw new IllegalStateException("code offset " + index.getStart(n) + " operand stack underflow");
+				}
+				max = Math.max(max, depth);
+			}
+
+			for(int i = 0, size = cfg.getSuccessorCount(b); i < size; i++) {
+				ControlFlowGraph.EdgeKind kind = cfg.getSuccessorKind(b, i);
+				// a jsr's return point is reached with the depth before the jsr, not the depth at the ret
+				if(kind != ControlFlowGraph.EdgeKind.RET) {
+					top = mergeDepth(cfg, entryDepths, worklist, top, cfg.getSuccessor(b, i), kind == ControlFlowGraph.EdgeKind.EXCEPTION ? 1 : depth);
+				}
+			}
+			int lastOpcode = index.getOpcodeValue(cfg.getLastInstruction(b));
+			if((lastOpcode == JSR || lastOpcode == JSR_W) && b + 1 < blockCount) {
+				top = mergeDepth(cfg, entryDepths, worklist, top, b + 1, depth - 1);
+			}
+		}
+
+		for(int b = 0; b < blockCount; b++) {
+			if(entryDepths[b] < 0) {
+				int depth = 0;
+				int min = 0;
+				int peak = 0;
+				for(int n = cfg.getFirstInstruction(b), last = cfg.getLastInstruction(b); n <= last; n++) {
+					depth += stackDelta(index, n, classFile);
+					min = Math.min(min, depth);
+					peak = Math.max(peak, depth);
+				}
+				max = Math.max(max, peak - min);
+			}
+		}
+		return max;
+	}
+
+
+	/**
+	 * @param index the decoded code
+	 * @param parameterSlots the local variable slots used by the method's parameters, including {@code this}
+	 * @return the number of local variables used by the code, at least {@code parameterSlots}
+	 */
+	public static int computeMaxLocals(InstructionIndex index, int parameterSlots) {
+		return Math.max(parameterSlots, LocalLiveness.maxLocalAccessed(index));
+	}
+
+
+	/**
+	 * @param index the decoded code
+	 * @param instrIdx an instruction number
+	 * @param classFile the class file used to resolve the instruction's constant pool operand
+	 * @return the change in the number of operand stack slots after executing the instruction
+	 */
+	public static int stackDelta(InstructionIndex index, int instrIdx, ClassFile classFile) {
+		int opcode = index.getOpcodeValue(instrIdx);
+		int delta = OpcodeTables.stackDelta(opcode);
+		if(delta != OpcodeTables.VARIABLE_STACK_DELTA) {
+			return delta;
+		}
+		if(opcode == MULTIANEWARRAY) {
+			return 1 - index.getOperand2(instrIdx);
+		}
+
+		CONSTANT_CP_Info ref = classFile.getCpIndex(index.getOperand(instrIdx)).getCpObject();
+		switch(index.getOpcode(instrIdx)) {
+		case GETSTATIC:
+			return fieldSlots(ref);
+		case PUTSTATIC:
+			return -fieldSlots(ref);
+		case GETFIELD:
+			return fieldSlots(ref) - 1;
+		case PUTFIELD:
+			return -fieldSlots(ref) - 1;
+		case INVOKESTATIC:
+		case INVOKEDYNAMIC:
+			return invokeSlots(ref);
+		default:
+			// the receiver is popped
+			return invokeSlots(ref) - 1;
+		}
+	}
+
+
+	private static int mergeDepth(ControlFlowGraph cfg, int[] entryDepths, int[] worklist, int top, int block, int depth) {
+		int existing = entryDepths[block];
+		if(existing < 0) {
+			entryDepths[block] = depth;
+			worklist[top++] = block;
+		}
+		else if(existing != depth) {
+			throw new IllegalStateException("code offset " + cfg.getStartPc(block) + " operand stack depth mismatch, " + existing + " and " + depth);
+		}
+		return top;
+	}
+
+
+	private static int fieldSlots(CONSTANT_CP_Info ref) {
+		return TypeUtility.typeSlots(((CONSTANT_Fieldref)ref).getNameAndType().getDescriptor().getString().charAt(0));
+	}
+
+
+	private static int invokeSlots(CONSTANT_CP_Info ref) {
+		String descriptor = (ref instanceof CONSTANT_Methodref ? ((CONSTANT_Methodref)ref).getNameAndType()
+				: (ref instanceof CONSTANT_InterfaceMethodref ? ((CONSTANT_InterfaceMethodref)ref).getNameAndType() : ((CONSTANT_InvokeDynamic)ref).getNameAndType()))
+				.getDescriptor().getString();
+		return TypeUtility.methodReturnSlots(descriptor) - TypeUtility.methodParameterSlots(descriptor);
+	}
+
+}
@@ -0,0 +1,467 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** The basic blocks of a method's code and the control flow edges between them.
+ * Blocks are numbered in code order, block 0 is the method entry. Blocks and edges are stored in primitive arrays,
+ * successor and predecessor edges are stored in compressed sparse row form, one contiguous range per block.<br/>
+ * Edges are created for jumps, conditional branch fall throughs, {@code tableswitch} and {@code lookupswitch} targets,
+ * {@code jsr} subroutine calls, {@code ret} subroutine returns, and exception handlers. Without subroutine analysis each
+ * {@code ret} block is conservatively given an edge to the instruction following every {@code jsr} in the method.
+ * Every block covered by an exception table range has an edge to the range's handler block.
+ * Two blocks may be connected by more than one edge if the edges are of different kinds, such as a conditional jump and an exception edge.<br/>
+ * Construction is linear in the number of instructions and edges.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class ControlFlowGraph {
+
+	/**
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public enum EdgeKind {
+		/** falling through to the next instruction, including the not taken path of a conditional branch */
+		FALLTHROUGH,
+		/** a {@code goto} or the taken path of a conditional branch */
+		JUMP,
+		/** a {@code tableswitch} or {@code lookupswitch} target, including the default target */
+		SWITCH,
+		/** a {@code jsr} call to a subroutine */
+		JSR,
+		/** a {@code ret} return from a subroutine to the instruction following a {@code jsr} */
+		RET,
+		/** an exception handler which catches exceptions thrown within the block */
+		EXCEPTION;
+
+		private static final EdgeKind[] values = EdgeKind.values();
+	}
+
+
+	private static final int TABLESWITCH = Opcodes.TABLESWITCH.opcode();
+	private static final int LOOKUPSWITCH = Opcodes.LOOKUPSWITCH.opcode();
+	private static final int JSR = Opcodes.JSR.opcode();
+	private static final int JSR_W = Opcodes.JSR_W.opcode();
+	private static final int RET = Opcodes.RET.opcode();
+	private static final int ATHROW = Opcodes.ATHROW.opcode();
+
+	private final InstructionIndex index;
+	private final int blockCount;
+	/** The first instruction number of each block, size [blockCount + 1], the last element is the instruction count */
+	private final int[] blockStarts;
+	/** The block number of each instruction */
+	private final int[] instructionBlocks;
+	/** The start of each block's range in {@link #successors}, size [blockCount + 1] */
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final byte[] successorKinds;
+	/** The start of each block's range in {@link #predecessors}, size [blockCount + 1] */
+	private final int[] predecessorOffsets;
+	private final int[] predecessors;
+	private final byte[] predecessorKinds;
+
+
+	private ControlFlowGraph(InstructionIndex index, int blockCount, int[] blockStarts, int[] instructionBlocks,
+			int[] successorOffsets, int[] successors, byte[] successorKinds, int[] predecessorOffsets, int[] predecessors, byte[] predecessorKinds) {
+		this.index = index;
+		this.blockCount = blockCount;
+		this.blockStarts = blockStarts;
+		this.instructionBlocks = instructionBlocks;
+		this.successorOffsets = successorOffsets;
+		this.successors = successors;
+		this.successorKinds = successorKinds;
+		this.predecessorOffsets = predecessorOffsets;
+		this.predecessors = predecessors;
+		this.predecessorKinds = predecessorKinds;
+	}
+
+
+	/** Build the control flow graph of a method's code using the code's cached {@link Code#getInstructionIndex()}
+	 * @param code the method code
+	 * @return the control flow graph of {@code code}
+	 * @throws IllegalStateException if a jump target or exception table offset is not the start of an instruction
+	 */
+	public static ControlFlowGraph build(Code code) {
+		Code.ExceptionPoint[] exceptionTable = code.getExceptionTable();
+		int[] exceptionRanges = new int[exceptionTable != null ? exceptionTable.length * 3 : 0];
+		for(int i = 0, size = exceptionRanges.length / 3; i < size; i++) {
+			exceptionRanges[i * 3] = exceptionTable[i].getStartPc() & 0xFFFF;
+			exceptionRanges[i * 3 + 1] = exceptionTable[i].getEndPc() & 0xFFFF;
+			exceptionRanges[i * 3 + 2] = exceptionTable[i].getHandlerPc() & 0xFFFF;
+		}
+		return build(code.getInstructionIndex(), exceptionRanges);
+	}
+
+
+	/** Build a control flow graph
+	 * @param index the decoded code array
+	 * @param exceptionRanges the exception table as {@code [start_pc, end_pc, handler_pc]} triples, in exception table order
+	 * @return the control flow graph of the code
+	 * @throws IllegalStateException if a jump target or exception table offset is not the start of an instruction
+	 */
+	public static ControlFlowGraph build(InstructionIndex index, int[] exceptionRanges) {
+		int count = index.size();
+		int handlerCount = exceptionRanges.length / 3;
+
+		// exception table offsets as [start, end, handler] instruction numbers, end may equal the instruction count
+		int[] handlers = new int[handlerCount * 3];
+		for(int i = 0; i < handlers.length; i++) {
+			handlers[i] = instructionAt(index, exceptionRanges[i], i % 3 == 1);
+		}
+
+		// find the leaders, the first instruction of each block
+		boolean[] leaders = new boolean[count + 1];
+		leaders[0] = true;
+		for(int n = 0; n < count; n++) {
+			int opcode = index.getOpcodeValue(n);
+			if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+				leaders[instructionAt(index, index.getOperand(n), false)] = true;
+				for(int target : index.getSwitchTargets(n)) {
+					leaders[instructionAt(index, target, false)] = true;
+				}
+				leaders[n + 1] = true;
+			}
+			else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+				leaders[instructionAt(index, index.getOperand(n), false)] = true;
+				leaders[n + 1] = true;
+			}
+			else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.RETURN) || opcode == ATHROW || opcode == RET) {
+				leaders[n + 1] = true;
+			}
+		}
+		for(int i = 0; i < handlers.length; i++) {
+			leaders[handlers[i]] = true;
+		}
+
+		int blockCount = 0;
+		int[] blockStarts = new int[count + 1];
+		int[] instructionBlocks = new int[count];
+		for(int n = 0; n < count; n++) {
+			if(leaders[n]) {
+				blockStarts[blockCount++] = n;
+			}
+			instructionBlocks[n] = blockCount - 1;
+		}
+		blockStarts[blockCount] = count;
+		blockStarts = Arrays.copyOf(blockStarts, blockCount + 1);
+
+		// collect the edges in no particular order
+		var edges = new EdgeList(blockCount * 2);
+		int[] jsrReturns = new int[8];
+		int jsrReturnCount = 0;
+		int[] retBlocks = new int[8];
+		int retBlockCount = 0;
+		for(int b = 0; b < blockCount; b++) {
+			int last = blockStarts[b + 1] - 1;
+			int opcode = index.getOpcodeValue(last);
+			if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+				edges.add(b, instructionBlocks[instructionAt(index, index.getOperand(last), false)], EdgeKind.SWITCH);
+				for(int target : index.getSwitchTargets(last)) {
+					edges.add(b, instructionBlocks[instructionAt(index, target, false)], EdgeKind.SWITCH);
+				}
+			}
+			else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+				boolean jsr = opcode == JSR || opcode == JSR_W;
+				edges.add(b, instructionBlocks[instructionAt(index, index.getOperand(last), false)], jsr ? EdgeKind.JSR : EdgeKind.JUMP);
+				if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.CONDITION) && b + 1 < blockCount) {
+					edges.add(b, b + 1, EdgeKind.FALLTHROUGH);
+				}
+				if(jsr && b + 1 < blockCount) {
+					if(jsrReturnCount == jsrReturns.length) {
+						jsrReturns = Arrays.copyOf(jsrReturns, jsrReturnCount * 2);
+					}
+					jsrReturns[jsrReturnCount++] = b + 1;
+				}
+			}
+			else if(opcode == RET) {
+				if(retBlockCount == retBlocks.length) {
+					retBlocks = Arrays.copyOf(retBlocks, retBlockCount * 2);
+				}
+				retBlocks[retBlockCount++] = b;
+			}
+			else if(!OpcodeTables.hasBehavior(opcode, Opcodes.Type.RETURN) && opcode != ATHROW && b + 1 < blockCount) {
+				edges.add(b, b + 1, EdgeKind.FALLTHROUGH);
+			}
+		}
+		for(int i = 0; i < retBlockCount; i++) {
+			for(int j = 0; j < jsrReturnCount; j++) {
+				edges.add(retBlocks[i], jsrReturns[j], EdgeKind.RET);
+			}
+		}
+		for(int i = 0; i < handlerCount; i++) {
+			int handlerBlock = instructionBlocks[handlers[i * 3 + 2]];
+			int endBlock = handlers[i * 3 + 1] < count ? instructionBlocks[handlers[i * 3 + 1]] : blockCount;
+			for(int b = instructionBlocks[handlers[i * 3]]; b < endBlock; b++) {
+				edges.add(b, handlerBlock, EdgeKind.EXCEPTION);
+			}
+		}
+
+		// group the edges by source block, dropping duplicate edges of the same kind between the same blocks
+		int[] successorOffsets = new int[blockCount + 1];
+		int[] successors = new int[edges.size];
+		byte[] successorKinds = new byte[edges.size];
+		groupEdges(edges.src, edges.dst, edges.kind, edges.size, blockCount, successorOffsets, successors, successorKinds);
+
+		int[] seen = new int[blockCount];
+		int[] seenKinds = new int[blockCount];
+		Arrays.fill(seen, -1);
+		int edgeCount = 0;
+		for(int b = 0; b < blockCount; b++) {
+			int start = successorOffsets[b];
+			successorOffsets[b] = edgeCount;
+			for(int e = start, end = successorOffsets[b + 1]; e < end; e++) {
+				int dst = successors[e];
+				if(seen[dst] != b) {
+					seen[dst] = b;
+					seenKinds[dst] = 0;
+				}
+				int kindBit = 1 << successorKinds[e];
+				if((seenKinds[dst] & kindBit) == 0) {
+					seenKinds[dst] |= kindBit;
+					successors[edgeCount] = dst;
+					successorKinds[edgeCount] = successorKinds[e];
+					edgeCount++;
+				}
+			}
+		}
+		successorOffsets[blockCount] = edgeCount;
+		successors = Arrays.copyOf(successors, edgeCount);
+		successorKinds = Arrays.copyOf(successorKinds, edgeCount);
+
+		// group the same edges by destination block
+		int[] sources = new int[edgeCount];
+		for(int b = 0; b < blockCount; b++) {
+			Arrays.fill(sources, successorOffsets[b], successorOffsets[b + 1], b);
+		}
+		int[] predecessorOffsets = new int[blockCount + 1];
+		int[] predecessors = new int[edgeCount];
+		byte[] predecessorKinds = new byte[edgeCount];
+		groupEdges(successors, sources, successorKinds, edgeCount, blockCount, predecessorOffsets, predecessors, predecessorKinds);
+
+		return new ControlFlowGraph(index, blockCount, blockStarts, instructionBlocks, successorOffsets, successors, successorKinds, predecessorOffsets, predecessors, predecessorKinds);
+	}
+
+
+	/** Counting sort edges by their {@code keys} block, stable with respect to the input order
+	 */
+	private static void groupEdges(int[] keys, int[] values, byte[] kinds, int size, int blockCount, int[] dstOffsets, int[] dstValues, byte[] dstKinds) {
+		for(int i = 0; i < size; i++) {
+			dstOffsets[keys[i] + 1]++;
+		}
+		for(int b = 0; b < blockCount; b++) {
+			dstOffsets[b + 1] += dstOffsets[b];
+		}
+		int[] pos = Arrays.copyOf(dstOffsets, blockCount);
+		for(int i = 0; i < size; i++) {
+			int p = pos[keys[i]]++;
+			dstValues[p] = values[i];
+			dstKinds[p] = kinds[i];
+		}
+	}
+
+
+	private static int instructionAt(InstructionIndex index, int pc, boolean allowEnd) {
+		if(allowEnd && pc == index.getStart(index.size())) {
+			return index.size();
+		}
+		int n = index.getInstructionAt(pc);
+		if(n < 0) {
+			throw new IllegalStateException("code offset " + pc + " is not the start of an instruction");
+		}
+		return n;
+	}
+
+
+	/**
+	 * @return the decoded code array this graph was built from
+	 */
+	public InstructionIndex getInstructionIndex() {
+		return index;
+	}
+
+
+	/**
+	 * @return the number of basic blocks
+	 */
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the instruction number of the block's first instruction
+	 */
+	public int getFirstInstruction(int block) {
+		return blockStarts[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the instruction number of the block's last instruction
+	 */
+	public int getLastInstruction(int block) {
+		return blockStarts[block + 1] - 1;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the code offset of the block's first instruction
+	 */
+	public int getStartPc(int block) {
+		return index.getStart(blockStarts[block]);
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the code offset following the block's last instruction
+	 */
+	public int getEndPc(int block) {
+		return index.getStart(blockStarts[block + 1]);
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return the block number containing the instruction
+	 */
+	public int getBlockOfInstruction(int instrIdx) {
+		return instructionBlocks[instrIdx];
+	}
+
+
+	/**
+	 * @param pc a code offset
+	 * @return the block number of the block containing {@code pc}
+	 */
+	public int getBlockAt(int pc) {
+		return instructionBlocks[index.getInstructionContaining(pc)];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the number of blocks control can flow to from this block
+	 */
+	public int getSuccessorCount(int block) {
+		return successorOffsets[block + 1] - successorOffsets[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param i the successor number in the range [0, {@link #getSuccessorCount(int)})
+	 * @return the successor block number
+	 */
+	public int getSuccessor(int block, int i) {
+		return successors[successorOffsets[block] + i];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param i the successor number in the range [0, {@link #getSuccessorCount(int)})
+	 * @return the kind of the edge from {@code block} to the successor
+	 */
+	public EdgeKind getSuccessorKind(int block, int i) {
+		return EdgeKind.values[successorKinds[successorOffsets[block] + i]];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the number of blocks control can flow to this block from
+	 */
+	public int getPredecessorCount(int block) {
+		return predecessorOffsets[block + 1] - predecessorOffsets[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param i the predecessor number in the range [0, {@link #getPredecessorCount(int)})
+	 * @return the predecessor block number
+	 */
+	public int getPredecessor(int block, int i) {
+		return predecessors[predecessorOffsets[block] + i];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param i the predecessor number in the range [0, {@link #getPredecessorCount(int)})
+	 * @return the kind of the edge from the predecessor to {@code block}
+	 */
+	public EdgeKind getPredecessorKind(int block, int i) {
+		return EdgeKind.values[predecessorKinds[predecessorOffsets[block] + i]];
+	}
+
+
+	/**
+	 * @return the total number of edges in the graph
+	 */
+	public int getEdgeCount() {
+		return successors.length;
+	}
+
+
+	@Override
+	public String toString() {
+		var sb = new StringBuilder();
+		for(int b = 0; b < blockCount; b++) {
+			sb.append('B').append(b).append(" [").append(getStartPc(b)).append(", ").append(getEndPc(b)).append(')');
+			for(int i = 0, size = getSuccessorCount(b); i < size; i++) {
+				sb.append(i == 0 ? " -> " : ", ").append('B').append(getSuccessor(b, i));
+				EdgeKind kind = getSuccessorKind(b, i);
+				if(kind != EdgeKind.FALLTHROUGH && kind != EdgeKind.JUMP) {
+					sb.append('(').append(kind.name().toLowerCase()).append(')');
+				}
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+
+
+
+	/** A growable list of edges stored in parallel primitive arrays
+	 */
+	private static final class EdgeList {
+		int[] src;
+		int[] dst;
+		byte[] kind;
+		int size;
+
+
+		EdgeList(int capacity) {
+			capacity = Math.max(capacity, 8);
+			this.src = new int[capacity];
+			this.dst = new int[capacity];
+			this.kind = new byte[capacity];
+		}
+
+
+		void add(int srcBlock, int dstBlock, EdgeKind edgeKind) {
+			if(size == src.length) {
+				int capacity = size * 2;
+				src = Arrays.copyOf(src, capacity);
+				dst = Arrays.copyOf(dst, capacity);
+				kind = Arrays.copyOf(kind, capacity);
+			}
+			src[size] = srcBlock;
+			dst[size] = dstBlock;
+			kind[size] = (byte)edgeKind.ordinal();
+			size++;
+		}
+	}
+
+}
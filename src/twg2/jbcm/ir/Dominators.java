@@ -0,0 +1,280 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+/** The dominator tree of a {@link ControlFlowGraph}, computed with the Cooper, Harvey, and Kennedy iterative algorithm
+ * ("A Simple, Fast Dominance Algorithm") over a reverse postorder of the reachable blocks.
+ * Block 0 is the root, blocks unreachable from block 0 have no immediate dominator.<br/>
+ * Dominance queries are answered in constant time using pre and post order numbers of the dominator tree.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class Dominators {
+	private final ControlFlowGraph cfg;
+	/** The reachable blocks in reverse postorder, block 0 first */
+	private final int[] reversePostOrder;
+	/** The reverse postorder number of each block, -1 for unreachable blocks */
+	private final int[] rpoNumbers;
+	/** The immediate dominator of each block, -1 for block 0 and unreachable blocks */
+	private final int[] idoms;
+	/** The start of each block's range in {@link #children}, size [blockCount + 1] */
+	private final int[] childOffsets;
+	private final int[] children;
+	/** The dominator tree preorder number of each block */
+	private final int[] preorder;
+	/** The largest dominator tree preorder number among each block's dominator tree descendants */
+	private final int[] lastDescendant;
+	private final int[] depths;
+
+
+	private Dominators(ControlFlowGraph cfg, int[] reversePostOrder, int[] rpoNumbers, int[] idoms, int[] childOffsets, int[] children, int[] preorder, int[] lastDescendant, int[] depths) {
+		this.cfg = cfg;
+		this.reversePostOrder = reversePostOrder;
+		this.rpoNumbers = rpoNumbers;
+		this.idoms = idoms;
+		this.childOffsets = childOffsets;
+		this.children = children;
+		this.preorder = preorder;
+		this.lastDescendant = lastDescendant;
+		this.depths = depths;
+	}
+
+
+	/** Compute the dominator tree of a control flow graph
+	 * @param cfg the control flow graph
+	 * @return the dominators of {@code cfg}'s blocks
+	 */
+	public static Dominators compute(ControlFlowGraph cfg) {
+		int blockCount = cfg.getBlockCount();
+		int[] rpoNumbers = new int[blockCount];
+		int[] reversePostOrder = reversePostOrder(cfg, rpoNumbers);
+		int reachable = reversePostOrder.length;
+
+		// idoms are tracked by reverse postorder number while iterating
+		int[] doms = new int[reachable];
+		Arrays.fill(doms, -1);
+		if(reachable > 0) {
+			doms[0] = 0;
+		}
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+			for(int r = 1; r < reachable; r++) {
+				int b = reversePostOrder[r];
+				int newIdom = -1;
+				for(int i = 0, size = cfg.getPredecessorCount(b); i < size; i++) {
+					int p = rpoNumbers[cfg.getPredecessor(b, i)];
+					if(p < 0 || doms[p] < 0) {
+						continue;
+					}
+					newIdom = newIdom < 0 ? p : intersect(doms, p, newIdom);
+				}
+				if(doms[r] != newIdom) {
+					doms[r] = newIdom;
+					changed = true;
+				}
+			}
+		}
+
+		int[] idoms = new int[blockCount];
+		Arrays.fill(idoms, -1);
+		for(int r = 1; r < reachable; r++) {
+			idoms[reversePostOrder[r]] = reversePostOrder[doms[r]];
+		}
+
+		// dominator tree children, in reverse postorder
+		int[] childOffsets = new int[blockCount + 1];
+		for(int r = 1; r < reachable; r++) {
+			childOffsets[idoms[reversePostOrder[r]] + 1]++;
+		}
+		for(int b = 0; b < blockCount; b++) {
+			childOffsets[b + 1] += childOffsets[b];
+		}
+		int[] children = new int[Math.max(reachable - 1, 0)];
+		int[] pos = Arrays.copyOf(childOffsets, blockCount);
+		for(int r = 1; r < reachable; r++) {
+			int b = reversePostOrder[r];
+			children[pos[idoms[b]]++] = b;
+		}
+
+		// number the dominator tree in preorder, iteratively since trees can be as deep as the method is long
+		int[] preorder = new int[blockCount];
+		int[] lastDescendant = new int[blockCount];
+		int[] depths = new int[blockCount];
+		Arrays.fill(preorder, -1);
+		Arrays.fill(lastDescendant, -1);
+		if(reachable > 0) {
+			int[] stack = new int[reachable];
+			int[] next = new int[blockCount];
+			int top = 0;
+			int counter = 0;
+			stack[0] = 0;
+			preorder[0] = counter++;
+			next[0] = childOffsets[0];
+			while(top >= 0) {
+				int b = stack[top];
+				if(next[b] < childOffsets[b + 1]) {
+					int child = children[next[b]++];
+					preorder[child] = counter++;
+					depths[child] = depths[b] + 1;
+					next[child] = childOffsets[child];
+					stack[++top] = child;
+				}
+				else {
+					lastDescendant[b] = counter - 1;
+					top--;
+				}
+			}
+		}
+
+		return new Dominators(cfg, reversePostOrder, rpoNumbers, idoms, childOffsets, children, preorder, lastDescendant, depths);
+	}
+
+
+	private static int intersect(int[] doms, int a, int b) {
+		while(a != b) {
+			while(a > b) {
+				a = doms[a];
+			}
+			while(b > a) {
+				b = doms[b];
+			}
+		}
+		return a;
+	}
+
+
+	/** Depth first search from block 0 following successor edges without recursion
+	 * @param cfg the control flow graph
+	 * @param rpoNumbers filled with each block's reverse postorder number or -1 if the block is unreachable
+	 * @return the reachable blocks in reverse postorder
+	 */
+	static int[] reversePostOrder(ControlFlowGraph cfg, int[] rpoNumbers) {
+		int blockCount = cfg.getBlockCount();
+		Arrays.fill(rpoNumbers, -1);
+		if(blockCount == 0) {
+			return new int[0];
+		}
+		int[] postOrder = new int[blockCount];
+		int postCount = 0;
+		boolean[] visited = new boolean[blockCount];
+		int[] stack = new int[blockCount];
+		int[] next = new int[blockCount];
+		int top = 0;
+		stack[0] = 0;
+		visited[0] = true;
+		while(top >= 0) {
+			int b = stack[top];
+			if(next[b] < cfg.getSuccessorCount(b)) {
+				int s = cfg.getSuccessor(b, next[b]++);
+				if(!visited[s]) {
+					visited[s] = true;
+					stack[++top] = s;
+				}
+			}
+			else {
+				postOrder[postCount++] = b;
+				top--;
+			}
+		}
+		int[] rpo = new int[postCount];
+		for(int i = 0; i < postCount; i++) {
+			int b = postOrder[postCount - 1 - i];
+			rpo[i] = b;
+			rpoNumbers[b] = i;
+		}
+		return rpo;
+	}
+
+
+	/**
+	 * @return the control flow graph these dominators were computed from
+	 */
+	public ControlFlowGraph getControlFlowGraph() {
+		return cfg;
+	}
+
+
+	/**
+	 * @return the number of blocks reachable from block 0
+	 */
+	public int getReachableCount() {
+		return reversePostOrder.length;
+	}
+
+
+	/**
+	 * @param i an index in the range [0, {@link #getReachableCount()})
+	 * @return the i'th reachable block in reverse postorder
+	 */
+	public int getReversePostOrder(int i) {
+		return reversePostOrder[i];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the block's reverse postorder number, or -1 if the block is unreachable
+	 */
+	public int getReversePostOrderNumber(int block) {
+		return rpoNumbers[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return true if the block is reachable from block 0
+	 */
+	public boolean isReachable(int block) {
+		return rpoNumbers[block] >= 0;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the block's immediate dominator, or -1 for block 0 and unreachable blocks
+	 */
+	public int getImmediateDominator(int block) {
+		return idoms[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the block's depth in the dominator tree, 0 for block 0 and unreachable blocks
+	 */
+	public int getDepth(int block) {
+		return depths[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the number of blocks immediately dominated by the block
+	 */
+	public int getChildCount(int block) {
+		return childOffsets[block + 1] - childOffsets[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param i the child number in the range [0, {@link #getChildCount(int)})
+	 * @return a block immediately dominated by {@code block}
+	 */
+	public int getChild(int block, int i) {
+		return children[childOffsets[block] + i];
+	}
+
+
+	/** Check if every path from block 0 to {@code block} passes through {@code dominator}, a block dominates itself
+	 * @param dominator a block number
+	 * @param block a block number
+	 * @return true if both blocks are reachable and {@code dominator} dominates {@code block}
+	 */
+	public boolean dominates(int dominator, int block) {
+		int pre = preorder[block];
+		return pre >= 0 && preorder[dominator] >= 0 && preorder[dominator] <= pre && pre <= lastDescendant[dominator];
+	}
+
+}
@@ -0,0 +1,180 @@
+package twg2.jbcm.ir;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** Local variable liveness, a backward {@link BitSetDataflow} with one bit per local variable slot.
+ * A local is live at a point if some path from that point reads the local before writing it.
+ * {@code long} and {@code double} loads and stores use two slots, {@code iinc} reads and writes its local,
+ * {@code ret} reads its local. Every local live at the start of an exception handler is live throughout the
+ * blocks the handler covers.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class LocalLiveness {
+	private final ControlFlowGraph cfg;
+	private final int localCount;
+	private final BitSetDataflow dataflow;
+
+
+	private LocalLiveness(ControlFlowGraph cfg, int localCount, BitSetDataflow dataflow) {
+		this.cfg = cfg;
+		this.localCount = localCount;
+		this.dataflow = dataflow;
+	}
+
+
+	/**
+	 * @param code the method code
+	 * @return the liveness of the code's local variables
+	 */
+	public static LocalLiveness compute(Code code) {
+		return compute(ControlFlowGraph.build(code), code.getMaxLocals());
+	}
+
+
+	/**
+	 * @param cfg the method's control flow graph
+	 * @param maxLocals the method's {@code max_locals}, raised if the code accesses larger local variable indexes
+	 * @return the liveness of the code's local variables
+	 */
+	public static LocalLiveness compute(ControlFlowGraph cfg, int maxLocals) {
+		InstructionIndex index = cfg.getInstructionIndex();
+		int localCount = Math.max(maxLocals, maxLocalAccessed(index));
+		int blockCount = cfg.getBlockCount();
+
+		var transfer = new BitSetDataflow.GenKill(blockCount, localCount);
+		for(int b = 0; b < blockCount; b++) {
+			// walk backward, a write kills the local before the instruction and a read makes it live
+			for(int n = cfg.getLastInstruction(b), first = cfg.getFirstInstruction(b); n >= first; n--) {
+				int local = index.getLocalVariable(n);
+				if(local < 0) {
+					continue;
+				}
+				int opcode = index.getOpcodeValue(n);
+				int size = OpcodeTables.localVariableSize(opcode);
+				boolean read = !OpcodeTables.hasBehavior(opcode, Opcodes.Type.VAR_STORE);
+				boolean write = !read || Opcodes.IINC.is(opcode);
+				for(int s = local; s < local + size; s++) {
+					if(write) {
+						transfer.kill(b, s);
+					}
+					if(read) {
+						transfer.gen(b, s);
+					}
+				}
+			}
+		}
+
+		var dataflow = BitSetDataflow.solve(cfg, BitSetDataflow.Direction.BACKWARD, BitSetDataflow.Meet.UNION, localCount, null, transfer);
+		return new LocalLiveness(cfg, localCount, dataflow);
+	}
+
+
+	/**
+	 * @param index the decoded code
+	 * @return one more than the largest local variable slot accessed by the code, 0 if the code does not access local variables
+	 */
+	static int maxLocalAccessed(InstructionIndex index) {
+		int max = 0;
+		for(int n = 0, count = index.size(); n < count; n++) {
+			int local = index.getLocalVariable(n);
+			if(local >= 0) {
+				max = Math.max(max, local + OpcodeTables.localVariableSize(index.getOpcodeValue(n)));
+			}
+		}
+		return max;
+	}
+
+
+	/**
+	 * @return the control flow graph this liveness was computed for
+	 */
+	public ControlFlowGraph getControlFlowGraph() {
+		return cfg;
+	}
+
+
+	/**
+	 * @return the number of local variable slots
+	 */
+	public int getLocalCount() {
+		return localCount;
+	}
+
+
+	/**
+	 * @return the solved dataflow, bit {@code i} is local variable slot {@code i}
+	 */
+	public BitSetDataflow getDataflow() {
+		return dataflow;
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param local a local variable slot
+	 * @return true if the local is live at the start of the block
+	 */
+	public boolean isLiveIn(int block, int local) {
+		return dataflow.isSetIn(block, local);
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param local a local variable slot
+	 * @return true if the local is live at the end of the block
+	 */
+	public boolean isLiveOut(int block, int local) {
+		return dataflow.isSetOut(block, local);
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @param local a local variable slot
+	 * @return true if the local is live immediately after the instruction executes
+	 */
+	public boolean isLiveAfter(int instrIdx, int local) {
+		InstructionIndex index = cfg.getInstructionIndex();
+		int block = cfg.getBlockOfInstruction(instrIdx);
+		for(int i = 0, size = cfg.getSuccessorCount(block); i < size; i++) {
+			if(cfg.getSuccessorKind(block, i) == ControlFlowGraph.EdgeKind.EXCEPTION && dataflow.isSetIn(cfg.getSuccessor(block, i), local)) {
+				return true;
+			}
+		}
+		boolean live = dataflow.isSetOut(block, local);
+		for(int n = cfg.getLastInstruction(block); n > instrIdx; n--) {
+			int l = index.getLocalVariable(n);
+			int opcode = index.getOpcodeValue(n);
+			if(l >= 0 && local >= l && local < l + OpcodeTables.localVariableSize(opcode)) {
+				live = !OpcodeTables.hasBehavior(opcode, Opcodes.Type.VAR_STORE);
+			}
+		}
+		return live;
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return true if the instruction is a local variable store or {@code iinc} whose value is never read
+	 */
+	public boolean isDeadStore(int instrIdx) {
+		InstructionIndex index = cfg.getInstructionIndex();
+		int opcode = index.getOpcodeValue(instrIdx);
+		if(!OpcodeTables.hasBehavior(opcode, Opcodes.Type.VAR_STORE) && !Opcodes.IINC.is(opcode)) {
+			return false;
+		}
+		int local = index.getLocalVariable(instrIdx);
+		for(int s = local, end = local + OpcodeTables.localVariableSize(opcode); s < end; s++) {
+			if(isLiveAfter(instrIdx, s)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
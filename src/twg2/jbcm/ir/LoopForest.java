@@ -0,0 +1,260 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+/** The natural loops of a {@link ControlFlowGraph} and their nesting forest.
+ * A back edge is an edge whose target dominates its source, a natural loop is a back edge target (the loop header) and every block
+ * which can reach one of the header's back edges without passing through the header. Back edges sharing a header form one loop.
+ * Cycles without a dominating header (irreducible flow) are not loops.<br/>
+ * Loops are numbered in header reverse postorder, so a loop's parent always has a smaller number than the loop.
+ * Loop bodies are collected innermost loop first using a union-find over already collected loops, so each block
+ * and edge is visited a near constant number of times.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class LoopForest {
+	private final Dominators dominators;
+	private final int loopCount;
+	/** The header block of each loop */
+	private final int[] headers;
+	/** The parent loop of each loop, -1 for outermost loops */
+	private final int[] parents;
+	/** The nesting depth of each loop, 1 for outermost loops */
+	private final int[] depths;
+	/** The innermost loop containing each block, -1 for blocks not in a loop */
+	private final int[] blockLoops;
+
+
+	private LoopForest(Dominators dominators, int loopCount, int[] headers, int[] parents, int[] depths, int[] blockLoops) {
+		this.dominators = dominators;
+		this.loopCount = loopCount;
+		this.headers = headers;
+		this.parents = parents;
+		this.depths = depths;
+		this.blockLoops = blockLoops;
+	}
+
+
+	/** Find the natural loops of a control flow graph
+	 * @param dominators the dominators of the control flow graph
+	 * @return the loop nesting forest
+	 */
+	public static LoopForest compute(Dominators dominators) {
+		ControlFlowGraph cfg = dominators.getControlFlowGraph();
+		int blockCount = cfg.getBlockCount();
+		int reachable = dominators.getReachableCount();
+
+		// the innermost loop header of each block, a header's entry is its parent loop's header
+		int[] headerOf = new int[blockCount];
+		Arrays.fill(headerOf, -1);
+		boolean[] isHeader = new boolean[blockCount];
+		// union-find representative of each block, the outermost collected loop header containing the block
+		int[] union = new int[blockCount];
+		for(int b = 0; b < blockCount; b++) {
+			union[b] = b;
+		}
+		int[] queued = new int[blockCount];
+		Arrays.fill(queued, -1);
+		int[] worklist = new int[blockCount];
+
+		// inner loop headers are dominated by, so come after, their outer loop headers in reverse postorder
+		for(int r = reachable - 1; r >= 0; r--) {
+			int h = dominators.getReversePostOrder(r);
+			int top = 0;
+			for(int i = 0, size = cfg.getPredecessorCount(h); i < size; i++) {
+				int p = cfg.getPredecessor(h, i);
+				if(!dominators.dominates(h, p)) {
+					continue;
+				}
+				isHeader[h] = true;
+				int x = find(union, p);
+				if(x != h && queued[x] != h) {
+					queued[x] = h;
+					worklist[top++] = x;
+				}
+			}
+
+			while(top > 0) {
+				int x = worklist[--top];
+				headerOf[x] = h;
+				union[x] = h;
+				for(int i = 0, size = cfg.getPredecessorCount(x); i < size; i++) {
+					int p = cfg.getPredecessor(x, i);
+					if(!dominators.isReachable(p)) {
+						continue;
+					}
+					int y = find(union, p);
+					if(y != h && queued[y] != h) {
+						queued[y] = h;
+						worklist[top++] = y;
+					}
+				}
+			}
+		}
+
+		// number the loops in header reverse postorder
+		int[] loopNumbers = new int[blockCount];
+		int[] headers = new int[blockCount];
+		int loopCount = 0;
+		for(int r = 0; r < reachable; r++) {
+			int b = dominators.getReversePostOrder(r);
+			if(isHeader[b]) {
+				loopNumbers[b] = loopCount;
+				headers[loopCount++] = b;
+			}
+		}
+		headers = Arrays.copyOf(headers, loopCount);
+
+		int[] parents = new int[loopCount];
+		int[] depths = new int[loopCount];
+		for(int n = 0; n < loopCount; n++) {
+			int parentHeader = headerOf[headers[n]];
+			parents[n] = parentHeader >= 0 ? loopNumbers[parentHeader] : -1;
+			depths[n] = parentHeader >= 0 ? depths[parents[n]] + 1 : 1;
+		}
+
+		int[] blockLoops = new int[blockCount];
+		for(int b = 0; b < blockCount; b++) {
+			blockLoops[b] = isHeader[b] ? loopNumbers[b] : (headerOf[b] >= 0 ? loopNumbers[headerOf[b]] : -1);
+		}
+
+		return new LoopForest(dominators, loopCount, headers, parents, depths, blockLoops);
+	}
+
+
+	private static int find(int[] union, int b) {
+		int root = b;
+		while(union[root] != root) {
+			root = union[root];
+		}
+		// path compression
+		while(union[b] != root) {
+			int next = union[b];
+			union[b] = root;
+			b = next;
+		}
+		return root;
+	}
+
+
+	/**
+	 * @return the dominators this loop forest was computed from
+	 */
+	public Dominators getDominators() {
+		return dominators;
+	}
+
+
+	/**
+	 * @return the number of natural loops
+	 */
+	public int getLoopCount() {
+		return loopCount;
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @return the loop's header block
+	 */
+	public int getHeader(int loop) {
+		return headers[loop];
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @return the loop's immediately enclosing loop, or -1 if the loop is not nested in another loop
+	 */
+	public int getParent(int loop) {
+		return parents[loop];
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @return the loop's nesting depth, 1 for loops which are not nested in another loop
+	 */
+	public int getDepth(int loop) {
+		return depths[loop];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return the innermost loop containing the block, or -1 if the block is not in a loop
+	 */
+	public int getLoopOf(int block) {
+		return blockLoops[block];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @return true if the block is a loop header
+	 */
+	public boolean isHeader(int block) {
+		int loop = blockLoops[block];
+		return loop >= 0 && headers[loop] == block;
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @param block a block number
+	 * @return true if the block is in the loop or one of its nested loops
+	 */
+	public boolean contains(int loop, int block) {
+		int l = blockLoops[block];
+		while(l > loop) {
+			l = parents[l];
+		}
+		return l == loop;
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @return the blocks in the loop, including nested loops, in ascending order
+	 */
+	public int[] getBlocks(int loop) {
+		int blockCount = blockLoops.length;
+		int[] blocks = new int[blockCount];
+		int count = 0;
+		for(int b = 0; b < blockCount; b++) {
+			if(contains(loop, b)) {
+				blocks[count++] = b;
+			}
+		}
+		return Arrays.copyOf(blocks, count);
+	}
+
+
+	/**
+	 * @param loop a loop number
+	 * @return the blocks with back edges to the loop's header, in ascending order
+	 */
+	public int[] getLatches(int loop) {
+		ControlFlowGraph cfg = dominators.getControlFlowGraph();
+		int header = headers[loop];
+		int size = cfg.getPredecessorCount(header);
+		int[] latches = new int[size];
+		int count = 0;
+		for(int i = 0; i < size; i++) {
+			int p = cfg.getPredecessor(header, i);
+			if(dominators.dominates(header, p)) {
+				latches[count++] = p;
+			}
+		}
+		Arrays.sort(latches, 0, count);
+		// a block can have more than one kind of edge to the header
+		int unique = 0;
+		for(int i = 0; i < count; i++) {
+			if(unique == 0 || latches[unique - 1] != latches[i]) {
+				latches[unique++] = latches[i];
+			}
+		}
+		return Arrays.copyOf(latches, unique);
+	}
+
+}
@@ -0,0 +1,243 @@
+package twg2.jbcm.ir;
+
+import java.util.Arrays;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** Local variable reaching definitions, a forward {@link BitSetDataflow} with one bit per definition.
+ * Definitions {@code [0, localCount)} are the values each local variable slot has on method entry (parameters or uninitialized),
+ * the remaining definitions are the code's local variable stores and {@code iinc} instructions in code order.
+ * A definition reaches a point if some path from the definition to that point does not redefine any of its slots.
+ * Every definition anywhere in a block reaches the exception handlers covering the block.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class ReachingDefinitions {
+	private final ControlFlowGraph cfg;
+	private final int localCount;
+	private final int defCount;
+	/** The instruction number of each definition, -1 for entry definitions */
+	private final int[] defInstructions;
+	/** The first local variable slot of each definition */
+	private final int[] defLocals;
+	/** The start of each local variable slot's range in {@link #slotDefs}, size [localCount + 1] */
+	private final int[] slotDefOffsets;
+	/** The definitions which write each local variable slot, in ascending order */
+	private final int[] slotDefs;
+	private final BitSetDataflow dataflow;
+
+
+	private ReachingDefinitions(ControlFlowGraph cfg, int localCount, int defCount, int[] defInstructions, int[] defLocals, int[] slotDefOffsets, int[] slotDefs, BitSetDataflow dataflow) {
+		this.cfg = cfg;
+		this.localCount = localCount;
+		this.defCount = defCount;
+		this.defInstructions = defInstructions;
+		this.defLocals = defLocals;
+		this.slotDefOffsets = slotDefOffsets;
+		this.slotDefs = slotDefs;
+		this.dataflow = dataflow;
+	}
+
+
+	/**
+	 * @param code the method code
+	 * @return the reaching definitions of the code's local variables
+	 */
+	public static ReachingDefinitions compute(Code code) {
+		return compute(ControlFlowGraph.build(code), code.getMaxLocals());
+	}
+
+
+	/**
+	 * @param cfg the method's control flow graph
+	 * @param maxLocals the method's {@code max_locals}, raised if the code accesses larger local variable indexes
+	 * @return the reaching definitions of the code's local variables
+	 */
+	public static ReachingDefinitions compute(ControlFlowGraph cfg, int maxLocals) {
+		InstructionIndex index = cfg.getInstructionIndex();
+		int localCount = Math.max(maxLocals, LocalLiveness.maxLocalAccessed(index));
+		int count = index.size();
+
+		// number the definitions
+		int defCount = localCount;
+		int[] defInstructions = new int[localCount + count];
+		int[] defLocals = new int[localCount + count];
+		int[] defSizes = new int[localCount + count];
+		int[] instrDefs = new int[count];
+		for(int s = 0; s < localCount; s++) {
+			defInstructions[s] = -1;
+			defLocals[s] = s;
+			defSizes[s] = 1;
+		}
+		for(int n = 0; n < count; n++) {
+			instrDefs[n] = -1;
+			int opcode = index.getOpcodeValue(n);
+			if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.VAR_STORE) || Opcodes.IINC.is(opcode)) {
+				defInstructions[defCount] = n;
+				defLocals[defCount] = index.getLocalVariable(n);
+				defSizes[defCount] = OpcodeTables.localVariableSize(opcode);
+				instrDefs[n] = defCount++;
+			}
+		}
+
+		// the definitions writing each slot
+		int[] slotDefOffsets = new int[localCount + 1];
+		for(int d = 0; d < defCount; d++) {
+			for(int s = defLocals[d], end = s + defSizes[d]; s < end; s++) {
+				slotDefOffsets[s + 1]++;
+			}
+		}
+		for(int s = 0; s < localCount; s++) {
+			slotDefOffsets[s + 1] += slotDefOffsets[s];
+		}
+		int[] slotDefs = new int[slotDefOffsets[localCount]];
+		int[] pos = Arrays.copyOf(slotDefOffsets, localCount);
+		for(int d = 0; d < defCount; d++) {
+			for(int s = defLocals[d], end = s + defSizes[d]; s < end; s++) {
+				slotDefs[pos[s]++] = d;
+			}
+		}
+
+		// each slot's definitions are killed once per block, a later definition of the slot in the same block only kills the earlier one
+		int blockCount = cfg.getBlockCount();
+		var transfer = new BitSetDataflow.GenKill(blockCount, defCount);
+		int[] slotKilledBlock = new int[localCount];
+		int[] slotLastDef = new int[localCount];
+		Arrays.fill(slotKilledBlock, -1);
+		for(int b = 0; b < blockCount; b++) {
+			for(int n = cfg.getFirstInstruction(b), end = cfg.getLastInstruction(b); n <= end; n++) {
+				int d = instrDefs[n];
+				if(d < 0) {
+					continue;
+				}
+				for(int s = defLocals[d], sEnd = s + defSizes[d]; s < sEnd; s++) {
+					if(slotKilledBlock[s] != b) {
+						slotKilledBlock[s] = b;
+						for(int i = slotDefOffsets[s], iEnd = slotDefOffsets[s + 1]; i < iEnd; i++) {
+							transfer.kill(b, slotDefs[i]);
+						}
+					}
+					else {
+						transfer.kill(b, slotLastDef[s]);
+					}
+					slotLastDef[s] = d;
+				}
+				transfer.gen(b, d);
+				transfer.exceptionGen(b, d);
+			}
+		}
+
+		long[] entry = new long[BitSetDataflow.wordCount(defCount)];
+		for(int s = 0; s < localCount; s++) {
+			entry[s >>> 6] |= 1L << s;
+		}
+		var dataflow = BitSetDataflow.solve(cfg, BitSetDataflow.Direction.FORWARD, BitSetDataflow.Meet.UNION, defCount, entry, transfer);
+
+		return new ReachingDefinitions(cfg, localCount, defCount, Arrays.copyOf(defInstructions, defCount), Arrays.copyOf(defLocals, defCount), slotDefOffsets, slotDefs, dataflow);
+	}
+
+
+	/**
+	 * @return the control flow graph these definitions were computed for
+	 */
+	public ControlFlowGraph getControlFlowGraph() {
+		return cfg;
+	}
+
+
+	/**
+	 * @return the solved dataflow, bit {@code i} is definition {@code i}
+	 */
+	public BitSetDataflow getDataflow() {
+		return dataflow;
+	}
+
+
+	/**
+	 * @return the number of local variable slots, which is also the number of entry definitions
+	 */
+	public int getLocalCount() {
+		return localCount;
+	}
+
+
+	/**
+	 * @return the number of definitions, including entry definitions
+	 */
+	public int getDefinitionCount() {
+		return defCount;
+	}
+
+
+	/**
+	 * @param def a definition number
+	 * @return the instruction number of the store or {@code iinc} instruction, or -1 for an entry definition
+	 */
+	public int getDefinitionInstruction(int def) {
+		return defInstructions[def];
+	}
+
+
+	/**
+	 * @param def a definition number
+	 * @return the first local variable slot written by the definition
+	 */
+	public int getDefinitionLocal(int def) {
+		return defLocals[def];
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param def a definition number
+	 * @return true if the definition reaches the start of the block
+	 */
+	public boolean isReachingIn(int block, int def) {
+		return dataflow.isSetIn(block, def);
+	}
+
+
+	/**
+	 * @param block a block number
+	 * @param def a definition number
+	 * @return true if the definition reaches the end of the block
+	 */
+	public boolean isReachingOut(int block, int def) {
+		return dataflow.isSetOut(block, def);
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @param local a local variable slot
+	 * @return the definitions of the local variable slot which reach the instruction (before it executes), in ascending order
+	 */
+	public int[] getReachingDefinitions(int instrIdx, int local) {
+		int block = cfg.getBlockOfInstruction(instrIdx);
+		int start = slotDefOffsets[local];
+		int end = slotDefOffsets[local + 1];
+		// the last definition of the slot earlier in the same block is the only one which reaches
+		int last = -1;
+		for(int i = start; i < end; i++) {
+			int n = defInstructions[slotDefs[i]];
+			if(n >= cfg.getFirstInstruction(block) && n < instrIdx) {
+				last = Math.max(last, slotDefs[i]);
+			}
+		}
+		if(last >= 0) {
+			return new int[] { last };
+		}
+		int[] defs = new int[end - start];
+		int count = 0;
+		for(int i = start; i < end; i++) {
+			if(dataflow.isSetIn(block, slotDefs[i])) {
+				defs[count++] = slotDefs[i];
+			}
+		}
+		return Arrays.copyOf(defs, count);
+	}
+
+}
@@ -1,9 +1,8 @@
 package twg2.jbcm.main;
 
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -76,9 +75,7 @@ public class DynamicModificationMain {
 		if(!dynamicFolder.exists()) {
 			dynamicFolder.mkdir();
 		}
-		DataOutputStream out = new DataOutputStream(new FileOutputStream(dynamicFile));
-		classFile.writeData(out);
-		out.close();
+		Files.write(dynamicFile.toPath(), classFile.toByteArray());
 
 		// Load modified file and test it
 		Class<?> test = Thread.currentThread().getContextClassLoader().loadClass(fileClasspath + '.' + dynamicSubFolder + "." + dynamicClassName);
@@ -122,9 +119,7 @@ public class DynamicModificationMain {
 		if(!dynamicFolder.exists()) {
 			dynamicFolder.mkdir();
 		}
-		DataOutputStream out = new DataOutputStream(new FileOutputStream(dynamicFile));
-		listImplClass.writeData(out);
-		out.close();
+		Files.write(dynamicFile.toPath(), listImplClass.toByteArray());
 	}
 
 
@@ -2,10 +2,8 @@ package twg2.jbcm.main;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
@@ -17,13 +15,14 @@ import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileBatchLoader;
+import twg2.jbcm.classFormat.ParseOptions;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.Settings;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
@@ -188,19 +187,29 @@ public class UsageCliMain {
 		case "load":
 			System.out.print("enter file/path name (relative to '" + classpath + "' or absolute) to load: ");
 			input = nextLine.get();
-			File file = getClassPath(fs, classpath, input).toFile();
-			List<File> files;
-			if(file.isDirectory()) {
-				files = Arrays.asList(file.listFiles((f) -> f.getName().endsWith(".class")));
+			Path loadPath = getLoadPath(fs, classpath, input);
+			if(loadPath == null) {
+				break;
 			}
-			else {
-				files = Arrays.asList(file);
+			if(Files.isDirectory(loadPath) || !loadPath.toString().endsWith(".class")) {
+				// directory tree, jar, or jmod
+				int errors = 0;
+				var results = new ClassFileBatchLoader(ParseOptions.fromSettings()).loadAll(loadPath);
+				for(var res : results) {
+					if(res.isSuccess()) {
+						classFiles.add(res.getClassFile());
+					}
+					else {
+						System.out.println("error loading " + res.getName() + ": " + res.getError());
+						errors++;
+					}
+				}
+				System.out.println((results.size() - errors) + " class files loaded" + (errors > 0 ? ", " + errors + " failed" : ""));
 			}
-			for(int i = 0, sz = files.size(); i < sz; i++) {
-				cls = ClassFile.load(files.get(i));
-				classFiles.add(cls);
+			else {
+				classFiles.add(ClassFile.load(loadPath));
+				System.out.println("1 class file loaded");
 			}
-			System.out.println(files.size() + " class files loaded");
 			break;
 		// dependencies
 		case "dependencies":
@@ -221,8 +230,8 @@ public class UsageCliMain {
 			if(input.equals("removeUnusedCPs")) {
 				var unusedIndexes = FindCpIndexUsage.findUnusedIndexes(cls);
 				System.out.println("unused indexes: " + unusedIndexes);
-				//var removedIndexes = cls.removeUnusedCpIndexes();
-				//System.out.println("Removed unused constant pool entries: " + removedIndexes.toString());
+				int removedCount = cls.compactConstantPool();
+				System.out.println("Removed " + removedCount + " unused constant pool indexes");
 			}
 			else if(input.startsWith("replaceCP")) {
 				var strs = input.split(" \"");
@@ -264,9 +273,7 @@ public class UsageCliMain {
 		// save
 		case "save":
 			cls = classFiles.get(0);
-			DataOutputStream out = new DataOutputStream(new FileOutputStream(cls.getSource().replace(".class", "-modified.class")));
-			cls.writeData(out);
-			out.close();
+			Files.write(fs.getPath(cls.getSource().replace(".class", "-modified.class")), cls.toByteArray());
 			break;
 		// clear
 		case "clear":
@@ -306,6 +313,21 @@ public class UsageCliMain {
 	}
 
 
+	/** Resolve a directory, archive, or class file path for the 'load' command, unlike {@link #getClassPath(FileSystem, String, String)}
+	 * paths which exist as given are not converted to class file names
+	 */
+	private static Path getLoadPath(FileSystem fs, String dir, String file) {
+		Path tmp = null;
+		if(Files.exists((tmp = fs.getPath(file)), LinkOption.NOFOLLOW_LINKS)) {
+			return tmp;
+		}
+		else if(Files.exists((tmp = fs.getPath(dir, file)), LinkOption.NOFOLLOW_LINKS)) {
+			return tmp;
+		}
+		return getClassPath(fs, dir, file);
+	}
+
+
 	private static void printDeps(ClassFile classFile, String dependency, PrintStream out) {
 		String depCleaned = (dependency != null && (dependency = dependency.trim()).length() > 0 ? dependency.replace('.', '.') : null);
 		out.println(classFile.getClassIndex().getCpObject() + " dependencies:");
@@ -68,8 +68,9 @@ public class ChangeIndex implements CodeCpIndexChanger, CodeOffsetGetter, CodeOf
 	@Override
 	public void changeCpIndexIf(byte[] code, int location, int currentIndex, int newIndex) {
 		location += offsetFromInstruction;
+		// constant pool indexes are unsigned
 		if(offsetStorageSize == 2) {
-			short index = IoUtility.readShort(code, location);
+			int index = IoUtility.readShort(code, location) & 0xFFFF;
 			if(index == currentIndex) {
 				IoUtility.writeShort((short)newIndex, code, location);
 			}
@@ -81,7 +82,7 @@ public class ChangeIndex implements CodeCpIndexChanger, CodeOffsetGetter, CodeOf
 			}
 		}
 		else if(offsetStorageSize == 1) {
-			byte index = code[location];
+			int index = code[location] & 0xFF;
 			if(index == currentIndex) {
 				code[location] = (byte)newIndex;
 			}
@@ -0,0 +1,121 @@
+package twg2.jbcm.modify;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+
+/** Resolves the super class and interface status of classes by internal name (i.e. {@code java/lang/String}),
+ * used to find the common super class of two reference types when merging {@code StackMapTable} frames.
+ * Implementations may throw {@link IllegalArgumentException} for classes they cannot resolve.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public interface ClassHierarchy {
+
+	/**
+	 * @param className the internal name of a class or interface
+	 * @return the internal name of the class's super class, {@code java/lang/Object} for interfaces, null for {@code java/lang/Object}
+	 */
+	String getSuperClass(String className);
+
+
+	/**
+	 * @param className the internal name of a class or interface
+	 * @return true if the class is an interface
+	 */
+	boolean isInterface(String className);
+
+
+	/** Find the most specific common super class of two classes. Interfaces are treated as {@code java/lang/Object},
+	 * which is how the type checking verifier treats them.
+	 * @param className1 the internal name of a class or interface, not an array
+	 * @param className2 the internal name of a class or interface, not an array
+	 * @return the internal name of the common super class
+	 */
+	default String getCommonSuperClass(String className1, String className2) {
+		if(className1.equals(className2)) {
+			return className1;
+		}
+		if(isInterface(className1) || isInterface(className2)) {
+			return "java/lang/Object";
+		}
+		var supers = new HashSet<String>();
+		for(String c = className1; c != null; c = getSuperClass(c)) {
+			supers.add(c);
+		}
+		for(String c = className2; c != null; c = getSuperClass(c)) {
+			if(supers.contains(c)) {
+				return c;
+			}
+		}
+		return "java/lang/Object";
+	}
+
+
+	/** Create a class hierarchy which loads classes, without initializing them, from a class loader
+	 * @param loader the class loader
+	 * @return a class hierarchy backed by {@code loader}
+	 */
+	static ClassHierarchy fromClassLoader(ClassLoader loader) {
+		return new ClassHierarchy() {
+			private Class<?> load(String className) {
+				try {
+					return Class.forName(className.replace('/', '.'), false, loader);
+				} catch(ClassNotFoundException | LinkageError ex) {
+					throw new IllegalArgumentException("could not load class '" + className + "'", ex);
+				}
+			}
+
+			@Override
+			public String getSuperClass(String className) {
+				Class<?> cls = load(className);
+				if(cls.isInterface()) {
+					return "java/lang/Object";
+				}
+				Class<?> superCls = cls.getSuperclass();
+				return superCls != null ? superCls.getName().replace('.', '/') : null;
+			}
+
+			@Override
+			public boolean isInterface(String className) {
+				return load(className).isInterface();
+			}
+		};
+	}
+
+
+	/** Create a class hierarchy which resolves the classes defined by class files, and delegates other classes to a parent hierarchy.
+	 * Use this when the classes being modified are not available from a class loader.
+	 * @param classFiles the class files
+	 * @param parent the hierarchy for classes not defined by {@code classFiles}
+	 * @return a class hierarchy of {@code classFiles} and {@code parent}
+	 */
+	static ClassHierarchy fromClassFiles(Iterable<ClassFile> classFiles, ClassHierarchy parent) {
+		// class name to super class name and whether the class is an interface
+		var supers = new HashMap<String, String>();
+		var interfaces = new HashSet<String>();
+		for(ClassFile classFile : classFiles) {
+			String name = classFile.getClassIndex().getCpObject().getName().getString();
+			CONSTANT_Class superCls = classFile.getSuperClassIndex() != null && classFile.getSuperClassIndex().getIndex() != 0 ? classFile.getSuperClassIndex().getCpObject() : null;
+			supers.put(name, superCls != null ? superCls.getName().getString() : null);
+			if((classFile.getAccessFlags() & ClassFile.ACC_INTERFACE) != 0) {
+				interfaces.add(name);
+			}
+		}
+
+		return new ClassHierarchy() {
+			@Override
+			public String getSuperClass(String className) {
+				return supers.containsKey(className) ? supers.get(className) : parent.getSuperClass(className);
+			}
+
+			@Override
+			public boolean isInterface(String className) {
+				return supers.containsKey(className) ? interfaces.contains(className) : parent.isInterface(className);
+			}
+		};
+	}
+
+}
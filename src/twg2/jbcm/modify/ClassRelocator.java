@@ -0,0 +1,537 @@
+package twg2.jbcm.modify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileBatchLoader;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.Field_Info;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Annotation;
+import twg2.jbcm.classFormat.attributes.DeferredAttribute;
+import twg2.jbcm.classFormat.attributes.Element_Value;
+import twg2.jbcm.classFormat.attributes.LocalVariableTable.LocalVariablePoint;
+import twg2.jbcm.classFormat.attributes.LocalVariableTypeTable.LocalVariableTypePoint;
+import twg2.jbcm.classFormat.attributes.Record.RecordComponentInfo;
+import twg2.jbcm.classFormat.attributes.Signature;
+import twg2.jbcm.classFormat.attributes.TypeAnnotation;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** Relocates (renames) classes and packages in class files, for example to shade a library's classes into a private package.<br/>
+ * Each {@code CONSTANT_Utf8} entry is classified by how it is referenced: as a class name ({@code CONSTANT_Class}),
+ * a descriptor (fields, methods, {@code CONSTANT_NameAndType}, {@code CONSTANT_MethodType}, local variables, annotations, record components),
+ * or a generic signature ({@code Signature}, {@code LocalVariableTypeTable}).
+ * Descriptors and signatures are parsed and only their class type names are relocated, other strings such as member names
+ * and string constants are not changed. {@code InnerClasses}, {@code EnclosingMethod}, nest attributes, and {@code BootstrapMethods}
+ * arguments reference {@code CONSTANT_Class}, {@code CONSTANT_MethodType}, and {@code CONSTANT_MethodHandle} entries and are relocated through them.<br/>
+ * A {@code CONSTANT_Utf8} entry which is also used by a structure that is not relocated (i.e. a {@code CONSTANT_String} constant
+ * or a member name equal to a relocated class name) is left unchanged, and its class name and descriptor users are pointed at a
+ * {@code CONSTANT_Utf8} entry with the relocated value instead.<br/>
+ * Name lookups are cached and a relocator is thread-safe, so one relocator can be used to relocate many class files in parallel.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassRelocator {
+	private static final byte ROLE_CLASS_NAME = 1;
+	private static final byte ROLE_DESCRIPTOR = 2;
+
+	/** Exact internal class names to their new names */
+	private final Map<String, String> classes;
+	/** Package prefixes (ending with '/') to their new prefixes */
+	private final Map<String, String> packages;
+	private final ConcurrentHashMap<String, String> nameCache;
+
+
+	/**
+	 * @param mapping relocations from old to new names. Keys ending with '/' (or '.') are package prefixes and relocate every
+	 * class in the package and its sub-packages, for example {@code "org/lib/" -> "shaded/org/lib/"}.
+	 * Other keys are class names and also relocate their nested classes, for example {@code "org/lib/A" -> "org/lib/B"} relocates {@code "org/lib/A$1"} to {@code "org/lib/B$1"}.
+	 * Names may use '.' or '/' separators.
+	 */
+	public ClassRelocator(Map<String, String> mapping) {
+		this.classes = new HashMap<>();
+		this.packages = new HashMap<>();
+		this.nameCache = new ConcurrentHashMap<>();
+		for(var entry : mapping.entrySet()) {
+			String from = entry.getKey().replace('.', '/');
+			String to = entry.getValue().replace('.', '/');
+			if(from.endsWith("/")) {
+				packages.put(from, to.isEmpty() || to.endsWith("/") ? to : to + '/');
+			}
+			else {
+				classes.put(from, to);
+			}
+		}
+	}
+
+
+	/** Relocate an internal class name (for example {@code "java/lang/String"})
+	 * @param internalName the class name using '/' separators
+	 * @return the relocated name, or {@code internalName} if it is not relocated
+	 */
+	public String mapClassName(String internalName) {
+		String res = nameCache.get(internalName);
+		if(res == null) {
+			res = relocateName(internalName);
+			nameCache.putIfAbsent(internalName, res);
+		}
+		return res;
+	}
+
+
+	/** Relocate the class names in a field descriptor, method descriptor, or generic signature
+	 * @param signature the descriptor or signature
+	 * @return the relocated descriptor or signature, or {@code signature} if it does not change
+	 * @throws IllegalArgumentException if {@code signature} is malformed
+	 */
+	public String mapSignature(String signature) {
+		if(signature.indexOf('L') < 0) {
+			return signature;
+		}
+		var dst = new StringBuilder(signature.length() + 16);
+		try {
+			int i = 0;
+			int len = signature.length();
+			if(signature.charAt(0) == '<') {
+				i = typeParameters(signature, 0, dst);
+			}
+			while(i < len) {
+				char ch = signature.charAt(i);
+				// method parameters, return type, and throws signatures
+				if(ch == '(' || ch == ')' || ch == '^') {
+					dst.append(ch);
+					i++;
+				}
+				else {
+					i = typeSignature(signature, i, dst);
+				}
+			}
+		} catch(IndexOutOfBoundsException ex) {
+			throw new IllegalArgumentException("malformed descriptor or signature: " + signature, ex);
+		}
+		return signature.contentEquals(dst) ? signature : dst.toString();
+	}
+
+
+	/** Relocate the class names, descriptors, and signatures referenced by a class file
+	 * @param classFile the class file to modify
+	 * @return the number of {@code CONSTANT_Utf8} entries relocated, including shared entries whose users now reference a new entry
+	 */
+	public int relocate(ClassFile classFile) {
+		classFile.loadConstantPool();
+		int count = classFile.getConstantPoolCount();
+		var roles = new RoleVisitor(count, null);
+
+		for(int i = 1; i < count; i++) {
+			CONSTANT_CP_Info cpObj = classFile.getConstantPoolIndex(i).getCpObject();
+			if(cpObj == null) {
+				continue;
+			}
+			if(cpObj instanceof CONSTANT_Class) {
+				roles.mark(((CONSTANT_Class)cpObj).getNameIndex(), ROLE_CLASS_NAME);
+			}
+			else if(cpObj instanceof CONSTANT_NameAndType) {
+				roles.mark(((CONSTANT_NameAndType)cpObj).getDescriptorIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(cpObj instanceof CONSTANT_MethodType) {
+				roles.mark(((CONSTANT_MethodType)cpObj).getDescriptorIndex(), ROLE_DESCRIPTOR);
+			}
+			// count every reference so that entries also used in roles which are not relocated are found
+			cpObj.changeCpIndex(roles);
+		}
+		classFile.changeCpIndexReferences(roles);
+
+		// entries only used as class names and descriptors are changed in place, the others are replaced by new entries
+		int changed = 0;
+		String[] sharedNewStrs = null;
+		for(int i = 1; i < count; i++) {
+			byte role = roles.roles[i];
+			if(role == 0) {
+				continue;
+			}
+			var utf8 = (CONSTANT_Utf8)classFile.getConstantPoolIndex(i).getCpObject();
+			String str = utf8.getString();
+			// class names of array types are descriptors
+			String newStr = (role & ROLE_CLASS_NAME) != 0 && !str.startsWith("[") ? mapClassName(str) : mapSignature(str);
+			if(!newStr.equals(str)) {
+				if(roles.uses[i] > roles.relocatedUses[i]) {
+					if(sharedNewStrs == null) {
+						sharedNewStrs = new String[count];
+					}
+					sharedNewStrs[i] = newStr;
+				}
+				else {
+					utf8.setString(newStr);
+				}
+				changed++;
+			}
+		}
+		if(changed > 0) {
+			classFile.clearConstantPoolLookup();
+		}
+
+		if(sharedNewStrs != null) {
+			// added after the in place changes, so an existing entry found by the builder already has its final value
+			var cpBuilder = new ConstantPoolBuilder(classFile);
+			@SuppressWarnings("unchecked")
+			CpIndex<CONSTANT_Utf8>[] replacements = (CpIndex<CONSTANT_Utf8>[])new CpIndex<?>[count];
+			for(int i = 1; i < count; i++) {
+				if(sharedNewStrs[i] != null) {
+					replacements[i] = cpBuilder.getOrAddUtf8(sharedNewStrs[i]);
+				}
+			}
+			var repoint = new RoleVisitor(count, replacements);
+			for(int i = 1; i < count; i++) {
+				CONSTANT_CP_Info cpObj = classFile.getConstantPoolIndex(i).getCpObject();
+				if(cpObj instanceof CONSTANT_Class) {
+					var cpClass = (CONSTANT_Class)cpObj;
+					cpClass.setNameIndex(repoint.replace(cpClass.getNameIndex()));
+				}
+				else if(cpObj instanceof CONSTANT_NameAndType) {
+					var nameAndType = (CONSTANT_NameAndType)cpObj;
+					nameAndType.setDescriptorIndex(repoint.replace(nameAndType.getDescriptorIndex()));
+				}
+				else if(cpObj instanceof CONSTANT_MethodType) {
+					var methodType = (CONSTANT_MethodType)cpObj;
+					methodType.setDescriptorIndex(repoint.replace(methodType.getDescriptorIndex()));
+				}
+			}
+			classFile.changeCpIndexReferences(repoint);
+			classFile.clearConstantPoolLookup();
+		}
+		return changed;
+	}
+
+
+	/** Load, relocate, and write every class file in a directory tree or archive in parallel.
+	 * Each relocated class file is written to {@code destination} at the path of its relocated class name, other files are not copied.
+	 * @param loader the loader (and executor) to read class files with, class files are relocated and written on the loader's threads
+	 * @param source a directory, or a jar, zip, or jmod file
+	 * @param destination the directory to write relocated class files to
+	 * @return the results of the class files which could not be loaded, relocated, or written, sorted by name
+	 * @throws IOException if {@code source} cannot be opened or listed
+	 */
+	public List<ClassFileBatchLoader.Result> relocateAll(ClassFileBatchLoader loader, Path source, Path destination) throws IOException {
+		var failures = Collections.synchronizedList(new ArrayList<ClassFileBatchLoader.Result>());
+		loader.load(source, (res) -> {
+			ClassFile classFile = res.getClassFile();
+			if(classFile == null) {
+				failures.add(res);
+				return;
+			}
+			try {
+				relocate(classFile);
+				Path dst = destination.resolve(classFile.getClassIndex().getCpObject().getName().getString() + ".class");
+				Files.createDirectories(dst.getParent());
+				Files.write(dst, classFile.toByteArray());
+			} catch(Exception e) {
+				failures.add(ClassFileBatchLoader.Result.failed(res.getName(), e));
+			}
+		});
+		failures.sort((a, b) -> a.getName().compareTo(b.getName()));
+		return failures;
+	}
+
+
+	private String relocateName(String name) {
+		String res = classes.get(name);
+		if(res != null) {
+			return res;
+		}
+		// nested classes of relocated classes
+		for(int i = name.lastIndexOf('$'); i > 0; i = name.lastIndexOf('$', i - 1)) {
+			res = classes.get(name.substring(0, i));
+			if(res != null) {
+				return res + name.substring(i);
+			}
+		}
+		// the longest matching package prefix
+		for(int i = name.lastIndexOf('/'); i > 0; i = name.lastIndexOf('/', i - 1)) {
+			res = packages.get(name.substring(0, i + 1));
+			if(res != null) {
+				return res + name.substring(i + 1);
+			}
+		}
+		return name;
+	}
+
+
+	/** Parse a type signature (or field descriptor) starting at {@code i}, appending the relocated type to {@code dst}
+	 * @return the index following the type
+	 */
+	private int typeSignature(String sig, int i, StringBuilder dst) {
+		char ch = sig.charAt(i);
+		switch(ch) {
+		case 'L':
+			return classTypeSignature(sig, i, dst);
+		case 'T':
+			int end = sig.indexOf(';', i);
+			if(end < 0) {
+				throw new IllegalArgumentException("unterminated type variable at index " + i + " in: " + sig);
+			}
+			dst.append(sig, i, end + 1);
+			return end + 1;
+		case '[':
+		case '+':
+		case '-':
+			dst.append(ch);
+			return typeSignature(sig, i + 1, dst);
+		case '*':
+		case 'B':
+		case 'C':
+		case 'D':
+		case 'F':
+		case 'I':
+		case 'J':
+		case 'S':
+		case 'Z':
+		case 'V':
+			dst.append(ch);
+			return i + 1;
+		default:
+			throw new IllegalArgumentException("invalid type '" + ch + "' at index " + i + " in: " + sig);
+		}
+	}
+
+
+	/** Parse an 'L' class type, including type arguments and inner class suffixes, only the top level class name is relocated
+	 * @return the index following the terminating ';'
+	 */
+	private int classTypeSignature(String sig, int i, StringBuilder dst) {
+		int start = ++i;
+		i = identifierEnd(sig, i);
+		dst.append('L').append(mapClassName(sig.substring(start, i)));
+		while(true) {
+			char ch = sig.charAt(i);
+			if(ch == ';') {
+				dst.append(';');
+				return i + 1;
+			}
+			else if(ch == '<') {
+				dst.append('<');
+				i++;
+				while(sig.charAt(i) != '>') {
+					i = typeSignature(sig, i, dst);
+				}
+				dst.append('>');
+				i++;
+			}
+			else {
+				// '.' inner class simple name
+				start = i;
+				i = identifierEnd(sig, i + 1);
+				dst.append(sig, start, i);
+			}
+		}
+	}
+
+
+	/** Parse formal type parameters, for example {@code <K:Ljava/lang/Object;V::Ljava/lang/Comparable<TV;>;>}
+	 * @return the index following the closing '>'
+	 */
+	private int typeParameters(String sig, int i, StringBuilder dst) {
+		dst.append('<');
+		i++;
+		while(sig.charAt(i) != '>') {
+			int colon = sig.indexOf(':', i);
+			if(colon < 0) {
+				throw new IllegalArgumentException("malformed type parameter at index " + i + " in: " + sig);
+			}
+			dst.append(sig, i, colon);
+			i = colon;
+			// class bound (may be empty) and interface bounds
+			while(sig.charAt(i) == ':') {
+				dst.append(':');
+				i++;
+				char ch = sig.charAt(i);
+				if(ch == 'L' || ch == 'T' || ch == '[') {
+					i = typeSignature(sig, i, dst);
+				}
+			}
+		}
+		dst.append('>');
+		return i + 1;
+	}
+
+
+	private static int identifierEnd(String sig, int i) {
+		int len = sig.length();
+		for(; i < len; i++) {
+			char ch = sig.charAt(i);
+			if(ch == ';' || ch == '<' || ch == '.') {
+				break;
+			}
+		}
+		return i;
+	}
+
+
+
+	/** Records which {@code CONSTANT_Utf8} entries are referenced as class names, descriptors, or signatures by a class file's structures
+	 * and counts all of the references to each entry. If created with a replacement table, the visited class name, descriptor,
+	 * and signature references are instead pointed at their replacement entries
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	private static class RoleVisitor extends CpIndexChanger {
+		private final byte[] roles;
+		/** The number of references to each entry */
+		private final int[] uses;
+		/** The number of references to each entry from relocated roles */
+		private final int[] relocatedUses;
+		/** New entries for relocated references, indexed by old entry, null when recording roles */
+		private final CpIndex<CONSTANT_Utf8>[] replacements;
+
+
+		public RoleVisitor(int constantPoolCount, CpIndex<CONSTANT_Utf8>[] replacements) {
+			super((short)0, (short)0);
+			this.roles = new byte[constantPoolCount];
+			this.uses = new int[constantPoolCount];
+			this.relocatedUses = new int[constantPoolCount];
+			this.replacements = replacements;
+		}
+
+
+		@Override
+		public void indexChange(CpIndexChangeable obj) {
+			if(obj == null) {
+				return;
+			}
+			if(obj instanceof CpIndex) {
+				int index = ((CpIndex<?>)obj).getIndex();
+				if(index < uses.length) {
+					uses[index]++;
+				}
+				return;
+			}
+			if(obj instanceof DeferredAttribute) {
+				obj = ((DeferredAttribute)obj).load();
+			}
+
+			if(replacements != null) {
+				replace(obj);
+			}
+			else if(obj instanceof Field_Info) {
+				mark(((Field_Info)obj).getDescriptorIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof Method_Info) {
+				mark(((Method_Info)obj).getDescriptorIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof Signature) {
+				mark(((Signature)obj).getSignatureIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof LocalVariablePoint) {
+				mark(((LocalVariablePoint)obj).getDescriptorIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof LocalVariableTypePoint) {
+				mark(((LocalVariableTypePoint)obj).getSignatureIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof Annotation) {
+				mark(((Annotation)obj).getTypeIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof TypeAnnotation) {
+				mark(((TypeAnnotation)obj).getTypeIndex(), ROLE_DESCRIPTOR);
+			}
+			else if(obj instanceof Element_Value) {
+				var value = (Element_Value)obj;
+				if(value.getTag() == 'e') {
+					mark(value.getTypeNameIndex(), ROLE_DESCRIPTOR);
+				}
+				else if(value.getTag() == 'c') {
+					mark(value.getClassInfoIndex(), ROLE_DESCRIPTOR);
+				}
+			}
+			else if(obj instanceof RecordComponentInfo) {
+				mark(((RecordComponentInfo)obj).getDescriptor(), ROLE_DESCRIPTOR);
+			}
+			obj.changeCpIndex(this);
+		}
+
+
+		@Override
+		public short indexChange(short currentIndex) {
+			return currentIndex;
+		}
+
+
+		void mark(CpIndex<CONSTANT_Utf8> cpIndex, byte role) {
+			if(cpIndex != null) {
+				roles[cpIndex.getIndex()] |= role;
+				relocatedUses[cpIndex.getIndex()]++;
+			}
+		}
+
+
+		/**
+		 * @return the replacement of {@code cpIndex} or {@code cpIndex} if it is not replaced
+		 */
+		CpIndex<CONSTANT_Utf8> replace(CpIndex<CONSTANT_Utf8> cpIndex) {
+			if(cpIndex != null && cpIndex.getIndex() < replacements.length) {
+				var replacement = replacements[cpIndex.getIndex()];
+				if(replacement != null) {
+					return replacement;
+				}
+			}
+			return cpIndex;
+		}
+
+
+		private void replace(CpIndexChangeable obj) {
+			if(obj instanceof Field_Info) {
+				var field = (Field_Info)obj;
+				field.setDescriptorIndex(replace(field.getDescriptorIndex()));
+			}
+			else if(obj instanceof Method_Info) {
+				var method = (Method_Info)obj;
+				method.setDescriptorIndex(replace(method.getDescriptorIndex()));
+			}
+			else if(obj instanceof Signature) {
+				var signature = (Signature)obj;
+				signature.setSignatureIndex(replace(signature.getSignatureIndex()));
+			}
+			else if(obj instanceof LocalVariablePoint) {
+				var variable = (LocalVariablePoint)obj;
+				variable.setDescriptorIndex(replace(variable.getDescriptorIndex()));
+			}
+			else if(obj instanceof LocalVariableTypePoint) {
+				var variable = (LocalVariableTypePoint)obj;
+				variable.setSignatureIndex(replace(variable.getSignatureIndex()));
+			}
+			else if(obj instanceof Annotation) {
+				var annotation = (Annotation)obj;
+				annotation.setTypeIndex(replace(annotation.getTypeIndex()));
+			}
+			else if(obj instanceof TypeAnnotation) {
+				var annotation = (TypeAnnotation)obj;
+				annotation.setTypeIndex(replace(annotation.getTypeIndex()));
+			}
+			else if(obj instanceof Element_Value) {
+				var value = (Element_Value)obj;
+				if(value.getTag() == 'e') {
+					value.setTypeNameIndex(replace(value.getTypeNameIndex()));
+				}
+				else if(value.getTag() == 'c') {
+					value.setClassInfoIndex(replace(value.getClassInfoIndex()));
+				}
+			}
+			else if(obj instanceof RecordComponentInfo) {
+				var component = (RecordComponentInfo)obj;
+				component.setDescriptor(replace(component.getDescriptor()));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,749 @@
+package twg2.jbcm.modify;
+
+import java.util.Arrays;
+
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.LineNumberTable;
+import twg2.jbcm.classFormat.attributes.LocalVariableTable;
+import twg2.jbcm.classFormat.attributes.LocalVariableTypeTable;
+import twg2.jbcm.classFormat.attributes.StackMapTable;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+
+/** Assembles method code from instructions which jump to symbolic {@link Label}s instead of code offsets.
+ * Instructions are recorded in primitive arrays, {@link #assemble()} lays out the code and encodes it in one pass
+ * once every jump fits. The layout starts with every jump in its short form and repeatedly widens jumps whose offset does not
+ * fit in 16 bits: {@code goto} and {@code jsr} become {@code goto_w} and {@code jsr_w}, and a conditional jump becomes
+ * the inverted condition jumping over a {@code goto_w} to the target. Widening only moves code forward so the layout always terminates.
+ * {@code tableswitch} and {@code lookupswitch} padding is recomputed for each layout.<br/>
+ * Local variable instructions use their implicit index form (i.e. {@code iload_2}) when possible and a {@code wide} prefix when needed.
+ * Constant pool entries for class, field, and method references are added using a {@link ConstantPoolBuilder}.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class CodeBuilder {
+	private static final int MAX_CODE_LENGTH = 65535;
+	private static final int GOTO = Opcodes.GOTO.opcode();
+	private static final int GOTO_W = Opcodes.GOTO_W.opcode();
+	private static final int JSR = Opcodes.JSR.opcode();
+	private static final int JSR_W = Opcodes.JSR_W.opcode();
+	private static final int IINC = Opcodes.IINC.opcode();
+	private static final int WIDE = Opcodes.WIDE.opcode();
+	private static final int TABLESWITCH = Opcodes.TABLESWITCH.opcode();
+	private static final int LOOKUPSWITCH = Opcodes.LOOKUPSWITCH.opcode();
+	private static final int LDC = Opcodes.LDC.opcode();
+
+
+	/** A code position created by {@link CodeBuilder#newLabel()} and placed before the next instruction by {@link CodeBuilder#mark(Label)}
+	 * @author TeamworkGuy2
+	 * @since 2026-10-18
+	 */
+	public static final class Label {
+		private final CodeBuilder owner;
+		private final int id;
+
+
+		private Label(CodeBuilder owner, int id) {
+			this.owner = owner;
+			this.id = id;
+		}
+
+
+		@Override
+		public String toString() {
+			return "L" + id;
+		}
+	}
+
+
+	private final ConstantPoolBuilder cpBuilder;
+	private int count;
+	private int[] opcodes = new int[32];
+	/** The local variable index, constant pool index, label id, {@link #switchData} offset, or immediate value of each instruction */
+	private int[] operands = new int[32];
+	/** The {@code iinc} increment, {@code invokeinterface} argument count, or {@code multianewarray} dimensions of each instruction */
+	private int[] operands2 = new int[32];
+	/** The instruction number each label is placed before, -1 if the label has not been placed */
+	private int[] labelInstructions = new int[8];
+	private int labelCount;
+	/** Switch default label, then tableswitch low, high, and target labels or lookupswitch pair count and key and target label pairs */
+	private int[] switchData = new int[16];
+	private int switchDataSize;
+	/** Exception handler start, end, and handler labels and catch type constant pool index (0 catches all exceptions) */
+	private int[] handlers = new int[8];
+	private int handlerCount;
+	/** The code offset of each instruction, and the code length as the last element, from the last {@link #assemble()} */
+	private int[] pcs;
+	/** Whether each jump instruction uses its wide form, from the last {@link #assemble()} */
+	private boolean[] widened;
+
+
+	/**
+	 * @param cpBuilder the constant pool builder of the class file the code will be added to
+	 */
+	public CodeBuilder(ConstantPoolBuilder cpBuilder) {
+		this.cpBuilder = cpBuilder;
+	}
+
+
+	public ConstantPoolBuilder getConstantPoolBuilder() {
+		return cpBuilder;
+	}
+
+
+	/**
+	 * @return the number of instructions added to this builder
+	 */
+	public int getInstructionCount() {
+		return count;
+	}
+
+
+	/**
+	 * @return a new label which has not been placed
+	 */
+	public Label newLabel() {
+		if(labelCount == labelInstructions.length) {
+			labelInstructions = Arrays.copyOf(labelInstructions, labelCount * 2);
+		}
+		labelInstructions[labelCount] = -1;
+		return new Label(this, labelCount++);
+	}
+
+
+	/** Place a label before the next instruction added to this builder
+	 * @param label the label
+	 * @return this builder
+	 * @throws IllegalStateException if the label has already been placed
+	 */
+	public CodeBuilder mark(Label label) {
+		int id = labelId(label);
+		if(labelInstructions[id] >= 0) {
+			throw new IllegalStateException("label " + label + " has already been placed");
+		}
+		labelInstructions[id] = count;
+		return this;
+	}
+
+
+	/** Add an instruction without operands, i.e. {@code iadd}, {@code aload_0}, or {@code areturn}
+	 * @param opcode the instruction
+	 * @return this builder
+	 */
+	public CodeBuilder insn(Opcodes opcode) {
+		if(OpcodeTables.length(opcode.opcode()) != 1) {
+			throw new IllegalArgumentException(opcode.displayName() + " has operands");
+		}
+		return add(opcode.opcode(), 0, 0);
+	}
+
+
+	/** Add a {@code bipush}, {@code sipush}, or {@code newarray} instruction
+	 * @param opcode the instruction
+	 * @param operand the byte or short value to push, or the {@code newarray} array type
+	 * @return this builder
+	 */
+	public CodeBuilder intInsn(Opcodes opcode, int operand) {
+		switch(opcode) {
+		case BIPUSH:
+			checkRange(opcode, operand, Byte.MIN_VALUE, Byte.MAX_VALUE);
+			break;
+		case SIPUSH:
+			checkRange(opcode, operand, Short.MIN_VALUE, Short.MAX_VALUE);
+			break;
+		case NEWARRAY:
+			checkRange(opcode, operand, 4, 11);
+			break;
+		default:
+			throw new IllegalArgumentException(opcode.displayName() + " does not have an int operand");
+		}
+		return add(opcode.opcode(), operand, 0);
+	}
+
+
+	/** Push an int constant using the shortest of {@code iconst_<i>}, {@code bipush}, {@code sipush}, or {@code ldc}
+	 * @param value the value
+	 * @return this builder
+	 */
+	public CodeBuilder iconst(int value) {
+		if(value >= -1 && value <= 5) {
+			return add(Opcodes.ICONST_0.opcode() + value, 0, 0);
+		}
+		else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			return add(Opcodes.BIPUSH.opcode(), value, 0);
+		}
+		else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			return add(Opcodes.SIPUSH.opcode(), value, 0);
+		}
+		return ldc(cpBuilder.getOrAddInteger(value));
+	}
+
+
+	/** Add a local variable load or store, or a {@code ret} instruction. Loads and stores of locals 0 to 3 use their implicit index form
+	 * and locals larger than 255 use a {@code wide} instruction.
+	 * @param opcode the instruction, i.e. {@code iload}, {@code astore}, or {@code ret}
+	 * @param local the local variable index
+	 * @return this builder
+	 */
+	public CodeBuilder varInsn(Opcodes opcode, int local) {
+		int opc = opcode.opcode();
+		if(OpcodeTables.localVariableSize(opc) == 0 || OpcodeTables.implicitLocalVariable(opc) >= 0 || opc == IINC) {
+			throw new IllegalArgumentException(opcode.displayName() + " is not a local variable instruction with an index operand");
+		}
+		checkRange(opcode, local, 0, 0xFFFF);
+		if(local <= 3) {
+			if(opcode.hasBehavior(Opcodes.Type.VAR_LOAD)) {
+				return add(Opcodes.ILOAD_0.opcode() + (opc - Opcodes.ILOAD.opcode()) * 4 + local, 0, 0);
+			}
+			if(opcode.hasBehavior(Opcodes.Type.VAR_STORE)) {
+				return add(Opcodes.ISTORE_0.opcode() + (opc - Opcodes.ISTORE.opcode()) * 4 + local, 0, 0);
+			}
+		}
+		return add(opc, local, 0);
+	}
+
+
+	/** Add an {@code iinc} instruction, using a {@code wide} instruction if the local or increment does not fit in a byte
+	 * @param local the local variable index
+	 * @param increment the signed increment
+	 * @return this builder
+	 */
+	public CodeBuilder iinc(int local, int increment) {
+		checkRange(Opcodes.IINC, local, 0, 0xFFFF);
+		checkRange(Opcodes.IINC, increment, Short.MIN_VALUE, Short.MAX_VALUE);
+		return add(IINC, local, increment);
+	}
+
+
+	/** Add a jump to a label. {@code goto}, {@code jsr}, and conditional jumps are widened if the target is too far away
+	 * @param opcode the jump instruction, i.e. {@code goto}, {@code ifeq}, or {@code if_acmpne}
+	 * @param target the jump target
+	 * @return this builder
+	 */
+	public CodeBuilder jump(Opcodes opcode, Label target) {
+		if(!opcode.hasBehavior(Opcodes.Type.JUMP)) {
+			throw new IllegalArgumentException(opcode.displayName() + " is not a jump instruction");
+		}
+		return add(opcode.opcode(), labelId(target), 0);
+	}
+
+
+	/** Add a {@code tableswitch}
+	 * @param low the key of the first target
+	 * @param defaultTarget the target of keys outside of {@code [low, low + targets.length - 1]}
+	 * @param targets the targets of the keys starting from {@code low}
+	 * @return this builder
+	 */
+	public CodeBuilder tableswitch(int low, Label defaultTarget, Label... targets) {
+		if(targets.length == 0 || low + (long)targets.length - 1 > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("invalid tableswitch range, low " + low + ", " + targets.length + " targets");
+		}
+		int offset = addSwitchData(3 + targets.length);
+		switchData[offset] = labelId(defaultTarget);
+		switchData[offset + 1] = low;
+		switchData[offset + 2] = low + targets.length - 1;
+		for(int i = 0; i < targets.length; i++) {
+			switchData[offset + 3 + i] = labelId(targets[i]);
+		}
+		return add(TABLESWITCH, offset, 0);
+	}
+
+
+	/** Add a {@code lookupswitch}, the keys are sorted as required by the instruction
+	 * @param defaultTarget the target of keys which are not in {@code keys}
+	 * @param keys the unique keys
+	 * @param targets the target of each key
+	 * @return this builder
+	 */
+	public CodeBuilder lookupswitch(Label defaultTarget, int[] keys, Label[] targets) {
+		if(keys.length != targets.length) {
+			throw new IllegalArgumentException("lookupswitch has " + keys.length + " keys and " + targets.length + " targets");
+		}
+		int n = keys.length;
+		long[] sorted = new long[n];
+		for(int i = 0; i < n; i++) {
+			// sort the keys with their target indexes packed in the low bits
+			sorted[i] = ((long)keys[i] << 32) | i;
+		}
+		Arrays.sort(sorted);
+		int offset = addSwitchData(2 + n * 2);
+		switchData[offset] = labelId(defaultTarget);
+		switchData[offset + 1] = n;
+		for(int i = 0; i < n; i++) {
+			int key = (int)(sorted[i] >> 32);
+			if(i > 0 && key == switchData[offset + i * 2]) {
+				throw new IllegalArgumentException("duplicate lookupswitch key " + key);
+			}
+			switchData[offset + 2 + i * 2] = key;
+			switchData[offset + 3 + i * 2] = labelId(targets[(int)sorted[i]]);
+		}
+		return add(LOOKUPSWITCH, offset, 0);
+	}
+
+
+	/** Add an {@code ldc}, {@code ldc_w}, or {@code ldc2_w} instruction depending on the constant's index and type
+	 * @param constant an int, float, long, double, string, class, method type, or method handle constant
+	 * @return this builder
+	 */
+	public CodeBuilder ldc(CpIndex<? extends CONSTANT_CP_Info> constant) {
+		CONSTANT_CP_Info value = constant.getCpObject();
+		int index = constant.getIndex();
+		if(value instanceof CONSTANT_Long || value instanceof CONSTANT_Double) {
+			return add(Opcodes.LDC2_W.opcode(), index, 0);
+		}
+		return add(index <= 0xFF ? LDC : Opcodes.LDC_W.opcode(), index, 0);
+	}
+
+
+	/** Push a string constant
+	 * @param str the string
+	 * @return this builder
+	 */
+	public CodeBuilder ldc(String str) {
+		return ldc(cpBuilder.getOrAddString(str));
+	}
+
+
+	/** Add an instruction with a constant pool index operand, the {@code invokeinterface} argument count is calculated from the method descriptor
+	 * @param opcode the instruction, i.e. {@code getfield}, {@code invokevirtual}, {@code new}, or {@code ldc_w}
+	 * @param index the constant pool entry
+	 * @return this builder
+	 */
+	public CodeBuilder cpInsn(Opcodes opcode, CpIndex<? extends CONSTANT_CP_Info> index) {
+		int opc = opcode.opcode();
+		if(!opcode.hasBehavior(Opcodes.Type.CP_INDEX) || opcode == Opcodes.MULTIANEWARRAY) {
+			throw new IllegalArgumentException(opcode.displayName() + " does not have a constant pool index operand");
+		}
+		if(opc == LDC && index.getIndex() > 0xFF) {
+			throw new IllegalArgumentException("ldc constant pool index " + index.getIndex() + " does not fit in a byte, use ldc_w");
+		}
+		int operand2 = 0;
+		if(opcode == Opcodes.INVOKEINTERFACE) {
+			String descriptor = ((CONSTANT_InterfaceMethodref)index.getCpObject()).getNameAndType().getDescriptor().getString();
+			operand2 = 1 + TypeUtility.methodParameterSlots(descriptor);
+		}
+		return add(opc, index.getIndex(), operand2);
+	}
+
+
+	/** Add a {@code new}, {@code anewarray}, {@code checkcast}, or {@code instanceof} instruction
+	 * @param opcode the instruction
+	 * @param className the internal name of the class or array type, i.e. {@code java/lang/String}
+	 * @return this builder
+	 */
+	public CodeBuilder typeInsn(Opcodes opcode, String className) {
+		if(opcode != Opcodes.NEW && opcode != Opcodes.ANEWARRAY && opcode != Opcodes.CHECKCAST && opcode != Opcodes.INSTANCEOF) {
+			throw new IllegalArgumentException(opcode.displayName() + " is not a type instruction");
+		}
+		return cpInsn(opcode, cpBuilder.getOrAddClass(className));
+	}
+
+
+	/** Add a {@code getstatic}, {@code putstatic}, {@code getfield}, or {@code putfield} instruction
+	 * @param opcode the instruction
+	 * @param owner the internal name of the field's class
+	 * @param name the field name
+	 * @param descriptor the field descriptor
+	 * @return this builder
+	 */
+	public CodeBuilder fieldInsn(Opcodes opcode, String owner, String name, String descriptor) {
+		if(opcode != Opcodes.GETSTATIC && opcode != Opcodes.PUTSTATIC && opcode != Opcodes.GETFIELD && opcode != Opcodes.PUTFIELD) {
+			throw new IllegalArgumentException(opcode.displayName() + " is not a field instruction");
+		}
+		return cpInsn(opcode, cpBuilder.getOrAddFieldref(owner, name, descriptor));
+	}
+
+
+	/** Add an {@code invokevirtual}, {@code invokespecial}, {@code invokestatic}, or {@code invokeinterface} instruction
+	 * of a class method, or an interface method if the opcode is {@code invokeinterface}
+	 * @see #methodInsn(Opcodes, String, String, String, boolean)
+	 */
+	public CodeBuilder methodInsn(Opcodes opcode, String owner, String name, String descriptor) {
+		return methodInsn(opcode, owner, name, descriptor, opcode == Opcodes.INVOKEINTERFACE);
+	}
+
+
+	/** Add an {@code invokevirtual}, {@code invokespecial}, {@code invokestatic}, or {@code invokeinterface} instruction
+	 * @param opcode the instruction
+	 * @param owner the internal name of the method's class or interface
+	 * @param name the method name
+	 * @param descriptor the method descriptor
+	 * @param isInterface true if {@code owner} is an interface
+	 * @return this builder
+	 */
+	public CodeBuilder methodInsn(Opcodes opcode, String owner, String name, String descriptor, boolean isInterface) {
+		if(opcode != Opcodes.INVOKEVIRTUAL && opcode != Opcodes.INVOKESPECIAL && opcode != Opcodes.INVOKESTATIC && opcode != Opcodes.INVOKEINTERFACE) {
+			throw new IllegalArgumentException(opcode.displayName() + " is not a method instruction");
+		}
+		if(isInterface) {
+			return cpInsn(opcode, cpBuilder.getOrAddInterfaceMethodref(owner, name, descriptor));
+		}
+		return cpInsn(opcode, cpBuilder.getOrAddMethodref(owner, name, descriptor));
+	}
+
+
+	/** Add an {@code invokedynamic} instruction
+	 * @param bootstrapMethodAttrIndex the index of the call site's bootstrap method in the class's {@code BootstrapMethods} attribute
+	 * @param name the call site name
+	 * @param descriptor the call site method descriptor
+	 * @return this builder
+	 */
+	public CodeBuilder invokeDynamic(int bootstrapMethodAttrIndex, String name, String descriptor) {
+		return cpInsn(Opcodes.INVOKEDYNAMIC, cpBuilder.getOrAddInvokeDynamic(bootstrapMethodAttrIndex, name, descriptor));
+	}
+
+
+	/** Add a {@code multianewarray} instruction
+	 * @param arrayClassName the array type descriptor, i.e. {@code [[I}
+	 * @param dimensions the number of dimensions to create, between 1 and the array type's dimensions
+	 * @return this builder
+	 */
+	public CodeBuilder multianewarray(String arrayClassName, int dimensions) {
+		checkRange(Opcodes.MULTIANEWARRAY, dimensions, 1, 0xFF);
+		CpIndex<CONSTANT_Class> index = cpBuilder.getOrAddClass(arrayClassName);
+		return add(Opcodes.MULTIANEWARRAY.opcode(), index.getIndex(), dimensions);
+	}
+
+
+	/** Declare an exception handler, handlers are added to the exception table in the order they are declared
+	 * @param start the start of the covered code, inclusive
+	 * @param end the end of the covered code, exclusive
+	 * @param handler the start of the handler code
+	 * @param catchType the internal name of the caught exception class, null to catch all exceptions
+	 * @return this builder
+	 */
+	public CodeBuilder tryCatch(Label start, Label end, Label handler, String catchType) {
+		if(handlerCount * 4 == handlers.length) {
+			handlers = Arrays.copyOf(handlers, handlers.length * 2);
+		}
+		int offset = handlerCount * 4;
+		handlers[offset] = labelId(start);
+		handlers[offset + 1] = labelId(end);
+		handlers[offset + 2] = labelId(handler);
+		handlers[offset + 3] = catchType != null ? cpBuilder.getOrAddClass(catchType).getIndex() : 0;
+		handlerCount++;
+		return this;
+	}
+
+
+	/** Lay out and encode the instructions added to this builder
+	 * @return the code array
+	 * @throws IllegalStateException if a label used by an instruction or exception handler has not been placed,
+	 * an exception handler range is empty, or the code is longer than 65535 bytes
+	 */
+	public byte[] assemble() {
+		for(int i = 0; i < count; i++) {
+			int opcode = opcodes[i];
+			if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+				checkPlaced(operands[i]);
+			}
+			else if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+				int offset = operands[i];
+				checkPlaced(switchData[offset]);
+				int n = switchCount(i);
+				for(int j = 0; j < n; j++) {
+					checkPlaced(switchData[switchTargetIndex(i, j)]);
+				}
+			}
+		}
+		for(int h = 0; h < handlerCount * 4; h += 4) {
+			checkPlaced(handlers[h]);
+			checkPlaced(handlers[h + 1]);
+			checkPlaced(handlers[h + 2]);
+		}
+
+		layout();
+		int length = pcs[count];
+		if(length > MAX_CODE_LENGTH) {
+			throw new IllegalStateException("code length " + length + " exceeds the maximum of " + MAX_CODE_LENGTH + " bytes");
+		}
+		for(int h = 0; h < handlerCount * 4; h += 4) {
+			if(labelPc(handlers[h]) >= labelPc(handlers[h + 1])) {
+				throw new IllegalStateException("exception handler " + (h / 4) + " covers an empty range");
+			}
+		}
+
+		byte[] code = new byte[length];
+		for(int i = 0; i < count; i++) {
+			write(i, code);
+		}
+		return code;
+	}
+
+
+	/** Replace a method's code and exception table with this builder's code. {@code LineNumberTable}, {@code LocalVariableTable},
+	 * {@code LocalVariableTypeTable}, and {@code StackMapTable} attributes describe the old code so they are removed,
+	 * {@link StackMapFrameComputer#update(twg2.jbcm.classFormat.Method_Info, ClassHierarchy, ConstantPoolBuilder)} can recreate the frames.
+	 * The code's {@code max_stack} and {@code max_locals} are recomputed.
+	 * @param code the code attribute, which must belong to this builder's class file
+	 */
+	public void replaceCode(Code code) {
+		if(code.getResolver() != cpBuilder.getClassFile()) {
+			throw new IllegalArgumentException("code belongs to a different class file than this builder's constant pool");
+		}
+		byte[] bytes = assemble();
+		var exceptionTable = new Code.ExceptionPoint[handlerCount];
+		for(int i = 0; i < handlerCount; i++) {
+			int h = i * 4;
+			int catchType = handlers[h + 3];
+			exceptionTable[i] = new Code.ExceptionPoint(code, labelPc(handlers[h]), labelPc(handlers[h + 1]), labelPc(handlers[h + 2]),
+					catchType != 0 ? cpBuilder.getClassFile().getCheckCpIndex(catchType, CONSTANT_Class.class) : null);
+		}
+		code.setCode(bytes);
+		code.setExceptionTable(exceptionTable);
+		code.removeAttribute(LineNumberTable.ATTRIBUTE_NAME);
+		code.removeAttribute(LocalVariableTable.ATTRIBUTE_NAME);
+		code.removeAttribute(LocalVariableTypeTable.ATTRIBUTE_NAME);
+		code.removeAttribute(StackMapTable.ATTRIBUTE_NAME);
+		code.recomputeMaxs();
+	}
+
+
+	/**
+	 * @param label a placed label
+	 * @return the label's code offset in the last {@link #assemble()} result
+	 */
+	public int getLabelPc(Label label) {
+		if(pcs == null) {
+			throw new IllegalStateException("code has not been assembled");
+		}
+		int id = labelId(label);
+		checkPlaced(id);
+		return labelPc(id);
+	}
+
+
+	/**
+	 * @param instrIdx an instruction number
+	 * @return true if the jump instruction was widened by the last {@link #assemble()}, for {@code goto} and {@code jsr} this means
+	 * {@code goto_w} and {@code jsr_w} were used, for conditional jumps it means the inverted condition and a {@code goto_w} were used
+	 */
+	public boolean isWidened(int instrIdx) {
+		return widened != null && widened[instrIdx];
+	}
+
+
+	/** Compute the code offset of each instruction, widening jumps until every jump offset fits
+	 */
+	private void layout() {
+		int[] pcs = new int[count + 1];
+		boolean[] widened = new boolean[count];
+		boolean changed = true;
+		while(changed) {
+			int pc = 0;
+			for(int i = 0; i < count; i++) {
+				pcs[i] = pc;
+				pc += instructionSize(i, pc, widened[i]);
+			}
+			pcs[count] = pc;
+
+			changed = false;
+			for(int i = 0; i < count; i++) {
+				int opcode = opcodes[i];
+				if(!widened[i] && OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP) && opcode != GOTO_W && opcode != JSR_W) {
+					int offset = pcs[labelInstructions[operands[i]]] - pcs[i];
+					if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+						widened[i] = true;
+						changed = true;
+					}
+				}
+			}
+		}
+		this.pcs = pcs;
+		this.widened = widened;
+	}
+
+
+	private int instructionSize(int i, int pc, boolean wide) {
+		int opcode = opcodes[i];
+		if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+			int padded = ((pc + 4) & ~3) - pc;
+			return padded + (opcode == TABLESWITCH ? 12 + switchCount(i) * 4 : 8 + switchCount(i) * 8);
+		}
+		else if(opcode == GOTO_W || opcode == JSR_W) {
+			return 5;
+		}
+		else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+			// a widened conditional jump is the inverted condition and a goto_w
+			return !wide ? 3 : (opcode == GOTO || opcode == JSR ? 5 : 8);
+		}
+		else if(opcode == IINC) {
+			int increment = operands2[i];
+			return operands[i] > 0xFF || increment < Byte.MIN_VALUE || increment > Byte.MAX_VALUE ? 6 : 3;
+		}
+		else if(OpcodeTables.localVariableSize(opcode) > 0 && OpcodeTables.implicitLocalVariable(opcode) < 0) {
+			return operands[i] > 0xFF ? 4 : 2;
+		}
+		return OpcodeTables.length(opcode);
+	}
+
+
+	private void write(int i, byte[] code) {
+		int opcode = opcodes[i];
+		int pc = pcs[i];
+		int operand = operands[i];
+		if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+			code[pc] = (byte)opcode;
+			int pos = (pc + 4) & ~3;
+			IoUtility.writeInt(labelPc(switchData[operand]) - pc, code, pos);
+			IoUtility.writeInt(switchData[operand + 1], code, pos + 4);
+			pos += 8;
+			if(opcode == TABLESWITCH) {
+				IoUtility.writeInt(switchData[operand + 2], code, pos);
+				pos += 4;
+			}
+			for(int j = 0, n = switchCount(i); j < n; j++) {
+				if(opcode == LOOKUPSWITCH) {
+					IoUtility.writeInt(switchData[operand + 2 + j * 2], code, pos);
+					pos += 4;
+				}
+				IoUtility.writeInt(labelPc(switchData[switchTargetIndex(i, j)]) - pc, code, pos);
+				pos += 4;
+			}
+		}
+		else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+			int target = labelPc(operand);
+			if(opcode == GOTO_W || opcode == JSR_W || (widened[i] && (opcode == GOTO || opcode == JSR))) {
+				code[pc] = (byte)(opcode == GOTO || opcode == GOTO_W ? GOTO_W : JSR_W);
+				IoUtility.writeInt(target - pc, code, pc + 1);
+			}
+			else if(widened[i]) {
+				code[pc] = (byte)invertCondition(opcode);
+				IoUtility.writeShort((short)8, code, pc + 1);
+				code[pc + 3] = (byte)GOTO_W;
+				IoUtility.writeInt(target - (pc + 3), code, pc + 4);
+			}
+			else {
+				code[pc] = (byte)opcode;
+				IoUtility.writeShort((short)(target - pc), code, pc + 1);
+			}
+		}
+		else if(opcode == IINC && pcs[i + 1] - pc == 6) {
+			code[pc] = (byte)WIDE;
+			code[pc + 1] = (byte)opcode;
+			IoUtility.writeShort((short)operand, code, pc + 2);
+			IoUtility.writeShort((short)operands2[i], code, pc + 4);
+		}
+		else if(opcode != IINC && OpcodeTables.localVariableSize(opcode) > 0 && OpcodeTables.implicitLocalVariable(opcode) < 0 && operand > 0xFF) {
+			code[pc] = (byte)WIDE;
+			code[pc + 1] = (byte)opcode;
+			IoUtility.writeShort((short)operand, code, pc + 2);
+		}
+		else {
+			code[pc] = (byte)opcode;
+			switch(OpcodeTables.length(opcode)) {
+			case 2:
+				code[pc + 1] = (byte)operand;
+				break;
+			case 3:
+				// iinc's index and increment are each one byte, other operands are two bytes
+				if(opcode == IINC) {
+					code[pc + 1] = (byte)operand;
+					code[pc + 2] = (byte)operands2[i];
+				}
+				else {
+					IoUtility.writeShort((short)operand, code, pc + 1);
+				}
+				break;
+			case 4:
+			case 5:
+				// multianewarray dimensions, invokeinterface count and zero, invokedynamic zeros
+				IoUtility.writeShort((short)operand, code, pc + 1);
+				code[pc + 3] = (byte)operands2[i];
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+
+	/**
+	 * @param opcode a conditional jump opcode
+	 * @return the opcode which jumps when the condition is false
+	 */
+	private static int invertCondition(int opcode) {
+		// ifeq...if_acmpne are pairs of opposite conditions, as are ifnull and ifnonnull
+		if(opcode >= Opcodes.IFEQ.opcode() && opcode <= Opcodes.IF_ACMPNE.opcode()) {
+			return ((opcode - Opcodes.IFEQ.opcode()) ^ 1) + Opcodes.IFEQ.opcode();
+		}
+		if(opcode == Opcodes.IFNULL.opcode() || opcode == Opcodes.IFNONNULL.opcode()) {
+			return opcode == Opcodes.IFNULL.opcode() ? Opcodes.IFNONNULL.opcode() : Opcodes.IFNULL.opcode();
+		}
+		throw new IllegalStateException("not a conditional jump " + Opcodes.get(opcode).displayName());
+	}
+
+
+	private int switchCount(int i) {
+		int offset = operands[i];
+		return opcodes[i] == TABLESWITCH ? switchData[offset + 2] - switchData[offset + 1] + 1 : switchData[offset + 1];
+	}
+
+
+	private int switchTargetIndex(int i, int j) {
+		int offset = operands[i];
+		return opcodes[i] == TABLESWITCH ? offset + 3 + j : offset + 3 + j * 2;
+	}
+
+
+	private int labelPc(int id) {
+		return pcs[labelInstructions[id]];
+	}
+
+
+	private int labelId(Label label) {
+		if(label.owner != this) {
+			throw new IllegalArgumentException("label " + label + " belongs to a different builder");
+		}
+		return label.id;
+	}
+
+
+	private void checkPlaced(int id) {
+		if(labelInstructions[id] < 0) {
+			throw new IllegalStateException("label L" + id + " has not been placed");
+		}
+	}
+
+
+	private int addSwitchData(int size) {
+		if(switchDataSize + size > switchData.length) {
+			switchData = Arrays.copyOf(switchData, Math.max(switchData.length * 2, switchDataSize + size));
+		}
+		int offset = switchDataSize;
+		switchDataSize += size;
+		return offset;
+	}
+
+
+	private CodeBuilder add(int opcode, int operand, int operand2) {
+		if(count == opcodes.length) {
+			int size = count * 2;
+			opcodes = Arrays.copyOf(opcodes, size);
+			operands = Arrays.copyOf(operands, size);
+			operands2 = Arrays.copyOf(operands2, size);
+		}
+		opcodes[count] = opcode;
+		operands[count] = operand;
+		operands2[count] = operand2;
+		count++;
+		this.pcs = null;
+		this.widened = null;
+		return this;
+	}
+
+
+	private static void checkRange(Opcodes opcode, int value, int min, int max) {
+		if(value < min || value > max) {
+			throw new IllegalArgumentException(opcode.displayName() + " operand " + value + " out of range [" + min + ", " + max + "]");
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+package twg2.jbcm.modify;
+
+import java.util.Arrays;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** Relocates a method's code offsets using an old to new code offset table, see {@link Code#insertCode(int, byte[])} and {@link Code#replaceInstructions(byte[][])}.<br/>
+ * The table is built once for a code modification and then used to re-encode the code's branch and switch offsets
+ * (see {@link #remapCode(InstructionIndex, byte[])}) and to update every offset-bearing structure of the {@link Code} attribute,
+ * its exception table and each nested {@link OffsetAttribute} (see {@link Code#remapOffsets(CodeOffsetRemapper)}),
+ * so a modification costs one pass over the code and one pass over each structure.<br/>
+ * Two tables are kept since an offset may be the start of a range (i.e. a branch target, an exception handler's {@code start_pc})
+ * or the exclusive end of a range (i.e. an exception handler's {@code end_pc}), and code inserted between two old instructions
+ * belongs to neither, it is after the end of ranges that end at the insertion point and before the start of ranges that start there.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class CodeOffsetRemapper {
+	private static final int TABLESWITCH = Opcodes.TABLESWITCH.opcode();
+	private static final int LOOKUPSWITCH = Opcodes.LOOKUPSWITCH.opcode();
+	private static final int GOTO_W = Opcodes.GOTO_W.opcode();
+	private static final int JSR_W = Opcodes.JSR_W.opcode();
+
+	/** Maps old code offsets [0, old code length] to new code offsets when the offset is the start of an instruction or range */
+	protected final int[] oldToNew;
+	/** Maps old code offsets [0, old code length] to new code offsets when the offset is the exclusive end of a range */
+	protected final int[] oldEndToNew;
+	/** The replacement bytes of each old instruction, indexed by instruction number, null elements (or a null array) keep the old instruction */
+	private final byte[][] replacements;
+
+
+	/**
+	 * @param oldToNew the new code offset of each old code offset when used as an instruction or range start, size [old code length + 1]
+	 * @param oldEndToNew the new code offset of each old code offset when used as a range's exclusive end, size [old code length + 1]
+	 */
+	public CodeOffsetRemapper(int[] oldToNew, int[] oldEndToNew) {
+		if(oldToNew.length != oldEndToNew.length) {
+			throw new IllegalArgumentException("start offset table length " + oldToNew.length + " does not match end offset table length " + oldEndToNew.length);
+		}
+		this.oldToNew = oldToNew;
+		this.oldEndToNew = oldEndToNew;
+		this.replacements = null;
+	}
+
+
+	private CodeOffsetRemapper(int[] oldToNew, int[] oldEndToNew, byte[][] replacements) {
+		this.oldToNew = oldToNew;
+		this.oldEndToNew = oldEndToNew;
+		this.replacements = replacements;
+	}
+
+
+	/**
+	 * @return the length of the code before remapping
+	 */
+	public int getOldCodeLength() {
+		return oldToNew.length - 1;
+	}
+
+
+	/**
+	 * @return the length of the code after remapping
+	 */
+	public int getNewCodeLength() {
+		return oldToNew[oldToNew.length - 1];
+	}
+
+
+	/**
+	 * @param oldOffset a code offset before remapping, in the range [0, old code length]
+	 * @return the new offset of the instruction at {@code oldOffset}
+	 */
+	public int getNewOffset(int oldOffset) {
+		return oldToNew[oldOffset];
+	}
+
+
+	/**
+	 * @param oldEndOffset the exclusive end of a code range before remapping, in the range [0, old code length]
+	 * @return the new exclusive end of the range
+	 */
+	public int getNewEndOffset(int oldEndOffset) {
+		return oldEndToNew[oldEndOffset];
+	}
+
+
+	/** Remap the code offsets of each of the attributes
+	 * @param objs the attributes, null elements are ignored
+	 */
+	public void remapOffsets(OffsetAttribute[] objs) {
+		if(objs != null) {
+			for(OffsetAttribute obj : objs) {
+				if(obj != null) {
+					obj.remapOffsets(this);
+				}
+			}
+		}
+	}
+
+
+	/** Copy every instruction of the old code to its new offset in {@code newCode} and re-encode the relative
+	 * branch and switch offsets of each instruction, switch padding is recomputed for the instruction's new alignment.
+	 * Bytes of {@code newCode} that old instructions are not copied to (i.e. inserted instructions) are left unchanged.
+	 * If this remapper was created by {@link #forReplacement(InstructionIndex, byte[][])}, replaced instructions are written as their replacement bytes.
+	 * @param oldIndex the decoded old code
+	 * @param newCode the new code array, size [{@link #getNewCodeLength()}]
+	 * @throws IllegalStateException if a relocated branch offset no longer fits in a 16-bit {@code goto}, {@code jsr}, or conditional branch
+	 */
+	public void remapCode(InstructionIndex oldIndex, byte[] newCode) {
+		byte[] code = oldIndex.getCode();
+		for(int n = 0, size = oldIndex.size(); n < size; n++) {
+			int start = oldIndex.getStart(n);
+			int newStart = oldToNew[start];
+			int opcode = code[start] & 0xFF;
+
+			if(replacements != null && replacements[n] != null) {
+				System.arraycopy(replacements[n], 0, newCode, newStart, replacements[n].length);
+				continue;
+			}
+			if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+				int pos = (start + 4) & ~3;
+				int newPos = (newStart + 4) & ~3;
+				newCode[newStart] = (byte)opcode;
+				Arrays.fill(newCode, newStart + 1, newPos, (byte)0);
+				IoUtility.writeInt(newTarget(oldIndex.getOperand(n), newStart), newCode, newPos);
+				int count = oldIndex.getOperand2(n);
+				int[] targets = oldIndex.getSwitchTargets(n);
+				if(opcode == TABLESWITCH) {
+					// low and high
+					System.arraycopy(code, pos + 4, newCode, newPos + 4, 8);
+					for(int i = 0; i < count; i++) {
+						IoUtility.writeInt(newTarget(targets[i], newStart), newCode, newPos + 12 + i * 4);
+					}
+				}
+				else {
+					// npairs and the match keys
+					System.arraycopy(code, pos + 4, newCode, newPos + 4, 4);
+					for(int i = 0; i < count; i++) {
+						System.arraycopy(code, pos + 8 + i * 8, newCode, newPos + 8 + i * 8, 4);
+						IoUtility.writeInt(newTarget(targets[i], newStart), newCode, newPos + 12 + i * 8);
+					}
+				}
+				continue;
+			}
+
+			System.arraycopy(code, start, newCode, newStart, oldIndex.getLength(n));
+			if(!oldIndex.isWide(n) && oldIndex.getOpcode(n).hasBehavior(Opcodes.Type.JUMP)) {
+				int offset = newTarget(oldIndex.getOperand(n), newStart);
+				if(opcode == GOTO_W || opcode == JSR_W) {
+					IoUtility.writeInt(offset, newCode, newStart + 1);
+				}
+				else if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+					throw new IllegalStateException("code offset " + start + " " + oldIndex.getOpcode(n).displayName() + " branch offset " + offset + " does not fit in 16 bits after relocation");
+				}
+				else {
+					IoUtility.writeShort((short)offset, newCode, newStart + 1);
+				}
+			}
+		}
+	}
+
+
+	private int newTarget(int oldTarget, int newStart) {
+		return oldToNew[oldTarget] - newStart;
+	}
+
+
+	/** Create the offset tables for inserting instructions before the instruction at a code offset.
+	 * Old instructions at or after {@code pc} move by {@code length} bytes, {@code tableswitch} and {@code lookupswitch}
+	 * instructions may also grow or shrink by up to 3 bytes of padding. Branches to {@code pc} still target the old instruction,
+	 * so the inserted code is only reached by falling through from the preceding instruction, or at method entry if {@code pc} is 0.
+	 * @param oldIndex the decoded code
+	 * @param pc the offset of the instruction to insert before, or the code length to append
+	 * @param length the number of bytes inserted
+	 * @return the offset remapper for the insertion, the inserted code starts at {@code getNewEndOffset(pc)}
+	 * @throws IllegalArgumentException if {@code pc} is not the start of an instruction or the end of the code
+	 */
+	public static CodeOffsetRemapper forInsertion(InstructionIndex oldIndex, int pc, int length) {
+		byte[] code = oldIndex.getCode();
+		if(pc != code.length && oldIndex.getInstructionAt(pc) < 0) {
+			throw new IllegalArgumentException("code offset " + pc + " is not the start of an instruction");
+		}
+		int[] oldToNew = new int[code.length + 1];
+		int[] oldEndToNew = new int[code.length + 1];
+		int newPc = 0;
+		for(int n = 0, size = oldIndex.size(); n < size; n++) {
+			int start = oldIndex.getStart(n);
+			oldEndToNew[start] = newPc;
+			if(start == pc) {
+				newPc += length;
+			}
+			int oldLen = oldIndex.getLength(n);
+			int newLen = oldLen;
+			int opcode = code[start] & 0xFF;
+			if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+				newLen = oldLen - switchPadding(start) + switchPadding(newPc);
+			}
+			// offsets inside an instruction are only valid as the instruction's start, they map to the instruction's new start
+			for(int i = 0; i < oldLen; i++) {
+				oldToNew[start + i] = newPc;
+				if(i > 0) {
+					oldEndToNew[start + i] = newPc;
+				}
+			}
+			newPc += newLen;
+		}
+		oldEndToNew[code.length] = newPc;
+		if(pc == code.length) {
+			newPc += length;
+		}
+		oldToNew[code.length] = newPc;
+		return new CodeOffsetRemapper(oldToNew, oldEndToNew);
+	}
+
+
+	/** Create the offset tables for replacing or removing instructions.
+	 * Offsets of a removed instruction map to the new offset of the next remaining instruction, so branches to a removed instruction
+	 * target the next remaining instruction and code ranges starting or ending at a removed instruction start or end at the next remaining instruction.
+	 * Replacement bytes are copied unchanged by {@link #remapCode(InstructionIndex, byte[])}, so they must not contain branch or switch instructions.
+	 * @param oldIndex the decoded code
+	 * @param replacements the replacement bytes of each instruction, indexed by instruction number, null to keep an instruction, empty to remove it
+	 * @return the offset remapper for the replacements
+	 */
+	public static CodeOffsetRemapper forReplacement(InstructionIndex oldIndex, byte[][] replacements) {
+		byte[] code = oldIndex.getCode();
+		int[] oldToNew = new int[code.length + 1];
+		int[] oldEndToNew = new int[code.length + 1];
+		int newPc = 0;
+		for(int n = 0, size = oldIndex.size(); n < size; n++) {
+			int start = oldIndex.getStart(n);
+			int oldLen = oldIndex.getLength(n);
+			int newLen;
+			if(replacements[n] != null) {
+				newLen = replacements[n].length;
+			}
+			else {
+				newLen = oldLen;
+				int opcode = code[start] & 0xFF;
+				if(opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+					newLen = oldLen - switchPadding(start) + switchPadding(newPc);
+				}
+			}
+			for(int i = 0; i < oldLen; i++) {
+				oldToNew[start + i] = newPc;
+				oldEndToNew[start + i] = newPc;
+			}
+			newPc += newLen;
+		}
+		oldToNew[code.length] = newPc;
+		oldEndToNew[code.length] = newPc;
+		return new CodeOffsetRemapper(oldToNew, oldEndToNew, replacements);
+	}
+
+
+	/**
+	 * @param pc the code offset of a {@code tableswitch} or {@code lookupswitch} opcode
+	 * @return the opcode and padding bytes before the switch's 4 byte aligned operands
+	 */
+	private static int switchPadding(int pc) {
+		return ((pc + 4) & ~3) - pc;
+	}
+
+}
@@ -0,0 +1,288 @@
+package twg2.jbcm.modify;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Float;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Integer;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_String;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** Get-or-add access to a {@link ClassFile}'s constant pool. Each {@code getOrAdd*()} method returns the existing
+ * entry with the requested value if there is one, otherwise it adds the entry (and any entries it references) to the constant pool.
+ * This allows repeated modifications of a class file without duplicating constant pool entries.<br/>
+ * Existing entries are found with the class file's {@code findConstantPool*()} methods, which share one hash index of the constant pool
+ * per class file, so lookups cost O(1), creating a builder does not parse a lazy constant pool, and entries added to the class file by other means are seen by the builder.
+ * Entries are matched by their resolved values (i.e. a {@code CONSTANT_Methodref} by its owner class name, name, and descriptor strings)
+ * so entries which reference duplicate {@code CONSTANT_Utf8} entries are still found. Float and double constants are compared by their
+ * raw bits, so {@code 0.0} and {@code -0.0} are different entries. Existing entries changed by their setters (i.e. {@link CONSTANT_Utf8#setString(String)})
+ * are found by their new values, the class file rebuilds its index the next time a lookup does not find a match.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public final class ConstantPoolBuilder {
+	private final ClassFile classFile;
+	private int addedCount;
+
+
+	/** Create a builder for a class file
+	 * @param classFile the class file to add constant pool entries to
+	 */
+	public ConstantPoolBuilder(ClassFile classFile) {
+		this.classFile = classFile;
+	}
+
+
+	public ClassFile getClassFile() {
+		return classFile;
+	}
+
+
+	/**
+	 * @return the number of entries this builder has added to the constant pool
+	 */
+	public int getAddedCount() {
+		return addedCount;
+	}
+
+
+	public CpIndex<CONSTANT_Utf8> getOrAddUtf8(String str) {
+		CpIndex<CONSTANT_Utf8> idx = classFile.findConstantPoolString(str);
+		if(idx == null) {
+			CONSTANT_Utf8 cpObj = new CONSTANT_Utf8(classFile);
+			cpObj.setString(str);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/**
+	 * @param className the internal name of the class, for example {@code java/lang/String}, or an array descriptor
+	 */
+	public CpIndex<CONSTANT_Class> getOrAddClass(String className) {
+		CpIndex<CONSTANT_Class> idx = classFile.findConstantPoolClass(className);
+		if(idx == null) {
+			CONSTANT_Class cpObj = new CONSTANT_Class(classFile);
+			cpObj.setNameIndex(getOrAddUtf8(className));
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	public CpIndex<CONSTANT_String> getOrAddString(String str) {
+		CpIndex<CONSTANT_String> idx = classFile.findConstantPoolStringConstant(str);
+		if(idx == null) {
+			CONSTANT_String cpObj = new CONSTANT_String(classFile);
+			cpObj.setStringIndex(getOrAddUtf8(str));
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	public CpIndex<CONSTANT_Integer> getOrAddInteger(int value) {
+		CpIndex<CONSTANT_Integer> idx = classFile.findConstantPoolInteger(value);
+		if(idx == null) {
+			CONSTANT_Integer cpObj = new CONSTANT_Integer(classFile);
+			cpObj.setValue(value);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	public CpIndex<CONSTANT_Float> getOrAddFloat(float value) {
+		CpIndex<CONSTANT_Float> idx = classFile.findConstantPoolFloat(value);
+		if(idx == null) {
+			CONSTANT_Float cpObj = new CONSTANT_Float(classFile);
+			cpObj.setValue(value);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/** Get or add a long constant, new entries take up two constant pool indexes
+	 */
+	public CpIndex<CONSTANT_Long> getOrAddLong(long value) {
+		CpIndex<CONSTANT_Long> idx = classFile.findConstantPoolLong(value);
+		if(idx == null) {
+			CONSTANT_Long cpObj = new CONSTANT_Long(classFile);
+			cpObj.setValue(value);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/** Get or add a double constant, new entries take up two constant pool indexes
+	 */
+	public CpIndex<CONSTANT_Double> getOrAddDouble(double value) {
+		CpIndex<CONSTANT_Double> idx = classFile.findConstantPoolDouble(value);
+		if(idx == null) {
+			CONSTANT_Double cpObj = new CONSTANT_Double(classFile);
+			cpObj.setValue(value);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	public CpIndex<CONSTANT_NameAndType> getOrAddNameAndType(String name, String descriptor) {
+		CpIndex<CONSTANT_NameAndType> idx = classFile.findConstantPoolNameAndType(name, descriptor);
+		if(idx == null) {
+			// add referenced entries before creating the new entry, changing an entry which is not in the constant pool yet
+			// causes the next lookup miss to rebuild the class file's constant pool index
+			CpIndex<CONSTANT_Utf8> nameIdx = getOrAddUtf8(name);
+			CpIndex<CONSTANT_Utf8> descriptorIdx = getOrAddUtf8(descriptor);
+			CONSTANT_NameAndType cpObj = new CONSTANT_NameAndType(classFile);
+			cpObj.setNameIndex(nameIdx);
+			cpObj.setDescriptorIndex(descriptorIdx);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/**
+	 * @param owner the internal name of the class containing the field
+	 * @param name the field name
+	 * @param descriptor the field descriptor, for example {@code I} or {@code Ljava/lang/String;}
+	 */
+	public CpIndex<CONSTANT_Fieldref> getOrAddFieldref(String owner, String name, String descriptor) {
+		CpIndex<CONSTANT_Fieldref> idx = classFile.findConstantPoolField(owner, name, descriptor);
+		if(idx == null) {
+			CpIndex<CONSTANT_Class> ownerIdx = getOrAddClass(owner);
+			CpIndex<CONSTANT_NameAndType> nameAndTypeIdx = getOrAddNameAndType(name, descriptor);
+			CONSTANT_Fieldref cpObj = new CONSTANT_Fieldref(classFile);
+			cpObj.setClassIndex(ownerIdx);
+			cpObj.setNameAndTypeIndex(nameAndTypeIdx);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/**
+	 * @param owner the internal name of the class containing the method
+	 * @param name the method name
+	 * @param descriptor the method descriptor, for example {@code (I)V}
+	 */
+	public CpIndex<CONSTANT_Methodref> getOrAddMethodref(String owner, String name, String descriptor) {
+		CpIndex<CONSTANT_Methodref> idx = classFile.findConstantPoolMethod(owner, name, descriptor);
+		if(idx == null) {
+			CpIndex<CONSTANT_Class> ownerIdx = getOrAddClass(owner);
+			CpIndex<CONSTANT_NameAndType> nameAndTypeIdx = getOrAddNameAndType(name, descriptor);
+			CONSTANT_Methodref cpObj = new CONSTANT_Methodref(classFile);
+			cpObj.setClassIndex(ownerIdx);
+			cpObj.setNameAndTypeIndex(nameAndTypeIdx);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/**
+	 * @param owner the internal name of the interface containing the method
+	 * @param name the method name
+	 * @param descriptor the method descriptor, for example {@code (I)V}
+	 */
+	public CpIndex<CONSTANT_InterfaceMethodref> getOrAddInterfaceMethodref(String owner, String name, String descriptor) {
+		CpIndex<CONSTANT_InterfaceMethodref> idx = classFile.findConstantPoolInterfaceMethod(owner, name, descriptor);
+		if(idx == null) {
+			CpIndex<CONSTANT_Class> ownerIdx = getOrAddClass(owner);
+			CpIndex<CONSTANT_NameAndType> nameAndTypeIdx = getOrAddNameAndType(name, descriptor);
+			CONSTANT_InterfaceMethodref cpObj = new CONSTANT_InterfaceMethodref(classFile);
+			cpObj.setClassIndex(ownerIdx);
+			cpObj.setNameAndTypeIndex(nameAndTypeIdx);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/** Get or add a method handle to a field or method
+	 * @param referenceKind the method handle kind, 1 to 4 for fields (getfield, getstatic, putfield, putstatic),
+	 * 5 to 8 for methods (invokevirtual, invokestatic, invokespecial, newinvokespecial), and 9 for interface methods (invokeinterface)
+	 * @param owner the internal name of the class containing the field or method
+	 * @param name the field or method name
+	 * @param descriptor the field or method descriptor
+	 * @param isInterface for reference kinds 6 and 7 (invokestatic and invokespecial) whether the method belongs to an interface
+	 * and should be referenced by a {@link CONSTANT_InterfaceMethodref}, ignored for other kinds
+	 */
+	public CpIndex<CONSTANT_MethodHandle> getOrAddMethodHandle(int referenceKind, String owner, String name, String descriptor, boolean isInterface) {
+		int referenceTag;
+		if(referenceKind >= 1 && referenceKind <= 4) {
+			referenceTag = CONSTANT_Fieldref.TAG;
+		}
+		else if(referenceKind == 9 || (isInterface && (referenceKind == 6 || referenceKind == 7))) {
+			referenceTag = CONSTANT_InterfaceMethodref.TAG;
+		}
+		else if(referenceKind >= 5 && referenceKind <= 8) {
+			referenceTag = CONSTANT_Methodref.TAG;
+		}
+		else {
+			throw new IllegalArgumentException(referenceKind + " is not a valid MethodHandle reference kind");
+		}
+
+		CpIndex<CONSTANT_MethodHandle> idx = classFile.findConstantPoolMethodHandle(referenceKind, referenceTag, owner, name, descriptor);
+		if(idx == null) {
+			CpIndex<? extends CONSTANT_CP_Info> ref = (referenceTag == CONSTANT_Fieldref.TAG ? getOrAddFieldref(owner, name, descriptor)
+					: referenceTag == CONSTANT_InterfaceMethodref.TAG ? getOrAddInterfaceMethodref(owner, name, descriptor)
+					: getOrAddMethodref(owner, name, descriptor));
+			CONSTANT_MethodHandle cpObj = new CONSTANT_MethodHandle(classFile);
+			cpObj.setReferenceKind(referenceKind);
+			cpObj.setReferenceIndex(ref);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	public CpIndex<CONSTANT_MethodType> getOrAddMethodType(String descriptor) {
+		CpIndex<CONSTANT_MethodType> idx = classFile.findConstantPoolMethodType(descriptor);
+		if(idx == null) {
+			CONSTANT_MethodType cpObj = new CONSTANT_MethodType(classFile);
+			cpObj.setDescriptorIndex(getOrAddUtf8(descriptor));
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	/**
+	 * @param bootstrapMethodAttrIndex the index of the bootstrap method in the class file's {@code BootstrapMethods} attribute
+	 * @param name the call site's method name
+	 * @param descriptor the call site's method descriptor
+	 */
+	public CpIndex<CONSTANT_InvokeDynamic> getOrAddInvokeDynamic(int bootstrapMethodAttrIndex, String name, String descriptor) {
+		CpIndex<CONSTANT_InvokeDynamic> idx = classFile.findConstantPoolInvokeDynamic(bootstrapMethodAttrIndex, name, descriptor);
+		if(idx == null) {
+			CpIndex<CONSTANT_NameAndType> nameAndTypeIdx = getOrAddNameAndType(name, descriptor);
+			CONSTANT_InvokeDynamic cpObj = new CONSTANT_InvokeDynamic(classFile);
+			cpObj.setBootstrapMethodAttrIndex(bootstrapMethodAttrIndex);
+			cpObj.setNameAndTypeIndex(nameAndTypeIdx);
+			idx = add(cpObj);
+		}
+		return idx;
+	}
+
+
+	private <T extends CONSTANT_CP_Info> CpIndex<T> add(T cpObj) {
+		addedCount++;
+		return classFile.addToConstantPool(cpObj);
+	}
+
+}
@@ -17,12 +17,14 @@ public class CpIndexChanger {
 	}
 
 
-	/** Call {@link CpIndexChangeable#changeCpIndex(short, short)} on each object in the specified array
-	 * @param objs the array of objects to call {@link CpIndexChangeable#changeCpIndex(short, short)} on
+	/** Call {@link #indexChange(CpIndexChangeable)} on each object in the specified array
+	 * @param objs the array of objects to call {@link CpIndexChangeable#changeCpIndex(short, short)} on, may be null
 	 */
 	public void indexChange(CpIndexChangeable[] objs) {
-		for(CpIndexChangeable obj : objs) {
-			obj.changeCpIndex(this);
+		if(objs != null) {
+			for(CpIndexChangeable obj : objs) {
+				indexChange(obj);
+			}
 		}
 	}
 
@@ -0,0 +1,151 @@
+package twg2.jbcm.modify;
+
+import twg2.jbcm.CodeUtility;
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.DeferredAttribute;
+
+/** Renumbers constant pool indexes using an old to new index table, see {@link ClassFile#remapConstantPool(int[])}.<br/>
+ * A class file's {@link CpIndex} objects are shared by every structure which references the same constant pool entry,
+ * so {@code ClassFile} renumbers each of them exactly once and this visitor leaves {@link CpIndex} values unchanged.
+ * During the class file traversal this visitor loads any {@link DeferredAttribute} (whose raw bytes contain constant pool indexes)
+ * and rewrites the constant pool operands of each {@link Code} attribute's instructions, so a whole class file is remapped in one traversal.
+ * Since a failure part way through that traversal would leave a class file partially renumbered, {@link #checkRemovedReferences(ClassFile)}
+ * and {@link #widenLdc(Code, int)} are called on the class file before the traversal.
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class CpRemapper extends CpIndexChanger {
+	/** Maps old constant pool indexes to new indexes, 0 if the entry is removed */
+	protected final int[] oldToNew;
+
+
+	/**
+	 * @param oldToNew a table of new constant pool indexes indexed by old constant pool index, removed entries map to 0
+	 */
+	public CpRemapper(int[] oldToNew) {
+		super((short)0, (short)0);
+		this.oldToNew = oldToNew;
+	}
+
+
+	/**
+	 * @param oldIndex a constant pool index before remapping
+	 * @return the index's new value, or 0 if the entry is removed
+	 */
+	public int getNewIndex(int oldIndex) {
+		return oldToNew[oldIndex];
+	}
+
+
+	@Override
+	public void indexChange(CpIndexChangeable obj) {
+		if(obj == null || obj instanceof CpIndex) {
+			return;
+		}
+		if(obj instanceof DeferredAttribute) {
+			obj = ((DeferredAttribute)obj).load();
+		}
+		if(obj instanceof Code) {
+			remapCode(((Code)obj).getCode(), 0);
+			((Code)obj).clearInstructionIndex();
+		}
+		obj.changeCpIndex(this);
+	}
+
+
+	/** Shared {@link CpIndex} objects are renumbered once by {@link ClassFile#remapConstantPool(int[])}, not by this visitor
+	 * @return {@code currentIndex} unchanged
+	 */
+	@Override
+	public short indexChange(short currentIndex) {
+		return currentIndex;
+	}
+
+
+	/** Check that no remaining constant pool entry, class file structure, or instruction operand references an entry removed by this remapper,
+	 * without modifying the class file (deferred attributes are loaded)
+	 * @param classFile the class file to check, its constant pool must be loaded
+	 * @throws IllegalArgumentException if a removed entry is referenced
+	 */
+	public void checkRemovedReferences(ClassFile classFile) {
+		int count = classFile.getConstantPoolCount();
+		var visitor = new FindCpIndexUsage.CpIndexUsageVisitor(classFile);
+		// remaining entries are kept even if nothing references them, so the entries they reference must also be kept
+		for(int i = 1; i < count; i++) {
+			if(oldToNew[i] != 0 && classFile.getCpTag(i) != 0) {
+				visitor.mark(i);
+			}
+		}
+		classFile.changeCpIndexReferences(visitor);
+		for(int i = 1; i < count; i++) {
+			if(visitor.used[i] && oldToNew[i] == 0 && classFile.getCpTag(i) != 0) {
+				throw new IllegalArgumentException("constant pool index " + i + " is removed but is still referenced");
+			}
+		}
+	}
+
+
+	/** Replace the {@code ldc} instructions whose constants are remapped to indexes greater than 255 with {@code ldc_w} instructions
+	 * (which have a 2 byte index) using {@link Code#replaceInstructions(byte[][])}, so the code can then be remapped by {@link #remapCode(byte[], int)}.
+	 * The widened instructions keep their current constant pool indexes.
+	 * @param code the method's code
+	 * @param offset the code index of the first instruction to check
+	 * @return the number of instructions widened
+	 * @throws IllegalStateException if a relocated branch offset no longer fits in its instruction
+	 */
+	public int widenLdc(Code code, int offset) {
+		var index = code.getInstructionIndex();
+		byte[][] replacements = null;
+		int widened = 0;
+		for(int i = 0, size = index.size(); i < size; i++) {
+			if(index.getOpcode(i) == Opcodes.LDC && index.getStart(i) >= offset) {
+				int cpIdx = index.getOperand(i);
+				if(oldToNew[cpIdx] > 0xFF) {
+					if(replacements == null) {
+						replacements = new byte[size][];
+					}
+					replacements[i] = new byte[] { (byte)Opcodes.LDC_W.opcode(), 0, (byte)cpIdx };
+					widened++;
+				}
+			}
+		}
+		if(replacements != null) {
+			code.replaceInstructions(replacements);
+		}
+		return widened;
+	}
+
+
+	/** Rewrite the constant pool index operands of every instruction in a code array in a single pass.
+	 * Call {@link #widenLdc(Code, int)} first if {@code ldc} constants may be remapped to indexes greater than 255
+	 * @param code the code array, index 0 must be the start of the method's code
+	 * @param offset the index of the first instruction to rewrite
+	 * @throws IllegalStateException if an {@code ldc} instruction's constant is remapped to an index greater than 255
+	 */
+	public void remapCode(byte[] code, int offset) {
+		for(int i = offset, size = code.length; i < size; i += CodeUtility.instructionLength(code, i)) {
+			int opcode = code[i];
+			if(!OpcodeTables.hasBehavior(opcode, Opcodes.Type.CP_INDEX)) {
+				continue;
+			}
+			// every constant pool index operand immediately follows its opcode, ldc has a 1 byte index, all others have a 2 byte index
+			if(Opcodes.LDC.is(opcode)) {
+				int newIndex = oldToNew[code[i + 1] & 0xFF];
+				if(newIndex > 0xFF) {
+					throw new IllegalStateException("ldc at code index " + i + " cannot reference constant pool index " + newIndex + ", ldc indexes must be less than 256");
+				}
+				code[i + 1] = (byte)newIndex;
+			}
+			else {
+				int newIndex = oldToNew[IoUtility.readShort(code, i + 1) & 0xFFFF];
+				IoUtility.writeShort((short)newIndex, code, i + 1);
+			}
+		}
+	}
+
+}
@@ -1,8 +1,19 @@
 package twg2.jbcm.modify;
 
+import java.util.Arrays;
+
 import twg2.collections.primitiveCollections.IntArrayList;
 import twg2.collections.primitiveCollections.IntList;
+import twg2.jbcm.CodeUtility;
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
 import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.DeferredAttribute;
+import twg2.jbcm.classFormat.attributes.UnknownAttributeType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
 
 /**
  * @author TeamworkGuy2
@@ -10,15 +21,16 @@ import twg2.jbcm.classFormat.ClassFile;
  */
 public class FindCpIndexUsage {
 
+	/** Find the constant pool entries which are not used by a class file, see {@link #findUsedIndexes(ClassFile)}
+	 * @return the unused constant pool indexes, excluding the unusable indexes following {@code CONSTANT_Long} and {@code CONSTANT_Double} entries
+	 */
 	public static IntList findUnusedIndexes(ClassFile classFile) {
 		int constantPoolSize = classFile.getConstantPoolCount();
+		boolean[] used = findUsedIndexes(classFile);
 
-		CpIndexVisitor visitor = new CpIndexVisitor(constantPoolSize);
-		classFile.changeCpIndex(visitor);
-	
 		IntArrayList unusedIndexes = new IntArrayList();
-		for(int i = 0; i < constantPoolSize; i++) {
-			if(visitor.indexVisitCounts[i] == 0) {
+		for(int i = 1; i < constantPoolSize; i++) {
+			if(!used[i] && classFile.getCpTag(i) != 0) {
 				unusedIndexes.add(i);
 			}
 		}
@@ -27,6 +39,22 @@ public class FindCpIndexUsage {
 	}
 
 
+	/** Find the constant pool entries used by a class file. An entry is used if it is referenced by the class file's structures
+	 * (this class, super class, interfaces, fields, methods, attributes, and instruction operands) or by another used constant pool entry.<br/>
+	 * The contents of unrecognized attributes may contain constant pool indexes, so if the class file contains an {@link UnknownAttributeType}
+	 * every entry is considered used.
+	 * @return an array of flags indexed by constant pool index, true if the entry is used
+	 */
+	public static boolean[] findUsedIndexes(ClassFile classFile) {
+		CpIndexUsageVisitor visitor = new CpIndexUsageVisitor(classFile);
+		classFile.changeCpIndexReferences(visitor);
+		if(visitor.foundUnknownAttribute) {
+			Arrays.fill(visitor.used, true);
+		}
+		return visitor.used;
+	}
+
+
 
 	/** Track all the constant pool indexes visited, without modifying them
 	 * @author TeamworkGuy2
@@ -49,4 +77,72 @@ public class FindCpIndexUsage {
 
 	}
 
+
+
+	/** Mark the constant pool indexes reachable from the visited structures, including instruction operands
+	 * and the entries referenced by reachable constant pool entries, without modifying them
+	 * @author TeamworkGuy2
+	 * @since 2026-10-17
+	 */
+	public static class CpIndexUsageVisitor extends CpIndexChanger {
+		protected final ClassFile classFile;
+		protected final boolean[] used;
+		protected boolean foundUnknownAttribute;
+
+		public CpIndexUsageVisitor(ClassFile classFile) {
+			super((short)0, (short)0);
+			this.classFile = classFile;
+			this.used = new boolean[classFile.getConstantPoolCount()];
+		}
+
+
+		@Override
+		public void indexChange(CpIndexChangeable obj) {
+			if(obj == null) {
+				return;
+			}
+			if(obj instanceof DeferredAttribute) {
+				obj = ((DeferredAttribute)obj).load();
+			}
+			if(obj instanceof Code) {
+				markCode(((Code)obj).getCode());
+			}
+			else if(obj instanceof UnknownAttributeType) {
+				foundUnknownAttribute = true;
+			}
+			obj.changeCpIndex(this);
+		}
+
+
+		@Override
+		public short indexChange(short currentIndex) {
+			mark(currentIndex & 0xFFFF);
+			return currentIndex;
+		}
+
+
+		protected void mark(int index) {
+			if(index > 0 && index < used.length && !used[index]) {
+				used[index] = true;
+				// the entries referenced by this entry are also used
+				CpIndex<CONSTANT_CP_Info> cpIdx = classFile.getConstantPoolIndex(index);
+				CONSTANT_CP_Info cpObj = cpIdx.getCpObject();
+				if(cpObj != null) {
+					cpObj.changeCpIndex(this);
+				}
+			}
+		}
+
+
+		protected void markCode(byte[] code) {
+			for(int i = 0, size = code.length; i < size; i += CodeUtility.instructionLength(code, i)) {
+				int opcode = code[i];
+				if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.CP_INDEX)) {
+					mark(Opcodes.LDC.is(opcode) ? code[i + 1] & 0xFF : IoUtility.readShort(code, i + 1) & 0xFFFF);
+				}
+			}
+		}
+
+	}
+
 }
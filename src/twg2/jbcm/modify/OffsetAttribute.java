@@ -9,8 +9,9 @@ import twg2.jbcm.classFormat.attributes.Code_Attribute;
  */
 public interface OffsetAttribute extends Code_Attribute {
 
-	/** @return an {@link AttributeOffsetFunction} that can be used to modify this attribute's offsets
+	/** Change this attribute's code offsets from a method's old code offsets to its new code offsets
+	 * @param remapper the old to new code offset tables of the modified method code
 	 */
-	public AttributeOffsetFunction getAttributeOffsetModifier();
+	public void remapOffsets(CodeOffsetRemapper remapper);
 
 }
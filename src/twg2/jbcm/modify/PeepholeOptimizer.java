@@ -0,0 +1,184 @@
+package twg2.jbcm.modify;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.StackMapTable;
+
+/** Runs a pipeline of {@link PeepholePass} rewrites over methods' code and records the code bytes saved and the number of rewrites made by each pass.<br/>
+ * Each pass's replacements are applied with {@link Code#replaceInstructions(byte[][])}, which relocates every branch, switch, exception table,
+ * and nested attribute code offset. The passes are repeated until none of them change the code (at most {@link #MAX_ROUNDS} times)
+ * since one rewrite often exposes another (i.e. folding a constant allows a shorter push form). If a method with a {@code StackMapTable}
+ * is changed, its frames are recomputed with {@link StackMapFrameComputer}.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class PeepholeOptimizer {
+	/** The maximum number of times the passes are run over a method */
+	public static final int MAX_ROUNDS = 8;
+
+	private final ConstantPoolBuilder cpBuilder;
+	private final ClassHierarchy hierarchy;
+	private final PeepholePass[] passes;
+	private final int[] savedBytes;
+	private final int[] rewriteCounts;
+	private int changedMethods;
+
+
+	/**
+	 * @param cpBuilder the constant pool builder of the optimized class file
+	 * @param hierarchy resolves the classes referenced by the optimized code when stack map frames are recomputed
+	 * @param passes the passes, run in order
+	 */
+	public PeepholeOptimizer(ConstantPoolBuilder cpBuilder, ClassHierarchy hierarchy, PeepholePass... passes) {
+		this.cpBuilder = cpBuilder;
+		this.hierarchy = hierarchy;
+		this.passes = passes.clone();
+		this.savedBytes = new int[passes.length];
+		this.rewriteCounts = new int[passes.length];
+	}
+
+
+	/** Create an optimizer with each of the {@link PeepholePasses}: jump chains, nops, load/store pairs, constant folding, constant forms, and unreachable code
+	 */
+	public static PeepholeOptimizer withDefaultPasses(ConstantPoolBuilder cpBuilder, ClassHierarchy hierarchy) {
+		return new PeepholeOptimizer(cpBuilder, hierarchy,
+				new PeepholePasses.JumpChains(),
+				new PeepholePasses.RemoveNops(),
+				new PeepholePasses.LoadStorePairs(),
+				new PeepholePasses.ConstantFolding(cpBuilder),
+				new PeepholePasses.ConstantForms(),
+				new PeepholePasses.UnreachableCode());
+	}
+
+
+	public int getPassCount() {
+		return passes.length;
+	}
+
+
+	public PeepholePass getPass(int passIdx) {
+		return passes[passIdx];
+	}
+
+
+	/**
+	 * @return the number of code bytes removed by a pass in all optimized methods so far
+	 */
+	public int getSavedBytes(int passIdx) {
+		return savedBytes[passIdx];
+	}
+
+
+	/**
+	 * @return the number of rewrites made by a pass in all optimized methods so far
+	 */
+	public int getRewriteCount(int passIdx) {
+		return rewriteCounts[passIdx];
+	}
+
+
+	/**
+	 * @return the number of code bytes removed by all passes so far
+	 */
+	public int getTotalSavedBytes() {
+		int total = 0;
+		for(int saved : savedBytes) {
+			total += saved;
+		}
+		return total;
+	}
+
+
+	/**
+	 * @return the number of methods changed so far
+	 */
+	public int getChangedMethodCount() {
+		return changedMethods;
+	}
+
+
+	/** Optimize a method's code
+	 * @param method the method, methods without code are ignored
+	 * @return true if the method's code was changed
+	 * @throws IllegalStateException if the method's {@code StackMapTable} can not be recomputed, see {@link StackMapFrameComputer#update(Method_Info, ClassHierarchy, ConstantPoolBuilder)}
+	 */
+	public boolean optimize(Method_Info method) {
+		Code code = method.getCode();
+		if(code == null) {
+			return false;
+		}
+		boolean changed = false;
+		for(int round = 0; round < MAX_ROUNDS; round++) {
+			boolean roundChanged = false;
+			for(int i = 0; i < passes.length; i++) {
+				var index = code.getInstructionIndex();
+				byte[][] replacements = new byte[index.size()][];
+				int oldLength = code.getCode().length;
+				int rewrites = passes[i].rewrite(code, index, replacements);
+				if(rewrites > 0) {
+					if(hasReplacement(replacements)) {
+						code.replaceInstructions(replacements);
+					}
+					savedBytes[i] += oldLength - code.getCode().length;
+					rewriteCounts[i] += rewrites;
+					roundChanged = true;
+				}
+			}
+			if(!roundChanged) {
+				break;
+			}
+			changed = true;
+		}
+
+		if(changed) {
+			changedMethods++;
+			if(code.getAttribute(StackMapTable.ATTRIBUTE_NAME) != null) {
+				StackMapFrameComputer.update(method, hierarchy, cpBuilder);
+			}
+		}
+		return changed;
+	}
+
+
+	/** Optimize each method of a class file, see {@link #optimize(Method_Info)}
+	 * @param classFile the class file, must be the class file of this optimizer's {@link ConstantPoolBuilder}
+	 * @return the number of methods changed
+	 */
+	public int optimizeAll(ClassFile classFile) {
+		if(classFile != cpBuilder.getClassFile()) {
+			throw new IllegalArgumentException("class file does not match the constant pool builder's class file");
+		}
+		int changed = 0;
+		for(int i = 0, size = classFile.getMethodCount(); i < size; i++) {
+			if(optimize(classFile.getMethod(i))) {
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+
+	private static boolean hasReplacement(byte[][] replacements) {
+		for(byte[] replacement : replacements) {
+			if(replacement != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/** A report of the bytes saved and rewrites made by each pass
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("peephole optimizer: ");
+		sb.append(changedMethods).append(" methods changed, ").append(getTotalSavedBytes()).append(" bytes saved");
+		for(int i = 0; i < passes.length; i++) {
+			sb.append("\n  ").append(passes[i].getName()).append(": ").append(savedBytes[i]).append(" bytes, ").append(rewriteCounts[i]).append(" rewrites");
+		}
+		return sb.toString();
+	}
+
+}
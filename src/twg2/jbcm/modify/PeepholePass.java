@@ -0,0 +1,33 @@
+package twg2.jbcm.modify;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** A rewrite pass over a method's code run by {@link PeepholeOptimizer}.<br/>
+ * A pass records the instructions it replaces or removes in a replacement table which the optimizer applies with
+ * {@link Code#replaceInstructions(byte[][])}, so the pass does not relocate any code offsets itself.
+ * @see PeepholePasses
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public interface PeepholePass {
+
+	/**
+	 * @return the name of this pass, used in {@link PeepholeOptimizer} reports
+	 */
+	public String getName();
+
+
+	/** Find the rewrites of this pass in a method's code.
+	 * Instructions may also be changed in place if their lengths do not change (i.e. a jump's offset), in which case
+	 * the pass must call {@link Code#clearInstructionIndex()}, and also {@link Code#markMaxsStale()} if the changed instructions
+	 * use the operand stack or local variables differently.
+	 * @param code the method's code
+	 * @param index the decoded code, {@code code.getInstructionIndex()}
+	 * @param replacements the replacement bytes of each instruction, indexed by instruction number, initially all null.
+	 * Set an element to replace the instruction, or to an empty array to remove it, see {@link Code#replaceInstructions(byte[][])}
+	 * @return the number of rewrites made, 0 if the code was not changed
+	 */
+	public int rewrite(Code code, InstructionIndex index, byte[][] replacements);
+
+}
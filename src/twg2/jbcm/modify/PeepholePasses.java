@@ -0,0 +1,548 @@
+package twg2.jbcm.modify;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Float;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Integer;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+import twg2.jbcm.ir.ControlFlowGraph;
+
+/** The {@link PeepholePass} implementations used by {@link PeepholeOptimizer#withDefaultPasses(ConstantPoolBuilder, ClassHierarchy)}.<br/>
+ * Instruction sequences are only matched if no instruction after the first is a branch target or exception handler (an entry point, see {@link #findEntryPoints(Code, InstructionIndex)}),
+ * so control can not enter the middle of a rewritten sequence. Instructions are classified by their {@link Opcodes.Type} behaviors
+ * rather than by listing opcodes where possible.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class PeepholePasses {
+	private static final byte[] REMOVE = new byte[0];
+
+	private PeepholePasses() { throw new AssertionError("cannot instantiate static class PeepholePasses"); }
+
+
+	/** Retarget jumps and switch cases which target a {@code goto} to the end of the {@code goto} chain, then remove {@code goto}
+	 * instructions which target the next instruction, replace conditional branches which target the next instruction with a {@code pop} of their operands,
+	 * and replace {@code goto} instructions which target a return instruction with the return instruction
+	 */
+	public static class JumpChains implements PeepholePass {
+
+		@Override
+		public String getName() {
+			return "jump chains";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			byte[] bytes = code.getCode();
+			int count = 0;
+			boolean patched = false;
+			for(int n = 0, size = index.size(); n < size; n++) {
+				Opcodes opcode = index.getOpcode(n);
+				int start = index.getStart(n);
+				if(opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+					int pos = (start + 4) & ~3;
+					int[] targets = index.getSwitchTargets(n);
+					// tableswitch offsets follow the default, low, and high values, lookupswitch offsets follow the default, npairs, and each match key
+					int stride = opcode == Opcodes.TABLESWITCH ? 4 : 8;
+					int firstTarget = pos + 12;
+					if(retargetInt(index, bytes, start, pos, index.getOperand(n))) {
+						count++;
+						patched = true;
+					}
+					for(int i = 0; i < targets.length; i++) {
+						if(retargetInt(index, bytes, start, firstTarget + i * stride, targets[i])) {
+							count++;
+							patched = true;
+						}
+					}
+					continue;
+				}
+				if(!opcode.hasBehavior(Opcodes.Type.JUMP) || index.isWide(n)) {
+					continue;
+				}
+
+				int finalTarget = index.getOperand(n);
+				int chainEnd = finalTarget(index, finalTarget);
+				if(chainEnd != finalTarget) {
+					int offset = chainEnd - start;
+					boolean wideOffset = opcode == Opcodes.GOTO_W || opcode == Opcodes.JSR_W;
+					if(wideOffset || (offset >= Short.MIN_VALUE && offset <= Short.MAX_VALUE)) {
+						if(wideOffset) {
+							IoUtility.writeInt(offset, bytes, start + 1);
+						}
+						else {
+							IoUtility.writeShort((short)offset, bytes, start + 1);
+						}
+						finalTarget = chainEnd;
+						count++;
+						patched = true;
+					}
+				}
+
+				int next = start + index.getLength(n);
+				if(finalTarget == next && (opcode == Opcodes.GOTO || opcode == Opcodes.GOTO_W)) {
+					replacements[n] = REMOVE;
+					count++;
+				}
+				else if(finalTarget == next && opcode.hasBehavior(Opcodes.Type.CONDITION)) {
+					// the condition's operands are still consumed
+					Opcodes pop = OpcodeTables.popCount(opcode.opcode()) == 2 ? Opcodes.POP2 : Opcodes.POP;
+					replacements[n] = new byte[] { (byte)pop.opcode() };
+					count++;
+				}
+				else if(opcode == Opcodes.GOTO || opcode == Opcodes.GOTO_W) {
+					int targetIdx = index.getInstructionAt(finalTarget);
+					Opcodes targetOpcode = index.getOpcode(targetIdx);
+					if(targetOpcode.hasBehavior(Opcodes.Type.RETURN)) {
+						replacements[n] = new byte[] { (byte)targetOpcode.opcode() };
+						count++;
+					}
+				}
+			}
+			if(patched) {
+				code.clearInstructionIndex();
+			}
+			return count;
+		}
+
+
+		private static boolean retargetInt(InstructionIndex index, byte[] bytes, int start, int pos, int target) {
+			int finalTarget = finalTarget(index, target);
+			if(finalTarget != target) {
+				IoUtility.writeInt(finalTarget - start, bytes, pos);
+				return true;
+			}
+			return false;
+		}
+
+
+		/** Follow a chain of {@code goto} instructions, stopping if the chain loops
+		 */
+		private static int finalTarget(InstructionIndex index, int target) {
+			int pc = target;
+			for(int steps = 0, size = index.size(); steps < size; steps++) {
+				int n = index.getInstructionAt(pc);
+				Opcodes opcode = index.getOpcode(n);
+				if(opcode != Opcodes.GOTO && opcode != Opcodes.GOTO_W) {
+					return pc;
+				}
+				int next = index.getOperand(n);
+				if(next == target || next == pc) {
+					return pc;
+				}
+				pc = next;
+			}
+			return pc;
+		}
+	}
+
+
+
+
+	/** Remove {@code nop} instructions
+	 */
+	public static class RemoveNops implements PeepholePass {
+
+		@Override
+		public String getName() {
+			return "nops";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			int count = 0;
+			// a final nop may be a branch target, branches can not target the end of the code
+			for(int n = 0, size = index.size() - 1; n < size; n++) {
+				if(index.getOpcode(n) == Opcodes.NOP) {
+					replacements[n] = REMOVE;
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+
+
+
+	/** Remove {@code xload n; xstore n} pairs and replace {@code xstore n; xload n} with {@code dup; xstore n} (or {@code dup2} for longs and doubles)
+	 * when the shorter form saves bytes
+	 */
+	public static class LoadStorePairs implements PeepholePass {
+
+		@Override
+		public String getName() {
+			return "load/store pairs";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			boolean[] entryPoints = findEntryPoints(code, index);
+			byte[] bytes = code.getCode();
+			int count = 0;
+			for(int n = 0, size = index.size() - 1; n < size; n++) {
+				Opcodes first = index.getOpcode(n);
+				Opcodes second = index.getOpcode(n + 1);
+				if(entryPoints[n + 1] || index.getLocalVariable(n) != index.getLocalVariable(n + 1) || varType(first) != varType(second) || varType(first) < 0) {
+					continue;
+				}
+				if(first.hasBehavior(Opcodes.Type.VAR_LOAD) && second.hasBehavior(Opcodes.Type.VAR_STORE)) {
+					replacements[n] = REMOVE;
+					replacements[n + 1] = REMOVE;
+					count++;
+					n++;
+				}
+				else if(first.hasBehavior(Opcodes.Type.VAR_STORE) && second.hasBehavior(Opcodes.Type.VAR_LOAD) && index.getLength(n + 1) > 1) {
+					int storeLen = index.getLength(n);
+					byte[] dupStore = new byte[1 + storeLen];
+					dupStore[0] = (byte)(OpcodeTables.localVariableSize(first.opcode()) == 2 ? Opcodes.DUP2 : Opcodes.DUP).opcode();
+					System.arraycopy(bytes, index.getStart(n), dupStore, 1, storeLen);
+					replacements[n] = dupStore;
+					replacements[n + 1] = REMOVE;
+					count++;
+					n++;
+				}
+			}
+			return count;
+		}
+
+
+		/**
+		 * @return the value type of a load or store instruction, [0, 4] for int, long, float, double, reference, or -1 for other instructions
+		 */
+		private static int varType(Opcodes opcode) {
+			int op = opcode.opcode();
+			if(op >= Opcodes.ILOAD.opcode() && op <= Opcodes.ALOAD.opcode()) {
+				return op - Opcodes.ILOAD.opcode();
+			}
+			if(op >= Opcodes.ILOAD_0.opcode() && op <= Opcodes.ALOAD_3.opcode()) {
+				return (op - Opcodes.ILOAD_0.opcode()) / 4;
+			}
+			if(op >= Opcodes.ISTORE.opcode() && op <= Opcodes.ASTORE.opcode()) {
+				return op - Opcodes.ISTORE.opcode();
+			}
+			if(op >= Opcodes.ISTORE_0.opcode() && op <= Opcodes.ASTORE_3.opcode()) {
+				return (op - Opcodes.ISTORE_0.opcode()) / 4;
+			}
+			return -1;
+		}
+	}
+
+
+
+
+	/** Fold int constant arithmetic, {@code c1 c2 op} and {@code c1 op} sequences where each {@code c} is an {@code iconst_<i>}, {@code bipush}, {@code sipush},
+	 * or {@code ldc} int constant, are replaced by the shortest push of the result when it is shorter than the sequence.
+	 * Divisions by zero are not folded since they throw at runtime
+	 */
+	public static class ConstantFolding implements PeepholePass {
+		private final ConstantPoolBuilder cpBuilder;
+
+		/**
+		 * @param cpBuilder the constant pool builder of the code's class file, {@code CONSTANT_Integer} entries are added for results outside the {@code sipush} range
+		 */
+		public ConstantFolding(ConstantPoolBuilder cpBuilder) {
+			this.cpBuilder = cpBuilder;
+		}
+
+
+		@Override
+		public String getName() {
+			return "constant folding";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			boolean[] entryPoints = findEntryPoints(code, index);
+			int count = 0;
+			for(int n = 0, size = index.size(); n < size - 1; n++) {
+				Integer a = intConstant(code, index, n);
+				if(a == null || entryPoints[n + 1]) {
+					continue;
+				}
+				Integer result = null;
+				int last = n + 1;
+				Integer b = intConstant(code, index, n + 1);
+				if(b != null) {
+					if(n + 2 < size && !entryPoints[n + 2]) {
+						last = n + 2;
+						result = foldBinary(index.getOpcode(last), a, b);
+					}
+				}
+				else {
+					result = foldUnary(index.getOpcode(last), a);
+				}
+				if(result == null) {
+					continue;
+				}
+
+				int oldLen = index.getStart(last) + index.getLength(last) - index.getStart(n);
+				// results which need a constant pool entry are only folded if the ldc_w form is shorter, so unused entries are not added
+				if(pushIntLength(result) >= oldLen) {
+					continue;
+				}
+				replacements[n] = pushInt(result, cpBuilder);
+				for(int i = n + 1; i <= last; i++) {
+					replacements[i] = REMOVE;
+				}
+				count++;
+				n = last;
+			}
+			return count;
+		}
+
+
+		private static Integer foldBinary(Opcodes op, int a, int b) {
+			if(!op.hasBehavior(Opcodes.Type.MATH_OP)) {
+				return null;
+			}
+			switch(op) {
+			case IADD: return a + b;
+			case ISUB: return a - b;
+			case IMUL: return a * b;
+			case IDIV: return b != 0 ? a / b : null;
+			case IREM: return b != 0 ? a % b : null;
+			case IAND: return a & b;
+			case IOR: return a | b;
+			case IXOR: return a ^ b;
+			case ISHL: return a << b;
+			case ISHR: return a >> b;
+			case IUSHR: return a >>> b;
+			default: return null;
+			}
+		}
+
+
+		private static Integer foldUnary(Opcodes op, int a) {
+			switch(op) {
+			case INEG: return -a;
+			case I2B: return (int)(byte)a;
+			case I2C: return (int)(char)a;
+			case I2S: return (int)(short)a;
+			default: return null;
+			}
+		}
+	}
+
+
+
+
+	/** Replace constant pushes with their shortest form: {@code bipush}, {@code sipush}, and {@code ldc} int constants with {@code iconst_<i>}, {@code bipush}, or {@code sipush},
+	 * {@code ldc} float, long, and double constants with {@code fconst_<f>}, {@code lconst_<l>}, or {@code dconst_<d>}, and {@code ldc_w} with {@code ldc} when the constant pool index fits in a byte
+	 */
+	public static class ConstantForms implements PeepholePass {
+
+		@Override
+		public String getName() {
+			return "constant forms";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			int count = 0;
+			for(int n = 0, size = index.size(); n < size; n++) {
+				Opcodes opcode = index.getOpcode(n);
+				if(!opcode.hasBehavior(Opcodes.Type.PUSH1) || index.getLength(n) == 1) {
+					continue;
+				}
+				byte[] shorter = null;
+				Integer intValue = intConstant(code, index, n);
+				if(intValue != null) {
+					if(pushIntLength(intValue) < index.getLength(n)) {
+						shorter = pushInt(intValue, null);
+					}
+				}
+				else if(opcode == Opcodes.LDC || opcode == Opcodes.LDC_W || opcode == Opcodes.LDC2_W) {
+					Opcodes constOpcode = constOpcode(code.getResolver().getConstantPoolIndex(index.getOperand(n)).getCpObject());
+					if(constOpcode != null) {
+						shorter = new byte[] { (byte)constOpcode.opcode() };
+					}
+				}
+				if(shorter == null && opcode == Opcodes.LDC_W && index.getOperand(n) <= 0xFF) {
+					shorter = new byte[] { (byte)Opcodes.LDC.opcode(), (byte)index.getOperand(n) };
+				}
+				if(shorter != null) {
+					replacements[n] = shorter;
+					count++;
+				}
+			}
+			return count;
+		}
+
+
+		/**
+		 * @return the {@code fconst_<f>}, {@code lconst_<l>}, or {@code dconst_<d>} opcode which pushes the constant, or null if there is none.
+		 * Floating point values are compared by their bits, so {@code -0.0} is not replaced
+		 */
+		private static Opcodes constOpcode(CONSTANT_CP_Info constant) {
+			if(constant instanceof CONSTANT_Float) {
+				int bits = ((CONSTANT_Float)constant).getRawBits();
+				return bits == Float.floatToRawIntBits(0f) ? Opcodes.FCONST_0 : bits == Float.floatToRawIntBits(1f) ? Opcodes.FCONST_1 : bits == Float.floatToRawIntBits(2f) ? Opcodes.FCONST_2 : null;
+			}
+			if(constant instanceof CONSTANT_Long) {
+				long value = ((CONSTANT_Long)constant).getValue();
+				return value == 0 ? Opcodes.LCONST_0 : value == 1 ? Opcodes.LCONST_1 : null;
+			}
+			if(constant instanceof CONSTANT_Double) {
+				long bits = ((CONSTANT_Double)constant).getRawBits();
+				return bits == Double.doubleToRawLongBits(0d) ? Opcodes.DCONST_0 : bits == Double.doubleToRawLongBits(1d) ? Opcodes.DCONST_1 : null;
+			}
+			return null;
+		}
+	}
+
+
+
+
+	/** Remove the basic blocks which are not reachable from the start of the code through any branch, switch, fall through, subroutine, or exception handler edge
+	 */
+	public static class UnreachableCode implements PeepholePass {
+
+		@Override
+		public String getName() {
+			return "unreachable code";
+		}
+
+
+		@Override
+		public int rewrite(Code code, InstructionIndex index, byte[][] replacements) {
+			var cfg = ControlFlowGraph.build(code);
+			int blockCount = cfg.getBlockCount();
+			boolean[] reached = new boolean[blockCount];
+			int[] worklist = new int[blockCount];
+			int pending = 0;
+			int entry = cfg.getBlockOfInstruction(0);
+			reached[entry] = true;
+			worklist[pending++] = entry;
+			while(pending > 0) {
+				int block = worklist[--pending];
+				for(int i = 0, succCount = cfg.getSuccessorCount(block); i < succCount; i++) {
+					int succ = cfg.getSuccessor(block, i);
+					if(!reached[succ]) {
+						reached[succ] = true;
+						worklist[pending++] = succ;
+					}
+				}
+			}
+
+			int count = 0;
+			for(int block = 0; block < blockCount; block++) {
+				if(!reached[block]) {
+					for(int n = cfg.getFirstInstruction(block), last = cfg.getLastInstruction(block); n <= last; n++) {
+						replacements[n] = REMOVE;
+					}
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+
+
+
+	/** Mark the instructions which control can reach other than by falling through from the previous instruction:
+	 * branch and switch targets, the instructions after {@code jsr} instructions (the return points of {@code ret}), and exception handlers
+	 * @param code the method's code
+	 * @param index the decoded code
+	 * @return a flag for each instruction number, true if the instruction is an entry point
+	 */
+	public static boolean[] findEntryPoints(Code code, InstructionIndex index) {
+		int size = index.size();
+		boolean[] entryPoints = new boolean[size];
+		for(int n = 0; n < size; n++) {
+			Opcodes opcode = index.getOpcode(n);
+			if(opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+				entryPoints[index.getInstructionAt(index.getOperand(n))] = true;
+				for(int target : index.getSwitchTargets(n)) {
+					entryPoints[index.getInstructionAt(target)] = true;
+				}
+			}
+			else if(opcode.hasBehavior(Opcodes.Type.JUMP) && !index.isWide(n)) {
+				entryPoints[index.getInstructionAt(index.getOperand(n))] = true;
+				if((opcode == Opcodes.JSR || opcode == Opcodes.JSR_W) && n + 1 < size) {
+					entryPoints[n + 1] = true;
+				}
+			}
+		}
+		Code.ExceptionPoint[] exceptionTable = code.getExceptionTable();
+		for(int i = 0, count = exceptionTable != null ? exceptionTable.length : 0; i < count; i++) {
+			entryPoints[index.getInstructionAt(exceptionTable[i].getHandlerPc() & 0xFFFF)] = true;
+		}
+		return entryPoints;
+	}
+
+
+	/**
+	 * @return the value pushed by an {@code iconst_<i>}, {@code bipush}, {@code sipush}, or {@code ldc}/{@code ldc_w} of a {@code CONSTANT_Integer}, or null for other instructions
+	 */
+	static Integer intConstant(Code code, InstructionIndex index, int n) {
+		Opcodes opcode = index.getOpcode(n);
+		if(!opcode.hasBehavior(Opcodes.Type.PUSH1)) {
+			return null;
+		}
+		int op = opcode.opcode();
+		if(op >= Opcodes.ICONST_M1.opcode() && op <= Opcodes.ICONST_5.opcode()) {
+			return op - Opcodes.ICONST_0.opcode();
+		}
+		if(opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
+			return index.getOperand(n);
+		}
+		if(opcode == Opcodes.LDC || opcode == Opcodes.LDC_W) {
+			CONSTANT_CP_Info constant = code.getResolver().getConstantPoolIndex(index.getOperand(n)).getCpObject();
+			if(constant instanceof CONSTANT_Integer) {
+				return ((CONSTANT_Integer)constant).getValue();
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * @return the length of the shortest instruction which pushes an int value, values outside the {@code sipush} range are counted as 3 bytes
+	 * ({@code ldc_w}) since their constant pool index is not known
+	 */
+	static int pushIntLength(int value) {
+		if(value >= -1 && value <= 5) {
+			return 1;
+		}
+		if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			return 2;
+		}
+		return 3;
+	}
+
+
+	/** Encode the shortest instruction which pushes an int value
+	 * @param value the value
+	 * @param cpBuilder the constant pool builder used to add the value if it is outside the {@code sipush} range, may be null if the value is in range
+	 * @return the instruction bytes
+	 */
+	static byte[] pushInt(int value, ConstantPoolBuilder cpBuilder) {
+		if(value >= -1 && value <= 5) {
+			return new byte[] { (byte)(Opcodes.ICONST_0.opcode() + value) };
+		}
+		if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			return new byte[] { (byte)Opcodes.BIPUSH.opcode(), (byte)value };
+		}
+		if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			return new byte[] { (byte)Opcodes.SIPUSH.opcode(), (byte)(value >>> 8), (byte)value };
+		}
+		int cpIdx = cpBuilder.getOrAddInteger(value).getIndex();
+		if(cpIdx <= 0xFF) {
+			return new byte[] { (byte)Opcodes.LDC.opcode(), (byte)cpIdx };
+		}
+		return new byte[] { (byte)Opcodes.LDC_W.opcode(), (byte)(cpIdx >>> 8), (byte)cpIdx };
+	}
+
+}
@@ -0,0 +1,1073 @@
+package twg2.jbcm.modify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.StackMapTable;
+import twg2.jbcm.classFormat.attributes.StackMapTable.StackMapFrame;
+import twg2.jbcm.classFormat.attributes.VerificationTypeInfo;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InterfaceMethodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_InvokeDynamic;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.ir.ControlFlowGraph;
+
+/** Rebuilds a method's {@code StackMapTable} attribute from its code, use this after modifying a method's code
+ * (i.e. {@link Code#setCode(byte[])}, {@link Code#prependCode(byte[])}, {@link TypeUtility#addMethodCall(Code, CpIndex, java.lang.reflect.Method)})
+ * so that the class passes type checking verification.<br/>
+ * The local variable and operand stack types at the start of each {@link ControlFlowGraph} block are inferred by abstract
+ * interpretation of the code, starting from the method descriptor and merging the types at control flow joins until they stop changing.
+ * Two different reference types merge to their common super class found using a {@link ClassHierarchy}, other differing types merge to {@code top}.
+ * Frames are created at jump, switch, and exception handler targets and after unconditional jumps, returns, and {@code athrow},
+ * using the smallest frame kind ({@code same}, {@code same_locals_1_stack_item}, {@code chop}, {@code append}, or {@code full})
+ * which describes the change from the previous frame.<br/>
+ * Unreachable code can not be type checked, so like most bytecode libraries it is replaced with {@code nop ... athrow}
+ * and removed from exception handler ranges. Code containing {@code jsr} or {@code ret} can not be described by a
+ * {@code StackMapTable} and is rejected.
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public final class StackMapFrameComputer {
+	/** Types are ints, the low 4 bits are the {@link VerificationTypeInfo} tag, the remaining bits are the
+	 * {@link #names} index of an {@code OBJECT} or the {@code new} instruction offset of an {@code UNINITIALIZED} type
+	 */
+	private static final int TOP = VerificationTypeInfo.TOP;
+	private static final int INTEGER = VerificationTypeInfo.INTEGER;
+	private static final int FLOAT = VerificationTypeInfo.FLOAT;
+	private static final int DOUBLE = VerificationTypeInfo.DOUBLE;
+	private static final int LONG = VerificationTypeInfo.LONG;
+	private static final int NULL = VerificationTypeInfo.NULL;
+	private static final int UNINITIALIZED_THIS = VerificationTypeInfo.UNINITIALIZED_THIS;
+	private static final int OBJECT = VerificationTypeInfo.OBJECT;
+	private static final int UNINITIALIZED = VerificationTypeInfo.UNINITIALIZED;
+
+	private final ClassFile classFile;
+	private final ClassHierarchy hierarchy;
+	private final Code codeAttr;
+	private final byte[] code;
+	private final InstructionIndex index;
+	private final ControlFlowGraph cfg;
+	private final String thisClass;
+	private final int localCount;
+	/** The class names of object types */
+	private final ArrayList<String> names = new ArrayList<>();
+	private final HashMap<String, Integer> nameIds = new HashMap<>();
+	/** Merged object types keyed by the two merged {@link #names} indexes */
+	private final HashMap<Long, Integer> mergedObjects = new HashMap<>();
+	/** The local variable types on method entry */
+	private final int[] entryLocals;
+	/** The local variable types at the start of each block, null for blocks which have not been reached */
+	private final int[][] inLocals;
+	/** The operand stack slot types at the start of each block */
+	private final int[][] inStacks;
+	/** The exception type of each exception handler block, {@link #TOP} for other blocks */
+	private final int[] handlerTypes;
+	private final int[] worklist;
+	private int worklistSize;
+	private final boolean[] queued;
+	// the frame of the instruction being interpreted, long and double values use two slots, the second slot is top
+	private final int[] locals;
+	private int[] stack;
+	private int sp;
+
+
+	private StackMapFrameComputer(ClassFile classFile, ClassHierarchy hierarchy, Method_Info method, Code codeAttr) {
+		this.classFile = classFile;
+		this.hierarchy = hierarchy;
+		this.codeAttr = codeAttr;
+		this.code = codeAttr.getCode();
+		this.index = codeAttr.getInstructionIndex();
+		this.cfg = ControlFlowGraph.build(codeAttr);
+		this.thisClass = classFile.getClassIndex().getCpObject().getName().getString();
+
+		String descriptor = method.getDescriptor().getString();
+		boolean isStatic = (method.getAccessFlags() & Method_Info.ACC_STATIC) != 0;
+		int count = isStatic ? 0 : 1;
+		for(int i = 1; descriptor.charAt(i) != ')'; i = descriptorEnd(descriptor, i)) {
+			char ch = descriptor.charAt(i);
+			count += (ch == 'J' || ch == 'D') ? 2 : 1;
+		}
+		for(int n = 0, size = index.size(); n < size; n++) {
+			int local = index.getLocalVariable(n);
+			if(local >= 0) {
+				count = Math.max(count, local + OpcodeTables.localVariableSize(index.getOpcodeValue(n)));
+			}
+		}
+		this.localCount = Math.max(codeAttr.getMaxLocals(), count);
+		this.locals = new int[localCount];
+		this.stack = new int[Math.max(codeAttr.getMaxStack(), 4)];
+
+		if(!isStatic) {
+			boolean uninitialized = "<init>".equals(method.getName().getString()) && !"java/lang/Object".equals(thisClass);
+			setLocal(0, uninitialized ? UNINITIALIZED_THIS : objectType(thisClass));
+		}
+		int local = isStatic ? 0 : 1;
+		for(int i = 1; descriptor.charAt(i) != ')'; i = descriptorEnd(descriptor, i)) {
+			int type = descriptorType(descriptor, i);
+			setLocal(local, type);
+			local += isWide(type) ? 2 : 1;
+		}
+		this.entryLocals = locals.clone();
+
+		int blockCount = cfg.getBlockCount();
+		this.inLocals = new int[blockCount][];
+		this.inStacks = new int[blockCount][];
+		this.handlerTypes = new int[blockCount];
+		this.worklist = new int[blockCount];
+		this.queued = new boolean[blockCount];
+	}
+
+
+	/** Recompute the {@code StackMapTable} of a method and replace the method's existing table.
+	 * Unreachable code in the method is replaced with {@code nop ... athrow} and removed from the method's exception handler ranges.
+	 * @param method the method, methods without code are ignored
+	 * @param hierarchy resolves the classes referenced by the method's code
+	 * @param cpBuilder the constant pool builder of the method's class file, class and attribute name entries are added as needed
+	 * @return the new stack map table, or null if the method does not have code or does not need a stack map table,
+	 * in which case any existing table is removed
+	 * @throws IllegalStateException if the code uses {@code jsr} or {@code ret}, or if the code is not type safe
+	 * (i.e. different operand stack heights where control flow joins)
+	 */
+	public static StackMapTable update(Method_Info method, ClassHierarchy hierarchy, ConstantPoolBuilder cpBuilder) {
+		Code codeAttr = method.getCode();
+		if(codeAttr == null) {
+			return null;
+		}
+		ClassFile classFile = cpBuilder.getClassFile();
+		var computer = new StackMapFrameComputer(classFile, hierarchy, method, codeAttr);
+		computer.interpret();
+		computer.removeUnreachableCode();
+		StackMapFrame[] frames = computer.createFrames(cpBuilder);
+
+		if(frames.length == 0) {
+			codeAttr.removeAttribute(StackMapTable.ATTRIBUTE_NAME);
+			return null;
+		}
+		var table = new StackMapTable(classFile, cpBuilder.getOrAddUtf8(StackMapTable.ATTRIBUTE_NAME), frames);
+		codeAttr.setAttribute(table);
+		return table;
+	}
+
+
+	/** Recompute the {@code StackMapTable} of every method in a class file, see {@link #update(Method_Info, ClassHierarchy, ConstantPoolBuilder)}.
+	 * Class files older than version 50 (Java 6) are not type checked and are left unchanged.
+	 * @param classFile the class file
+	 * @param hierarchy resolves the classes referenced by the class file's code
+	 * @return the number of methods with code which were updated
+	 */
+	public static int updateAll(ClassFile classFile, ClassHierarchy hierarchy) {
+		if(classFile.getMajorVersion() < 50) {
+			return 0;
+		}
+		var cpBuilder = new ConstantPoolBuilder(classFile);
+		int updated = 0;
+		for(int i = 0, size = classFile.getMethodCount(); i < size; i++) {
+			Method_Info method = classFile.getMethod(i);
+			if(method.getCode() != null) {
+				update(method, hierarchy, cpBuilder);
+				updated++;
+			}
+		}
+		return updated;
+	}
+
+
+	private void interpret() {
+		for(int n = 0, size = index.size(); n < size; n++) {
+			Opcodes opcode = index.getOpcode(n);
+			if(opcode == Opcodes.JSR || opcode == Opcodes.JSR_W || opcode == Opcodes.RET) {
+				throw new IllegalStateException("code offset " + index.getStart(n) + " " + opcode.displayName() + ", subroutines can not be described by a StackMapTable");
+			}
+		}
+
+		Code.ExceptionPoint[] exceptionTable = codeAttr.getExceptionTable();
+		for(int i = 0, size = exceptionTable != null ? exceptionTable.length : 0; i < size; i++) {
+			Code.ExceptionPoint handler = exceptionTable[i];
+			CpIndex<CONSTANT_Class> catchType = handler.getCatchType();
+			int type = objectType(catchType != null && catchType.getIndex() != 0 ? catchType.getCpObject().getName().getString() : "java/lang/Throwable");
+			int block = cfg.getBlockAt(handler.getHandlerPc() & 0xFFFF);
+			handlerTypes[block] = handlerTypes[block] == TOP ? type : merge(handlerTypes[block], type);
+		}
+
+		mergeInto(0, entryLocals, stack, 0);
+		while(worklistSize > 0) {
+			int block = worklist[--worklistSize];
+			queued[block] = false;
+			interpretBlock(block);
+		}
+	}
+
+
+	private void interpretBlock(int block) {
+		System.arraycopy(inLocals[block], 0, locals, 0, localCount);
+		int[] blockStack = inStacks[block];
+		ensureStack(blockStack.length);
+		System.arraycopy(blockStack, 0, stack, 0, blockStack.length);
+		sp = blockStack.length;
+
+		boolean hasHandlers = false;
+		for(int i = 0, size = cfg.getSuccessorCount(block); i < size; i++) {
+			hasHandlers |= cfg.getSuccessorKind(block, i) == ControlFlowGraph.EdgeKind.EXCEPTION;
+		}
+
+		// a handler's frame must accept the local variables before every instruction it covers (and after every non-store instruction),
+		// the locals only change at stores and constructor calls, so they are only merged into the handlers when they may have changed
+		boolean localsChanged = true;
+		boolean store = false;
+		for(int n = cfg.getFirstInstruction(block), last = cfg.getLastInstruction(block); n <= last; n++) {
+			if(hasHandlers && localsChanged) {
+				mergeIntoHandlers(block);
+			}
+			store = OpcodeTables.hasBehavior(index.getOpcodeValue(n), Opcodes.Type.VAR_STORE);
+			localsChanged = execute(n);
+		}
+		if(hasHandlers && localsChanged && !store) {
+			mergeIntoHandlers(block);
+		}
+
+		for(int i = 0, size = cfg.getSuccessorCount(block); i < size; i++) {
+			if(cfg.getSuccessorKind(block, i) != ControlFlowGraph.EdgeKind.EXCEPTION) {
+				mergeInto(cfg.getSuccessor(block, i), locals, stack, sp);
+			}
+		}
+	}
+
+
+	private void mergeIntoHandlers(int block) {
+		int[] handlerStack = new int[1];
+		for(int i = 0, size = cfg.getSuccessorCount(block); i < size; i++) {
+			if(cfg.getSuccessorKind(block, i) == ControlFlowGraph.EdgeKind.EXCEPTION) {
+				int handler = cfg.getSuccessor(block, i);
+				handlerStack[0] = handlerTypes[handler];
+				mergeInto(handler, locals, handlerStack, 1);
+			}
+		}
+	}
+
+
+	/** Merge a frame into a block's starting frame, and queue the block if its starting frame changed
+	 */
+	private void mergeInto(int block, int[] srcLocals, int[] srcStack, int srcSp) {
+		if(inLocals[block] == null) {
+			inLocals[block] = srcLocals.clone();
+			inStacks[block] = Arrays.copyOf(srcStack, srcSp);
+			enqueue(block);
+			return;
+		}
+
+		boolean changed = false;
+		int[] dstLocals = inLocals[block];
+		for(int i = 0; i < localCount; i++) {
+			int type = merge(dstLocals[i], srcLocals[i]);
+			if(type != dstLocals[i]) {
+				dstLocals[i] = type;
+				changed = true;
+			}
+		}
+
+		int[] dstStack = inStacks[block];
+		if(dstStack.length != srcSp) {
+			throw new IllegalStateException("operand stack height " + srcSp + " does not match height " + dstStack.length + " at code offset " + cfg.getStartPc(block));
+		}
+		for(int i = 0; i < srcSp; i++) {
+			int type = merge(dstStack[i], srcStack[i]);
+			if(type == TOP && dstStack[i] != TOP) {
+				throw new IllegalStateException("incompatible operand stack types " + typeName(dstStack[i]) + " and " + typeName(srcStack[i]) + " at code offset " + cfg.getStartPc(block));
+			}
+			if(type != dstStack[i]) {
+				dstStack[i] = type;
+				changed = true;
+			}
+		}
+
+		if(changed) {
+			enqueue(block);
+		}
+	}
+
+
+	private void enqueue(int block) {
+		if(!queued[block]) {
+			queued[block] = true;
+			worklist[worklistSize++] = block;
+		}
+	}
+
+
+	/** Interpret one instruction, updating {@link #locals} and {@link #stack}
+	 * @return true if the local variable types may have changed
+	 */
+	private boolean execute(int n) {
+		Opcodes opcode = index.getOpcode(n);
+		switch(opcode) {
+		case NOP:
+		case IINC:
+		case GOTO:
+		case GOTO_W:
+		case RETURN:
+		case INEG:
+		case LNEG:
+		case FNEG:
+		case DNEG:
+			return false;
+		case ACONST_NULL:
+			push(NULL);
+			return false;
+		case ICONST_M1:
+		case ICONST_0:
+		case ICONST_1:
+		case ICONST_2:
+		case ICONST_3:
+		case ICONST_4:
+		case ICONST_5:
+		case BIPUSH:
+		case SIPUSH:
+			push(INTEGER);
+			return false;
+		case LCONST_0:
+		case LCONST_1:
+			push(LONG);
+			return false;
+		case FCONST_0:
+		case FCONST_1:
+		case FCONST_2:
+			push(FLOAT);
+			return false;
+		case DCONST_0:
+		case DCONST_1:
+			push(DOUBLE);
+			return false;
+		case LDC:
+		case LDC_W:
+		case LDC2_W:
+			push(constantType(index.getOperand(n), n));
+			return false;
+		case ILOAD:
+		case ILOAD_0:
+		case ILOAD_1:
+		case ILOAD_2:
+		case ILOAD_3:
+			push(INTEGER);
+			return false;
+		case LLOAD:
+		case LLOAD_0:
+		case LLOAD_1:
+		case LLOAD_2:
+		case LLOAD_3:
+			push(LONG);
+			return false;
+		case FLOAD:
+		case FLOAD_0:
+		case FLOAD_1:
+		case FLOAD_2:
+		case FLOAD_3:
+			push(FLOAT);
+			return false;
+		case DLOAD:
+		case DLOAD_0:
+		case DLOAD_1:
+		case DLOAD_2:
+		case DLOAD_3:
+			push(DOUBLE);
+			return false;
+		case ALOAD:
+		case ALOAD_0:
+		case ALOAD_1:
+		case ALOAD_2:
+		case ALOAD_3:
+			push(locals[index.getLocalVariable(n)]);
+			return false;
+		case IALOAD:
+		case BALOAD:
+		case CALOAD:
+		case SALOAD:
+			sp -= 2;
+			push(INTEGER);
+			return false;
+		case LALOAD:
+			sp -= 2;
+			push(LONG);
+			return false;
+		case FALOAD:
+			sp -= 2;
+			push(FLOAT);
+			return false;
+		case DALOAD:
+			sp -= 2;
+			push(DOUBLE);
+			return false;
+		case AALOAD:
+			sp--;
+			push(componentType(stack[--sp], n));
+			return false;
+		case ISTORE:
+		case ISTORE_0:
+		case ISTORE_1:
+		case ISTORE_2:
+		case ISTORE_3:
+			sp--;
+			setLocal(index.getLocalVariable(n), INTEGER);
+			return true;
+		case LSTORE:
+		case LSTORE_0:
+		case LSTORE_1:
+		case LSTORE_2:
+		case LSTORE_3:
+			sp -= 2;
+			setLocal(index.getLocalVariable(n), LONG);
+			return true;
+		case FSTORE:
+		case FSTORE_0:
+		case FSTORE_1:
+		case FSTORE_2:
+		case FSTORE_3:
+			sp--;
+			setLocal(index.getLocalVariable(n), FLOAT);
+			return true;
+		case DSTORE:
+		case DSTORE_0:
+		case DSTORE_1:
+		case DSTORE_2:
+		case DSTORE_3:
+			sp -= 2;
+			setLocal(index.getLocalVariable(n), DOUBLE);
+			return true;
+		case ASTORE:
+		case ASTORE_0:
+		case ASTORE_1:
+		case ASTORE_2:
+		case ASTORE_3:
+			setLocal(index.getLocalVariable(n), stack[--sp]);
+			return true;
+		case IASTORE:
+		case BASTORE:
+		case CASTORE:
+		case SASTORE:
+		case FASTORE:
+		case AASTORE:
+			sp -= 3;
+			return false;
+		case LASTORE:
+		case DASTORE:
+			sp -= 4;
+			return false;
+		case POP:
+		case IFEQ:
+		case IFNE:
+		case IFLT:
+		case IFGE:
+		case IFGT:
+		case IFLE:
+		case IFNULL:
+		case IFNONNULL:
+		case TABLESWITCH:
+		case LOOKUPSWITCH:
+		case IRETURN:
+		case FRETURN:
+		case ARETURN:
+		case ATHROW:
+		case MONITORENTER:
+		case MONITOREXIT:
+			sp--;
+			return false;
+		case POP2:
+		case IF_ICMPEQ:
+		case IF_ICMPNE:
+		case IF_ICMPLT:
+		case IF_ICMPGE:
+		case IF_ICMPGT:
+		case IF_ICMPLE:
+		case IF_ACMPEQ:
+		case IF_ACMPNE:
+		case LRETURN:
+		case DRETURN:
+			sp -= 2;
+			return false;
+		case DUP:
+			dup(1, 0);
+			return false;
+		case DUP_X1:
+			dup(1, 1);
+			return false;
+		case DUP_X2:
+			dup(1, 2);
+			return false;
+		case DUP2:
+			dup(2, 0);
+			return false;
+		case DUP2_X1:
+			dup(2, 1);
+			return false;
+		case DUP2_X2:
+			dup(2, 2);
+			return false;
+		case SWAP: {
+			int top = stack[sp - 1];
+			stack[sp - 1] = stack[sp - 2];
+			stack[sp - 2] = top;
+			return false;
+		}
+		case IADD:
+		case ISUB:
+		case IMUL:
+		case IDIV:
+		case IREM:
+		case ISHL:
+		case ISHR:
+		case IUSHR:
+		case IAND:
+		case IOR:
+		case IXOR:
+		case FCMPL:
+		case FCMPG:
+			sp -= 2;
+			push(INTEGER);
+			return false;
+		case FADD:
+		case FSUB:
+		case FMUL:
+		case FDIV:
+		case FREM:
+			sp -= 2;
+			push(FLOAT);
+			return false;
+		case LADD:
+		case LSUB:
+		case LMUL:
+		case LDIV:
+		case LREM:
+		case LAND:
+		case LOR:
+		case LXOR:
+			sp -= 4;
+			push(LONG);
+			return false;
+		case LSHL:
+		case LSHR:
+		case LUSHR:
+			sp -= 3;
+			push(LONG);
+			return false;
+		case DADD:
+		case DSUB:
+		case DMUL:
+		case DDIV:
+		case DREM:
+			sp -= 4;
+			push(DOUBLE);
+			return false;
+		case LCMP:
+		case DCMPL:
+		case DCMPG:
+			sp -= 4;
+			push(INTEGER);
+			return false;
+		case I2L:
+		case F2L:
+			sp--;
+			push(LONG);
+			return false;
+		case I2F:
+			sp--;
+			push(FLOAT);
+			return false;
+		case I2D:
+		case F2D:
+			sp--;
+			push(DOUBLE);
+			return false;
+		case F2I:
+		case I2B:
+		case I2C:
+		case I2S:
+			sp--;
+			push(INTEGER);
+			return false;
+		case L2I:
+		case D2I:
+			sp -= 2;
+			push(INTEGER);
+			return false;
+		case L2F:
+		case D2F:
+			sp -= 2;
+			push(FLOAT);
+			return false;
+		case L2D:
+			sp -= 2;
+			push(DOUBLE);
+			return false;
+		case D2L:
+			sp -= 2;
+			push(LONG);
+			return false;
+		case GETSTATIC:
+		case PUTSTATIC:
+		case GETFIELD:
+		case PUTFIELD: {
+			String descriptor = ((CONSTANT_Fieldref)cpObject(index.getOperand(n))).getNameAndType().getDescriptor().getString();
+			if(opcode == Opcodes.PUTSTATIC || opcode == Opcodes.PUTFIELD) {
+				sp -= descriptorSlots(descriptor.charAt(0));
+			}
+			if(opcode == Opcodes.GETFIELD || opcode == Opcodes.PUTFIELD) {
+				sp--;
+			}
+			if(opcode == Opcodes.GETSTATIC || opcode == Opcodes.GETFIELD) {
+				push(descriptorType(descriptor, 0));
+			}
+			return false;
+		}
+		case INVOKEVIRTUAL:
+		case INVOKESPECIAL:
+		case INVOKESTATIC:
+		case INVOKEINTERFACE:
+		case INVOKEDYNAMIC:
+			return invoke(opcode, n);
+		case NEW:
+			push(UNINITIALIZED | (index.getStart(n) << 4));
+			return false;
+		case NEWARRAY:
+			sp--;
+			push(objectType(primitiveArrayName(index.getOperand(n))));
+			return false;
+		case ANEWARRAY: {
+			sp--;
+			String component = className(index.getOperand(n));
+			push(objectType(component.charAt(0) == '[' ? "[" + component : "[L" + component + ";"));
+			return false;
+		}
+		case ARRAYLENGTH:
+		case INSTANCEOF:
+			sp--;
+			push(INTEGER);
+			return false;
+		case CHECKCAST:
+			sp--;
+			push(objectType(className(index.getOperand(n))));
+			return false;
+		case MULTIANEWARRAY:
+			sp -= index.getOperand2(n);
+			push(objectType(className(index.getOperand(n))));
+			return false;
+		default:
+			throw new IllegalStateException("code offset " + index.getStart(n) + " unsupported instruction " + opcode.displayName());
+		}
+	}
+
+
+	private boolean invoke(Opcodes opcode, int n) {
+		CONSTANT_CP_Info ref = cpObject(index.getOperand(n));
+		CONSTANT_NameAndType nameAndType = ref instanceof CONSTANT_Methodref ? ((CONSTANT_Methodref)ref).getNameAndType()
+				: (ref instanceof CONSTANT_InterfaceMethodref ? ((CONSTANT_InterfaceMethodref)ref).getNameAndType() : ((CONSTANT_InvokeDynamic)ref).getNameAndType());
+		String descriptor = nameAndType.getDescriptor().getString();
+		int i = 1;
+		for(; descriptor.charAt(i) != ')'; i = descriptorEnd(descriptor, i)) {
+			sp -= descriptorSlots(descriptor.charAt(i));
+		}
+
+		boolean initialized = false;
+		if(opcode != Opcodes.INVOKESTATIC && opcode != Opcodes.INVOKEDYNAMIC) {
+			int receiver = stack[--sp];
+			if(opcode == Opcodes.INVOKESPECIAL && "<init>".equals(nameAndType.getName().getString())) {
+				// a constructor call initializes every copy of the uninitialized object
+				int type = receiver == UNINITIALIZED_THIS ? objectType(thisClass)
+						: objectType(className(IoUtility.readShort(code, (receiver >>> 4) + 1) & 0xFFFF));
+				for(int j = 0; j < localCount; j++) {
+					if(locals[j] == receiver) {
+						locals[j] = type;
+					}
+				}
+				for(int j = 0; j < sp; j++) {
+					if(stack[j] == receiver) {
+						stack[j] = type;
+					}
+				}
+				initialized = true;
+			}
+		}
+
+		if(descriptor.charAt(i + 1) != 'V') {
+			push(descriptorType(descriptor, i + 1));
+		}
+		return initialized;
+	}
+
+
+	private void push(int type) {
+		ensureStack(sp + 2);
+		stack[sp++] = type;
+		if(isWide(type)) {
+			stack[sp++] = TOP;
+		}
+	}
+
+
+	/** Copy the top {@code count} stack slots and insert the copy below the {@code depth} slots beneath them
+	 */
+	private void dup(int count, int depth) {
+		ensureStack(sp + count);
+		System.arraycopy(stack, sp - count - depth, stack, sp - depth, count + depth);
+		System.arraycopy(stack, sp, stack, sp - count - depth, count);
+		sp += count;
+	}
+
+
+	private void ensureStack(int size) {
+		if(size > stack.length) {
+			stack = Arrays.copyOf(stack, Math.max(size, stack.length * 2));
+		}
+	}
+
+
+	private void setLocal(int local, int type) {
+		// overwriting the second slot of a long or double invalidates it
+		if(local > 0 && isWide(locals[local - 1])) {
+			locals[local - 1] = TOP;
+		}
+		locals[local] = type;
+		if(isWide(type)) {
+			locals[local + 1] = TOP;
+		}
+	}
+
+
+	private static boolean isWide(int type) {
+		return type == LONG || type == DOUBLE;
+	}
+
+
+	/** Merge two types into the most specific type assignable from both
+	 */
+	private int merge(int type1, int type2) {
+		if(type1 == type2) {
+			return type1;
+		}
+		int tag1 = type1 & 0xF;
+		int tag2 = type2 & 0xF;
+		if(tag1 == OBJECT && tag2 == OBJECT) {
+			int id1 = type1 >>> 4;
+			int id2 = type2 >>> 4;
+			long key = id1 < id2 ? ((long)id1 << 32) | id2 : ((long)id2 << 32) | id1;
+			Integer merged = mergedObjects.get(key);
+			if(merged == null) {
+				merged = objectType(commonSuperType(names.get(id1), names.get(id2)));
+				mergedObjects.put(key, merged);
+			}
+			return merged;
+		}
+		if(tag1 == NULL && tag2 == OBJECT) {
+			return type2;
+		}
+		if(tag1 == OBJECT && tag2 == NULL) {
+			return type1;
+		}
+		return TOP;
+	}
+
+
+	private String commonSuperType(String name1, String name2) {
+		boolean array1 = name1.charAt(0) == '[';
+		boolean array2 = name2.charAt(0) == '[';
+		if(array1 && array2) {
+			char component1 = name1.charAt(1);
+			char component2 = name2.charAt(1);
+			// arrays of references merge to an array of the components' common super type, other arrays only share Object
+			if((component1 == 'L' || component1 == '[') && (component2 == 'L' || component2 == '[')) {
+				String component = commonSuperType(componentName(name1), componentName(name2));
+				return component.charAt(0) == '[' ? "[" + component : "[L" + component + ";";
+			}
+			return "java/lang/Object";
+		}
+		if(array1 || array2) {
+			return "java/lang/Object";
+		}
+		return hierarchy.getCommonSuperClass(name1, name2);
+	}
+
+
+	private static String componentName(String arrayName) {
+		return arrayName.charAt(1) == 'L' ? arrayName.substring(2, arrayName.length() - 1) : arrayName.substring(1);
+	}
+
+
+	private int componentType(int arrayType, int n) {
+		if(arrayType == NULL) {
+			return NULL;
+		}
+		String name = (arrayType & 0xF) == OBJECT ? names.get(arrayType >>> 4) : null;
+		if(name == null || name.length() < 2 || name.charAt(0) != '[' || (name.charAt(1) != 'L' && name.charAt(1) != '[')) {
+			throw new IllegalStateException("code offset " + index.getStart(n) + " aaload from a non reference array " + typeName(arrayType));
+		}
+		return objectType(componentName(name));
+	}
+
+
+	private int objectType(String className) {
+		Integer id = nameIds.get(className);
+		if(id == null) {
+			id = names.size();
+			names.add(className);
+			nameIds.put(className, id);
+		}
+		return OBJECT | (id << 4);
+	}
+
+
+	private int constantType(int cpIndex, int n) {
+		switch(classFile.getCpTag(cpIndex)) {
+		case 3: return INTEGER;
+		case 4: return FLOAT;
+		case 5: return LONG;
+		case 6: return DOUBLE;
+		case 7: return objectType("java/lang/Class");
+		case 8: return objectType("java/lang/String");
+		case 15: return objectType("java/lang/invoke/MethodHandle");
+		case 16: return objectType("java/lang/invoke/MethodType");
+		default:
+			throw new IllegalStateException("code offset " + index.getStart(n) + " unsupported ldc constant pool tag " + classFile.getCpTag(cpIndex));
+		}
+	}
+
+
+	private static String primitiveArrayName(int atype) {
+		switch(atype) {
+		case 4: return "[Z";
+		case 5: return "[C";
+		case 6: return "[F";
+		case 7: return "[D";
+		case 8: return "[B";
+		case 9: return "[S";
+		case 10: return "[I";
+		case 11: return "[J";
+		default:
+			throw new IllegalStateException("unknown newarray type " + atype);
+		}
+	}
+
+
+	private CONSTANT_CP_Info cpObject(int cpIndex) {
+		return classFile.getCpIndex(cpIndex).getCpObject();
+	}
+
+
+	private String className(int cpIndex) {
+		return classFile.getCheckCpIndex(cpIndex, CONSTANT_Class.class).getCpObject().getName().getString();
+	}
+
+
+	/**
+	 * @return the type of the field descriptor starting at {@code start}
+	 */
+	private int descriptorType(String descriptor, int start) {
+		switch(descriptor.charAt(start)) {
+		case 'Z':
+		case 'B':
+		case 'C':
+		case 'S':
+		case 'I':
+			return INTEGER;
+		case 'F':
+			return FLOAT;
+		case 'J':
+			return LONG;
+		case 'D':
+			return DOUBLE;
+		case 'L':
+			return objectType(descriptor.substring(start + 1, descriptor.indexOf(';', start)));
+		case '[':
+			return objectType(descriptor.substring(start, descriptorEnd(descriptor, start)));
+		default:
+			throw new IllegalArgumentException("invalid field descriptor '" + descriptor + "' at index " + start);
+		}
+	}
+
+
+	/**
+	 * @return the index following the end of the field descriptor starting at {@code start}
+	 */
+	private static int descriptorEnd(String descriptor, int start) {
+		int i = start;
+		while(descriptor.charAt(i) == '[') {
+			i++;
+		}
+		return descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+	}
+
+
+	private static int descriptorSlots(char descriptorStart) {
+		return (descriptorStart == 'J' || descriptorStart == 'D') ? 2 : 1;
+	}
+
+
+	/** Replace unreachable code with {@code nop ... athrow}, each unreachable run of blocks becomes a block which starts with
+	 * a frame containing only a {@code Throwable} on the stack, and remove the unreachable code from the exception handler ranges
+	 */
+	private void removeUnreachableCode() {
+		int blockCount = cfg.getBlockCount();
+		int[] runs = new int[blockCount * 2];
+		int runCount = 0;
+		for(int b = 0; b < blockCount; b++) {
+			if(inLocals[b] == null && (b == 0 || inLocals[b - 1] != null)) {
+				int end = b + 1;
+				while(end < blockCount && inLocals[end] == null) {
+					end++;
+				}
+				int startPc = cfg.getStartPc(b);
+				int endPc = end < blockCount ? cfg.getStartPc(end) : code.length;
+				Arrays.fill(code, startPc, endPc - 1, (byte)Opcodes.NOP.opcode());
+				code[endPc - 1] = (byte)Opcodes.ATHROW.opcode();
+				runs[runCount++] = startPc;
+				runs[runCount++] = endPc;
+			}
+		}
+		if(runCount == 0) {
+			return;
+		}
+		// athrow needs a stack slot which the replaced code may not have used
+		codeAttr.clearInstructionIndex();
+		codeAttr.markMaxsStale();
+
+		Code.ExceptionPoint[] exceptionTable = codeAttr.getExceptionTable();
+		var handlers = new ArrayList<Code.ExceptionPoint>();
+		for(int i = 0, size = exceptionTable != null ? exceptionTable.length : 0; i < size; i++) {
+			Code.ExceptionPoint handler = exceptionTable[i];
+			int start = handler.getStartPc() & 0xFFFF;
+			int end = handler.getEndPc() & 0xFFFF;
+			boolean changed = false;
+			for(int r = 0; r < runCount; r += 2) {
+				if(runs[r + 1] <= start || runs[r] >= end) {
+					continue;
+				}
+				changed = true;
+				if(runs[r] > start) {
+					handlers.add(new Code.ExceptionPoint(codeAttr, start, runs[r], handler.getHandlerPc() & 0xFFFF, handler.getCatchType()));
+				}
+				start = runs[r + 1];
+			}
+			if(!changed) {
+				handlers.add(handler);
+			}
+			else if(start < end) {
+				handlers.add(new Code.ExceptionPoint(codeAttr, start, end, handler.getHandlerPc() & 0xFFFF, handler.getCatchType()));
+			}
+		}
+		codeAttr.setExceptionTable(handlers.toArray(new Code.ExceptionPoint[handlers.size()]));
+	}
+
+
+	private StackMapFrame[] createFrames(ConstantPoolBuilder cpBuilder) {
+		int blockCount = cfg.getBlockCount();
+		var frames = new ArrayList<StackMapFrame>();
+		int[] prevLocals = compress(entryLocals, localCount, true);
+		int prevPc = -1;
+		int[] unreachableStack = { objectType("java/lang/Throwable") };
+
+		for(int b = 0; b < blockCount; b++) {
+			int[] frameLocals;
+			int[] frameStack;
+			if(inLocals[b] == null) {
+				if(inLocals[b - 1] == null) {
+					continue;
+				}
+				frameLocals = new int[0];
+				frameStack = unreachableStack;
+			}
+			else if(needsFrame(b)) {
+				frameLocals = compress(inLocals[b], localCount, true);
+				frameStack = compress(inStacks[b], inStacks[b].length, false);
+			}
+			else {
+				continue;
+			}
+
+			int pc = cfg.getStartPc(b);
+			frames.add(createFrame(pc - prevPc - 1, prevLocals, frameLocals, frameStack, cpBuilder));
+			prevLocals = frameLocals;
+			prevPc = pc;
+		}
+		return frames.toArray(new StackMapFrame[frames.size()]);
+	}
+
+
+	/** A block needs a frame if it is a jump, switch, or exception handler target or follows an instruction which does not fall through
+	 */
+	private boolean needsFrame(int block) {
+		boolean fallsThrough = false;
+		for(int i = 0, size = cfg.getPredecessorCount(block); i < size; i++) {
+			if(cfg.getPredecessorKind(block, i) != ControlFlowGraph.EdgeKind.FALLTHROUGH) {
+				return true;
+			}
+			fallsThrough = true;
+		}
+		return block > 0 && (!fallsThrough || inLocals[block - 1] == null);
+	}
+
+
+	/** Convert slot types into a list of verification types, long and double values become one entry
+	 * @param trimTop whether to remove trailing {@code top} entries
+	 */
+	private static int[] compress(int[] slots, int size, boolean trimTop) {
+		int[] types = new int[size];
+		int count = 0;
+		for(int i = 0; i < size; i++) {
+			types[count++] = slots[i];
+			if(isWide(slots[i])) {
+				i++;
+			}
+		}
+		while(trimTop && count > 0 && types[count - 1] == TOP) {
+			count--;
+		}
+		return Arrays.copyOf(types, count);
+	}
+
+
+	private StackMapFrame createFrame(int offsetDelta, int[] prevLocals, int[] frameLocals, int[] frameStack, ConstantPoolBuilder cpBuilder) {
+		int k = frameLocals.length - prevLocals.length;
+		if(frameStack.length == 0) {
+			if(k == 0 && Arrays.equals(prevLocals, frameLocals)) {
+				return new StackMapFrame(classFile, offsetDelta < 64 ? offsetDelta : 251, offsetDelta, null, null);
+			}
+			if(k < 0 && k >= -3 && Arrays.equals(prevLocals, 0, frameLocals.length, frameLocals, 0, frameLocals.length)) {
+				return new StackMapFrame(classFile, 251 + k, offsetDelta, null, null);
+			}
+			if(k > 0 && k <= 3 && Arrays.equals(prevLocals, 0, prevLocals.length, frameLocals, 0, prevLocals.length)) {
+				return new StackMapFrame(classFile, 251 + k, offsetDelta, verificationTypes(frameLocals, prevLocals.length, cpBuilder), null);
+			}
+		}
+		else if(frameStack.length == 1 && k == 0 && Arrays.equals(prevLocals, frameLocals)) {
+			return new StackMapFrame(classFile, offsetDelta < 64 ? 64 + offsetDelta : 247, offsetDelta, null, verificationTypes(frameStack, 0, cpBuilder));
+		}
+		return new StackMapFrame(classFile, 255, offsetDelta, verificationTypes(frameLocals, 0, cpBuilder), verificationTypes(frameStack, 0, cpBuilder));
+	}
+
+
+	private VerificationTypeInfo[] verificationTypes(int[] types, int start, ConstantPoolBuilder cpBuilder) {
+		var infos = new VerificationTypeInfo[types.length - start];
+		for(int i = start; i < types.length; i++) {
+			int tag = types[i] & 0xF;
+			int value = tag == OBJECT ? cpBuilder.getOrAddClass(names.get(types[i] >>> 4)).getIndex() : types[i] >>> 4;
+			infos[i - start] = new VerificationTypeInfo(classFile, (byte)tag, (short)value);
+		}
+		return infos;
+	}
+
+
+	private String typeName(int type) {
+		int tag = type & 0xF;
+		return tag == OBJECT ? names.get(type >>> 4) : (tag == UNINITIALIZED ? "uninitialized(" + (type >>> 4) + ")" : new VerificationTypeInfo(classFile, (byte)tag, (short)0).toString());
+	}
+
+}
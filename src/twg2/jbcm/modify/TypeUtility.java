@@ -5,13 +5,11 @@ import java.util.List;
 
 import twg2.jbcm.CodeUtility;
 import twg2.jbcm.classFormat.ClassFile;
-import twg2.jbcm.classFormat.ConstantPoolTag;
 import twg2.jbcm.classFormat.CpIndex;
 import twg2.jbcm.classFormat.attributes.Code;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
 import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
-import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
 import twg2.jbcm.ir.MethodStack;
 import twg2.jbcm.toSource.ParameterNamer;
 
@@ -59,64 +57,28 @@ public class TypeUtility {
 	/** Add a Methodref of the specified method to the specified class file.
 	 * This ensures that the appropriate class, method, and method definitions
 	 * are present in the class and inserts a properly linked {@link CONSTANT_Methodref}
-	 * into the class file's constant pool.
+	 * into the class file's constant pool, existing entries are reused.
 	 * @param classFile the class file object to add the method reference to
 	 * @param method the method reference to add to the class file object
 	 * @return the index of the inserted method reference in the class file's constant pool
+	 * @see ConstantPoolBuilder
 	 */
 	public static CpIndex<CONSTANT_Methodref> addMethodToConstantPool(ClassFile classFile, Method method) {
-		String className = TypeUtility.classNameInternal(method.getDeclaringClass());
-		String methodName = method.getName();
-		String methodDes = TypeUtility.methodDescriptor(method);
-		CpIndex<CONSTANT_Utf8> classNameIndex = classFile.findConstantPoolString(className);
-		CpIndex<CONSTANT_Utf8> methodNameIndex = classFile.findConstantPoolString(methodName);
-		CpIndex<CONSTANT_Utf8> methodDesIndex = classFile.findConstantPoolString(methodDes);
-
-		if(classNameIndex == null) {
-			classNameIndex = addString(classFile, className);
-		}
-		if(methodNameIndex == null) {
-			methodNameIndex = addString(classFile, methodName);
-		}
-		if(methodDesIndex == null) {
-			methodDesIndex = addString(classFile, methodDes);
-		}
-
-		CpIndex<CONSTANT_Class> classIndex = classFile.findConstantPoolClass(method.getDeclaringClass());
-		CpIndex<CONSTANT_NameAndType> nameTypeIndex = classFile.findConstantPoolNameAndType(method);
-		CpIndex<CONSTANT_Methodref> methodIndex = classFile.findConstantPoolMethod(method);
-
-		if(classIndex == null) {
-			CONSTANT_Class clas = (CONSTANT_Class)ConstantPoolTag.CLASS.create(classFile);
-			clas.setNameIndex(classNameIndex);
-			classIndex = classFile.addToConstantPool(clas);
-		}
-		if(nameTypeIndex == null) {
-			CONSTANT_NameAndType nameType = (CONSTANT_NameAndType)ConstantPoolTag.NAME_AND_TYPE.create(classFile);
-			nameType.setNameIndex(methodNameIndex);
-			nameType.setDescriptorIndex(methodDesIndex);
-			nameTypeIndex = classFile.addToConstantPool(nameType);
-		}
-		if(methodIndex == null) {
-			CONSTANT_Methodref methodref = (CONSTANT_Methodref)ConstantPoolTag.METHOD_REF.create(classFile);
-			methodref.setClassIndex(classIndex);
-			methodref.setNameAndTypeIndex(nameTypeIndex);
-			methodIndex = classFile.addToConstantPool(methodref);
-		}
-		return methodIndex;
+		// the builder only wraps the class file's findConstantPool*() lookups and addToConstantPool(), it does not index the constant pool itself
+		return addMethodToConstantPool(new ConstantPoolBuilder(classFile), method);
 	}
 
 
-	/** Add a string as a Utf8 constant pool object to the specified class file
-	 * @param classFile the class file to add the string to
-	 * @param str the string to add to the constant pool of the specified class file object
-	 * @return the constant pool index of the added Utf8 object in the class file
+	/** Add a Methodref of the specified method to a constant pool builder's class file
+	 * @param cpBuilder the class file's constant pool builder
+	 * @param method the method reference to add to the class file object
+	 * @return the index of the method reference in the class file's constant pool
 	 */
-	private static CpIndex<CONSTANT_Utf8> addString(ClassFile classFile, String str) {
-		CONSTANT_Utf8 name = (CONSTANT_Utf8)ConstantPoolTag.UTF8.create(classFile);
-		name.setString(str);
-		CpIndex<CONSTANT_Utf8> result = classFile.addToConstantPool(name);
-		return result;
+	public static CpIndex<CONSTANT_Methodref> addMethodToConstantPool(ConstantPoolBuilder cpBuilder, Method method) {
+		String className = TypeUtility.classNameInternal(method.getDeclaringClass());
+		String methodName = method.getName();
+		String methodDes = TypeUtility.methodDescriptor(method);
+		return cpBuilder.getOrAddMethodref(className, methodName, methodDes);
 	}
 
 
@@ -356,6 +318,49 @@ public class TypeUtility {
 	}
 
 
+	/** Count the local variable slots used by a method's parameters, {@code long} and {@code double} parameters use two slots
+	 * @param md the method descriptor
+	 * @return the number of parameter slots, excluding {@code this}
+	 */
+	public static int methodParameterSlots(String md) {
+		if(md.charAt(0) != '(') {
+			throw new IllegalArgumentException("method descriptor expected to start with '('");
+		}
+
+		int slots = 0;
+		for(int i = 1; md.charAt(i) != ')'; i++) {
+			char ch = md.charAt(i);
+			slots += typeSlots(ch);
+			while(ch == '[') {
+				ch = md.charAt(++i);
+			}
+			if(ch == 'L') {
+				i = md.indexOf(';', i);
+			}
+		}
+		return slots;
+	}
+
+
+	/**
+	 * @param md the method descriptor
+	 * @return the number of operand stack slots used by the method's return value
+	 */
+	public static int methodReturnSlots(String md) {
+		return typeSlots(md.charAt(md.lastIndexOf(')') + 1));
+	}
+
+
+	/**
+	 * @param typeDescriptorStart the first character of a field or return type descriptor
+	 * @return the number of local variable or operand stack slots used by a value of the type, 2 for {@code long} and {@code double},
+	 * 0 for {@code void}, 1 for other types
+	 */
+	public static int typeSlots(char typeDescriptorStart) {
+		return typeDescriptorStart == 'J' || typeDescriptorStart == 'D' ? 2 : (typeDescriptorStart == 'V' ? 0 : 1);
+	}
+
+
 	/** Convert a type descriptor string to source
 	 * @param fd the field descriptor
 	 * @param dst the string builder to append the resulting field type to
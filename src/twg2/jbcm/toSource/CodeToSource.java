@@ -56,7 +56,7 @@ public class CodeToSource {
 		int i = 0;
 		int endIdx = instrCount - 1;
 
-		var possibleLoops = CodeFlow.findFlowConditions(instr, i, endIdx); // track GOTO/IF_* loops detected in the code
+		var possibleLoops = CodeFlow.findFlowConditions(code.getInstructionIndex(), i, endIdx); // track GOTO/IF_* loops detected in the code
 		var structuresInProgress = new ArrayList<CodeEmitter>();
 
 		var exception_table = code.getExceptionTable();
@@ -0,0 +1,99 @@
+package twg2.jbcm.test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.ByteBufferDataInput;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ParseOptions;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ByteBufferDataInputTest {
+
+	@Test
+	public void readPrimitives() throws IOException {
+		ByteBuffer buf = ByteBuffer.wrap(new byte[] { 9, 2, 4, 6, (byte)0xFF, (byte)0xFE, 0, 0, 1, 0, 7 });
+		buf.position(1);
+		ByteBufferDataInput in = new ByteBufferDataInput(buf);
+
+		Assert.assertEquals(2, in.readByte());
+		Assert.assertEquals(1, in.bytesRead());
+		Assert.assertEquals((4 << 8) | 6, in.readShort());
+		Assert.assertEquals(0xFFFE, in.readUnsignedShort());
+		Assert.assertEquals(256, in.readInt());
+		Assert.assertEquals(9, in.bytesRead());
+		Assert.assertEquals(1, in.remaining());
+		// the buffer's position is not modified by reads
+		Assert.assertEquals(1, buf.position());
+
+		try {
+			in.readShort();
+			Assert.fail("expected EOFException");
+		} catch(EOFException e) {
+			// expected
+		}
+		Assert.assertEquals(7, in.readByte());
+	}
+
+
+	@Test
+	public void loadClassFromBuffer() throws IOException {
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			Path path = Paths.get(fileName);
+			byte[] expect = Files.readAllBytes(path);
+
+			ClassFile streamLoaded = ClassFile.load(new File(fileName));
+			ClassFile pathLoaded = ClassFile.load(path);
+			ClassFile bytesLoaded = ClassFile.load(expect, fileName);
+
+			Assert.assertArrayEquals(streamLoaded.toByteArray(), pathLoaded.toByteArray());
+			Assert.assertArrayEquals(streamLoaded.toByteArray(), bytesLoaded.toByteArray());
+			Assert.assertArrayEquals(streamLoaded.toByteArray(), ClassFile.load(expect, fileName, ParseOptions.TRUSTED).toByteArray());
+			Assert.assertEquals(streamLoaded.getConstantPoolCount(), bytesLoaded.getConstantPoolCount());
+			Assert.assertEquals(streamLoaded.getMethodCount(), bytesLoaded.getMethodCount());
+		}
+	}
+
+
+	@Test
+	public void lazyConstantPool() throws IOException {
+		ParseOptions lazyOptions = ParseOptions.STRICT.withLazyConstantPool(true);
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "examples/ExampleMain.class" }) {
+			byte[] expect = Files.readAllBytes(Paths.get(fileName));
+
+			ClassFile eager = ClassFile.load(new File(fileName));
+			ClassFile lazy = ClassFile.load(expect, fileName, lazyOptions);
+			Assert.assertFalse(lazy.isConstantPoolLoaded());
+			// unparsed entries are written from the original bytes
+			Assert.assertArrayEquals(eager.toByteArray(), lazy.toByteArray());
+
+			for(int i = 1, size = eager.getConstantPoolCount(); i < size; i++) {
+				Assert.assertEquals(String.valueOf(eager.getConstantPoolIndex(i).getCpObject()), String.valueOf(lazy.getConstantPoolIndex(i).getCpObject()));
+			}
+			// the compact constant pool can be searched without parsing every entry
+			ClassFile streamLazy = ClassFile.load(new FileInputStream(fileName), fileName, lazyOptions);
+			String className = eager.getClassIndex().getCpObject().getName().getString();
+			int classNameIdx = streamLazy.findConstantPoolString(className).getIndex();
+			Assert.assertEquals(classNameIdx, streamLazy.getConstantPoolTable().getRef1(eager.getClassIndex().getIndex()));
+			Assert.assertEquals(className, streamLazy.getConstantPoolTable().getUtf8(classNameIdx));
+			Assert.assertArrayEquals(eager.toByteArray(), streamLazy.toByteArray());
+
+			lazy.loadConstantPool();
+			Assert.assertTrue(lazy.isConstantPoolLoaded());
+			Assert.assertArrayEquals(eager.toByteArray(), lazy.toByteArray());
+		}
+	}
+
+}
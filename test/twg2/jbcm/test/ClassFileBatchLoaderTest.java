@@ -0,0 +1,78 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFileBatchLoader;
+import twg2.jbcm.classFormat.ClassFileBatchLoader.Result;
+import twg2.jbcm.classFormat.ParseOptions;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassFileBatchLoaderTest {
+
+	@Test
+	public void loadDirectoryAndJar() throws IOException {
+		Path dir = Paths.get("res/destination");
+		var pool = new ForkJoinPool(4);
+		try {
+			var loader = new ClassFileBatchLoader(pool, ParseOptions.STRICT);
+			List<Result> dirResults = loader.loadAll(dir);
+			Assert.assertTrue(dirResults.size() > 1);
+
+			// copy the class files into a jar, along with one malformed class file
+			Path jar = Files.createTempFile("batch-loader-test", ".jar");
+			try {
+				try(var out = new JarOutputStream(Files.newOutputStream(jar))) {
+					for(Result res : dirResults) {
+						out.putNextEntry(new JarEntry(res.getName()));
+						out.write(Files.readAllBytes(dir.resolve(res.getName())));
+						out.closeEntry();
+					}
+					writeEntry(out, "bad/Malformed.class", new byte[] { (byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0, 0 });
+				}
+
+				List<Result> jarResults = loader.loadAll(jar);
+				Assert.assertEquals(dirResults.size() + 1, jarResults.size());
+				Result bad = jarResults.get(0);
+				Assert.assertEquals("bad/Malformed.class", bad.getName());
+				Assert.assertFalse(bad.isSuccess());
+				Assert.assertNull(bad.getClassFile());
+
+				for(int i = 0; i < dirResults.size(); i++) {
+					Result dirRes = dirResults.get(i);
+					Result jarRes = jarResults.get(i + 1);
+					Assert.assertEquals(dirRes.getName(), jarRes.getName());
+					Assert.assertEquals(dirRes.isSuccess(), jarRes.isSuccess());
+					if(dirRes.isSuccess()) {
+						Assert.assertEquals(dirRes.getClassFile().getClassIndex().getCpObject().getName().getString(), jarRes.getClassFile().getClassIndex().getCpObject().getName().getString());
+					}
+				}
+			} finally {
+				Files.deleteIfExists(jar);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+
+	private static void writeEntry(JarOutputStream out, String name, byte[] data) throws IOException {
+		out.putNextEntry(new JarEntry(name));
+		((OutputStream)out).write(data);
+		out.closeEntry();
+	}
+
+}
@@ -0,0 +1,116 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.CodeUtility;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassFileReader;
+import twg2.jbcm.classFormat.ClassFileVisitor;
+import twg2.jbcm.classFormat.ConstantPoolTable;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassFileReaderTest {
+
+	@Test
+	public void matchesClassFile() throws IOException {
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			ClassFile classFile = ClassFile.load(Paths.get(fileName));
+			var methods = new ArrayList<String>();
+			var codes = new ArrayList<byte[]>();
+			var classAttributes = new ArrayList<String>();
+			int[] counts = new int[2]; // constants, instruction bytes
+
+			ClassFileReader.read(Paths.get(fileName), new ClassFileVisitor() {
+				@Override
+				public void visitHeader(int minorVersion, int majorVersion, int accessFlags, String className, String superClassName, String[] interfaceNames) {
+					Assert.assertEquals(classFile.getAccessFlags(), accessFlags);
+					Assert.assertEquals(classFile.getClassIndex().getCpObject().getName().getString(), className);
+				}
+
+				@Override
+				public void visitConstant(int index, int tag, ConstantPoolTable constantPool) {
+					Assert.assertEquals(classFile.getConstantPoolIndex(index).getCpObject().getTag(), tag);
+					if(tag == CONSTANT_Utf8.TAG) {
+						Assert.assertEquals(((CONSTANT_Utf8)classFile.getConstantPoolIndex(index).getCpObject()).getString(), constantPool.getUtf8(index));
+					}
+					counts[0]++;
+				}
+
+				@Override
+				public boolean visitMethod(int accessFlags, String name, String descriptor) {
+					methods.add(name + descriptor);
+					codes.add(null);
+					return true;
+				}
+
+				@Override
+				public boolean visitCode(int maxStack, int maxLocals, byte[] code) {
+					codes.set(codes.size() - 1, code);
+					return true;
+				}
+
+				@Override
+				public void visitInstruction(Opcodes opcode, byte[] code, int location) {
+					counts[1] += CodeUtility.instructionLength(code, location);
+				}
+
+				@Override
+				public void visitAttribute(AttributeTarget target, String name, ByteBuffer buf, int offset, int length) {
+					if(target == AttributeTarget.CLASS) {
+						classAttributes.add(name);
+					}
+				}
+			});
+
+			List<String> expectMethods = new ArrayList<>();
+			int codeBytes = 0;
+			for(int i = 0; i < classFile.getMethodCount(); i++) {
+				Method_Info method = classFile.getMethod(i);
+				expectMethods.add(method.getName().getString() + method.getDescriptor().getString());
+				if(method.getCode() != null) {
+					byte[] code = method.getCode().getCode();
+					Assert.assertArrayEquals(code, codes.get(i));
+					codeBytes += code.length;
+				}
+			}
+			Assert.assertEquals(expectMethods, methods);
+			// every instruction was visited exactly once
+			Assert.assertEquals(codeBytes, counts[1]);
+			Assert.assertTrue(counts[0] > 0);
+
+			List<String> expectAttributes = new ArrayList<>();
+			for(int i = 0; i < classFile.getAttributeCount(); i++) {
+				expectAttributes.add(classFile.getAttribute(i).getAttributeName());
+			}
+			Assert.assertEquals(expectAttributes, classAttributes);
+		}
+	}
+
+
+	@Test
+	public void switchInstructionLength() {
+		// iload_0, tableswitch (2 bytes padding) default, low=1, high=2, 2 offsets, return
+		byte[] code = { 0x1A, (byte)0xAA, 0, 0, 0, 0, 0, 20, 0, 0, 0, 1, 0, 0, 0, 2, 0, 0, 0, 20, 0, 0, 0, 20, (byte)0xB1 };
+		Assert.assertEquals(1, CodeUtility.instructionLength(code, 0));
+		Assert.assertEquals(23, CodeUtility.instructionLength(code, 1));
+		Assert.assertEquals(1, CodeUtility.instructionLength(code, 24));
+		Assert.assertEquals(Arrays.asList(6, 4), Arrays.asList(
+				CodeUtility.instructionLength(new byte[] { (byte)0xC4, (byte)0x84, 0, 1, 0, 1 }, 0),
+				CodeUtility.instructionLength(new byte[] { (byte)0xC4, 0x15, 0, 1 }, 0)));
+	}
+
+}
@@ -0,0 +1,58 @@
+package twg2.jbcm.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ParseOptions;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassFileWriteTest {
+
+	@Test
+	public void toByteArray() throws IOException {
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			Path path = Paths.get(fileName);
+			byte[] bytes = Files.readAllBytes(path);
+
+			for(ParseOptions options : new ParseOptions[] { ParseOptions.STRICT, ParseOptions.TRUSTED.withLazyConstantPool(true).withLazyAttributes(true) }) {
+				ClassFile classFile = ClassFile.load(path, options);
+				Assert.assertEquals(bytes.length, classFile.computeSize());
+				Assert.assertArrayEquals(bytes, classFile.toByteArray());
+
+				var streamOut = new ByteArrayOutputStream();
+				classFile.writeData(new DataOutputStream(streamOut));
+				Assert.assertArrayEquals(bytes, streamOut.toByteArray());
+
+				ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length + 10);
+				buf.position(10);
+				Assert.assertEquals(bytes.length, classFile.writeTo(buf));
+				Assert.assertEquals(bytes.length + 10, buf.position());
+				byte[] written = new byte[bytes.length];
+				buf.get(10, written);
+				Assert.assertArrayEquals(bytes, written);
+
+				ByteBuffer small = ByteBuffer.allocate(bytes.length - 1);
+				try {
+					classFile.writeTo(small);
+					Assert.fail("expected buffer overflow");
+				} catch(BufferOverflowException boe) {
+					Assert.assertEquals(0, small.position());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.modify.ClassRelocator;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassRelocatorTest {
+
+	/** A string literal equal to a class name, javac shares one {@code CONSTANT_Utf8} between the string and class entries */
+	public static class SharedName {
+		public static String name() {
+			return "java/util/ArrayList";
+		}
+
+		public static Object create() {
+			return new java.util.ArrayList<Object>();
+		}
+	}
+
+
+	@Test
+	public void mapNames() {
+		var relocator = new ClassRelocator(Map.of("org/lib/", "shaded/lib/", "org.lib.sub.", "shaded.sub.", "a/A", "b/B"));
+
+		Assert.assertEquals("shaded/lib/X", relocator.mapClassName("org/lib/X"));
+		Assert.assertEquals("shaded/lib/other/X", relocator.mapClassName("org/lib/other/X"));
+		Assert.assertEquals("shaded/sub/X$1", relocator.mapClassName("org/lib/sub/X$1"));
+		Assert.assertEquals("org/library/X", relocator.mapClassName("org/library/X"));
+		Assert.assertEquals("b/B$Inner", relocator.mapClassName("a/A$Inner"));
+		Assert.assertEquals("a/AB", relocator.mapClassName("a/AB"));
+
+		Assert.assertEquals("([Lshaded/lib/X;ILb/B;)Lb/B$1;", relocator.mapSignature("([Lorg/lib/X;ILa/A;)La/A$1;"));
+		String unchanged = "(Ljava/lang/String;J)V";
+		Assert.assertSame(unchanged, relocator.mapSignature(unchanged));
+		Assert.assertEquals("<LIST:Lb/B;T::Ljava/util/List<Lshaded/lib/X;>;>Lb/B<TT;>.Inner<[Lshaded/lib/Y;>;Ljava/lang/Comparable<-TLIST;>;",
+				relocator.mapSignature("<LIST:La/A;T::Ljava/util/List<Lorg/lib/X;>;>La/A<TT;>.Inner<[Lorg/lib/Y;>;Ljava/lang/Comparable<-TLIST;>;"));
+		Assert.assertEquals("<E:Ljava/lang/Exception;>(Ljava/util/Map<*+Lb/B;>;)V^TE;^Lshaded/lib/Ex;",
+				relocator.mapSignature("<E:Ljava/lang/Exception;>(Ljava/util/Map<*+La/A;>;)V^TE;^Lorg/lib/Ex;"));
+
+		try {
+			relocator.mapSignature("(La/A");
+			Assert.fail("expected malformed signature to throw");
+		} catch(IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+
+	@Test
+	public void relocateClassFile() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		var relocator = new ClassRelocator(Map.of("classLoading/base/", "shaded/base/", "java/lang/StringBuilder", "shaded/SB"));
+		Assert.assertTrue(relocator.relocate(classFile) > 0);
+
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "Test.class");
+		Assert.assertEquals("shaded/base/Test", reloaded.getClassIndex().getCpObject().getName().getString());
+		Assert.assertNotNull(reloaded.findConstantPoolClass("shaded/base/WorkerInterface"));
+		Assert.assertNotNull(reloaded.findConstantPoolMethod("shaded/SB", "append", "(Ljava/lang/String;)Lshaded/SB;"));
+		Assert.assertNull(reloaded.findConstantPoolClass("classLoading/base/Test"));
+		Assert.assertNull(reloaded.findConstantPoolString("java/lang/StringBuilder"));
+		// string constants and member names are not relocated
+		Assert.assertNotNull(reloaded.findConstantPoolString("classLoading.ClassLoaded"));
+		Assert.assertNotNull(reloaded.findConstantPoolString("startThreads"));
+		Assert.assertEquals(0, relocator.relocate(reloaded));
+
+		// rename() only renames the class and references to it
+		reloaded.rename("renamed/Test");
+		Assert.assertNotNull(reloaded.findConstantPoolClass("renamed/Test"));
+		Assert.assertNotNull(reloaded.findConstantPoolClass("shaded/base/WorkerInterface"));
+	}
+
+
+	@Test
+	public void sharedStringConstant() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(SharedName.class);
+		var shared = classFile.findConstantPoolString("java/util/ArrayList");
+		Assert.assertSame(shared, classFile.findConstantPoolClass("java/util/ArrayList").getCpObject().getNameIndex());
+		Assert.assertSame(shared, classFile.findConstantPoolStringConstant("java/util/ArrayList").getCpObject().getStringIndex());
+
+		var relocator = new ClassRelocator(Map.of("java/util/ArrayList", "java/util/LinkedList"));
+		Assert.assertTrue(relocator.relocate(classFile) > 0);
+		// the string literal keeps the shared entry, the class references a new entry
+		Assert.assertEquals("java/util/ArrayList", shared.getCpObject().getString());
+		Assert.assertSame(shared, classFile.findConstantPoolStringConstant("java/util/ArrayList").getCpObject().getStringIndex());
+		Assert.assertNull(classFile.findConstantPoolClass("java/util/ArrayList"));
+		Assert.assertNotNull(classFile.findConstantPoolClass("java/util/LinkedList"));
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertEquals("java/util/ArrayList", cls.getMethod("name").invoke(null));
+		Assert.assertEquals(java.util.LinkedList.class, cls.getMethod("create").invoke(null).getClass());
+	}
+
+}
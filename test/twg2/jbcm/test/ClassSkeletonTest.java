@@ -0,0 +1,47 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ClassSkeleton;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ClassSkeletonTest {
+
+	@Test
+	public void matchesClassFile() throws IOException {
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			ClassFile classFile = ClassFile.load(Paths.get(fileName));
+			ClassSkeleton skeleton = ClassSkeleton.load(Paths.get(fileName));
+
+			Assert.assertEquals(classFile.getAccessFlags(), skeleton.getAccessFlags());
+			Assert.assertEquals(classFile.getClassIndex().getCpObject().getName().getString(), skeleton.getClassName());
+			Assert.assertEquals(classFile.getSuperClassIndex().getCpObject().getName().getString(), skeleton.getSuperClassName());
+			Assert.assertEquals(classFile.getInterfaceCount(), skeleton.getInterfaceCount());
+			for(int i = 0; i < classFile.getInterfaceCount(); i++) {
+				Assert.assertEquals(classFile.getInterface(i).getName().getString(), skeleton.getInterfaceName(i));
+			}
+
+			Assert.assertEquals(classFile.getFieldCount(), skeleton.getFieldCount());
+			for(int i = 0; i < classFile.getFieldCount(); i++) {
+				Assert.assertEquals(classFile.getField(i).getName().getString(), skeleton.getField(i).getName());
+				Assert.assertEquals(classFile.getField(i).getDescriptor().getString(), skeleton.getField(i).getDescriptor());
+			}
+
+			Assert.assertEquals(classFile.getMethodCount(), skeleton.getMethodCount());
+			for(int i = 0; i < classFile.getMethodCount(); i++) {
+				Assert.assertEquals(classFile.getMethod(i).getAccessFlags(), skeleton.getMethod(i).getAccessFlags());
+				Assert.assertEquals(classFile.getMethod(i).getName().getString(), skeleton.getMethod(i).getName());
+				Assert.assertEquals(classFile.getMethod(i).getDescriptor().getString(), skeleton.getMethod(i).getDescriptor());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.modify.ClassHierarchy;
+import twg2.jbcm.modify.CodeBuilder;
+import twg2.jbcm.modify.ConstantPoolBuilder;
+import twg2.jbcm.modify.StackMapFrameComputer;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class CodeBuilderTest {
+
+	/** Methods whose code is replaced by the tests */
+	public static class Target {
+		public static int compute(int x) {
+			return x;
+		}
+
+		public static int far(int x) {
+			return x;
+		}
+	}
+
+
+	@Test
+	public void switchesAndHandlers() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Target.class);
+		var cpBuilder = new ConstantPoolBuilder(classFile);
+		var cb = new CodeBuilder(cpBuilder);
+		CodeBuilder.Label zero = cb.newLabel(), one = cb.newLabel(), lookup = cb.newLabel(), hundred = cb.newLabel(), negative = cb.newLabel();
+		CodeBuilder.Label tryEnd = cb.newLabel(), handler = cb.newLabel(), loop = cb.newLabel(), loopCond = cb.newLabel();
+
+		cb.varInsn(Opcodes.ILOAD, 0).tableswitch(0, lookup, zero, one);
+		cb.mark(zero).iconst(10).insn(Opcodes.IRETURN);
+		cb.mark(one).ldc("abc").methodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I").insn(Opcodes.IRETURN);
+		cb.mark(lookup).varInsn(Opcodes.ILOAD, 0).lookupswitch(loop, new int[] { 100, -5 }, new CodeBuilder.Label[] { hundred, negative });
+		cb.mark(hundred).iconst(1000).insn(Opcodes.IRETURN);
+		// divide by zero
+		cb.mark(negative).varInsn(Opcodes.ILOAD, 0).iconst(0).insn(Opcodes.IDIV).insn(Opcodes.IRETURN);
+		cb.mark(tryEnd).mark(handler).varInsn(Opcodes.ASTORE, 300).iconst(-1).insn(Opcodes.IRETURN);
+		cb.tryCatch(negative, tryEnd, handler, "java/lang/ArithmeticException");
+		// sum 300 x times
+		cb.mark(loop).iconst(0).varInsn(Opcodes.ISTORE, 1).iconst(0).varInsn(Opcodes.ISTORE, 2).jump(Opcodes.GOTO, loopCond);
+		CodeBuilder.Label body = cb.newLabel();
+		cb.mark(body).iinc(1, 300).iinc(2, 1);
+		cb.mark(loopCond).varInsn(Opcodes.ILOAD, 2).varInsn(Opcodes.ILOAD, 0).jump(Opcodes.IF_ICMPLT, body);
+		cb.varInsn(Opcodes.ILOAD, 1).insn(Opcodes.IRETURN);
+
+		Method_Info method = ClassFileTestUtil.findMethod(classFile, "compute");
+		cb.replaceCode(method.getCode());
+		// iload_0, tableswitch at offset 1 padded to offset 4, default, low, high, 2 targets
+		Assert.assertEquals(24, cb.getLabelPc(zero));
+		Assert.assertEquals(301, method.getCode().getMaxLocals());
+		Assert.assertEquals(1, method.getCode().getExceptionTable().length);
+		StackMapFrameComputer.update(method, ClassHierarchy.fromClassLoader(getClass().getClassLoader()), cpBuilder);
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		var compute = cls.getMethod("compute", int.class);
+		Assert.assertEquals(10, compute.invoke(null, 0));
+		Assert.assertEquals(3, compute.invoke(null, 1));
+		Assert.assertEquals(1000, compute.invoke(null, 100));
+		Assert.assertEquals(-1, compute.invoke(null, -5));
+		Assert.assertEquals(900, compute.invoke(null, 3));
+		Assert.assertEquals(0, compute.invoke(null, -7));
+	}
+
+
+	@Test
+	public void widenJumps() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Target.class);
+		var cpBuilder = new ConstantPoolBuilder(classFile);
+		var cb = new CodeBuilder(cpBuilder);
+		CodeBuilder.Label nonZero = cb.newLabel(), far = cb.newLabel();
+
+		cb.varInsn(Opcodes.ILOAD, 0).jump(Opcodes.IFNE, nonZero);
+		cb.iconst(0).insn(Opcodes.IRETURN);
+		cb.mark(far);
+		for(int i = 0; i < 40000; i++) {
+			cb.insn(Opcodes.NOP);
+		}
+		cb.iconst(2).insn(Opcodes.IRETURN);
+		cb.mark(nonZero).jump(Opcodes.GOTO, far);
+
+		Method_Info method = ClassFileTestUtil.findMethod(classFile, "far");
+		cb.replaceCode(method.getCode());
+		Assert.assertTrue(cb.isWidened(1));
+		Assert.assertTrue(cb.isWidened(cb.getInstructionCount() - 1));
+		byte[] code = method.getCode().getCode();
+		// ifeq over the goto_w
+		Assert.assertEquals(Opcodes.IFEQ.opcode(), code[1] & 0xFF);
+		Assert.assertEquals(Opcodes.GOTO_W.opcode(), code[4] & 0xFF);
+		Assert.assertEquals(Opcodes.GOTO_W.opcode(), code[cb.getLabelPc(nonZero)] & 0xFF);
+		Assert.assertEquals(cb.getLabelPc(nonZero) + 5, code.length);
+		StackMapFrameComputer.update(method, ClassHierarchy.fromClassLoader(getClass().getClassLoader()), cpBuilder);
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertEquals(0, cls.getMethod("far", int.class).invoke(null, 0));
+		Assert.assertEquals(2, cls.getMethod("far", int.class).invoke(null, 1));
+	}
+
+
+	@Test
+	public void invalidCode() throws IOException {
+		var cb = new CodeBuilder(new ConstantPoolBuilder(ClassFileTestUtil.loadClassFile(Target.class)));
+		CodeBuilder.Label unplaced = cb.newLabel();
+		cb.jump(Opcodes.GOTO, unplaced);
+		try {
+			cb.assemble();
+			Assert.fail("expected unplaced label");
+		} catch(IllegalStateException ex) {
+			// expected
+		}
+
+		cb.mark(unplaced);
+		for(int i = 0; i < 0x10000; i++) {
+			cb.insn(Opcodes.NOP);
+		}
+		try {
+			cb.assemble();
+			Assert.fail("expected code too long");
+		} catch(IllegalStateException ex) {
+			// expected
+		}
+
+		try {
+			cb.insn(Opcodes.BIPUSH);
+			Assert.fail("expected invalid opcode");
+		} catch(IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
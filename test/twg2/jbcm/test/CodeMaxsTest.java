@@ -0,0 +1,143 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.ir.CodeMaxs;
+import twg2.jbcm.modify.TypeUtility;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class CodeMaxsTest {
+
+	public static long sample(int a, long b, double[] c) {
+		long total = b;
+		for(int i = 0; i < a; i++) {
+			total += (long)c[i] * b + String.valueOf(i).length();
+		}
+		return total + new long[a][2].length;
+	}
+
+
+	public static long divide(long a, long b) {
+		try {
+			return a / b;
+		} catch(ArithmeticException ex) {
+			return a;
+		}
+	}
+
+
+	@Test
+	public void stackDeltas() {
+		Assert.assertEquals(2, OpcodeTables.stackDelta(Opcodes.LDC2_W.opcode()));
+		Assert.assertEquals(2, OpcodeTables.stackDelta(Opcodes.DUP2_X1.opcode()));
+		Assert.assertEquals(1, OpcodeTables.stackDelta(Opcodes.DUP_X2.opcode()));
+		Assert.assertEquals(-1, OpcodeTables.stackDelta(Opcodes.LSHL.opcode()));
+		Assert.assertEquals(-3, OpcodeTables.stackDelta(Opcodes.LCMP.opcode()));
+		Assert.assertEquals(-4, OpcodeTables.stackDelta(Opcodes.DASTORE.opcode()));
+		Assert.assertEquals(OpcodeTables.VARIABLE_STACK_DELTA, OpcodeTables.stackDelta(Opcodes.INVOKEVIRTUAL.opcode()));
+
+		Assert.assertEquals(4, TypeUtility.methodParameterSlots("(IJ[D)J"));
+		Assert.assertEquals(4, TypeUtility.methodParameterSlots("([[JLjava/lang/String;D)V"));
+		Assert.assertEquals(0, TypeUtility.methodReturnSlots("()V"));
+	}
+
+
+	@Test
+	public void matchesCompiler() throws IOException {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(CodeMaxsTest.class);
+		for(int i = 0; i < classFile.getMethodCount(); i++) {
+			Method_Info method = classFile.getMethod(i);
+			Code code = method.getCode();
+			int expectStack = code.getMaxStack();
+			int expectLocals = code.getMaxLocals();
+			code.recomputeMaxs();
+			Assert.assertEquals(method.getName().getString(), expectStack, code.getMaxStack());
+			Assert.assertEquals(method.getName().getString(), expectLocals, code.getMaxLocals());
+		}
+	}
+
+
+	@Test
+	public void recomputeAfterModify() throws IOException {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(CodeMaxsTest.class);
+		Code code = ClassFileTestUtil.findMethod(classFile, "sample").getCode();
+		int maxStack = code.getMaxStack();
+
+		// push more doubles than the method's existing max stack, then pop them
+		byte[] pushes = new byte[maxStack * 2 + 2];
+		for(int i = 0; i < maxStack + 1; i++) {
+			pushes[i] = (byte)Opcodes.DCONST_1.opcode();
+			pushes[maxStack + 1 + i] = (byte)Opcodes.POP2.opcode();
+		}
+		code.prependCode(pushes);
+		Assert.assertEquals(maxStack * 2 + 2, code.getMaxStack());
+		Assert.assertEquals(7, code.getMaxLocals());
+
+		// iconst_0, istore 12, lconst_0, lreturn
+		code.setCode(new byte[] { (byte)Opcodes.ICONST_0.opcode(), (byte)Opcodes.ISTORE.opcode(), 12, (byte)Opcodes.LCONST_0.opcode(), (byte)Opcodes.LRETURN.opcode() });
+		Assert.assertEquals(2, code.getMaxStack());
+		Assert.assertEquals(13, code.getMaxLocals());
+
+		// the recomputed values are written
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "CodeMaxsTest.class");
+		Code reloadedCode = ClassFileTestUtil.findMethod(reloaded, "sample").getCode();
+		Assert.assertEquals(2, reloadedCode.getMaxStack());
+		Assert.assertEquals(13, reloadedCode.getMaxLocals());
+	}
+
+
+	@Test
+	public void operandPatchKeepsMaxs() throws IOException {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(CodeMaxsTest.class);
+		Code code = ClassFileTestUtil.findMethod(classFile, "sample").getCode();
+		int maxStack = code.getMaxStack();
+		Assert.assertEquals(7, code.getMaxLocals());
+
+		// patch the loop variable's 'istore 6' to 'istore 9' in place
+		InstructionIndex index = code.getInstructionIndex();
+		int istore = -1;
+		for(int i = 0; i < index.size() && istore == -1; i++) {
+			if(index.getOpcode(i) == Opcodes.ISTORE && index.getLocalVariable(i) == 6) {
+				istore = i;
+			}
+		}
+		code.getCode()[index.getStart(istore) + 1] = 9;
+		code.clearInstructionIndex();
+		Assert.assertEquals(9, code.getInstructionIndex().getLocalVariable(istore));
+		Assert.assertEquals(maxStack, code.getMaxStack());
+		Assert.assertEquals(7, code.getMaxLocals());
+
+		code.markMaxsStale();
+		Assert.assertEquals(maxStack, code.getMaxStack());
+		Assert.assertEquals(10, code.getMaxLocals());
+	}
+
+
+	@Test
+	public void stackUnderflow() throws IOException {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(CodeMaxsTest.class);
+		Code code = classFile.getMethod(0).getCode();
+		try {
+			CodeMaxs.computeMaxStack(code);
+			code.setCode(new byte[] { (byte)Opcodes.POP.opcode(), (byte)Opcodes.RETURN.opcode() });
+			CodeMaxs.computeMaxStack(code);
+			Assert.fail("expected stack underflow");
+		} catch(IllegalStateException ex) {
+			Assert.assertTrue(ex.getMessage().contains("underflow"));
+		}
+	}
+
+}
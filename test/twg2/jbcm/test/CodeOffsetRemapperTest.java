@@ -0,0 +1,171 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.StackMapTable;
+import twg2.jbcm.modify.CodeOffsetRemapper;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class CodeOffsetRemapperTest {
+
+	/** Methods with branches, switches, exception handlers and stack map frames which are relocated by the tests */
+	public static class Sample {
+		public static int calls;
+
+		public static int classify(int x) {
+			int total = 0;
+			for(int i = 0; i < x; i++) {
+				switch(i % 4) {
+				case 0: total += 1; break;
+				case 1: total += 10; break;
+				case 2: total += 100; break;
+				default: total += 1000; break;
+				}
+			}
+			switch(x) {
+			case -100: return -1;
+			case 50: return -2;
+			case 100000: return -3;
+			default: return total;
+			}
+		}
+
+		public static int parse(String str, int dflt) {
+			try {
+				return Integer.parseInt(str);
+			} catch(NumberFormatException ex) {
+				return dflt;
+			}
+		}
+
+		public static Object box(boolean flag) {
+			// the 'new' instruction's offset is recorded in an uninitialized verification type
+			return new StringBuilder(flag ? "yes" : "no");
+		}
+
+		public static void count() {
+			calls++;
+		}
+	}
+
+
+	@Test
+	public void insertRelocatesOffsets() throws Exception {
+		for(int insertLength = 1; insertLength <= 4; insertLength++) {
+			ClassFile classFile = ClassFileTestUtil.loadClassFile(Sample.class);
+			byte[] nops = new byte[insertLength];
+
+			// before the first, a middle, and the last instruction of each method, each reached by falling through from the previous instruction
+			for(String name : new String[] { "classify", "parse", "box" }) {
+				Code code = ClassFileTestUtil.findMethod(classFile, name).getCode();
+				var index = code.getInstructionIndex();
+				int oldLength = code.getCode().length;
+				int n = index.size() / 2;
+				while(!fallsThrough(index.getOpcode(n - 1))) {
+					n++;
+				}
+				int middle = index.getStart(n);
+				int last = index.getStart(index.size() - 1);
+				// switch padding may change, so the instructions' new offsets are looked up
+				CodeOffsetRemapper first = code.insertCode(0, nops);
+				CodeOffsetRemapper second = code.insertCode(first.getNewOffset(middle), nops);
+				code.insertCode(second.getNewOffset(first.getNewOffset(last)), nops);
+				// each of classify's 2 switches may gain or lose up to 3 bytes of padding
+				int paddingChange = code.getCode().length - oldLength - insertLength * 3;
+				Assert.assertTrue(name.equals("classify") ? Math.abs(paddingChange) <= 6 : paddingChange == 0);
+			}
+
+			Code parse = ClassFileTestUtil.findMethod(classFile, "parse").getCode();
+			var handler = parse.getExceptionTable()[0];
+			Assert.assertEquals(insertLength, handler.getStartPc());
+			Assert.assertEquals(Opcodes.ASTORE_2.opcode(), parse.getCode()[handler.getHandlerPc()] & 0xFF);
+
+			// the JVM type checks the relocated code, exception table, and stack map frames when the class is loaded
+			Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+			var classify = cls.getMethod("classify", int.class);
+			Assert.assertEquals(1111, classify.invoke(null, 4));
+			Assert.assertEquals(1122, classify.invoke(null, 6));
+			Assert.assertEquals(-2, classify.invoke(null, 50));
+			Assert.assertEquals(-1, classify.invoke(null, -100));
+			Assert.assertEquals(5, cls.getMethod("parse", String.class, int.class).invoke(null, "5", 0));
+			Assert.assertEquals(-7, cls.getMethod("parse", String.class, int.class).invoke(null, "x", -7));
+			Assert.assertEquals("no", cls.getMethod("box", boolean.class).invoke(null, false).toString());
+		}
+	}
+
+
+	@Test
+	public void offsetTables() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Sample.class);
+
+		// the handler frame's delta no longer fits in a same_locals_1_stack_item_frame type
+		Code parse = ClassFileTestUtil.findMethod(classFile, "parse").getCode();
+		var parseFrames = (StackMapTable)parse.getAttribute(StackMapTable.ATTRIBUTE_NAME);
+		int handlerDelta = parseFrames.getEntry(0).getOffsetDelta();
+		Assert.assertTrue(parseFrames.getEntry(0).getFrameType() < 128);
+		parse.prependCode(new byte[70]);
+		Assert.assertEquals(handlerDelta + 70, parseFrames.getEntry(0).getOffsetDelta());
+		Assert.assertEquals(247, parseFrames.getEntry(0).getFrameType());
+		Assert.assertEquals(70, parse.getExceptionTable()[0].getStartPc());
+
+		// insert after the 'new' instruction, so the uninitialized verification types still reference offset 0
+		Code box = ClassFileTestUtil.findMethod(classFile, "box").getCode();
+		var boxFrames = (StackMapTable)box.getAttribute(StackMapTable.ATTRIBUTE_NAME);
+		int oldLength = box.getCode().length;
+		int second = box.getInstructionIndex().getStart(1);
+		CodeOffsetRemapper remapper = box.insertCode(second, new byte[3]);
+		Assert.assertEquals(0, remapper.getNewOffset(0));
+		Assert.assertEquals(second + 3, remapper.getNewOffset(second));
+		Assert.assertEquals(second, remapper.getNewEndOffset(second));
+		Assert.assertEquals(oldLength + 3, remapper.getNewCodeLength());
+		Assert.assertEquals(oldLength, remapper.getOldCodeLength());
+		Assert.assertEquals(0, boxFrames.getEntry(0).getStack()[0].getOffset());
+
+		box.prependCode(new byte[2]);
+		Assert.assertEquals(2, boxFrames.getEntry(0).getStack()[0].getOffset());
+		Assert.assertEquals(2, boxFrames.getEntry(1).getStack()[1].getOffset());
+
+		try {
+			box.insertCode(3, new byte[1]);
+			Assert.fail("expected an invalid insertion offset");
+		} catch(IllegalArgumentException ex) {
+			// expected
+		}
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertEquals(-7, cls.getMethod("parse", String.class, int.class).invoke(null, "x", -7));
+		Assert.assertEquals("yes", cls.getMethod("box", boolean.class).invoke(null, true).toString());
+	}
+
+
+	@Test
+	public void branchOverflow() throws IOException {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Sample.class);
+		Code code = ClassFileTestUtil.findMethod(classFile, "classify").getCode();
+		// inside the loop, so the backward goto no longer fits in 16 bits
+		int middle = code.getInstructionIndex().getStart(code.getInstructionIndex().size() / 4);
+		try {
+			code.insertCode(middle, new byte[40000]);
+			Assert.fail("expected branch offset overflow");
+		} catch(IllegalStateException ex) {
+			Assert.assertTrue(ex.getMessage().contains("16 bits"));
+		}
+	}
+
+
+	private static boolean fallsThrough(Opcodes opcode) {
+		return !opcode.hasBehavior(Opcodes.Type.RETURN) && opcode != Opcodes.ATHROW && opcode != Opcodes.GOTO && opcode != Opcodes.GOTO_W
+				&& opcode != Opcodes.TABLESWITCH && opcode != Opcodes.LOOKUPSWITCH;
+	}
+
+}
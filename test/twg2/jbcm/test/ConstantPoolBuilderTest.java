@@ -0,0 +1,123 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.ParseOptions;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Double;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Fieldref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Integer;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Long;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_MethodHandle;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.ConstantPoolBuilder;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ConstantPoolBuilderTest {
+
+	@Test
+	public void getOrAdd() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		int count = classFile.getConstantPoolCount();
+		ConstantPoolBuilder cpBuilder = new ConstantPoolBuilder(classFile);
+
+		// existing entries
+		Assert.assertSame(classFile.findConstantPoolString("Code"), cpBuilder.getOrAddUtf8("Code"));
+		Assert.assertSame(classFile.findConstantPoolClass("java/lang/Object"), cpBuilder.getOrAddClass("java/lang/Object"));
+		Assert.assertSame(classFile.findConstantPoolMethod("java/lang/Object", "<init>", "()V"), cpBuilder.getOrAddMethodref("java/lang/Object", "<init>", "()V"));
+		Assert.assertEquals(0, cpBuilder.getAddedCount());
+		Assert.assertEquals(count, classFile.getConstantPoolCount());
+
+		// new entries, long and double take two indexes
+		for(int pass = 0; pass < 3; pass++) {
+			CpIndex<CONSTANT_Methodref> method = cpBuilder.getOrAddMethodref("a/b/Added", "run", "(J)V");
+			CpIndex<CONSTANT_Long> longIdx = cpBuilder.getOrAddLong(1L << 40);
+			CpIndex<CONSTANT_Double> doubleIdx = cpBuilder.getOrAddDouble(-0.0);
+			CpIndex<CONSTANT_MethodHandle> handle = cpBuilder.getOrAddMethodHandle(6, "a/b/Added", "run", "(J)V", false);
+			cpBuilder.getOrAddString("str");
+			cpBuilder.getOrAddInteger(70000);
+			cpBuilder.getOrAddFloat(1.5f);
+			cpBuilder.getOrAddMethodType("(J)V");
+
+			Assert.assertEquals(doubleIdx.getIndex() + 2 + 6, classFile.getConstantPoolCount());
+			Assert.assertEquals(longIdx.getIndex() + 2, doubleIdx.getIndex());
+			Assert.assertSame(method.getCpObject(), handle.getCpObject().getReference());
+			Assert.assertEquals((1L << 40), longIdx.getCpObject().getValue());
+		}
+		// Utf8 x 3, Class, NameAndType, Methodref, Long, Double, MethodHandle, Utf8 + String, Integer, Float, MethodType
+		Assert.assertEquals(14, cpBuilder.getAddedCount());
+		Assert.assertEquals(count + 14 + 2, classFile.getConstantPoolCount());
+		Assert.assertNotSame(cpBuilder.getOrAddDouble(0.0), cpBuilder.getOrAddDouble(-0.0));
+
+		// the modified class file can be written and parsed again
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "Test.class");
+		Assert.assertEquals(classFile.getConstantPoolCount(), reloaded.getConstantPoolCount());
+		ConstantPoolBuilder reloadedBuilder = new ConstantPoolBuilder(reloaded);
+		Assert.assertEquals(cpBuilder.getOrAddLong(1L << 40).getIndex(), reloadedBuilder.getOrAddLong(1L << 40).getIndex());
+		Assert.assertEquals(cpBuilder.getOrAddMethodHandle(6, "a/b/Added", "run", "(J)V", false).getIndex(), reloadedBuilder.getOrAddMethodHandle(6, "a/b/Added", "run", "(J)V", false).getIndex());
+		Assert.assertEquals(0, reloadedBuilder.getAddedCount());
+	}
+
+
+	@Test
+	public void sharesClassFileLookup() throws IOException {
+		byte[] bytes = Files.readAllBytes(Paths.get("res/destination/classLoading/base/Test.class"));
+		ClassFile classFile = ClassFile.load(bytes, "Test.class", ParseOptions.STRICT.withLazyConstantPool(true));
+		ConstantPoolBuilder cpBuilder = new ConstantPoolBuilder(classFile);
+		Assert.assertSame(classFile.findConstantPoolMethod("java/lang/Object", "<init>", "()V"), cpBuilder.getOrAddMethodref("java/lang/Object", "<init>", "()V"));
+
+		// entries added directly to the class file are seen by existing builders
+		CONSTANT_Integer value = new CONSTANT_Integer(classFile);
+		value.setValue(123456);
+		CpIndex<CONSTANT_Integer> added = classFile.addToConstantPool(value);
+		Assert.assertSame(added, cpBuilder.getOrAddInteger(123456));
+		Assert.assertSame(added, classFile.findConstantPoolInteger(123456));
+		Assert.assertEquals(0, cpBuilder.getAddedCount());
+
+		// entries added by a builder are seen by the class file and other builders
+		CpIndex<CONSTANT_MethodHandle> handle = cpBuilder.getOrAddMethodHandle(2, "a/b/Added", "count", "I", false);
+		Assert.assertSame(handle, classFile.findConstantPoolMethodHandle(2, CONSTANT_Fieldref.TAG, "a/b/Added", "count", "I"));
+		Assert.assertSame(handle, new ConstantPoolBuilder(classFile).getOrAddMethodHandle(2, "a/b/Added", "count", "I", false));
+		Assert.assertSame(handle.getCpObject().getReference(), classFile.findConstantPoolField("a/b/Added", "count", "I").getCpObject());
+		Assert.assertFalse(classFile.isConstantPoolLoaded());
+	}
+
+
+	@Test
+	public void changedEntries() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		ConstantPoolBuilder cpBuilder = new ConstantPoolBuilder(classFile);
+		CpIndex<CONSTANT_Utf8> utf8 = cpBuilder.getOrAddUtf8("Code");
+		CpIndex<CONSTANT_Class> cls = cpBuilder.getOrAddClass("java/lang/Object");
+		CpIndex<CONSTANT_Integer> value = cpBuilder.getOrAddInteger(70000);
+		int count = classFile.getConstantPoolCount();
+
+		// entries changed by their setters after being indexed are found by their new values, not their old values
+		utf8.getCpObject().setString("Code2");
+		Assert.assertSame(utf8, cpBuilder.getOrAddUtf8("Code2"));
+		Assert.assertNull(classFile.findConstantPoolString("Code"));
+
+		cls.getCpObject().getName().setString("a/b/Renamed");
+		Assert.assertSame(cls, cpBuilder.getOrAddClass("a/b/Renamed"));
+		Assert.assertNull(classFile.findConstantPoolClass("java/lang/Object"));
+
+		value.getCpObject().setValue(70001);
+		Assert.assertSame(value, cpBuilder.getOrAddInteger(70001));
+		Assert.assertNull(classFile.findConstantPoolInteger(70000));
+
+		Assert.assertEquals(count, classFile.getConstantPoolCount());
+		Assert.assertEquals(1, cpBuilder.getAddedCount());
+	}
+
+}
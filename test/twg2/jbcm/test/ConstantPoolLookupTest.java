@@ -0,0 +1,101 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.ParseOptions;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Class;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_NameAndType;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ConstantPoolLookupTest {
+
+	@Test
+	public void matchesLinearSearch() throws IOException {
+		for(ParseOptions options : new ParseOptions[] { ParseOptions.STRICT, ParseOptions.STRICT.withLazyConstantPool(true) }) {
+			ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"), options);
+			int found = 0;
+			for(int i = 1, size = classFile.getConstantPoolCount(); i < size; i++) {
+				CONSTANT_CP_Info cpObj = classFile.getConstantPoolIndex(i).getCpObject();
+				CpIndex<?> expect = classFile.getConstantPoolIndex(firstEqual(classFile, i));
+				if(cpObj instanceof CONSTANT_Utf8) {
+					Assert.assertSame(expect, classFile.findConstantPoolString(((CONSTANT_Utf8)cpObj).getString()));
+					found++;
+				}
+				else if(cpObj instanceof CONSTANT_Class) {
+					Assert.assertSame(expect, classFile.findConstantPoolClass(((CONSTANT_Class)cpObj).getName().getString()));
+					found++;
+				}
+				else if(cpObj instanceof CONSTANT_NameAndType) {
+					var nameAndType = (CONSTANT_NameAndType)cpObj;
+					Assert.assertSame(expect, classFile.findConstantPoolNameAndType(nameAndType.getName().getString(), nameAndType.getDescriptor().getString()));
+					found++;
+				}
+				else if(cpObj instanceof CONSTANT_Methodref) {
+					var methodref = (CONSTANT_Methodref)cpObj;
+					var nameAndType = methodref.getNameAndType();
+					Assert.assertSame(expect, classFile.findConstantPoolMethod(methodref.getClassType().getName().getString(), nameAndType.getName().getString(), nameAndType.getDescriptor().getString()));
+					found++;
+				}
+			}
+			Assert.assertTrue(found > 10);
+			Assert.assertNull(classFile.findConstantPoolString("not/In/The/ConstantPool"));
+			Assert.assertNull(classFile.findConstantPoolMethod("java/lang/Object", "<init>", "(I)V"));
+		}
+	}
+
+
+	@Test
+	public void addAndSetConstantPool() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		Assert.assertNull(classFile.findConstantPoolClass("a/b/Added"));
+
+		// the class entry is added before its name is set, and the name is added with a lower index after the lookup index is built
+		CONSTANT_Class clazz = new CONSTANT_Class(classFile);
+		CpIndex<CONSTANT_Class> classIdx = classFile.addToConstantPool(clazz);
+		Assert.assertNull(classFile.findConstantPoolClass("a/b/Added"));
+		CONSTANT_Utf8 name = new CONSTANT_Utf8(classFile);
+		name.setString("a/b/Added");
+		CpIndex<CONSTANT_Utf8> nameIdx = classFile.addToConstantPool(name);
+		clazz.setNameIndex(nameIdx);
+
+		Assert.assertSame(nameIdx, classFile.findConstantPoolString("a/b/Added"));
+		Assert.assertSame(classIdx, classFile.findConstantPoolClass("a/b/Added"));
+
+		CONSTANT_Utf8 renamed = new CONSTANT_Utf8(classFile);
+		renamed.setString("a/b/Renamed");
+		classFile.setConstantPool(nameIdx.getIndex(), renamed);
+		Assert.assertNull(classFile.findConstantPoolString("a/b/Added"));
+		Assert.assertNull(classFile.findConstantPoolClass("a/b/Added"));
+		Assert.assertSame(classIdx, classFile.findConstantPoolClass("a/b/Renamed"));
+
+		// direct entry modifications
+		renamed.setString("a/b/Modified");
+		classFile.clearConstantPoolLookup();
+		Assert.assertSame(classIdx, classFile.findConstantPoolClass("a/b/Modified"));
+	}
+
+
+	private static int firstEqual(ClassFile classFile, int index) {
+		String str = classFile.getConstantPoolIndex(index).getCpObject().toString();
+		int tag = classFile.getCpTag(index);
+		for(int i = 1; i < index; i++) {
+			if(classFile.getCpTag(i) == tag && classFile.getConstantPoolIndex(i).getCpObject().toString().equals(str)) {
+				return i;
+			}
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,99 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.ir.ControlFlowGraph;
+import twg2.jbcm.ir.ControlFlowGraph.EdgeKind;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class ControlFlowGraphTest {
+
+	@Test
+	public void blocksAndEdges() {
+		var buf = ByteBuffer.allocate(35);
+		buf.put((byte)0x1A); // 0: iload_0
+		buf.put((byte)0x99).putShort((short)8); // 1: ifeq 9
+		buf.put((byte)0x04); // 4: iconst_1
+		buf.put((byte)0xA8).putShort((short)25); // 5: jsr 30
+		buf.put((byte)0x00); // 8: nop
+		buf.put((byte)0x1A); // 9: iload_0
+		buf.put((byte)0xAA).put(new byte[1]); // 10: tableswitch, 1 byte padding
+		buf.putInt(18).putInt(0).putInt(0).putInt(19);
+		buf.put((byte)0xB1); // 28: return
+		buf.put((byte)0xBF); // 29: athrow
+		buf.put((byte)0x4C); // 30: astore_1
+		buf.put((byte)0xA9).put((byte)1); // 31: ret 1
+		buf.put((byte)0x4D); // 33: astore_2
+		buf.put((byte)0xB1); // 34: return
+
+		var cfg = ControlFlowGraph.build(InstructionIndex.decode(buf.array()), new int[] { 0, 9, 33 });
+		Assert.assertEquals(8, cfg.getBlockCount());
+		int[] starts = { 0, 4, 8, 9, 28, 29, 30, 33 };
+		for(int b = 0; b < starts.length; b++) {
+			Assert.assertEquals(starts[b], cfg.getStartPc(b));
+		}
+		Assert.assertEquals(35, cfg.getEndPc(7));
+		Assert.assertEquals(3, cfg.getBlockAt(15));
+
+		assertSuccessors(cfg, 0, new int[] { 3, 1, 7 }, EdgeKind.JUMP, EdgeKind.FALLTHROUGH, EdgeKind.EXCEPTION);
+		assertSuccessors(cfg, 1, new int[] { 6, 7 }, EdgeKind.JSR, EdgeKind.EXCEPTION);
+		assertSuccessors(cfg, 2, new int[] { 3, 7 }, EdgeKind.FALLTHROUGH, EdgeKind.EXCEPTION);
+		assertSuccessors(cfg, 3, new int[] { 4, 5 }, EdgeKind.SWITCH, EdgeKind.SWITCH);
+		assertSuccessors(cfg, 4, new int[0]);
+		assertSuccessors(cfg, 5, new int[0]);
+		assertSuccessors(cfg, 6, new int[] { 2 }, EdgeKind.RET);
+		assertSuccessors(cfg, 7, new int[0]);
+		Assert.assertEquals(10, cfg.getEdgeCount());
+
+		Assert.assertEquals(2, cfg.getPredecessorCount(3));
+		Assert.assertEquals(0, cfg.getPredecessor(3, 0));
+		Assert.assertEquals(EdgeKind.JUMP, cfg.getPredecessorKind(3, 0));
+		Assert.assertEquals(2, cfg.getPredecessor(3, 1));
+		Assert.assertEquals(3, cfg.getPredecessorCount(7));
+		Assert.assertEquals(0, cfg.getPredecessorCount(0));
+	}
+
+
+	@Test
+	public void classFileMethods() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		for(int i = 0, size = classFile.getMethodCount(); i < size; i++) {
+			Code code = classFile.getMethod(i).getCode();
+			if(code == null) {
+				continue;
+			}
+			var cfg = ControlFlowGraph.build(code);
+			Assert.assertEquals(0, cfg.getStartPc(0));
+			Assert.assertEquals(code.getCode().length, cfg.getEndPc(cfg.getBlockCount() - 1));
+			int predCount = 0;
+			for(int b = 0; b < cfg.getBlockCount(); b++) {
+				if(b > 0) {
+					Assert.assertEquals(cfg.getEndPc(b - 1), cfg.getStartPc(b));
+				}
+				predCount += cfg.getPredecessorCount(b);
+			}
+			Assert.assertEquals(cfg.getEdgeCount(), predCount);
+		}
+	}
+
+
+	private static void assertSuccessors(ControlFlowGraph cfg, int block, int[] expect, EdgeKind... kinds) {
+		Assert.assertEquals(expect.length, cfg.getSuccessorCount(block));
+		for(int i = 0; i < expect.length; i++) {
+			Assert.assertEquals(expect[i], cfg.getSuccessor(block, i));
+			Assert.assertEquals(kinds[i], cfg.getSuccessorKind(block, i));
+		}
+	}
+
+}
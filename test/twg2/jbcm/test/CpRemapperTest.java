@@ -0,0 +1,111 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.CpIndex;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Methodref;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_String;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+import twg2.jbcm.modify.ConstantPoolBuilder;
+import twg2.jbcm.modify.FindCpIndexUsage;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class CpRemapperTest {
+
+	@Test
+	public void compactConstantPool() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		int count = classFile.getConstantPoolCount();
+
+		// unused entries are removed, including a long which uses two indexes
+		ConstantPoolBuilder cpBuilder = new ConstantPoolBuilder(classFile);
+		cpBuilder.getOrAddMethodref("a/b/Unused", "run", "()V");
+		cpBuilder.getOrAddLong(42L);
+		Assert.assertTrue(classFile.getConstantPoolCount() > count);
+		int removed = classFile.compactConstantPool();
+		Assert.assertEquals(0, FindCpIndexUsage.findUnusedIndexes(classFile).size());
+		Assert.assertEquals(0, classFile.compactConstantPool());
+		Assert.assertTrue(removed >= 7);
+
+		// the compacted class file can be written and parsed again
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "Test.class");
+		Assert.assertEquals(classFile.getConstantPoolCount(), reloaded.getConstantPoolCount());
+		Assert.assertEquals(0, reloaded.compactConstantPool());
+		Assert.assertNull(reloaded.findConstantPoolClass("a/b/Unused"));
+		Assert.assertNotNull(reloaded.findConstantPoolMethod("java/lang/Object", "<init>", "()V"));
+	}
+
+
+	@Test
+	public void swapConstantPoolIndices() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		CpIndex<CONSTANT_Methodref> method = classFile.findConstantPoolMethod("java/lang/Object", "<init>", "()V");
+		CpIndex<CONSTANT_Utf8> code = classFile.findConstantPoolString("Code");
+		int methodIdx = method.getIndex();
+		int codeIdx = code.getIndex();
+
+		classFile.swapConstantPoolIndices(methodIdx, codeIdx);
+		Assert.assertEquals(codeIdx, method.getIndex());
+		Assert.assertEquals(methodIdx, code.getIndex());
+
+		// the swapped indexes, including instruction operands, are written and parsed correctly
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "Test.class");
+		Assert.assertEquals(codeIdx, reloaded.findConstantPoolMethod("java/lang/Object", "<init>", "()V").getIndex());
+		Assert.assertEquals(methodIdx, reloaded.findConstantPoolString("Code").getIndex());
+	}
+
+
+	@Test
+	public void swapWidensLdc() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		CpIndex<CONSTANT_String> str = classFile.findConstantPoolStringConstant("Test.Main: ");
+		Assert.assertTrue(str.getIndex() <= 0xFF);
+		ConstantPoolBuilder cpBuilder = new ConstantPoolBuilder(classFile);
+		for(int i = 0; i < 300; i++) {
+			cpBuilder.getOrAddUtf8("padding" + i);
+		}
+		int highIdx = classFile.getConstantPoolCount() - 1;
+		int strIdx = str.getIndex();
+
+		// the ldc referencing the string becomes an ldc_w
+		classFile.swapConstantPoolIndices(strIdx, highIdx);
+		Assert.assertEquals(highIdx, str.getIndex());
+		ClassFile reloaded = ClassFile.load(classFile.toByteArray(), "Test.class");
+		Assert.assertEquals(highIdx, reloaded.findConstantPoolStringConstant("Test.Main: ").getIndex());
+		Assert.assertTrue(FindCpIndexUsage.findUsedIndexes(reloaded)[highIdx]);
+		Assert.assertFalse(FindCpIndexUsage.findUsedIndexes(reloaded)[strIdx]);
+	}
+
+
+	@Test
+	public void removedReferenceRejected() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		byte[] original = classFile.toByteArray();
+		int count = classFile.getConstantPoolCount();
+		int strIdx = classFile.findConstantPoolStringConstant("Test.Main: ").getIndex();
+		// remove the last entry and move the ldc constant into its place
+		int[] oldToNew = new int[count];
+		for(int i = 1; i < count; i++) {
+			oldToNew[i] = i;
+		}
+		oldToNew[count - 1] = 0;
+		oldToNew[strIdx] = 0;
+		try {
+			classFile.remapConstantPool(oldToNew);
+			Assert.fail("expected referenced entry removal to fail");
+		} catch(IllegalArgumentException ex) {
+			// expected
+		}
+		// nothing was changed
+		Assert.assertArrayEquals(original, classFile.toByteArray());
+	}
+
+}
@@ -0,0 +1,82 @@
+package twg2.jbcm.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.ir.ControlFlowGraph;
+import twg2.jbcm.ir.LocalLiveness;
+import twg2.jbcm.ir.ReachingDefinitions;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class DataflowTest {
+	private static final byte[] CODE = {
+		0x03, // 0: iconst_0
+		0x3C, // 1: istore_1
+		0x1A, // 2: iload_0
+		(byte)0x99, 0x00, 0x07, // 3: ifeq 10
+		0x04, // 6: iconst_1
+		0x3C, // 7: istore_1
+		0x08, // 8: iconst_5
+		0x3D, // 9: istore_2
+		0x1B, // 10: iload_1
+		(byte)0xAC, // 11: ireturn
+	};
+
+
+	@Test
+	public void liveness() {
+		var cfg = ControlFlowGraph.build(InstructionIndex.decode(CODE), new int[0]);
+		Assert.assertEquals(3, cfg.getBlockCount());
+		var live = LocalLiveness.compute(cfg, 3);
+
+		Assert.assertTrue(live.isLiveIn(0, 0));
+		Assert.assertFalse(live.isLiveIn(0, 1));
+		Assert.assertTrue(live.isLiveOut(0, 1));
+		Assert.assertFalse(live.isLiveIn(1, 1));
+		Assert.assertTrue(live.isLiveIn(2, 1));
+		Assert.assertFalse(live.isLiveIn(2, 2));
+
+		Assert.assertFalse(live.isDeadStore(1)); // istore_1 at 1, read at 10 when ifeq jumps
+		Assert.assertFalse(live.isDeadStore(5)); // istore_1 at 7
+		Assert.assertTrue(live.isDeadStore(7)); // istore_2 at 9, never read
+		Assert.assertFalse(live.isLiveAfter(0, 1));
+		Assert.assertTrue(live.isLiveAfter(1, 1));
+
+		// the handler reads local 1, so local 1 is live throughout the covered block despite being stored at 7
+		var cfgEx = ControlFlowGraph.build(InstructionIndex.decode(CODE), new int[] { 6, 10, 10 });
+		var liveEx = LocalLiveness.compute(cfgEx, 3);
+		Assert.assertTrue(liveEx.isLiveIn(1, 1));
+		Assert.assertFalse(liveEx.isDeadStore(1));
+	}
+
+
+	@Test
+	public void reachingDefinitions() {
+		var cfg = ControlFlowGraph.build(InstructionIndex.decode(CODE), new int[0]);
+		var defs = ReachingDefinitions.compute(cfg, 3);
+
+		Assert.assertEquals(6, defs.getDefinitionCount());
+		Assert.assertEquals(-1, defs.getDefinitionInstruction(1));
+		Assert.assertEquals(1, defs.getDefinitionInstruction(3)); // istore_1 at 1
+		Assert.assertEquals(5, defs.getDefinitionInstruction(4)); // istore_1 at 7
+		Assert.assertEquals(2, defs.getDefinitionLocal(5)); // istore_2 at 9
+
+		Assert.assertArrayEquals(new int[] { 0 }, defs.getReachingDefinitions(2, 0));
+		Assert.assertArrayEquals(new int[] { 1 }, defs.getReachingDefinitions(1, 1));
+		Assert.assertArrayEquals(new int[] { 3 }, defs.getReachingDefinitions(2, 1));
+		Assert.assertArrayEquals(new int[] { 3, 4 }, defs.getReachingDefinitions(8, 1));
+		Assert.assertArrayEquals(new int[] { 2, 5 }, defs.getReachingDefinitions(8, 2));
+		Assert.assertTrue(defs.isReachingIn(1, 3));
+		Assert.assertFalse(defs.isReachingOut(1, 3));
+
+		// every definition in a covered block reaches the handler, including definitions killed later in the block
+		var cfgEx = ControlFlowGraph.build(InstructionIndex.decode(CODE), new int[] { 0, 6, 10 });
+		var defsEx = ReachingDefinitions.compute(cfgEx, 3);
+		Assert.assertArrayEquals(new int[] { 1, 3, 4 }, defsEx.getReachingDefinitions(8, 1));
+	}
+
+}
@@ -0,0 +1,47 @@
+package twg2.jbcm.test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.ParseOptions;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.DeferredAttribute;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class DeferredAttributeTest {
+
+	@Test
+	public void deferredAttributes() throws IOException {
+		ParseOptions lazyOptions = ParseOptions.STRICT.withLazyAttributes(true);
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "examples/ExampleMain.class" }) {
+			byte[] expect = Files.readAllBytes(Paths.get(fileName));
+
+			// both buffer and stream loaded class files defer attribute parsing
+			for(ClassFile classFile : new ClassFile[] { ClassFile.load(expect, fileName, lazyOptions), ClassFile.load(new FileInputStream(fileName), fileName, lazyOptions) }) {
+				Assert.assertArrayEquals(expect, classFile.toByteArray());
+
+				Method_Info method = classFile.getMethod(0);
+				Assert.assertTrue(method.getAttribute(0) instanceof Code);
+				Code code = method.getCode();
+				Assert.assertTrue(code.getCode().length > 0);
+				for(var attrib : code.getAttributes()) {
+					Assert.assertFalse(attrib instanceof DeferredAttribute);
+				}
+
+				// partially parsed class files are written the same as unparsed class files
+				Assert.assertArrayEquals(expect, classFile.toByteArray());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.CodeUtility;
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class InstructionIndexTest {
+
+	@Test
+	public void variableLengthInstructions() {
+		var buf = ByteBuffer.allocate(54);
+		buf.put((byte)0x03); // 0: iconst_0
+		buf.put((byte)0xAA).put(new byte[2]); // 1: tableswitch, 2 bytes padding
+		buf.putInt(23).putInt(1).putInt(2).putInt(29).putInt(23);
+		buf.put((byte)0xC4).put((byte)0x84).putShort((short)300).putShort((short)-2); // 24: wide iinc 300 -2
+		buf.put((byte)0x04); // 30: iconst_1
+		buf.put((byte)0xAB); // 31: lookupswitch, no padding
+		buf.putInt(17).putInt(1).putInt(7).putInt(22);
+		buf.put((byte)0xC8).putInt(5); // 48: goto_w
+		buf.put((byte)0xB1); // 53: return
+		byte[] code = buf.array();
+
+		InstructionIndex index = InstructionIndex.decode(code);
+		Assert.assertEquals(7, index.size());
+		Assert.assertArrayEquals(new int[] { 0, 1, 24, 30, 31, 48, 53, 54 }, new int[] { index.getStart(0), index.getStart(1), index.getStart(2), index.getStart(3), index.getStart(4), index.getStart(5), index.getStart(6), index.getStart(7) });
+
+		Assert.assertEquals(Opcodes.TABLESWITCH, index.getOpcode(1));
+		Assert.assertEquals(24, index.getOperand(1));
+		Assert.assertArrayEquals(new int[] { 1, 2 }, index.getSwitchKeys(1));
+		Assert.assertArrayEquals(new int[] { 30, 24 }, index.getSwitchTargets(1));
+
+		Assert.assertEquals(Opcodes.IINC, index.getOpcode(2));
+		Assert.assertTrue(index.isWide(2));
+		Assert.assertEquals(300, index.getOperand(2));
+		Assert.assertEquals(-2, index.getOperand2(2));
+
+		Assert.assertEquals(48, index.getOperand(4));
+		Assert.assertArrayEquals(new int[] { 7 }, index.getSwitchKeys(4));
+		Assert.assertArrayEquals(new int[] { 53 }, index.getSwitchTargets(4));
+
+		Assert.assertEquals(Opcodes.GOTO_W, index.getOpcode(5));
+		Assert.assertEquals(53, index.getOperand(5));
+
+		Assert.assertEquals(6, index.getInstructionAt(53));
+		Assert.assertEquals(-1, index.getInstructionAt(25));
+		Assert.assertEquals(2, index.getInstructionContaining(29));
+		Assert.assertEquals(7, index.markInstructions().cardinality());
+
+		try {
+			InstructionIndex.decode(Arrays.copyOf(code, 50));
+			Assert.fail("expected truncated code to throw");
+		} catch(IllegalStateException ex) {
+			// expected
+		}
+	}
+
+
+	@Test
+	public void opcodeTables() {
+		for(int i = 0; i < 256; i++) {
+			Opcodes opc = Opcodes.get(i);
+			int operandCount = opc.getOperandCount();
+			int expectLen = opc == Opcodes.UNDEFINED || operandCount == Opcodes.Const.RESERVED ? OpcodeTables.INVALID_LENGTH :
+				(operandCount == Opcodes.Const.UNPREDICTABLE ? OpcodeTables.VARIABLE_LENGTH : 1 + operandCount);
+			Assert.assertEquals(opc.toString(), expectLen, OpcodeTables.length(i));
+			Assert.assertEquals(opc.toString(), expectLen, OpcodeTables.length((byte)i));
+			for(Opcodes.Type type : Opcodes.Type.values()) {
+				Assert.assertEquals(opc + " " + type, opc.hasBehavior(type), OpcodeTables.hasBehavior(i, type));
+			}
+			Assert.assertEquals(opc.toString(), opc.popCount(), OpcodeTables.popCount(i));
+			Assert.assertEquals(opc.toString(), opc.pushCount(), OpcodeTables.pushCount(i));
+		}
+
+		Assert.assertEquals(OpcodeTables.INVALID_LENGTH, OpcodeTables.instructionLength(new byte[] { (byte)0xCA }, 0)); // breakpoint
+		Assert.assertEquals(4, OpcodeTables.instructionLength(new byte[] { (byte)0xC4, 0x15, 0x01, 0x00 }, 0)); // wide iload 256
+
+		try {
+			// nop, breakpoint
+			CodeUtility.forEach(new byte[] { 0x00, (byte)0xCA }, 0, 2, (opc, code, idx) -> {});
+			Assert.fail("expected reserved opcode to throw");
+		} catch(IllegalArgumentException ex) {
+			Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("at code index 1"));
+		}
+	}
+
+
+	@Test
+	public void codeInstructionIndexCache() throws IOException {
+		ClassFile classFile = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		Code code = classFile.getMethod(0).getCode();
+		InstructionIndex index = code.getInstructionIndex();
+		Assert.assertSame(index, code.getInstructionIndex());
+		Assert.assertEquals(code.getCode().length, index.getStart(index.size()));
+
+		code.prependCode(new byte[] { 0x00 }); // nop
+		InstructionIndex prepended = code.getInstructionIndex();
+		Assert.assertNotSame(index, prepended);
+		Assert.assertEquals(index.size() + 1, prepended.size());
+		Assert.assertEquals(Opcodes.NOP, prepended.getOpcode(0));
+	}
+
+}
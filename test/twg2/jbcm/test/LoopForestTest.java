@@ -0,0 +1,69 @@
+package twg2.jbcm.test;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.InstructionIndex;
+import twg2.jbcm.ir.ControlFlowGraph;
+import twg2.jbcm.ir.Dominators;
+import twg2.jbcm.ir.LoopForest;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class LoopForestTest {
+
+	@Test
+	public void nestedLoops() {
+		var buf = ByteBuffer.allocate(28);
+		buf.put((byte)0x03).put((byte)0x3C); // 0: iconst_0, istore_1
+		buf.put((byte)0x1B); // 2: iload_1
+		buf.put((byte)0x99).putShort((short)21); // 3: ifeq 24
+		buf.put((byte)0x03).put((byte)0x3D); // 6: iconst_0, istore_2
+		buf.put((byte)0x1C); // 8: iload_2
+		buf.put((byte)0x99).putShort((short)9); // 9: ifeq 18
+		buf.put((byte)0x84).put((byte)2).put((byte)1); // 12: iinc 2 1
+		buf.put((byte)0xA7).putShort((short)-7); // 15: goto 8
+		buf.put((byte)0x84).put((byte)1).put((byte)1); // 18: iinc 1 1
+		buf.put((byte)0xA7).putShort((short)-19); // 21: goto 2
+		buf.put((byte)0xB1); // 24: return
+		buf.put((byte)0xA7).putShort((short)-7); // 25: goto 18, unreachable
+
+		var cfg = ControlFlowGraph.build(InstructionIndex.decode(buf.array()), new int[0]);
+		Assert.assertEquals(8, cfg.getBlockCount());
+
+		var dom = Dominators.compute(cfg);
+		Assert.assertArrayEquals(new int[] { -1, 0, 1, 2, 3, 3, 1 }, new int[] { dom.getImmediateDominator(0), dom.getImmediateDominator(1),
+				dom.getImmediateDominator(2), dom.getImmediateDominator(3), dom.getImmediateDominator(4), dom.getImmediateDominator(5), dom.getImmediateDominator(6) });
+		Assert.assertTrue(dom.dominates(1, 5));
+		Assert.assertTrue(dom.dominates(3, 3));
+		Assert.assertFalse(dom.dominates(4, 5));
+		Assert.assertFalse(dom.dominates(6, 1));
+		Assert.assertEquals(3, dom.getDepth(3));
+		Assert.assertFalse(dom.isReachable(7));
+		Assert.assertEquals(-1, dom.getImmediateDominator(7));
+		Assert.assertFalse(dom.dominates(0, 7));
+
+		var loops = LoopForest.compute(dom);
+		Assert.assertEquals(2, loops.getLoopCount());
+		Assert.assertEquals(1, loops.getHeader(0));
+		Assert.assertEquals(3, loops.getHeader(1));
+		Assert.assertEquals(-1, loops.getParent(0));
+		Assert.assertEquals(0, loops.getParent(1));
+		Assert.assertEquals(2, loops.getDepth(1));
+		Assert.assertArrayEquals(new int[] { 1, 2, 3, 4, 5 }, loops.getBlocks(0));
+		Assert.assertArrayEquals(new int[] { 3, 4 }, loops.getBlocks(1));
+		Assert.assertArrayEquals(new int[] { 5 }, loops.getLatches(0));
+		Assert.assertArrayEquals(new int[] { 4 }, loops.getLatches(1));
+		Assert.assertEquals(1, loops.getLoopOf(4));
+		Assert.assertEquals(0, loops.getLoopOf(5));
+		Assert.assertEquals(-1, loops.getLoopOf(6));
+		Assert.assertEquals(-1, loops.getLoopOf(7));
+		Assert.assertTrue(loops.isHeader(3));
+		Assert.assertFalse(loops.isHeader(4));
+	}
+
+}
@@ -0,0 +1,199 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import twg2.jbcm.ModifiedUtf8;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_CP_Info;
+import twg2.jbcm.classFormat.constantPool.CONSTANT_Utf8;
+
+/** Compares {@link ModifiedUtf8} to the previous {@link CONSTANT_Utf8} StringBuilder based decoding and two pass encoding.
+ * Run with {@code java twg2.jbcm.test.ModifiedUtf8Benchmark [iterations]}
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ModifiedUtf8Benchmark {
+
+	public static void main(String[] args) throws IOException {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+		List<String> strs = new ArrayList<>();
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			ClassFile classFile = ClassFile.load(Paths.get(fileName));
+			for(int i = 1, size = classFile.getConstantPoolCount(); i < size; i++) {
+				CONSTANT_CP_Info cpObj = classFile.getConstantPoolIndex(i).getCpObject();
+				if(cpObj instanceof CONSTANT_Utf8) {
+					strs.add(((CONSTANT_Utf8)cpObj).getString());
+				}
+			}
+		}
+		String[] ascii = strs.toArray(new String[0]);
+		String[] mixed = new String[ascii.length];
+		for(int i = 0; i < ascii.length; i++) {
+			mixed[i] = (i % 4 == 0) ? ascii[i] + "_\u00E9\u20AC" : ascii[i];
+		}
+
+		run("ascii", ascii, iterations);
+		run("mixed", mixed, iterations);
+	}
+
+
+	private static void run(String name, String[] strs, int iterations) {
+		byte[][] encoded = new byte[strs.length][];
+		for(int i = 0; i < strs.length; i++) {
+			encoded[i] = ModifiedUtf8.encode(strs[i]);
+		}
+
+		// warmup
+		for(int k = 0; k < 3; k++) {
+			decodeLegacy(encoded, iterations / 4);
+			decodeCodec(encoded, iterations / 4);
+			encodeLegacy(strs, iterations / 4);
+			encodeCodec(strs, iterations / 4);
+		}
+
+		long t0 = System.nanoTime();
+		long r0 = decodeLegacy(encoded, iterations);
+		long t1 = System.nanoTime();
+		long r1 = decodeCodec(encoded, iterations);
+		long t2 = System.nanoTime();
+		long r2 = encodeLegacy(strs, iterations);
+		long t3 = System.nanoTime();
+		long r3 = encodeCodec(strs, iterations);
+		long t4 = System.nanoTime();
+		long r4 = equalsCodec(encoded, strs, iterations);
+		long t5 = System.nanoTime();
+
+		System.out.println(name + " (" + strs.length + " strings x " + iterations + "):");
+		System.out.println("  decode: legacy " + (t1 - t0) / 1000000 + " ms, ModifiedUtf8 " + (t2 - t1) / 1000000 + " ms" + check(r0, r1));
+		System.out.println("  encode: legacy " + (t3 - t2) / 1000000 + " ms, ModifiedUtf8 " + (t4 - t3) / 1000000 + " ms" + check(r2, r3));
+		System.out.println("  compare without decoding: " + (t5 - t4) / 1000000 + " ms (" + r4 + " matches)");
+	}
+
+
+	private static String check(long expect, long actual) {
+		return expect == actual ? "" : " (results differ " + expect + " != " + actual + ")";
+	}
+
+
+	private static long decodeLegacy(byte[][] encoded, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(byte[] bytes : encoded) {
+				res += legacyDecode(bytes).length();
+			}
+		}
+		return res;
+	}
+
+
+	private static long decodeCodec(byte[][] encoded, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(byte[] bytes : encoded) {
+				res += ModifiedUtf8.decode(bytes, 0, bytes.length).length();
+			}
+		}
+		return res;
+	}
+
+
+	private static long encodeLegacy(String[] strs, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(String str : strs) {
+				res += legacyEncode(str).length;
+			}
+		}
+		return res;
+	}
+
+
+	private static long encodeCodec(String[] strs, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(String str : strs) {
+				res += ModifiedUtf8.encode(str).length;
+			}
+		}
+		return res;
+	}
+
+
+	private static long equalsCodec(byte[][] encoded, String[] strs, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(int i = 0; i < encoded.length; i++) {
+				res += ModifiedUtf8.equals(encoded[i], 0, encoded[i].length, strs[i]) ? 1 : 0;
+			}
+		}
+		return res;
+	}
+
+
+	/** The previous CONSTANT_Utf8.readData() decoding, with the char cast precedence fixed */
+	private static String legacyDecode(byte[] bytes) {
+		int length = bytes.length;
+		StringBuilder strBuilder = new StringBuilder(length >>> 1);
+		for(int i = 0; i < length; ) {
+			if((bytes[i] & 0x80) == 0x00) {
+				strBuilder.append((char)bytes[i]);
+				i++;
+			}
+			else if((bytes[i] & 0xE0) == 0xC0) {
+				strBuilder.append((char)(((bytes[i] & 0x1f) << 6) + (bytes[i+1] & 0x3f)));
+				i+=2;
+			}
+			else if((bytes[i] & 0xF0) == 0xE0) {
+				strBuilder.append((char)(((bytes[i] & 0xf) << 12) + ((bytes[i+1] & 0x3f) << 6) + (bytes[i+2] & 0x3f)));
+				i+=3;
+			}
+			else {
+				throw new IllegalStateException("Unrecognized CONSTANT_Utf8 byte while parsing string: " + bytes[i]);
+			}
+		}
+		return strBuilder.toString();
+	}
+
+
+	/** The previous CONSTANT_Utf8.setString() encoding, with its array indexes fixed */
+	private static byte[] legacyEncode(String str) {
+		char[] chars = str.toCharArray();
+		int size = chars.length;
+		int byteCount = 0;
+		for(int i = 0; i < size; i++) {
+			if(chars[i] < 0x0080 && chars[i] > 0x0000) {
+				byteCount++;
+			}
+			else if(chars[i] < 0x0800 && chars[i] > 0x007F || chars[i] == 0x0000) {
+				byteCount+=2;
+			}
+			else {
+				byteCount+=3;
+			}
+		}
+		byte[] bytes = new byte[byteCount];
+		for(int i = 0, a = 0; a < size; a++) {
+			if(chars[a] < 0x0080 && chars[a] > 0x0000) {
+				bytes[i] = (byte)(chars[a] & 0x7F);
+				i++;
+			}
+			else if(chars[a] < 0x0800 && chars[a] > 0x007F || chars[a] == 0x0000) {
+				bytes[i+0] = (byte)(0xC0 | (chars[a] >>> 6) & 0x1F);
+				bytes[i+1] = (byte)(0x80 | chars[a] & 0x3F);
+				i+=2;
+			}
+			else {
+				bytes[i+0] = (byte)(0xE0 | (chars[a] >>> 12) & 0x0F);
+				bytes[i+1] = (byte)(0x80 | (chars[a] >>> 6) & 0x3F);
+				bytes[i+2] = (byte)(0x80 | chars[a] & 0x3F);
+				i+=3;
+			}
+		}
+		return bytes;
+	}
+
+}
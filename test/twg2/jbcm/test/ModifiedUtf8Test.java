@@ -0,0 +1,45 @@
+package twg2.jbcm.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.ModifiedUtf8;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class ModifiedUtf8Test {
+	private static final String[] STRINGS = { "", "java/lang/Object", "(Ljava/lang/String;)V", "caf\u00E9", "\u0000null\u0000", "\u20AC \u4E2D\u6587 \uD83D\uDE00", "\u07FF\u0800\uFFFF" };
+
+	@Test
+	public void encodeDecode() throws IOException {
+		for(String str : STRINGS) {
+			// DataOutput.writeUTF() uses the same modified UTF-8 format as class files
+			var bytesOut = new ByteArrayOutputStream();
+			new DataOutputStream(bytesOut).writeUTF(str);
+			byte[] expect = bytesOut.toByteArray();
+			int len = expect.length - 2;
+
+			byte[] bytes = ModifiedUtf8.encode(str);
+			Assert.assertEquals(len, ModifiedUtf8.encodedLength(str));
+			Assert.assertArrayEquals(Arrays.copyOfRange(expect, 2, expect.length), bytes);
+			Assert.assertEquals(str, ModifiedUtf8.decode(expect, 2, len));
+			Assert.assertEquals(str, ModifiedUtf8.decode(ByteBuffer.allocateDirect(expect.length).put(expect), 2, len));
+
+			Assert.assertTrue(ModifiedUtf8.equals(expect, 2, len, str));
+			Assert.assertFalse(ModifiedUtf8.equals(expect, 2, len, str + "a"));
+			if(str.length() > 0) {
+				Assert.assertFalse(ModifiedUtf8.equals(expect, 2, len, str.substring(1)));
+				Assert.assertFalse(ModifiedUtf8.equals(expect, 2, len - 1, str));
+			}
+		}
+	}
+
+}
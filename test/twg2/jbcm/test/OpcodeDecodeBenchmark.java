@@ -0,0 +1,118 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import twg2.jbcm.IoUtility;
+import twg2.jbcm.OpcodeTables;
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.attributes.Code;
+
+/** Compares {@link OpcodeTables} based instruction decoding to the previous {@link Opcodes} enum lookup based decoding.
+ * Run with {@code java twg2.jbcm.test.OpcodeDecodeBenchmark [iterations]}
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class OpcodeDecodeBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+		List<byte[]> codes = new ArrayList<>();
+		for(String fileName : new String[] { "res/destination/classLoading/base/Test.class", "res/destination/classLoading/SubReload.class", "examples/ExampleMain.class" }) {
+			ClassFile classFile = ClassFile.load(Paths.get(fileName));
+			for(int i = 0, size = classFile.getMethodCount(); i < size; i++) {
+				Code code = classFile.getMethod(i).getCode();
+				if(code != null) {
+					codes.add(code.getCode());
+				}
+			}
+		}
+		byte[][] codeArrays = codes.toArray(new byte[0][]);
+
+		// warmup
+		for(int k = 0; k < 3; k++) {
+			decodeLegacy(codeArrays, iterations / 4);
+			decodeTables(codeArrays, iterations / 4);
+		}
+
+		long t0 = System.nanoTime();
+		long r0 = decodeLegacy(codeArrays, iterations);
+		long t1 = System.nanoTime();
+		long r1 = decodeTables(codeArrays, iterations);
+		long t2 = System.nanoTime();
+
+		System.out.println("decode (" + codeArrays.length + " methods x " + iterations + "):");
+		System.out.println("  legacy " + (t1 - t0) / 1000000 + " ms, OpcodeTables " + (t2 - t1) / 1000000 + " ms" + (r0 == r1 ? "" : " (results differ " + r0 + " != " + r1 + ")"));
+	}
+
+
+	/** Walk each code array, summing the constant pool index operands and the number of jump instructions */
+	private static long decodeLegacy(byte[][] codes, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(byte[] code : codes) {
+				for(int i = 0, size = code.length; i < size; ) {
+					Opcodes opc = Opcodes.get(code[i]);
+					if(opc.hasBehavior(Opcodes.Type.CP_INDEX)) {
+						res += opc == Opcodes.LDC ? code[i + 1] & 0xFF : IoUtility.readShort(code, i + 1) & 0xFFFF;
+					}
+					else if(opc.hasBehavior(Opcodes.Type.JUMP)) {
+						res++;
+					}
+					i += legacyInstructionLength(code, i);
+				}
+			}
+		}
+		return res;
+	}
+
+
+	private static long decodeTables(byte[][] codes, int iterations) {
+		long res = 0;
+		for(int k = 0; k < iterations; k++) {
+			for(byte[] code : codes) {
+				for(int i = 0, size = code.length; i < size; ) {
+					int opcode = code[i];
+					if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.CP_INDEX)) {
+						res += Opcodes.LDC.is(opcode) ? code[i + 1] & 0xFF : IoUtility.readShort(code, i + 1) & 0xFFFF;
+					}
+					else if(OpcodeTables.hasBehavior(opcode, Opcodes.Type.JUMP)) {
+						res++;
+					}
+					i += OpcodeTables.instructionLength(code, i);
+				}
+			}
+		}
+		return res;
+	}
+
+
+	/** The previous CodeUtility.instructionLength() */
+	private static int legacyInstructionLength(byte[] code, int index) {
+		Opcodes opc = Opcodes.get(code[index]);
+		int numOperands = opc.getOperandCount();
+		if(numOperands >= 0 && opc != Opcodes.UNDEFINED) {
+			return 1 + numOperands;
+		}
+		if(Opcodes.WIDE.is(code[index])) {
+			return Opcodes.IINC.is(code[index + 1]) ? 6 : 4;
+		}
+		else if(Opcodes.TABLESWITCH.is(code[index])) {
+			int pos = (index + 4) & ~3;
+			int low = IoUtility.readInt(code, pos + 4);
+			int high = IoUtility.readInt(code, pos + 8);
+			return (pos - index) + 12 + (high - low + 1) * 4;
+		}
+		else if(Opcodes.LOOKUPSWITCH.is(code[index])) {
+			int pos = (index + 4) & ~3;
+			int npairs = IoUtility.readInt(code, pos + 4);
+			return (pos - index) + 8 + npairs * 8;
+		}
+		throw new IllegalStateException("unknown or reserved opcode " + (code[index] & 0xFF) + " at code index " + index);
+	}
+
+}
@@ -0,0 +1,155 @@
+package twg2.jbcm.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.Opcodes;
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.modify.ClassHierarchy;
+import twg2.jbcm.modify.CodeBuilder;
+import twg2.jbcm.modify.ConstantPoolBuilder;
+import twg2.jbcm.modify.PeepholeOptimizer;
+import twg2.jbcm.modify.StackMapFrameComputer;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class PeepholeOptimizerTest {
+
+	/** Methods whose code is replaced with unoptimized code by the tests */
+	public static class Target {
+		public static int compute(int x) {
+			return x;
+		}
+
+		public static double forms() {
+			return 0;
+		}
+
+		public static int dead(int x) {
+			return x;
+		}
+
+		public static int loop(int n) {
+			int total = 0;
+			for(int i = 0; i < n; i++) {
+				total += (i & 1) == 0 ? i : -i;
+			}
+			return total;
+		}
+	}
+
+
+	@Test
+	public void optimizePasses() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Target.class);
+		var cpBuilder = new ConstantPoolBuilder(classFile);
+		var hierarchy = ClassHierarchy.fromClassLoader(getClass().getClassLoader());
+
+		// jump chains, nops, load/store pairs, constant folding, and a bipush of a small constant
+		var cb = new CodeBuilder(cpBuilder);
+		CodeBuilder.Label chain1 = cb.newLabel(), chain2 = cb.newLabel(), end = cb.newLabel();
+		cb.varInsn(Opcodes.ILOAD, 0).varInsn(Opcodes.ISTORE, 0).insn(Opcodes.NOP);
+		cb.intInsn(Opcodes.SIPUSH, 1000).intInsn(Opcodes.SIPUSH, 1000).insn(Opcodes.IMUL);
+		cb.varInsn(Opcodes.ISTORE, 4).varInsn(Opcodes.ILOAD, 4).varInsn(Opcodes.ILOAD, 0).insn(Opcodes.IADD).varInsn(Opcodes.ISTORE, 1);
+		cb.varInsn(Opcodes.ILOAD, 0).jump(Opcodes.IFEQ, chain1);
+		cb.intInsn(Opcodes.BIPUSH, 3).varInsn(Opcodes.ILOAD, 1).insn(Opcodes.IADD).varInsn(Opcodes.ISTORE, 1).jump(Opcodes.GOTO, end);
+		// only reached through the ifeq, unreachable once the ifeq targets the end of the chain
+		cb.mark(chain1).jump(Opcodes.GOTO, chain2);
+		cb.mark(chain2).jump(Opcodes.GOTO, end);
+		cb.mark(end).varInsn(Opcodes.ILOAD, 1).insn(Opcodes.IRETURN);
+		Method_Info compute = ClassFileTestUtil.findMethod(classFile, "compute");
+		cb.replaceCode(compute.getCode());
+		StackMapFrameComputer.update(compute, hierarchy, cpBuilder);
+		int computeLength = compute.getCode().getCode().length;
+
+		// constants with shorter push forms, -0.0 does not have one
+		cb = new CodeBuilder(cpBuilder);
+		cb.cpInsn(Opcodes.LDC2_W, cpBuilder.getOrAddDouble(1.0)).cpInsn(Opcodes.LDC_W, cpBuilder.getOrAddFloat(2f)).insn(Opcodes.F2D).insn(Opcodes.DADD);
+		cb.cpInsn(Opcodes.LDC2_W, cpBuilder.getOrAddDouble(-0.0)).insn(Opcodes.DADD);
+		cb.cpInsn(Opcodes.LDC2_W, cpBuilder.getOrAddLong(1)).insn(Opcodes.L2D).insn(Opcodes.DADD);
+		cb.cpInsn(Opcodes.LDC_W, cpBuilder.getOrAddString("abc")).methodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I").insn(Opcodes.I2D).insn(Opcodes.DADD);
+		cb.insn(Opcodes.DRETURN);
+		Method_Info forms = ClassFileTestUtil.findMethod(classFile, "forms");
+		cb.replaceCode(forms.getCode());
+
+		// an exception handler which only covers unreachable code
+		cb = new CodeBuilder(cpBuilder);
+		CodeBuilder.Label tryStart = cb.newLabel(), tryEnd = cb.newLabel(), handler = cb.newLabel();
+		cb.iconst(1).insn(Opcodes.IRETURN);
+		cb.mark(tryStart).insn(Opcodes.ACONST_NULL).insn(Opcodes.ATHROW).mark(tryEnd);
+		cb.mark(handler).varInsn(Opcodes.ASTORE, 1).iconst(2).insn(Opcodes.IRETURN);
+		cb.tryCatch(tryStart, tryEnd, handler, "java/lang/RuntimeException");
+		Method_Info dead = ClassFileTestUtil.findMethod(classFile, "dead");
+		cb.replaceCode(dead.getCode());
+		Assert.assertEquals(1, dead.getCode().getExceptionTable().length);
+
+		var optimizer = PeepholeOptimizer.withDefaultPasses(cpBuilder, hierarchy);
+		optimizer.optimizeAll(classFile);
+
+		int saved = 0;
+		for(int i = 0; i < optimizer.getPassCount(); i++) {
+			String name = optimizer.getPass(i).getName();
+			Assert.assertTrue(name, optimizer.getRewriteCount(i) > 0);
+			Assert.assertTrue(optimizer.toString().contains(name));
+			saved += optimizer.getSavedBytes(i);
+		}
+		Assert.assertEquals(saved, optimizer.getTotalSavedBytes());
+		Assert.assertTrue(optimizer.getChangedMethodCount() >= 3);
+
+		// the ifeq now targets the final iload_1, the gotos are removed, and 1000 * 1000 is loaded with ldc
+		byte[] code = compute.getCode().getCode();
+		Assert.assertTrue(code.length < computeLength);
+		Assert.assertEquals(Opcodes.LDC.opcode(), code[0] & 0xFF);
+		for(int i = 0, size = compute.getCode().getInstructionIndex().size(); i < size; i++) {
+			Opcodes opcode = compute.getCode().getInstructionIndex().getOpcode(i);
+			Assert.assertTrue(opcode.displayName(), opcode != Opcodes.NOP && opcode != Opcodes.GOTO && opcode != Opcodes.BIPUSH && opcode != Opcodes.SIPUSH);
+		}
+
+		code = forms.getCode().getCode();
+		Assert.assertEquals(Opcodes.DCONST_1.opcode(), code[0] & 0xFF);
+		Assert.assertEquals(Opcodes.FCONST_2.opcode(), code[1] & 0xFF);
+		Assert.assertEquals(Opcodes.LDC2_W.opcode(), code[4] & 0xFF);
+		Assert.assertEquals(Opcodes.LCONST_1.opcode(), code[8] & 0xFF);
+		Assert.assertEquals(Opcodes.LDC.opcode(), code[11] & 0xFF);
+
+		Code deadCode = dead.getCode();
+		Assert.assertEquals(2, deadCode.getCode().length);
+		Assert.assertEquals(0, deadCode.getExceptionTable().length);
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertEquals(1000000, cls.getMethod("compute", int.class).invoke(null, 0));
+		Assert.assertEquals(1000008, cls.getMethod("compute", int.class).invoke(null, 5));
+		Assert.assertEquals(7.0, cls.getMethod("forms").invoke(null));
+		Assert.assertEquals(1, cls.getMethod("dead", int.class).invoke(null, 5));
+		Assert.assertEquals(Target.loop(7), cls.getMethod("loop", int.class).invoke(null, 7));
+	}
+
+
+	@Test
+	public void replaceInstructions() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Target.class);
+		Code code = ClassFileTestUtil.findMethod(classFile, "dead").getCode();
+		var index = code.getInstructionIndex();
+		// iload_0, ireturn
+		byte[][] replacements = new byte[index.size()][];
+		replacements[0] = new byte[] { (byte)Opcodes.BIPUSH.opcode(), 42 };
+		var remapper = code.replaceInstructions(replacements);
+		Assert.assertEquals(2, remapper.getOldCodeLength());
+		Assert.assertEquals(3, remapper.getNewCodeLength());
+		Assert.assertEquals(2, remapper.getNewOffset(1));
+		Assert.assertEquals(42, ClassFileTestUtil.defineClass(classFile).getMethod("dead", int.class).invoke(null, 5));
+
+		try {
+			code.replaceInstructions(new byte[1][]);
+			Assert.fail("expected replacement count mismatch");
+		} catch(IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package twg2.jbcm.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+import twg2.jbcm.classFormat.attributes.Code;
+import twg2.jbcm.classFormat.attributes.StackMapTable;
+import twg2.jbcm.classFormat.attributes.VerificationTypeInfo;
+import twg2.jbcm.modify.ClassHierarchy;
+import twg2.jbcm.modify.ConstantPoolBuilder;
+import twg2.jbcm.modify.StackMapFrameComputer;
+import twg2.jbcm.modify.TypeUtility;
+import twg2.jbcm.testParser.ClassFileTestUtil;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class StackMapFrameComputerTest {
+
+	/** Methods whose frames use every compressed frame kind, reloaded after recomputing their frames */
+	public static class Sample {
+		public static int calls;
+		private final Object value;
+
+		public Sample() {
+			this(calls > 100 ? "many" : null);
+		}
+
+		public Sample(Object value) {
+			this.value = value != null ? value : "none";
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public static long sum(int[] values) {
+			long total = 0;
+			for(int i = 0; i < values.length; i++) {
+				total += values[i];
+			}
+			return total;
+		}
+
+		public static Number pick(boolean flag) {
+			return flag ? (Number)Integer.valueOf(1) : Long.valueOf(2);
+		}
+
+		public static int parse(String str) {
+			try {
+				return Integer.parseInt(str);
+			} catch(NumberFormatException ex) {
+				return -1;
+			}
+		}
+
+		public static int scale(int x) {
+			int y = x * 2;
+			return x + (y > 3 ? 1 : 2);
+		}
+
+		public static int length(int x) {
+			int r = 0;
+			if(x > 0) {
+				String str = "a";
+				if(x > 1) {
+					r = str.length();
+				}
+				r++;
+			}
+			return r;
+		}
+
+		public static String describe(int x) {
+			switch(x) {
+			case 0: return "zero";
+			case 1: return "one";
+			default: return "many";
+			}
+		}
+
+		public static void count() {
+			calls++;
+		}
+	}
+
+
+	@Test
+	public void recomputeFrames() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Sample.class);
+		var hierarchy = ClassHierarchy.fromClassLoader(getClass().getClassLoader());
+		Assert.assertEquals(classFile.getMethodCount(), StackMapFrameComputer.updateAll(classFile, hierarchy));
+
+		// every compressed frame kind is used
+		int[] kinds = new int[5];
+		for(int i = 0; i < classFile.getMethodCount(); i++) {
+			var table = (StackMapTable)classFile.getMethod(i).getCode().getAttribute(StackMapTable.ATTRIBUTE_NAME);
+			for(int j = 0; table != null && j < table.getEntryCount(); j++) {
+				int type = table.getEntry(j).getFrameType();
+				kinds[type < 64 || type == 251 ? 0 : (type < 128 || type == 247 ? 1 : (type < 251 ? 2 : (type < 255 ? 3 : 4)))]++;
+			}
+		}
+		for(int i = 0; i < kinds.length; i++) {
+			Assert.assertTrue("frame kind " + i, kinds[i] > 0);
+		}
+
+		// merged reference types
+		var pickFrames = (StackMapTable)ClassFileTestUtil.findMethod(classFile, "pick").getCode().getAttribute(StackMapTable.ATTRIBUTE_NAME);
+		VerificationTypeInfo merged = pickFrames.getEntry(pickFrames.getEntryCount() - 1).getStack()[0];
+		Assert.assertEquals(VerificationTypeInfo.OBJECT, merged.getTag());
+		Assert.assertEquals("java/lang/Number", merged.getCpoolIndex().getCpObject().getName().getString());
+
+		// the JVM type checks the recomputed frames when the class is loaded
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertNotSame(Sample.class, cls);
+		Assert.assertEquals(6L, cls.getMethod("sum", int[].class).invoke(null, new int[] { 1, 2, 3 }));
+		Assert.assertEquals(2L, cls.getMethod("pick", boolean.class).invoke(null, false));
+		Assert.assertEquals(-1, cls.getMethod("parse", String.class).invoke(null, "x"));
+		Assert.assertEquals(6, cls.getMethod("scale", int.class).invoke(null, 5));
+		Assert.assertEquals(2, cls.getMethod("length", int.class).invoke(null, 2));
+		Assert.assertEquals("one", cls.getMethod("describe", int.class).invoke(null, 1));
+		Assert.assertEquals("none", cls.getMethod("getValue").invoke(cls.getConstructor().newInstance()));
+	}
+
+
+	@Test
+	public void modifiedCode() throws Exception {
+		ClassFile classFile = ClassFileTestUtil.loadClassFile(Sample.class);
+		var cpBuilder = new ConstantPoolBuilder(classFile);
+		var hierarchy = ClassHierarchy.fromClassLoader(getClass().getClassLoader());
+
+		// a call prepended to a method with a loop moves every frame
+		Method_Info sum = ClassFileTestUtil.findMethod(classFile, "sum");
+		TypeUtility.addMethodCall(sum.getCode(), cpBuilder.getOrAddMethodref(classFile.getClassIndex().getCpObject().getName().getString(), "count", "()V"), null);
+		StackMapFrameComputer.update(sum, hierarchy, cpBuilder);
+
+		// unreachable code after a return is replaced and gets a frame
+		Method_Info scale = ClassFileTestUtil.findMethod(classFile, "scale");
+		Code code = scale.getCode();
+		code.setCode(new byte[] { 0x1A, (byte)0xAC, 0x04, 0x3C, 0x1B, (byte)0xAC }); // iload_0, ireturn, iconst_1, istore_1, iload_1, ireturn
+		var table = StackMapFrameComputer.update(scale, hierarchy, cpBuilder);
+		Assert.assertArrayEquals(new byte[] { 0x1A, (byte)0xAC, 0x00, 0x00, 0x00, (byte)0xBF }, code.getCode());
+		Assert.assertEquals(1, table.getEntryCount());
+		Assert.assertEquals(255, table.getEntry(0).getFrameType());
+		Assert.assertEquals(2, table.getEntry(0).getOffsetDelta());
+		Assert.assertEquals(0, table.getEntry(0).getLocals().length);
+
+		Class<?> cls = ClassFileTestUtil.defineClass(classFile);
+		Assert.assertEquals(6L, cls.getMethod("sum", int[].class).invoke(null, new int[] { 1, 2, 3 }));
+		Assert.assertEquals(1, cls.getField("calls").get(null));
+		Assert.assertEquals(5, cls.getMethod("scale", int.class).invoke(null, 5));
+	}
+
+}
@@ -0,0 +1,43 @@
+package twg2.jbcm.test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.ParseOptions;
+import twg2.jbcm.classFormat.Utf8Pool;
+
+/**
+ * @author TeamworkGuy2
+ * @since 2026-10-17
+ */
+public class Utf8PoolTest {
+
+	@Test
+	public void sharedStrings() throws IOException {
+		Utf8Pool pool = new Utf8Pool();
+		ParseOptions options = ParseOptions.STRICT.withUtf8Pool(pool);
+
+		ClassFile classA = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"), options);
+		long missesA = pool.getMisses();
+		Assert.assertEquals(pool.size(), missesA);
+
+		ClassFile classB = ClassFile.load(Paths.get("res/destination/classLoading/SubReload.class"), options.withLazyConstantPool(true));
+		Assert.assertTrue(pool.getHits() > 0);
+		Assert.assertTrue(pool.getBytesSaved() > 0);
+		Assert.assertEquals(pool.size(), pool.getMisses());
+
+		var codeA = classA.findConstantPoolString("Code");
+		var codeB = classB.findConstantPoolString("Code");
+		Assert.assertSame(codeA.getCpObject().getString(), codeB.getCpObject().getString());
+
+		// unpooled loads are unaffected
+		ClassFile classC = ClassFile.load(Paths.get("res/destination/classLoading/base/Test.class"));
+		Assert.assertNotSame(codeA.getCpObject().getString(), classC.findConstantPoolString("Code").getCpObject().getString());
+		Assert.assertEquals(pool.size(), pool.getMisses());
+	}
+
+}
@@ -0,0 +1,63 @@
+package twg2.jbcm.testParser;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import twg2.jbcm.classFormat.ClassFile;
+import twg2.jbcm.classFormat.Method_Info;
+
+/** Load the class files of test fixture classes, modify them, and define the modified classes
+ * @author TeamworkGuy2
+ * @since 2026-10-18
+ */
+public class ClassFileTestUtil {
+
+	/** Load the class file of a class compiled with the tests, i.e. a nested fixture class
+	 * @param cls the class, loaded from the test class path
+	 * @return the parsed class file
+	 */
+	public static ClassFile loadClassFile(Class<?> cls) throws IOException {
+		String fileName = cls.getName().substring(cls.getPackageName().length() + 1) + ".class";
+		try(var in = cls.getResourceAsStream(fileName)) {
+			return ClassFile.load(in.readAllBytes(), fileName);
+		}
+	}
+
+
+	/**
+	 * @return the first method in the class file with the specified name
+	 * @throws IllegalArgumentException if the class file has no method with that name
+	 */
+	public static Method_Info findMethod(ClassFile classFile, String name) {
+		for(int i = 0; i < classFile.getMethodCount(); i++) {
+			if(name.equals(classFile.getMethod(i).getName().getString())) {
+				return classFile.getMethod(i);
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+
+	/** Define a class file in a new child-first class loader and initialize it, which verifies it.
+	 * The class is defined even if a class with the same name is already loaded by the test class loader.
+	 * @param classFile the class file to define
+	 * @return the initialized class
+	 */
+	public static Class<?> defineClass(ClassFile classFile) throws ClassNotFoundException {
+		String name = classFile.getClassIndex().getCpObject().getName().getString().replace('/', '.');
+		byte[] bytes = classFile.toByteArray();
+		Map<String, Class<?>> defined = new HashMap<>();
+		var loader = new ClassLoader(ClassFileTestUtil.class.getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+				if(className.equals(name)) {
+					return defined.computeIfAbsent(className, (n) -> defineClass(n, bytes, 0, bytes.length));
+				}
+				return super.loadClass(className, resolve);
+			}
+		};
+		return Class.forName(name, true, loader);
+	}
+
+}